@@ -7,6 +7,7 @@ package dev.galasa.framework.api.runs.common;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.ServletException;
@@ -24,6 +25,7 @@ import dev.galasa.framework.api.common.ResponseBuilder;
 import dev.galasa.framework.api.common.ServletError;
 import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.RunRequest;
 import dev.galasa.framework.spi.utils.GalasaGson;
 
 import static dev.galasa.framework.api.common.ServletErrorMessage.*;
@@ -83,38 +85,70 @@ public class GroupRuns extends BaseRoute {
             
         ScheduleStatus status = new ScheduleStatus();
         status.setComplete(false);
-            
-        for (String className : request.getClassNames()) {
-            // className is in format bundle/testClass
-            String[] classNameSplit = className.split("/");
 
-            SharedEnvironmentPhase senvPhase = null;
-            String sharedEnvironmentPhase = request.getSharedEnvironmentPhase();
-            if (sharedEnvironmentPhase != null) {
+        SharedEnvironmentPhase senvPhase = null;
+        String sharedEnvironmentPhase = request.getSharedEnvironmentPhase();
+        if (sharedEnvironmentPhase != null) {
+            try {
+                senvPhase = SharedEnvironmentPhase.valueOf(request.getSharedEnvironmentPhase());
+            } catch (Throwable t) {
+                ServletError error = new ServletError(GAL5022_UNABLE_TO_PARSE_SHARED_ENVIRONMENT_PHASE,sharedEnvironmentPhase);
+                throw new InternalServletException(error, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, t);
+            }
+        }
+
+        if(jwtRequestor == null){
+            jwtRequestor = request.getRequestor(); 
+        }
+
+        // Shared environment phases act on a single named run, so are submitted one by one
+        if (senvPhase != null) {
+            for (String className : request.getClassNames()) {
+                // className is in format bundle/testClass
+                String[] classNameSplit = className.split("/");
                 try {
-                    senvPhase = SharedEnvironmentPhase.valueOf(request.getSharedEnvironmentPhase());
-                } catch (Throwable t) {
-                    ServletError error = new ServletError(GAL5022_UNABLE_TO_PARSE_SHARED_ENVIRONMENT_PHASE,sharedEnvironmentPhase);
-                    throw new InternalServletException(error, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, t);
+                    IRun newRun = framework.getFrameworkRuns().submitRun(request.getRequestorType(), jwtRequestor, classNameSplit[0], classNameSplit[1],
+                            groupName, request.getMavenRepository(), request.getObr(), request.getTestStream(), false,
+                            request.isTrace(), request.getOverrides(), 
+                            senvPhase, 
+                            request.getSharedEnvironmentRunName(),
+                            "java");
+                    
+                    status.getRuns().add(newRun.getSerializedRun());
+                } catch (FrameworkException fe) {
+                    ServletError error = new ServletError(GAL5021_UNABLE_TO_SUBMIT_RUNS, className);  
+                    throw new InternalServletException(error, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, fe);
                 }
             }
+            return status;
+        }
 
-            if(jwtRequestor == null){
-                jwtRequestor = request.getRequestor(); 
-            }
-            try {
-                IRun newRun = framework.getFrameworkRuns().submitRun(request.getRequestorType(), jwtRequestor, classNameSplit[0], classNameSplit[1],
-                        groupName, request.getMavenRepository(), request.getObr(), request.getTestStream(), false,
-                        request.isTrace(), request.getOverrides(), 
-                        senvPhase, 
-                        request.getSharedEnvironmentRunName(),
-                        "java");
-                
+        // Otherwise all the runs are submitted together
+        List<RunRequest> runRequests = new ArrayList<>();
+        for (String className : request.getClassNames()) {
+            // className is in format bundle/testClass
+            String[] classNameSplit = className.split("/");
+
+            RunRequest runRequest = new RunRequest(classNameSplit[0], classNameSplit[1]);
+            runRequest.setType(request.getRequestorType());
+            runRequest.setRequestor(jwtRequestor);
+            runRequest.setGroupName(groupName);
+            runRequest.setMavenRepository(request.getMavenRepository());
+            runRequest.setObr(request.getObr());
+            runRequest.setStream(request.getTestStream());
+            runRequest.setTrace(request.isTrace());
+            runRequest.setOverrides(request.getOverrides());
+            runRequest.setLanguage("java");
+            runRequests.add(runRequest);
+        }
+
+        try {
+            for (IRun newRun : framework.getFrameworkRuns().submitRuns(runRequests)) {
                 status.getRuns().add(newRun.getSerializedRun());
-            } catch (FrameworkException fe) {
-                ServletError error = new ServletError(GAL5021_UNABLE_TO_SUBMIT_RUNS, className);  
-                throw new InternalServletException(error, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, fe);
             }
+        } catch (FrameworkException fe) {
+            ServletError error = new ServletError(GAL5021_UNABLE_TO_SUBMIT_RUNS, String.join(", ", request.getClassNames()));  
+            throw new InternalServletException(error, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, fe);
         }
         return status;
     }
@@ -29,6 +29,7 @@ import com.github.dockerjava.api.model.Container;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.utils.DssUtils;
 import io.prometheus.client.Counter;
 
 public class RunPoll implements Runnable {
@@ -132,7 +133,7 @@ public class RunPoll implements Runnable {
             // *** First attempt to allocate the run to this controller
             HashMap<String, String> props = new HashMap<>();
             props.put("run." + runName + ".controller", settings.getPodName());
-            if (!this.dss.putSwap("run." + runName + ".status", "queued", "allocated", props)) {
+            if (!DssUtils.swapRunStatus(this.dss, runName, "queued", "allocated", props)) {
                 logger.info("run allocated by another controller");
                 return;
             }
@@ -25,6 +25,7 @@ import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IRun;
 import dev.galasa.framework.spi.SystemEnvironment;
+import dev.galasa.framework.spi.utils.DssUtils;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.kubernetes.client.openapi.models.V1Affinity;
@@ -155,7 +156,7 @@ public class RunPoll implements Runnable {
             props.put("run." + runName + ".controller", settings.getPodName());
             props.put("run." + runName + ".allocated", now.toString());
             props.put("run." + runName + ".allocate.timeout", expire.toString());
-            if (!this.dss.putSwap("run." + runName + ".status", "queued", "allocated", props)) {
+            if (!DssUtils.swapRunStatus(this.dss, runName, "queued", "allocated", props)) {
                 logger.info("run allocated by another controller");
                 return;
             }
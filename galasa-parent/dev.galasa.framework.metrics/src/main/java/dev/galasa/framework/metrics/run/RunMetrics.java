@@ -11,12 +11,12 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.annotations.Component;
 
-import dev.galasa.framework.spi.AbstractManager;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IMetricsProvider;
 import dev.galasa.framework.spi.IMetricsServer;
 import dev.galasa.framework.spi.MetricsServerException;
+import dev.galasa.framework.spi.utils.DssUtils;
 import io.prometheus.client.Gauge;
 
 @Component(service = { IMetricsProvider.class })
@@ -68,29 +68,16 @@ public class RunMetrics implements IMetricsProvider, Runnable {
         ;
 
         try {
-            // *** Local runs
-            String sLocalRun = AbstractManager.nulled(dss.get("metrics.runs.local"));
-            if (sLocalRun == null) {
-                this.localRuns.set(0.0);
-            } else {
-                this.localRuns.set(Double.parseDouble(sLocalRun));
-            }
+            // *** The counters are sharded, each is summed from one read of its shards
 
             // *** Local runs
-            String sAutomatedRun = AbstractManager.nulled(dss.get("metrics.runs.automated"));
-            if (sAutomatedRun == null) {
-                this.automatedRuns.set(0.0);
-            } else {
-                this.automatedRuns.set(Double.parseDouble(sAutomatedRun));
-            }
+            this.localRuns.set(DssUtils.getShardedCounter(dss, "metrics.runs.local"));
 
-            // *** Local runs
-            String sWaitRun = AbstractManager.nulled(dss.get("metrics.runs.made.to.wait"));
-            if (sWaitRun == null) {
-                this.waitRuns.set(0.0);
-            } else {
-                this.waitRuns.set(Double.parseDouble(sWaitRun));
-            }
+            // *** Automated runs
+            this.automatedRuns.set(DssUtils.getShardedCounter(dss, "metrics.runs.automated"));
+
+            // *** Runs made to wait
+            this.waitRuns.set(DssUtils.getShardedCounter(dss, "metrics.runs.made.to.wait"));
 
             this.metricsServer.metricsPollSuccessful();
         } catch (Exception e) {
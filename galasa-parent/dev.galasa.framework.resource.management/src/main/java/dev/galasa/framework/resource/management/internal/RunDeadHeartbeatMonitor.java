@@ -10,6 +10,8 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -18,18 +20,35 @@ import dev.galasa.framework.spi.AbstractManager;
 import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
+import dev.galasa.framework.spi.IDynamicStatusStoreWatcher;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IResourceManagement;
 import dev.galasa.framework.spi.IRun;
 
-public class RunDeadHeartbeatMonitor implements Runnable {
+/**
+ * <p>
+ * Resets, or deletes if local, the runs whose engine has died.
+ * </p>
+ * 
+ * <p>
+ * A run with a timestamp heartbeat is dead once the timestamp is older than
+ * the dead heartbeat timeout, which is checked on each scan. A run with a
+ * heartbeat lease is dead once the lease has expired and the DSS has deleted
+ * the heartbeat. That is picked up straight away by watching for the heartbeat
+ * being deleted, the scan only catches the expiries missed while this process
+ * was not running.
+ * </p>
+ */
+public class RunDeadHeartbeatMonitor implements Runnable, IDynamicStatusStoreWatcher {
 
     private final IResourceManagement                resourceManagement;
     private final IConfigurationPropertyStoreService cps;
     private final IFrameworkRuns                     frameworkRuns;
     private final Log                                logger = LogFactory.getLog(this.getClass());
 
+    private final Pattern                            heartbeatPattern = Pattern.compile("^\\Qrun.\\E(\\w+)\\Q.heartbeat\\E$");
+
     private final DateTimeFormatter                  dtf    = DateTimeFormatter.ofPattern("yyyy-MM-dd hh:mm:ss")
             .withZone(ZoneId.systemDefault());
 
@@ -69,6 +88,14 @@ public class RunDeadHeartbeatMonitor implements Runnable {
                 logger.trace("Checking run " + runName);
 
                 Instant heartbeat = run.getHeartbeat();
+                if (run.getHeartbeatLease() != null) {
+                    if (heartbeat == null) {
+                        deadRun(run, "the heartbeat lease has expired");
+                    } else {
+                        logger.trace("Run " + runName + " heartbeat lease is ok");
+                    }
+                    continue;
+                }
                 if (heartbeat == null) {
                     logger.warn("Active run without heartbeat = " + runName + " ignoring");
                     continue;
@@ -79,14 +106,7 @@ public class RunDeadHeartbeatMonitor implements Runnable {
                 if (expires.compareTo(now) <= 0) {
                     logger.trace("Run " + runName + " has a dead heartbeat");
                     String lastHeartbeat = dtf.format(LocalDateTime.ofInstant(heartbeat, ZoneId.systemDefault()));
-                    if (run.isLocal()) {
-                        /// TODO put time management into the framework
-                        logger.warn("Deleting run " + runName + ", last heartbeat was at " + lastHeartbeat);
-                        this.frameworkRuns.delete(runName);
-                    } else {
-                        logger.warn("Reseting run " + runName + ", last heartbeat was at " + lastHeartbeat);
-                        this.frameworkRuns.reset(runName);
-                    }
+                    deadRun(run, "last heartbeat was at " + lastHeartbeat);
                 } else {
                     logger.trace("Run " + runName + " heartbeat is ok");
                 }
@@ -99,4 +119,53 @@ public class RunDeadHeartbeatMonitor implements Runnable {
         logger.info("Finished Run Dead Heartbeat search");
     }
 
+    private void deadRun(IRun run, String reason) throws FrameworkException {
+        String runName = run.getName();
+        if (run.isLocal()) {
+            /// TODO put time management into the framework
+            logger.warn("Deleting run " + runName + ", " + reason);
+            this.frameworkRuns.delete(runName);
+        } else {
+            logger.warn("Reseting run " + runName + ", " + reason);
+            this.frameworkRuns.reset(runName);
+        }
+    }
+
+    /**
+     * Called when a heartbeat is deleted. The run is checked on another thread,
+     * as the DSS may still be in the middle of the update.
+     */
+    @Override
+    public void propertyModified(String key, Event event, String oldValue, String newValue) {
+        if (event != Event.DELETE) {
+            return;
+        }
+        Matcher matcher = heartbeatPattern.matcher(key);
+        if (!matcher.matches()) {
+            return;
+        }
+
+        String runName = matcher.group(1);
+        this.resourceManagement.getScheduledExecutorService().execute(() -> checkLeasedRun(runName));
+    }
+
+    /**
+     * A run whose heartbeat has gone but which still has its lease id has had
+     * the lease expire. When a run ends or is reset, the heartbeat and lease id
+     * are deleted together.
+     */
+    void checkLeasedRun(String runName) {
+        try {
+            IRun run = this.frameworkRuns.getRun(runName);
+            if (run == null || run.isSharedEnvironment()) {
+                return;
+            }
+            if (run.getHeartbeatLease() != null && run.getHeartbeat() == null) {
+                deadRun(run, "the heartbeat lease has expired");
+            }
+        } catch (Throwable e) {
+            logger.error("Check of run " + runName + " failed", e);
+        }
+    }
+
 }
\ No newline at end of file
@@ -9,7 +9,6 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -22,6 +21,8 @@ import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IResourceManagement;
 import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.RunFilter;
+import dev.galasa.framework.spi.RunPage;
 
 public class RunFinishedRuns implements Runnable {
 
@@ -30,6 +31,8 @@ public class RunFinishedRuns implements Runnable {
     private final IFrameworkRuns                     frameworkRuns;
     private final Log                                logger = LogFactory.getLog(this.getClass());
 
+    private static final int                         PAGE_SIZE = 100;
+
     private final DateTimeFormatter                  dtf    = DateTimeFormatter.ofPattern("yyyy-MM-dd hh:mm:ss")
             .withZone(ZoneId.systemDefault());
 
@@ -57,25 +60,30 @@ public class RunFinishedRuns implements Runnable {
 
         logger.info("Starting Finished Run search");
         try {
-            List<IRun> runs = frameworkRuns.getAllRuns();
-            for (IRun run : runs) {
-                String runName = run.getName();
+            RunFilter filter = new RunFilter();
+            filter.setStatus("finished");
 
-                String status = run.getStatus();
-                if (!"finished".equals(status)) {
-                    continue;
-                }
+            // *** Page through the runs so they are not all built at once, unless every run
+            // *** has to be read to find them, when each page would read them all again
+            int pageSize = frameworkRuns.isIndexed(filter) ? PAGE_SIZE : Integer.MAX_VALUE;
+            String cursor = null;
+            do {
+                RunPage page = frameworkRuns.listRuns(filter, cursor, pageSize);
+                for (IRun run : page.getRuns()) {
+                    String runName = run.getName();
 
-                Instant finished = run.getFinished();
-                Instant expires = finished.plusSeconds(defaultFinishedDelete);
-                Instant now = Instant.now();
-                if (expires.compareTo(now) <= 0) {
-                    String sFinished = dtf.format(LocalDateTime.ofInstant(finished, ZoneId.systemDefault()));
-                    /// TODO put time management into the framework
-                    logger.info("Deleting run " + runName + ", finished at " + sFinished);
-                    this.frameworkRuns.delete(runName);
+                    Instant finished = run.getFinished();
+                    Instant expires = finished.plusSeconds(defaultFinishedDelete);
+                    Instant now = Instant.now();
+                    if (expires.compareTo(now) <= 0) {
+                        String sFinished = dtf.format(LocalDateTime.ofInstant(finished, ZoneId.systemDefault()));
+                        /// TODO put time management into the framework
+                        logger.info("Deleting run " + runName + ", finished at " + sFinished);
+                        this.frameworkRuns.delete(runName);
+                    }
                 }
-            }
+                cursor = page.getNextCursor();
+            } while (cursor != null);
         } catch (FrameworkException e) {
             logger.error("Scan of runs failed", e);
         }
@@ -5,6 +5,7 @@
  */
 package dev.galasa.framework.resource.management.internal;
 
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
@@ -26,6 +27,7 @@ public class RunResourceManagement implements IResourceManagementProvider {
     private IResourceManagement                resourceManagement;
     private IDynamicStatusStoreService         dss;
     private IConfigurationPropertyStoreService cps;
+    private UUID                               heartbeatWatchId;
 
     @Override
     public boolean initialise(IFramework framework, IResourceManagement resourceManagement)
@@ -46,9 +48,13 @@ public class RunResourceManagement implements IResourceManagementProvider {
     public void start() {
 
         try {
-            this.resourceManagement.getScheduledExecutorService().scheduleWithFixedDelay(
-                    new RunDeadHeartbeatMonitor(this.framework, this.resourceManagement, this.dss, this, cps),
+            RunDeadHeartbeatMonitor deadHeartbeatMonitor = new RunDeadHeartbeatMonitor(this.framework,
+                    this.resourceManagement, this.dss, this, cps);
+            this.resourceManagement.getScheduledExecutorService().scheduleWithFixedDelay(deadHeartbeatMonitor,
                     this.framework.getRandom().nextInt(20), 20, TimeUnit.SECONDS);
+
+            // *** Heartbeat leases which expire are seen as they happen
+            this.heartbeatWatchId = this.dss.watchPrefix(deadHeartbeatMonitor, "run.");
         } catch (FrameworkException e) {
             logger.error("Unable to initialise Run Dead Heartbeat monitor", e);
         }
@@ -77,6 +83,14 @@ public class RunResourceManagement implements IResourceManagementProvider {
 
     @Override
     public void shutdown() {
+        if (this.heartbeatWatchId != null) {
+            try {
+                this.dss.unwatch(this.heartbeatWatchId);
+            } catch (FrameworkException e) {
+                logger.error("Unable to stop watching the run heartbeats", e);
+            }
+            this.heartbeatWatchId = null;
+        }
     }
 
     @Override
@@ -6,7 +6,6 @@
 package dev.galasa.framework.resource.management.internal;
 
 import java.time.Instant;
-import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -18,6 +17,9 @@ import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IResourceManagement;
 import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.RunFilter;
+import dev.galasa.framework.spi.RunPage;
+import dev.galasa.framework.spi.utils.DssUtils;
 
 public class RunWaitingRuns implements Runnable {
 
@@ -26,6 +28,8 @@ public class RunWaitingRuns implements Runnable {
     private final IDynamicStatusStoreService dss;
     private final Log                        logger = LogFactory.getLog(this.getClass());
 
+    private static final int                 PAGE_SIZE = 100;
+
     protected RunWaitingRuns(IFramework framework, IResourceManagement resourceManagement,
             IDynamicStatusStoreService dss, RunResourceManagement runResourceManagement,
             IConfigurationPropertyStoreService cps) throws FrameworkException {
@@ -39,29 +43,34 @@ public class RunWaitingRuns implements Runnable {
     public void run() {
         logger.info("Starting Waiting Run search");
         try {
-            List<IRun> runs = frameworkRuns.getAllRuns();
-            for (IRun run : runs) {
-                String runName = run.getName();
+            RunFilter filter = new RunFilter();
+            filter.setStatus("waiting");
 
-                String status = run.getStatus();
-                if (!"waiting".equals(status)) {
-                    continue;
-                }
+            // *** Page through the runs so they are not all built at once, unless every run
+            // *** has to be read to find them, when each page would read them all again
+            int pageSize = frameworkRuns.isIndexed(filter) ? PAGE_SIZE : Integer.MAX_VALUE;
+            String cursor = null;
+            do {
+                RunPage page = frameworkRuns.listRuns(filter, cursor, pageSize);
+                for (IRun run : page.getRuns()) {
+                    String runName = run.getName();
 
-                Instant finished = run.getWaitUntil();
-                if (finished == null) {
-                    continue;
-                }
-                Instant now = Instant.now();
-                if (finished.compareTo(now) <= 0) {
-                    if (this.dss.putSwap("run." + run.getName() + ".status", "waiting", "queued")) {
-                        // *** Leave the queue time as is as we want the waiting runs to be actioned
-                        // before 1st time queued runs
-                        logger.info("Requeueing Waiting run " + runName);
-                        this.dss.delete("run." + run.getName() + ".wait.until");
+                    Instant finished = run.getWaitUntil();
+                    if (finished == null) {
+                        continue;
+                    }
+                    Instant now = Instant.now();
+                    if (finished.compareTo(now) <= 0) {
+                        if (DssUtils.swapRunStatus(this.dss, run.getName(), "waiting", "queued", null)) {
+                            // *** Leave the queue time as is as we want the waiting runs to be actioned
+                            // before 1st time queued runs
+                            logger.info("Requeueing Waiting run " + runName);
+                            this.dss.delete("run." + run.getName() + ".wait.until");
+                        }
                     }
                 }
-            }
+                cursor = page.getNextCursor();
+            } while (cursor != null);
         } catch (FrameworkException e) {
             logger.error("Scan of runs failed", e);
         }
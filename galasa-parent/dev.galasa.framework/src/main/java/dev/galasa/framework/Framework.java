@@ -6,8 +6,12 @@
 package dev.galasa.framework;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,7 +32,9 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.ServiceScope;
 
 import dev.galasa.framework.internal.auth.FrameworkAuthStoreService;
+import dev.galasa.framework.internal.cps.CachingConfigurationPropertyStore;
 import dev.galasa.framework.internal.cps.FrameworkConfigurationPropertyService;
+import dev.galasa.framework.internal.cps.FrozenConfigurationPropertyStore;
 import dev.galasa.framework.internal.creds.FrameworkCredentialsService;
 import dev.galasa.framework.internal.dss.FrameworkDynamicStatusStoreService;
 import dev.galasa.framework.internal.ras.FrameworkMultipleResultArchiveStore;
@@ -41,12 +47,15 @@ public class Framework implements IFramework {
 
     private final static Log                   logger           = LogFactory.getLog(Framework.class);
 
+    private static final long                  DEFAULT_CPS_CACHE_TTL_MILLISECS = 60000;
+    private static final int                   DEFAULT_CPS_CACHE_MAX_ENTRIES   = 10000;
+
     private static final Pattern               namespacePattern = Pattern.compile("[a-z0-9]+");
     private static final String                ERROR_MESSAGE_TEMPLATE_NAMESPACE_INVALID_CHARACTERS =
         "Invalid namespace '%s'. Valid namespaces are 1 or more characters of 'a'-'z' and '0'-'9'.";
 
     private Properties                         overrideProperties;
-    private final Properties                   recordProperties = new Properties();
+    private final Map<String, String>          recordProperties = new ConcurrentHashMap<>();
 
     private IConfigurationPropertyStore        cpsStore;
     private IDynamicStatusStore                dssStore;
@@ -128,7 +137,13 @@ public class Framework implements IFramework {
             throw new ConfigurationPropertyStoreException("Unable to provide Configuration Property Store", e);
         }
 
-        return new FrameworkConfigurationPropertyService(this, this.cpsStore, this.overrideProperties,
+        // *** Once the CPS is frozen the overrides are held in the snapshot
+        Properties overrides = this.overrideProperties;
+        if (this.cpsStore instanceof FrozenConfigurationPropertyStore) {
+            overrides = new Properties();
+        }
+
+        return new FrameworkConfigurationPropertyService(this, this.cpsStore, overrides,
                 this.recordProperties, namespace);
     }
 
@@ -194,7 +209,7 @@ public class Framework implements IFramework {
      */
     @Override
     public @NotNull IResourcePoolingService getResourcePoolingService() {
-        return new FrameworkResourcePoolingService();
+        return new FrameworkResourcePoolingService(getTestRunName());
     }
 
     /*
@@ -236,6 +251,84 @@ public class Framework implements IFramework {
 
         this.cpsStore = cpsStore;
         this.cpsFramework = getConfigurationPropertyService("framework");
+
+        IConfigurationPropertyStore cachingStore = createCpsCache(cpsStore);
+        if (cachingStore != cpsStore) {
+            this.cpsStore = cachingStore;
+            this.cpsFramework = getConfigurationPropertyService("framework");
+        }
+    }
+
+    /**
+     * Puts a read-through cache in front of the CPS if it has been asked for, eg
+     * <pre>
+     * framework.cps.cache.namespaces=zos,docker
+     * framework.cps.cache.ttl.ms=60000
+     * framework.cps.cache.max.entries=10000
+     * </pre>
+     * Use * as the namespace to cache every namespace.
+     *
+     * @param cpsStore - The new CPS
+     * @return the CPS to use, which is the one passed if there is to be no cache
+     * @throws ConfigurationPropertyStoreException - If the cache properties are invalid
+     */
+    private IConfigurationPropertyStore createCpsCache(IConfigurationPropertyStore cpsStore)
+            throws ConfigurationPropertyStoreException {
+        String namespaces = AbstractManager.nulled(this.cpsFramework.getProperty("cps.cache", "namespaces"));
+        if (namespaces == null) {
+            return cpsStore;
+        }
+
+        List<String> cachedNamespaces = new ArrayList<>();
+        for (String namespace : namespaces.split(",")) {
+            namespace = namespace.trim();
+            if (!namespace.isEmpty()) {
+                cachedNamespaces.add(namespace);
+            }
+        }
+
+        long ttl = DEFAULT_CPS_CACHE_TTL_MILLISECS;
+        int maxEntries = DEFAULT_CPS_CACHE_MAX_ENTRIES;
+        try {
+            String ttlProperty = AbstractManager.nulled(this.cpsFramework.getProperty("cps.cache", "ttl.ms"));
+            if (ttlProperty != null) {
+                ttl = Long.parseLong(ttlProperty);
+            }
+            String maxEntriesProperty = AbstractManager.nulled(this.cpsFramework.getProperty("cps.cache", "max.entries"));
+            if (maxEntriesProperty != null) {
+                maxEntries = Integer.parseInt(maxEntriesProperty);
+            }
+        } catch (NumberFormatException e) {
+            throw new ConfigurationPropertyStoreException("Invalid CPS cache properties", e);
+        }
+
+        logger.debug("Caching CPS namespaces " + cachedNamespaces + " for " + ttl + "ms, up to " + maxEntries + " entries");
+        return new CachingConfigurationPropertyStore(cpsStore, cachedNamespaces, ttl, maxEntries);
+    }
+
+    /**
+     * Replaces the CPS with a snapshot of the namespaces the run may see, with
+     * the overrides merged in, so the rest of the run reads its properties from
+     * memory.
+     *
+     * @param namespaces - the namespaces to take, "*" for all of them
+     * @throws ConfigurationPropertyStoreException - If the CPS could not be read
+     */
+    protected void freezeConfigurationPropertyStore(@NotNull List<String> namespaces)
+            throws ConfigurationPropertyStoreException {
+        if (this.cpsStore == null) {
+            throw new ConfigurationPropertyStoreException("The Configuration Property Store has not been initialised");
+        }
+        if (this.cpsStore instanceof FrozenConfigurationPropertyStore) {
+            return;
+        }
+
+        FrozenConfigurationPropertyStore frozenStore = new FrozenConfigurationPropertyStore(this.cpsStore,
+                namespaces, this.overrideProperties);
+        logger.debug("Frozen CPS namespaces " + namespaces + ", " + frozenStore.getSize() + " properties");
+
+        this.cpsStore = frozenStore;
+        this.cpsFramework = getConfigurationPropertyService("framework");
     }
 
     public void setDynamicStatusStore(@NotNull IDynamicStatusStore dssStore) throws DynamicStatusStoreException {
@@ -378,7 +471,8 @@ public class Framework implements IFramework {
 
     @Override
     public Properties getRecordProperties() {
-        Properties clone = (Properties) this.recordProperties.clone();
+        Properties clone = new Properties();
+        clone.putAll(this.recordProperties);
         return clone;
     }
 
@@ -452,6 +546,18 @@ public class Framework implements IFramework {
             }
         }
 
+        // *** Stop watching the runs before the DSS goes
+        if (this.frameworkRuns != null) {
+            try {
+                shutdownLogger.trace("Shutting down the Framework Runs");
+                this.frameworkRuns.shutdown();
+                this.frameworkRuns = null;
+            } catch (Throwable t) {
+                error = true;
+                shutdownLogger.error("Failed to shutdown the Framework Runs", t);
+            }
+        }
+
         // *** Shutdown the Dynamic Status Store
         if (this.dssStore != null) {
             try {
@@ -468,6 +574,15 @@ public class Framework implements IFramework {
         if (this.cpsStore != null) {
             try {
                 shutdownLogger.trace("Shutting down the Configuration Properties Store");
+                IConfigurationPropertyStore store = this.cpsStore;
+                if (store instanceof FrozenConfigurationPropertyStore) {
+                    store = ((FrozenConfigurationPropertyStore) store).getFrozenStore();
+                }
+                if (store instanceof CachingConfigurationPropertyStore) {
+                    CachingConfigurationPropertyStore cache = (CachingConfigurationPropertyStore) store;
+                    shutdownLogger.debug("CPS cache hits=" + cache.getHits() + " misses=" + cache.getMisses()
+                            + " evictions=" + cache.getEvictions() + " size=" + cache.getSize());
+                }
                 this.cpsStore.shutdown();
                 this.cpsStore = null;
             } catch (Throwable t) {
@@ -225,7 +225,43 @@ public class FrameworkInitialisation implements IFrameworkInitialisation {
                 }
                 overrideProperties.put(override.getKey(), override.getValue());
             }
+
+            freezeConfigurationPropertyStore();
+        }
+    }
+
+    /**
+     * If asked for, take a snapshot of the CPS now the overrides are all known,
+     * so the run reads its properties from memory, eg
+     * <pre>
+     * framework.cps.run.snapshot=true
+     * framework.cps.run.snapshot.namespaces=zos,docker
+     * </pre>
+     * All namespaces are taken if none are listed.
+     * 
+     * @throws ConfigurationPropertyStoreException
+     */
+    private void freezeConfigurationPropertyStore() throws ConfigurationPropertyStoreException {
+        String snapshot = AbstractManager.nulled(this.cpsFramework.getProperty("cps.run", "snapshot"));
+        if (!Boolean.parseBoolean(snapshot)) {
+            return;
         }
+
+        List<String> namespaces = new ArrayList<>();
+        String namespacesProperty = AbstractManager.nulled(this.cpsFramework.getProperty("cps.run.snapshot", "namespaces"));
+        if (namespacesProperty == null) {
+            namespaces.add("*");
+        } else {
+            for (String namespace : namespacesProperty.split(",")) {
+                namespace = namespace.trim();
+                if (!namespace.isEmpty()) {
+                    namespaces.add(namespace);
+                }
+            }
+        }
+
+        logger.info("Taking a snapshot of the CPS for this run");
+        this.framework.freezeConfigurationPropertyStore(namespaces);
     }
 
     /**
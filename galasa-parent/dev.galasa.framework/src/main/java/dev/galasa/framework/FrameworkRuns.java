@@ -6,15 +6,22 @@
 package dev.galasa.framework;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -24,13 +31,24 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import dev.galasa.framework.spi.AbstractManager;
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.DssDelete;
+import dev.galasa.framework.spi.DssDeletePrefix;
+import dev.galasa.framework.spi.DssSwap;
+import dev.galasa.framework.spi.DssUpdate;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
 import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
+import dev.galasa.framework.spi.IDssAction;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.RunFilter;
+import dev.galasa.framework.spi.RunPage;
+import dev.galasa.framework.spi.RunRequest;
+import dev.galasa.framework.spi.utils.DssUtils;
 
 public class FrameworkRuns implements IFrameworkRuns {
 
@@ -49,87 +67,383 @@ public class FrameworkRuns implements IFrameworkRuns {
 
     private final String                             RUN_PREFIX   = "run.";
 
+    private static final int                         MAX_BATCH_ATTEMPTS = 10;
+    private static final int                         MAX_DELETE_ATTEMPTS = 10;
+    // *** Up to this many runs are read one at a time, more with one read of every run
+    private static final int                         MAX_SINGLE_RUN_READS = 8;
+
+    private final RunNumberAllocator                 runNumbers;
+
+    private final boolean                            useRunStateView;
+    private RunStateView                             runStateView;
+
+    private final boolean                            useRunIndex;
+
     public FrameworkRuns(IFramework framework) throws FrameworkException {
         this.framework = framework;
         this.dss = framework.getDynamicStatusStoreService("framework");
         this.cps = framework.getConfigurationPropertyService("framework");
+        this.runNumbers = new RunNumberAllocator(this.dss, framework.getRandom());
+
+        // *** Long running processes can keep the runs in memory, eg framework.run.state.view=true
+        this.useRunStateView = Boolean.parseBoolean(AbstractManager.nulled(this.cps.getProperty("run.state", "view")));
+
+        // *** The run index is always kept up to date, but is only used for the queued, grouped
+        // *** and active runs once every run has index keys, ie framework.run.index=true once the
+        // *** runs submitted or started before the index was added have gone
+        this.useRunIndex = Boolean.parseBoolean(AbstractManager.nulled(this.cps.getProperty("run", "index")));
     }
 
+    /**
+     * Returns the in-memory view of the runs, starting it on first use. If the
+     * view could not be started, the runs are read from the DSS and starting it
+     * is tried again next time.
+     * 
+     * @return the view, or null if it is not being used
+     */
+    public synchronized RunStateView getRunStateView() {
+        if (!this.useRunStateView) {
+            return null;
+        }
+
+        if (this.runStateView == null) {
+            RunStateView newView = new RunStateView(this.dss);
+            try {
+                newView.start();
+                this.runStateView = newView;
+            } catch (DynamicStatusStoreException e) {
+                logger.warn("Unable to start the run state view, reading the runs from the DSS", e);
+            }
+        }
+        return this.runStateView;
+    }
+
+    /**
+     * Stops the run state view, if it was started
+     * 
+     * @throws DynamicStatusStoreException
+     */
+    public synchronized void shutdown() throws DynamicStatusStoreException {
+        if (this.runStateView != null) {
+            this.runStateView.shutdown();
+            this.runStateView = null;
+        }
+    }
+
+    /**
+     * With the run index, only the runs in the active index and the allocated
+     * runs are read, rather than every run in the DSS.
+     */
     @Override
     public List<IRun> getActiveRuns() throws FrameworkException {
+        if (getRunStateView() == null && this.useRunIndex) {
+            List<IRun> runs = getIndexedRuns(DssUtils.getRunActiveIndexPrefix(), FrameworkRuns::isActive);
 
-        List<IRun> runs = getAllRuns();
-        Iterator<IRun> iruns = runs.iterator();
-        while (iruns.hasNext()) {
-            IRun run = iruns.next();
-
-            if (run.getHeartbeat() != null) {
-                continue;
+            HashSet<String> runNames = new HashSet<>();
+            for (IRun run : runs) {
+                runNames.add(run.getName());
             }
-
-            if ("allocated".equals(run.getStatus())) {
-                continue;
+            for (IRun run : getIndexedRuns(DssUtils.getRunStatusIndexPrefix("allocated"), FrameworkRuns::isActive)) {
+                if (runNames.add(run.getName())) {
+                    runs.add(run);
+                }
             }
+            return runs;
+        }
+        return getRuns(FrameworkRuns::isActive);
+    }
 
-            if (run.isSharedEnvironment()) {
-                continue;
-            }
+    private static boolean isActive(IRun run) {
+        if (run.getHeartbeat() != null || run.getHeartbeatLease() != null) {
+            return true;
+        }
 
-            iruns.remove();
+        if ("allocated".equals(run.getStatus())) {
+            return true;
         }
 
-        return runs;
+        return run.isSharedEnvironment();
     }
 
     @Override
     public @NotNull List<IRun> getQueuedRuns() throws FrameworkException {
-        List<IRun> runs = getAllRuns();
-        Iterator<IRun> iruns = runs.iterator();
-        while (iruns.hasNext()) {
-            IRun run = iruns.next();
+        RunStateView view = getRunStateView();
+        if (view != null) {
+            return new LinkedList<>(view.getSnapshot().getRunsWithStatus("queued"));
+        }
+        if (this.useRunIndex) {
+            return getRunsWithStatus("queued");
+        }
+        return getRuns(run -> "queued".equals(run.getStatus()));
+    }
 
-            if (!"queued".equals(run.getStatus())) {
-                iruns.remove();
+    @Override
+    public List<IRun> getAllRuns() throws FrameworkException {
+        return getRuns(run -> true);
+    }
+
+    @Override
+    public List<IRun> getAllGroupedRuns(@NotNull String groupName) throws FrameworkException {
+        RunStateView view = getRunStateView();
+        if (view != null) {
+            return new LinkedList<>(view.getSnapshot().getRunsInGroup(groupName));
+        }
+        if (this.useRunIndex) {
+            return getRunsInGroup(groupName);
+        }
+        return getRuns(run -> groupName.equals(run.getGroup()));
+    }
+
+    @Override
+    public @NotNull List<IRun> getRunsWithStatus(@NotNull String status) throws FrameworkException {
+        RunStateView view = getRunStateView();
+        if (view != null) {
+            return new LinkedList<>(view.getSnapshot().getRunsWithStatus(status));
+        }
+        return getIndexedRuns(DssUtils.getRunStatusIndexPrefix(status), run -> status.equals(run.getStatus()));
+    }
+
+    @Override
+    public @NotNull List<IRun> getRunsInGroup(@NotNull String groupName) throws FrameworkException {
+        RunStateView view = getRunStateView();
+        if (view != null) {
+            return new LinkedList<>(view.getSnapshot().getRunsInGroup(groupName));
+        }
+        return getIndexedRuns(DssUtils.getRunGroupIndexPrefix(groupName), run -> groupName.equals(run.getGroup()));
+    }
+
+    /**
+     * Reads the run names under an index prefix and then only those runs. Index
+     * keys left behind by something that changed a run without updating the
+     * index are skipped, as the run no longer passes the filter.
+     */
+    private List<IRun> getIndexedRuns(String indexPrefix, Predicate<IRun> filter) throws FrameworkException {
+        Map<String, String> index = dss.getPrefix(indexPrefix);
+
+        List<String> runNames = new ArrayList<>();
+        for (String key : index.keySet()) {
+            String runName = key.substring(indexPrefix.length());
+            if (runName.indexOf('.') >= 0) {
+                continue; // *** Belongs to a longer group name, eg group a.b when looking for a
+            }
+            runNames.add(runName);
+        }
+
+        Map<String, Map<String, String>> runProperties = getRunProperties(runNames);
+        LinkedList<IRun> runs = new LinkedList<>();
+        for (String runName : runNames) {
+            Map<String, String> properties = runProperties.get(runName);
+            if (properties == null) {
+                continue;
+            }
+            IRun run = new RunImpl(runName, properties);
+            if (filter.test(run)) {
+                runs.add(run);
             }
         }
 
         return runs;
     }
 
-    @Override
-    public List<IRun> getAllRuns() throws FrameworkException {
-        HashMap<String, IRun> runs = new HashMap<>();
+    /**
+     * Reads the properties of the named runs. A few runs are read one at a time,
+     * more are read with one read of every run, so the number of DSS calls does
+     * not grow with the number of runs.
+     * 
+     * @return the properties of each run by run name, missing if the run has gone
+     */
+    private Map<String, Map<String, String>> getRunProperties(Collection<String> runNames)
+            throws DynamicStatusStoreException {
+        if (runNames.size() > MAX_SINGLE_RUN_READS) {
+            Map<String, Map<String, String>> runs = groupByRun(dss.getPrefix(RUN_PREFIX));
+            runs.keySet().retainAll(new HashSet<>(runNames));
+            return runs;
+        }
+
+        Map<String, Map<String, String>> runs = new HashMap<>();
+        for (String runName : runNames) {
+            Map<String, String> properties = dss.getPrefix(RUN_PREFIX + runName + ".");
+            if (!properties.isEmpty()) {
+                runs.put(runName, properties);
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Fetches all the run properties from the DSS in one go, and builds the runs
+     * which pass the filter from them. If the run state view is in use, the
+     * runs are taken from that instead.
+     */
+    private List<IRun> getRuns(Predicate<IRun> filter) throws FrameworkException {
+        RunStateView view = getRunStateView();
+        if (view != null) {
+            LinkedList<IRun> runs = new LinkedList<>();
+            for (IRun run : view.getSnapshot().getRuns()) {
+                if (filter.test(run)) {
+                    runs.add(run);
+                }
+            }
+            return runs;
+        }
 
         logger.trace("Fetching all runs from DSS");
         Map<String, String> runProperties = dss.getPrefix(RUN_PREFIX);
         logger.trace("Fetched all runs from DSS");
-        for (String key : runProperties.keySet()) {
-            Matcher matcher = runPattern.matcher(key);
-            if (matcher.find()) {
-                String runName = matcher.group(1);
 
-                if (!runs.containsKey(runName)) {
-                    runs.put(runName, new RunImpl(runName, this.dss));
-                }
+        LinkedList<IRun> runs = new LinkedList<>();
+        for (Entry<String, Map<String, String>> run : groupByRun(runProperties).entrySet()) {
+            IRun runImpl = new RunImpl(run.getKey(), run.getValue());
+            if (filter.test(runImpl)) {
+                runs.add(runImpl);
             }
         }
 
-        LinkedList<IRun> returnRuns = new LinkedList<>(runs.values());
+        return runs;
+    }
 
-        return returnRuns;
+    /**
+     * The run state view holds every run, and the run index holds the runs with
+     * a status or in a group.
+     */
+    @Override
+    public boolean isIndexed(RunFilter filter) throws FrameworkException {
+        if (getRunStateView() != null) {
+            return true;
+        }
+        return this.useRunIndex && filter != null && (filter.getStatus() != null || filter.getGroupName() != null);
     }
 
+    /**
+     * Returns a page of runs in order of run name. If the filter has a status or
+     * group and the run index is in use, only the runs in the index are read.
+     * Otherwise every run is read with one DSS call and filtered in one pass,
+     * see {@link #isIndexed(RunFilter)}. Only the runs for the page are kept.
+     */
     @Override
-    public List<IRun> getAllGroupedRuns(@NotNull String groupName) throws FrameworkException {
-        List<IRun> allRuns = this.getAllRuns();
-        List<IRun> groupedRuns = new LinkedList<IRun>();
+    public @NotNull RunPage listRuns(RunFilter filter, String cursor, int limit) throws FrameworkException {
+        if (limit < 1) {
+            throw new FrameworkException("The page limit must be at least 1");
+        }
+        if (filter == null) {
+            filter = new RunFilter();
+        }
+
+        TreeMap<String, IRun> matched = new TreeMap<>();
+        RunStateView view = getRunStateView();
+        if (view != null) {
+            for (IRun run : view.getSnapshot().getRuns()) {
+                if (filter.matches(run) && (cursor == null || run.getName().compareTo(cursor) > 0)) {
+                    addToPage(matched, run, limit);
+                }
+            }
+            return getPage(matched, limit);
+        }
+
+        if (isIndexed(filter)) {
+            return listIndexedRuns(filter, cursor, limit);
+        }
+
+        for (Entry<String, Map<String, String>> run : groupByRun(dss.getPrefix(RUN_PREFIX)).entrySet()) {
+            String runName = run.getKey();
+            if (cursor != null && runName.compareTo(cursor) <= 0) {
+                continue;
+            }
+
+            IRun runImpl = new RunImpl(runName, run.getValue());
+            if (filter.matches(runImpl)) {
+                addToPage(matched, runImpl, limit);
+            }
+        }
+        return getPage(matched, limit);
+    }
+
+    /**
+     * Keeps the first runs by name up to the limit, and one more to show there
+     * is another page, so the runs held do not grow with the number matched
+     */
+    private void addToPage(TreeMap<String, IRun> matched, IRun run, int limit) {
+        matched.put(run.getName(), run);
+        if (matched.size() > (long) limit + 1) { // *** long, as the limit can be Integer.MAX_VALUE
+            matched.pollLastEntry();
+        }
+    }
+
+    /**
+     * @return the first runs up to the limit, with a cursor if there are more
+     */
+    private RunPage getPage(TreeMap<String, IRun> matched, int limit) {
+        List<IRun> runs = new ArrayList<>();
+        for (IRun run : matched.values()) {
+            if (runs.size() >= limit) {
+                return new RunPage(runs, runs.get(runs.size() - 1).getName());
+            }
+            runs.add(run);
+        }
+        return new RunPage(runs, null);
+    }
+
+    private RunPage listIndexedRuns(RunFilter filter, String cursor, int limit) throws FrameworkException {
+        String indexPrefix;
+        if (filter.getStatus() != null) {
+            indexPrefix = DssUtils.getRunStatusIndexPrefix(filter.getStatus());
+        } else {
+            indexPrefix = DssUtils.getRunGroupIndexPrefix(filter.getGroupName());
+        }
+
+        TreeSet<String> runNames = new TreeSet<>();
+        for (String key : dss.getPrefix(indexPrefix).keySet()) {
+            String runName = key.substring(indexPrefix.length());
+            if (runName.indexOf('.') < 0 && (cursor == null || runName.compareTo(cursor) > 0)) {
+                runNames.add(runName);
+            }
+        }
+
+        // *** Only read as many runs as the page still needs, more if some are skipped
+        List<IRun> runs = new ArrayList<>();
+        String lastRunName = null;
+        Iterator<String> names = runNames.iterator();
+        while (names.hasNext()) {
+            if (runs.size() >= limit) {
+                return new RunPage(runs, lastRunName);
+            }
+
+            List<String> pageNames = new ArrayList<>();
+            while (names.hasNext() && pageNames.size() < limit - runs.size()) {
+                pageNames.add(names.next());
+            }
+            Map<String, Map<String, String>> runProperties = getRunProperties(pageNames);
+            for (String runName : pageNames) {
+                lastRunName = runName;
+                Map<String, String> properties = runProperties.get(runName);
+                if (properties != null) {
+                    addIfMatches(runs, filter, new RunImpl(runName, properties));
+                }
+            }
+        }
+
+        return new RunPage(runs, null);
+    }
+
+    private void addIfMatches(List<IRun> runs, RunFilter filter, IRun run) {
+        if (filter.matches(run)) {
+            runs.add(run);
+        }
+    }
 
-        for (IRun run : allRuns) {
-            if (groupName.equals(run.getGroup())) {
-                groupedRuns.add(run);
+    /**
+     * Splits the run properties by run name
+     */
+    private Map<String, Map<String, String>> groupByRun(Map<String, String> runProperties) {
+        HashMap<String, Map<String, String>> runs = new HashMap<>();
+        for (Entry<String, String> property : runProperties.entrySet()) {
+            Matcher matcher = runPattern.matcher(property.getKey());
+            if (matcher.find()) {
+                String runName = matcher.group(1);
+                runs.computeIfAbsent(runName, name -> new HashMap<>()).put(property.getKey(), property.getValue());
             }
         }
-        return groupedRuns;
+        return runs;
     }
 
     @Override
@@ -233,64 +547,49 @@ public class FrameworkRuns implements IFrameworkRuns {
                 throw new FrameworkException("Shared Environment " + sharedEnvironmentRunName + " is not up and running");
             }
 
-            HashMap<String, String> otherProperties = new HashMap<>();
-            otherProperties.put(RUN_PREFIX + sharedEnvironmentRunName + ".override.framework.run.shared.environment.phase", sharedEnvironmentPhase.toString());
+            // *** Switch the status and move the run in the index in one go
+            String runPrefix = RUN_PREFIX + sharedEnvironmentRunName + ".";
+            List<IDssAction> actions = new ArrayList<>();
+            actions.add(new DssSwap(runPrefix + "status", "up", "queued"));
+            actions.add(new DssDelete(DssUtils.getRunStatusIndexPrefix("up") + sharedEnvironmentRunName, null));
+            actions.add(new DssUpdate(DssUtils.getRunStatusIndexPrefix("queued") + sharedEnvironmentRunName, sharedEnvironmentRunName));
+            actions.add(new DssUpdate(runPrefix + "override.framework.run.shared.environment.phase", sharedEnvironmentPhase.toString()));
             if (groupName != null) {
-                otherProperties.put(RUN_PREFIX + sharedEnvironmentRunName + ".group", groupName);
+                String oldGroupName = run.getGroup();
+                if (oldGroupName != null && !oldGroupName.equals(groupName)) {
+                    actions.add(new DssDelete(DssUtils.getRunGroupIndexPrefix(oldGroupName) + sharedEnvironmentRunName, null));
+                }
+                actions.add(new DssUpdate(runPrefix + "group", groupName));
+                actions.add(new DssUpdate(DssUtils.getRunGroupIndexPrefix(groupName) + sharedEnvironmentRunName, sharedEnvironmentRunName));
             }
-            if (!this.dss.putSwap(RUN_PREFIX + sharedEnvironmentRunName + ".status", "up", "queued", otherProperties)) {
+            try {
+                this.dss.performActions(actions.toArray(new IDssAction[actions.size()]));
+            } catch (DynamicStatusStoreMatchException e) {
                 throw new FrameworkException("Failed to switch Shared Environment " + sharedEnvironmentRunName + " to discard");
+            } catch (DynamicStatusStoreException e) {
+                throw new FrameworkException("Failed to switch Shared Environment " + sharedEnvironmentRunName + " to discard", e);
             }
 
             return new RunImpl(sharedEnvironmentRunName, this.dss);
         }
 
-        // *** Get the prefix of this run type
-        String typePrefix = AbstractManager.nulled(this.cps.getProperty("request.type." + runType, "prefix"));
-        if (typePrefix == null) {
-            if ("local".equals(runType)) {
-                typePrefix = "L";
-            } else {
-                typePrefix = "U"; // *** For unknown prefix
-            }
-        }
-
-        // *** Get the maximum number for this prefix
-        int maxNumber = Integer.MAX_VALUE;
-        String sMaxNumber = AbstractManager.nulled(this.cps.getProperty("request.prefix", "maximum", typePrefix));
-        if (sMaxNumber != null) {
-            maxNumber = Integer.parseInt(sMaxNumber);
-        }
+        String typePrefix = getTypePrefix(runType);
+        int maxNumber = getMaxNumber(typePrefix);
+        int blockSize = getBlockSize(typePrefix);
 
         try {
             // *** Now loop until we find the next free number for this run type
-            boolean maxlooped = false;
+            int firstNumber = 0;
             while (runName == null) {
-                String pLastused = "request.prefix." + typePrefix + ".lastused";
-                String sLatestNumber = this.dss.get(pLastused);
-                int latestNumber = 0;
-                if (sLatestNumber != null && !sLatestNumber.trim().isEmpty()) {
-                    latestNumber = Integer.parseInt(sLatestNumber);
+                int latestNumber = this.runNumbers.next(typePrefix, maxNumber, blockSize);
+                if (latestNumber == firstNumber) { // *** Safety check to make sure we havent gone through all the numbers
+                    throw new FrameworkException("Not enough request type numbers available, looped twice");
                 }
-
-                // *** Add 1 to the run number and see if we get it
-                latestNumber++;
-                if (latestNumber > maxNumber) { // *** have we gone past the maximum number
-                    if (maxlooped) {
-                        throw new FrameworkException("Not enough request type numbers available, looped twice");
-                    }
-                    latestNumber = 1;
-                    maxlooped = true; // *** Safety check to make sure we havent gone through all the numbers again
+                if (firstNumber == 0) {
+                    firstNumber = latestNumber;
                 }
 
-                String sNewNumber = Integer.toString(latestNumber);
-                if (!this.dss.putSwap(pLastused, sLatestNumber, sNewNumber)) {
-                    Thread.sleep(this.framework.getRandom().nextInt(200)); // *** Wait for a bit, to avoid race
-                    // conditions
-                    continue; // Try again with the new latest number
-                }
-
-                String tempRunName = typePrefix + sNewNumber;
+                String tempRunName = typePrefix + latestNumber;
 
                 if (!storeRun(tempRunName, 
                         bundleTest, 
@@ -307,9 +606,7 @@ public class FrameworkRuns implements IFrameworkRuns {
                         overrides,
                         null,
                         language)) {
-                    Thread.sleep(this.framework.getRandom().nextInt(200)); // *** Wait for a bit, to avoid race
-                    // conditions
-                    continue; // *** Try again
+                    continue; // *** Run name already in use, try the next number
                 }
 
                 runName = tempRunName; // *** Got it
@@ -324,6 +621,228 @@ public class FrameworkRuns implements IFrameworkRuns {
         return new RunImpl(runName, this.dss);
     }
 
+    /**
+     * A run in a batch being submitted, with its values filled in
+     */
+    private static class BatchRun {
+        private final RunRequest request;
+        private String           runType;
+        private String           requestor;
+        private String           groupName;
+        private String           stream;
+        private String           language;
+        private String           bundleTest;
+        private String           typePrefix;
+        private String           runName;
+        private Map<String, String> properties;
+
+        private BatchRun(RunRequest request) {
+            this.request = request;
+        }
+    }
+
+    /**
+     * Submits a batch of runs. The CPS is asked for the default requestor and the
+     * settings for each run type once, the run numbers for each prefix are
+     * claimed together and all the runs are stored in one DSS transaction. If
+     * any of the run names turn out to be in use, new numbers are claimed for
+     * those runs and the transaction is tried again.
+     */
+    @Override
+    public @NotNull List<IRun> submitRuns(@NotNull List<RunRequest> requests) throws FrameworkException {
+        List<BatchRun> batch = new ArrayList<>();
+        String defaultRequestor = null;
+        Map<String, String> typePrefixes = new HashMap<>();
+
+        for (RunRequest request : requests) {
+            BatchRun run = new BatchRun(request);
+
+            if (request.getTestName() == null) {
+                throw new FrameworkException("Missing test name");
+            }
+            run.language = request.getLanguage();
+            if (run.language == null) {
+                run.language = "java";
+            }
+            if (run.language.equals("java")) {
+                if (request.getBundleName() == null) {
+                    throw new FrameworkException("Missing bundle name");
+                }
+                run.bundleTest = request.getBundleName() + "/" + request.getTestName();
+            }
+
+            run.groupName = AbstractManager.nulled(request.getGroupName());
+            if (run.groupName == null) {
+                run.groupName = NO_GROUP;
+            }
+            run.runType = AbstractManager.nulled(request.getType());
+            if (run.runType == null) {
+                run.runType = NO_RUNTYPE;
+            }
+            run.runType = run.runType.toUpperCase();
+            run.requestor = AbstractManager.nulled(request.getRequestor());
+            if (run.requestor == null) {
+                if (defaultRequestor == null) {
+                    defaultRequestor = AbstractManager.nulled(cps.getProperty("run", "requestor"));
+                    if (defaultRequestor == null) {
+                        defaultRequestor = "unknown";
+                    }
+                }
+                run.requestor = defaultRequestor;
+            }
+            run.stream = AbstractManager.nulled(request.getStream());
+
+            String typePrefix = typePrefixes.get(run.runType);
+            if (typePrefix == null) {
+                typePrefix = getTypePrefix(run.runType);
+                typePrefixes.put(run.runType, typePrefix);
+            }
+            run.typePrefix = typePrefix;
+
+            batch.add(run);
+        }
+
+        try {
+            List<BatchRun> unnamed = batch;
+            for (int attempt = 0; !unnamed.isEmpty(); attempt++) {
+                if (attempt >= MAX_BATCH_ATTEMPTS) {
+                    throw new FrameworkException("Unable to find free run names for the batch of runs");
+                }
+
+                nameRuns(unnamed);
+                unnamed = storeRuns(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FrameworkException("Interrupted", e);
+        } catch (FrameworkException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FrameworkException("Problem submitting jobs", e);
+        }
+
+        // *** Built from the properties just stored, rather than reading each run back
+        List<IRun> runs = new ArrayList<>();
+        for (BatchRun run : batch) {
+            runs.add(new RunImpl(run.runName, run.properties));
+        }
+        return runs;
+    }
+
+    /**
+     * Gives the runs the next run numbers for their prefixes, claiming the
+     * numbers for each prefix together
+     */
+    private void nameRuns(List<BatchRun> runs) throws FrameworkException, DynamicStatusStoreException, InterruptedException {
+        Map<String, List<BatchRun>> byPrefix = new LinkedHashMap<>();
+        for (BatchRun run : runs) {
+            byPrefix.computeIfAbsent(run.typePrefix, p -> new ArrayList<>()).add(run);
+        }
+
+        for (Entry<String, List<BatchRun>> prefixRuns : byPrefix.entrySet()) {
+            String typePrefix = prefixRuns.getKey();
+            List<BatchRun> runsForPrefix = prefixRuns.getValue();
+
+            int[] numbers = this.runNumbers.next(typePrefix, getMaxNumber(typePrefix), getBlockSize(typePrefix),
+                    runsForPrefix.size());
+            for (int i = 0; i < numbers.length; i++) {
+                runsForPrefix.get(i).runName = typePrefix + numbers[i];
+            }
+        }
+    }
+
+    /**
+     * Stores all the runs in one DSS transaction
+     * 
+     * @return the runs whose names were already in use, none if the runs were
+     *         stored
+     */
+    private List<BatchRun> storeRuns(List<BatchRun> runs) throws DynamicStatusStoreException {
+        List<IDssAction> actions = new ArrayList<>();
+        Set<String> runNames = new HashSet<>();
+        List<BatchRun> inUse = new ArrayList<>();
+        for (BatchRun run : runs) {
+            // *** The same number can come round twice in one batch if the numbers wrap
+            if (!runNames.add(run.runName)) {
+                inUse.add(run);
+                continue;
+            }
+
+            RunRequest request = run.request;
+            HashMap<String, String> runProperties = createRunProperties(run.runName, run.bundleTest,
+                    request.getBundleName(), request.getTestName(), run.runType, request.isTrace(), request.isLocal(),
+                    request.getMavenRepository(), request.getObr(), run.stream, run.groupName, run.requestor,
+                    request.getOverrides(), null, run.language);
+
+            String testKey = RUN_PREFIX + run.runName + ".test";
+            actions.add(new DssAdd(testKey, runProperties.get(testKey)));
+            for (Entry<String, String> property : runProperties.entrySet()) {
+                if (!property.getKey().equals(testKey)) {
+                    actions.add(new DssUpdate(property.getKey(), property.getValue()));
+                }
+            }
+            run.properties = runProperties;
+        }
+        if (!inUse.isEmpty()) {
+            return inUse;
+        }
+
+        try {
+            this.dss.performActions(actions.toArray(new IDssAction[actions.size()]));
+            return inUse;
+        } catch (DynamicStatusStoreMatchException e) {
+            // *** Some of the names are in use, find which
+            for (BatchRun run : runs) {
+                if (this.dss.get(RUN_PREFIX + run.runName + ".test") != null) {
+                    inUse.add(run);
+                }
+            }
+            if (inUse.isEmpty()) {
+                throw e;
+            }
+            return inUse;
+        }
+    }
+
+    /**
+     * @return the prefix of the run names for a run type
+     */
+    private String getTypePrefix(String runType) throws FrameworkException {
+        String typePrefix = AbstractManager.nulled(this.cps.getProperty("request.type." + runType, "prefix"));
+        if (typePrefix == null) {
+            if ("local".equals(runType)) {
+                typePrefix = "L";
+            } else {
+                typePrefix = "U"; // *** For unknown prefix
+            }
+        }
+        return typePrefix;
+    }
+
+    /**
+     * @return the maximum run number for a prefix
+     */
+    private int getMaxNumber(String typePrefix) throws FrameworkException {
+        int maxNumber = Integer.MAX_VALUE;
+        String sMaxNumber = AbstractManager.nulled(this.cps.getProperty("request.prefix", "maximum", typePrefix));
+        if (sMaxNumber != null) {
+            maxNumber = Integer.parseInt(sMaxNumber);
+        }
+        return maxNumber;
+    }
+
+    /**
+     * @return how many numbers to claim from the DSS at once for a prefix
+     */
+    private int getBlockSize(String typePrefix) throws FrameworkException {
+        int blockSize = 1;
+        String sBlockSize = AbstractManager.nulled(this.cps.getProperty("request.prefix", "block.size", typePrefix));
+        if (sBlockSize != null) {
+            blockSize = Math.max(1, Integer.parseInt(sBlockSize));
+        }
+        return blockSize;
+    }
+
     private boolean storeRun(String runName,
             String bundleTest,
             String bundleName, 
@@ -340,6 +859,40 @@ public class FrameworkRuns implements IFrameworkRuns {
             SharedEnvironmentPhase sharedEnvironmentPhase,
             String language) throws DynamicStatusStoreException {
 
+        HashMap<String, String> otherRunProperties = createRunProperties(runName, bundleTest, bundleName, testName,
+                runType, trace, local, mavenRepository, obr, stream, groupName, requestor, overrides,
+                sharedEnvironmentPhase, language);
+        String testKey = RUN_PREFIX + runName + ".test";
+        String test = otherRunProperties.remove(testKey);
+
+        // *** See if we can setup the runnumber properties (clashes possible if low max
+        // number or sharing prefix
+        if (!this.dss.putSwap(testKey, null, test, otherRunProperties)) {
+            return false; // *** Try again
+        }
+
+        return true;
+    }
+
+    /**
+     * @return all the DSS properties for a new run, including run.&lt;name&gt;.test
+     */
+    private HashMap<String, String> createRunProperties(String runName,
+            String bundleTest,
+            String bundleName, 
+            String testName, 
+            String runType,
+            boolean trace,
+            boolean local,
+            String mavenRepository,
+            String obr,
+            String stream,
+            String groupName,
+            String requestor,
+            Properties overrides, 
+            SharedEnvironmentPhase sharedEnvironmentPhase,
+            String language) {
+
         if (overrides == null) {
             overrides = new Properties();
         }
@@ -369,15 +922,15 @@ public class FrameworkRuns implements IFrameworkRuns {
         if (stream != null) {
             otherRunProperties.put(RUN_PREFIX + runName + ".stream", stream);
         }
-        if (groupName != null) {
-            otherRunProperties.put(RUN_PREFIX + runName + ".group", groupName);
-        } else {
-            otherRunProperties.put(RUN_PREFIX + runName + ".group", UUID.randomUUID().toString());
+        if (groupName == null) {
+            groupName = UUID.randomUUID().toString();
         }
+        otherRunProperties.put(RUN_PREFIX + runName + ".group", groupName);
         otherRunProperties.put(RUN_PREFIX + runName + ".requestor", requestor.toLowerCase());
 
         if (sharedEnvironmentPhase != null) {
             otherRunProperties.put(RUN_PREFIX + runName + ".shared.environment", "true");
+            otherRunProperties.put(DssUtils.getRunActiveIndexPrefix() + runName, runName);
             overrides.put("framework.run.shared.environment.phase", sharedEnvironmentPhase.toString());
         }
         if(gherkinTest != null) {
@@ -394,26 +947,53 @@ public class FrameworkRuns implements IFrameworkRuns {
             }
         }
 
-        // *** See if we can setup the runnumber properties (clashes possible if low max
-        // number or sharing prefix
-        if (!this.dss.putSwap(RUN_PREFIX + runName + ".test", null, bundleTest, otherRunProperties)) {
-            return false; // *** Try again
-        }
+        // *** Add the run to the index
+        otherRunProperties.put(DssUtils.getRunStatusIndexPrefix("queued") + runName, runName);
+        otherRunProperties.put(DssUtils.getRunGroupIndexPrefix(groupName) + runName, runName);
 
-        return true;
+        otherRunProperties.put(RUN_PREFIX + runName + ".test", bundleTest);
+
+        return otherRunProperties;
     }
 
+    /**
+     * Deletes the run and its index keys together. The delete only goes ahead
+     * if the status is still the one read, otherwise the index key for the new
+     * status would be left behind, so the run is read again and the delete
+     * retried.
+     */
     @Override
     public boolean delete(String runname) throws DynamicStatusStoreException {
         String prefix = RUN_PREFIX + runname + ".";
 
-        Map<String, String> properties = this.dss.getPrefix(prefix);
-        if (properties.isEmpty()) {
-            return false;
-        }
+        for (int attempt = 0; attempt < MAX_DELETE_ATTEMPTS; attempt++) {
+            Map<String, String> properties = this.dss.getPrefix(prefix);
+            if (properties.isEmpty()) {
+                return false;
+            }
 
-        this.dss.deletePrefix(prefix);
-        return true;
+            List<IDssAction> actions = new ArrayList<>();
+            String status = properties.get(prefix + "status");
+            if (status != null) {
+                // *** Before the prefix delete, which would remove the key being checked
+                actions.add(new DssDelete(prefix + "status", status));
+                actions.add(new DssDelete(DssUtils.getRunStatusIndexPrefix(status) + runname, null));
+            }
+            actions.add(new DssDeletePrefix(prefix));
+            String groupName = properties.get(prefix + "group");
+            if (groupName != null) {
+                actions.add(new DssDelete(DssUtils.getRunGroupIndexPrefix(groupName) + runname, null));
+            }
+            actions.add(new DssDelete(DssUtils.getRunActiveIndexPrefix() + runname, null));
+
+            try {
+                this.dss.performActions(actions.toArray(new IDssAction[actions.size()]));
+                return true;
+            } catch (DynamicStatusStoreMatchException e) {
+                logger.trace("Status of run " + runname + " changed while deleting it, trying again");
+            }
+        }
+        throw new DynamicStatusStoreException("Unable to delete run " + runname + ", its status kept changing");
     }
 
     @Override
@@ -429,8 +1009,24 @@ public class FrameworkRuns implements IFrameworkRuns {
             return false;
         }
 
-        this.dss.delete(prefix + "heartbeat");
-        this.dss.put(prefix + "status", "queued");
+        HashSet<String> heartbeatKeys = new HashSet<>();
+        heartbeatKeys.add(prefix + "heartbeat");
+        heartbeatKeys.add(prefix + "heartbeat.lease");
+        if (!"true".equals(properties.get(prefix + "shared.environment"))) {
+            heartbeatKeys.add(DssUtils.getRunActiveIndexPrefix() + runname);
+        }
+        this.dss.delete(heartbeatKeys);
+
+        // *** Then tidy up the heartbeat lease, if there is one
+        String heartbeatLease = properties.get(prefix + "heartbeat.lease");
+        if (heartbeatLease != null) {
+            try {
+                this.dss.revokeLease(UUID.fromString(heartbeatLease));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Run " + runname + " has an invalid heartbeat lease " + heartbeatLease);
+            }
+        }
+        DssUtils.putRunStatus(this.dss, runname, "queued", null);
         return true;
     }
 
@@ -443,7 +1039,7 @@ public class FrameworkRuns implements IFrameworkRuns {
             return null;
         }
 
-        return new RunImpl(runname, this.dss);
+        return new RunImpl(runname, properties);
     }
 
 }
\ No newline at end of file
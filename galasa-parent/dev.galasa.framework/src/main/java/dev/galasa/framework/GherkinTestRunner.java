@@ -225,9 +225,9 @@ public class GherkinTestRunner {
         }
 
         if (run.isLocal()) {
-            DssUtils.incrementMetric(dss, "metrics.runs.local");
+            DssUtils.incrementMetric(dss, "metrics.runs.local", this.run.getName());
         } else {
-            DssUtils.incrementMetric(dss, "metrics.runs.automated");
+            DssUtils.incrementMetric(dss, "metrics.runs.automated", this.run.getName());
         }
 
         updateStatus(TestRunLifecycleStatus.STARTED, "started");
@@ -432,7 +432,7 @@ public class GherkinTestRunner {
         int initialDelay = 600;
         int randomDelay = 180;
 
-        DssUtils.incrementMetric(dss, "metrics.runs.made.to.wait");
+        DssUtils.incrementMetric(dss, "metrics.runs.made.to.wait", this.run.getName());
 
         try {
             String sInitialDelay = AbstractManager.nulled(this.cps.getProperty("waiting.initial", "delay"));
@@ -455,10 +455,9 @@ public class GherkinTestRunner {
         until = until.plus(totalDelay, ChronoUnit.SECONDS);
 
         HashMap<String, String> properties = new HashMap<>();
-        properties.put(getDSSKeyString("status"), "waiting");
         properties.put(getDSSKeyString("wait.until"), until.toString());
         try {
-            this.dss.put(properties);
+            DssUtils.putRunStatus(this.dss, run.getName(), "waiting", properties);
         } catch (DynamicStatusStoreException e) {
             throw new TestRunException("Unable to place run in waiting state", e);
         }
@@ -476,10 +475,11 @@ public class GherkinTestRunner {
         writeTestStructure();
 
         try {
-            this.dss.put(getDSSKeyString("status"), status.toString());
+            HashMap<String, String> properties = new HashMap<>();
             if (timestamp != null) {
-                this.dss.put(getDSSKeyString(timestamp), time.toString());
+                properties.put(getDSSKeyString(timestamp), time.toString());
             }
+            DssUtils.putRunStatus(this.dss, run.getName(), status.toString(), properties);
         } catch (DynamicStatusStoreException e) {
             throw new TestRunException("Failed to update status", e);
         }
@@ -508,7 +508,7 @@ public class GherkinTestRunner {
         }
 
         try {
-            dss.delete(getDSSKeyString("heartbeat"));
+            heartbeat.deleteHeartbeat();
         } catch (DynamicStatusStoreException e) {
             logger.error("Unable to delete heartbeat", e);
         }
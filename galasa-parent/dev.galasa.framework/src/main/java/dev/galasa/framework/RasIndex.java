@@ -0,0 +1,79 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.osgi.service.component.annotations.Component;
+
+import dev.galasa.framework.internal.ras.directory.DirectoryRASDirectoryService;
+import dev.galasa.framework.spi.FrameworkException;
+import dev.galasa.framework.spi.IFramework;
+import dev.galasa.framework.spi.IResultArchiveStoreDirectoryService;
+
+@Component(service = { RasIndex.class })
+public class RasIndex {
+
+    private Log logger = LogFactory.getLog(this.getClass());
+
+    /**
+     * <p>Rebuild or verify the run index of each local directory RAS</p>
+     *
+     * @param bootstrapProperties
+     * @param overrideProperties
+     * @param verifyOnly - report where the index differs from the runs, rather than rebuilding it
+     * @throws FrameworkException - if the index could not be rebuilt, or is out of date when verifying
+     */
+    public void setup(Properties bootstrapProperties, Properties overrideProperties, boolean verifyOnly) throws FrameworkException {
+
+        logger.info("Initialising RAS Index Service");
+
+        FrameworkInitialisation frameworkInitialisation = null;
+        try {
+            frameworkInitialisation = new FrameworkInitialisation(bootstrapProperties, overrideProperties);
+        } catch (Exception e) {
+            throw new FrameworkException("Unable to initialise the Framework Service", e);
+        }
+
+        IFramework framework = frameworkInitialisation.getFramework();
+
+        boolean outOfDate = false;
+        for (IResultArchiveStoreDirectoryService directoryService : framework.getResultArchiveStore().getDirectoryServices()) {
+            if (!(directoryService instanceof DirectoryRASDirectoryService)) {
+                continue; // *** Only the directory RAS has a run index
+            }
+            DirectoryRASDirectoryService directoryRas = (DirectoryRASDirectoryService) directoryService;
+
+            if (verifyOnly) {
+                List<String> problems = directoryRas.verifyIndex();
+                for (String problem : problems) {
+                    logger.warn(problem);
+                }
+                if (problems.isEmpty()) {
+                    logger.info("The run index of " + directoryRas.getName() + " is up to date");
+                } else {
+                    logger.error("The run index of " + directoryRas.getName() + " has " + problems.size() + " problem(s), rebuild it with --rasindex");
+                    outOfDate = true;
+                }
+            } else {
+                int runs = directoryRas.rebuildIndex();
+                logger.info("Rebuilt the run index of " + directoryRas.getName() + " with " + runs + " run(s)");
+            }
+        }
+
+        logger.info("Ending RAS Index Service");
+
+        frameworkInitialisation.shutdownFramework();
+
+        if (outOfDate) {
+            throw new FrameworkException("The run index is out of date");
+        }
+    }
+
+}
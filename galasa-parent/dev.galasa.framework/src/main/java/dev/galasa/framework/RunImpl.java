@@ -17,6 +17,7 @@ public class RunImpl implements IRun {
 
     private final String  name;
     private final Instant heartbeat;
+    private final String  heartbeatLease;
     private final String  type;
     private final String  group;
     private final String  test;
@@ -38,18 +39,29 @@ public class RunImpl implements IRun {
     private final String  rasRunId;
 
     public RunImpl(String name, IDynamicStatusStoreService dss) throws DynamicStatusStoreException {
+        this(name, dss.getPrefix("run." + name + "."));
+    }
+
+    /**
+     * Creates the run from properties already fetched from the DSS, so that a
+     * list of runs can be built from a single fetch.
+     * 
+     * @param name          - the run name
+     * @param runProperties - the properties of the run, keyed by the full name, eg
+     *                      run.U1.status. Properties of other runs are ignored.
+     */
+    public RunImpl(String name, Map<String, String> runProperties) {
         this.name = name;
 
         String prefix = "run." + name + ".";
 
-        Map<String, String> runProperties = dss.getPrefix("run." + this.name);
-
         String sHeartbeat = runProperties.get(prefix + "heartbeat");
         if (sHeartbeat != null) {
             this.heartbeat = Instant.parse(sHeartbeat);
         } else {
             this.heartbeat = null;
         }
+        this.heartbeatLease = runProperties.get(prefix + "heartbeat.lease");
 
         type = runProperties.get(prefix + "request.type");
         test = runProperties.get(prefix + "test");
@@ -116,6 +128,11 @@ public class RunImpl implements IRun {
         return this.heartbeat;
     }
 
+    @Override
+    public String getHeartbeatLease() {
+        return this.heartbeatLease;
+    }
+
     @Override
     public String getType() {
         return type;
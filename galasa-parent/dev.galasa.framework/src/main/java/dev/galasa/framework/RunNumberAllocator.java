@@ -0,0 +1,145 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.FrameworkException;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+
+/**
+ * <p>
+ * Hands out run numbers for each run type prefix.
+ * </p>
+ *
+ * <p>
+ * The last number used for a prefix is kept in the DSS as
+ * request.prefix.&lt;prefix&gt;.lastused. Rather than move it on by one for every
+ * run, a block of numbers is claimed with one swap and then handed out from
+ * memory. A block does not go past the maximum number for the prefix, the next
+ * block starts again at 1. Numbers left in a block when the JVM ends are not
+ * used.
+ * </p>
+ *
+ * <p>
+ * If another JVM moves the last used number on at the same time, the claim is
+ * tried again after a random wait, which doubles up to a limit on each attempt.
+ * </p>
+ */
+class RunNumberAllocator {
+
+    private static final long                BACKOFF_BASE_MILLISECS = 10;
+    private static final long                BACKOFF_MAX_MILLISECS  = 1000;
+
+    private final IDynamicStatusStoreService dss;
+    private final Random                     random;
+
+    private final Map<String, Block>         blocks                 = new ConcurrentHashMap<>();
+
+    /**
+     * The numbers claimed for a prefix and not yet handed out, from next up to
+     * and including last
+     */
+    private static class Block {
+        private int next = 1;
+        private int last = 0;
+
+        private int remaining() {
+            return last - next + 1;
+        }
+    }
+
+    RunNumberAllocator(IDynamicStatusStoreService dss, Random random) {
+        this.dss = dss;
+        this.random = random;
+    }
+
+    /**
+     * Returns the next run number for a prefix, claiming a new block if the
+     * current one has been used up.
+     *
+     * @param typePrefix - the run name prefix, eg U
+     * @param maxNumber  - the highest number for the prefix
+     * @param blockSize  - how many numbers to claim at once
+     * @return the run number
+     */
+    int next(String typePrefix, int maxNumber, int blockSize)
+            throws FrameworkException, DynamicStatusStoreException, InterruptedException {
+        return next(typePrefix, maxNumber, blockSize, 1)[0];
+    }
+
+    /**
+     * Returns several run numbers for a prefix, claiming a block big enough for
+     * all of them if the current one has not got enough left.
+     *
+     * @param typePrefix - the run name prefix, eg U
+     * @param maxNumber  - the highest number for the prefix
+     * @param blockSize  - how many numbers to claim at once
+     * @param count      - how many numbers are wanted
+     * @return the run numbers
+     */
+    int[] next(String typePrefix, int maxNumber, int blockSize, int count)
+            throws FrameworkException, DynamicStatusStoreException, InterruptedException {
+        Block block = this.blocks.computeIfAbsent(typePrefix, p -> new Block());
+
+        int[] numbers = new int[count];
+        synchronized (block) {
+            int got = 0;
+            while (got < count) {
+                if (block.remaining() <= 0) {
+                    claim(typePrefix, block, maxNumber, Math.max(blockSize, count - got));
+                }
+                numbers[got++] = block.next++;
+            }
+        }
+        return numbers;
+    }
+
+    private void claim(String typePrefix, Block block, int maxNumber, int size)
+            throws FrameworkException, DynamicStatusStoreException, InterruptedException {
+        String pLastused = "request.prefix." + typePrefix + ".lastused";
+
+        int attempt = 0;
+        while (true) {
+            String sLatestNumber = this.dss.get(pLastused);
+            int latestNumber = 0;
+            if (sLatestNumber != null && !sLatestNumber.trim().isEmpty()) {
+                latestNumber = Integer.parseInt(sLatestNumber.trim());
+            }
+
+            // *** Start again at 1 if we have gone past the maximum number
+            int first = latestNumber + 1;
+            if (first > maxNumber || first <= 0) {
+                first = 1;
+            }
+            int last = (int) Math.min((long) first + size - 1, maxNumber);
+
+            if (this.dss.putSwap(pLastused, sLatestNumber, Integer.toString(last))) {
+                block.next = first;
+                block.last = last;
+                return;
+            }
+
+            // *** Someone else got in first, wait for a bit to avoid racing them again
+            Thread.sleep(backoff(attempt++));
+        }
+    }
+
+    /**
+     * @return a random wait of up to the base time doubled for each attempt, up
+     *         to a limit
+     */
+    long backoff(int attempt) {
+        long limit = BACKOFF_MAX_MILLISECS;
+        if (attempt < 20) {
+            limit = Math.min(BACKOFF_MAX_MILLISECS, BACKOFF_BASE_MILLISECS << attempt);
+        }
+        return 1 + (long) (this.random.nextDouble() * limit);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.framework.spi.DssDelete;
+import dev.galasa.framework.spi.DssUpdate;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+
+/**
+ * <p>
+ * Collects the progress of a run, such as the test method currently running,
+ * and writes it to the DSS in one go every interval, rather than every time it
+ * changes. Only the latest value of each key is written, so a run going
+ * through many quick test methods writes a handful of times rather than twice
+ * for every method.
+ * </p>
+ *
+ * <p>
+ * The test runner flushes the progress at each change of the run status, and
+ * when the run finishes, so the progress is never behind the status. An
+ * interval of 0 or less writes every change straight away.
+ * </p>
+ *
+ * <p>
+ * The batches are written with the asynchronous DSS calls, so the test does
+ * not wait for the write. Each batch is only started once the one before has
+ * been written, so an older batch cannot overwrite a newer one, and a failed
+ * batch is put back before the next one is taken.
+ * </p>
+ */
+public class RunProgressPublisher {
+
+    private final Log                        logger    = LogFactory.getLog(RunProgressPublisher.class);
+
+    private final IDynamicStatusStoreService dss;
+    private final long                       intervalMillis;
+
+    // *** The changes not yet written, a key is in one or the other
+    private final Map<String, String>        puts      = new HashMap<>();
+    private final Set<String>                deletes   = new HashSet<>();
+
+    // *** The last batch started, the next one waits for it
+    private CompletableFuture<Void>          lastFlush = CompletableFuture.completedFuture(null);
+
+    private ScheduledExecutorService         flusher;
+
+    public RunProgressPublisher(@NotNull IDynamicStatusStoreService dss, long intervalMillis) {
+        this.dss = dss;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Starts writing the progress every interval
+     */
+    public synchronized void start() {
+        if (this.intervalMillis <= 0 || this.flusher != null) {
+            return;
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread flusherThread = new Thread(runnable, "Run progress publisher");
+            flusherThread.setDaemon(true);
+            return flusherThread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, this.intervalMillis, this.intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void put(@NotNull String key, @NotNull String value) {
+        synchronized (this) {
+            this.deletes.remove(key);
+            this.puts.put(key, value);
+        }
+        if (this.intervalMillis <= 0) {
+            flushNow();
+        }
+    }
+
+    public void delete(@NotNull String key) {
+        synchronized (this) {
+            this.puts.remove(key);
+            this.deletes.add(key);
+        }
+        if (this.intervalMillis <= 0) {
+            flushNow();
+        }
+    }
+
+    /**
+     * Writes the changes made since the last flush in one DSS update, and waits
+     * for them and any earlier batches to be written
+     */
+    public void flush() throws DynamicStatusStoreException {
+        try {
+            flushAsync().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof DynamicStatusStoreException) {
+                throw (DynamicStatusStoreException) e.getCause();
+            }
+            throw new DynamicStatusStoreException("Unable to publish the run progress", e.getCause());
+        }
+    }
+
+    /**
+     * Starts writing the changes made since the last flush in one DSS update,
+     * once the batch before has been written
+     * 
+     * @return a future completed when the batch has been written
+     */
+    public synchronized CompletableFuture<Void> flushAsync() {
+        this.lastFlush = this.lastFlush.handle((result, e) -> null).thenCompose(ignored -> writeBatch());
+        return this.lastFlush;
+    }
+
+    /**
+     * Takes the changes not yet written and starts writing them
+     */
+    private CompletableFuture<Void> writeBatch() {
+        Map<String, String> flushPuts;
+        Set<String> flushDeletes;
+        synchronized (this) {
+            if (this.puts.isEmpty() && this.deletes.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            flushPuts = new HashMap<>(this.puts);
+            flushDeletes = new HashSet<>(this.deletes);
+            this.puts.clear();
+            this.deletes.clear();
+        }
+
+        CompletableFuture<Void> write;
+        if (flushDeletes.isEmpty()) {
+            write = this.dss.putAsync(flushPuts);
+        } else {
+            List<IDssAction> actions = new ArrayList<>();
+            for (Entry<String, String> entry : flushPuts.entrySet()) {
+                actions.add(new DssUpdate(entry.getKey(), entry.getValue()));
+            }
+            for (String key : flushDeletes) {
+                actions.add(new DssDelete(key, null));
+            }
+            write = this.dss.performActionsAsync(actions.toArray(new IDssAction[actions.size()]));
+        }
+
+        return write.whenComplete((result, e) -> {
+            if (e != null) {
+                requeue(flushPuts, flushDeletes);
+            }
+        });
+    }
+
+    /**
+     * Stops writing every interval and writes what is left
+     */
+    public void shutdown() throws DynamicStatusStoreException {
+        synchronized (this) {
+            if (this.flusher != null) {
+                this.flusher.shutdown();
+                this.flusher = null;
+            }
+        }
+        flush();
+    }
+
+    private void flushNow() {
+        try {
+            flush();
+        } catch (DynamicStatusStoreException e) {
+            logger.warn("Unable to publish the run progress, will try again", e);
+        }
+    }
+
+    private void flushQuietly() {
+        flushAsync().exceptionally(e -> {
+            logger.warn("Unable to publish the run progress, will try again", e);
+            return null;
+        });
+    }
+
+    /**
+     * Puts back the changes of a failed flush, unless they have been changed
+     * again since
+     */
+    private synchronized void requeue(Map<String, String> flushPuts, Set<String> flushDeletes) {
+        for (Entry<String, String> entry : flushPuts.entrySet()) {
+            if (!this.deletes.contains(entry.getKey())) {
+                this.puts.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+        for (String key : flushDeletes) {
+            if (!this.puts.containsKey(key)) {
+                this.deletes.add(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+import dev.galasa.framework.spi.IDynamicStatusStoreWatcher;
+import dev.galasa.framework.spi.IRun;
+
+/**
+ * <p>
+ * An in-memory copy of the runs in the DSS, for processes which ask for the
+ * runs over and over, such as the controllers and the API server.
+ * </p>
+ *
+ * <p>
+ * The view is seeded with one read of the run properties and then kept up to
+ * date by a prefix watch, so only the run that changed is rebuilt. Queries are
+ * answered from an immutable {@link Snapshot}, indexed by status and group,
+ * which is built on the first query after a change and then reused.
+ * </p>
+ *
+ * <p>
+ * Changes made by other processes are seen once the DSS has told the watch
+ * about them.
+ * </p>
+ */
+public class RunStateView implements IDynamicStatusStoreWatcher {
+
+    private final static Log                       logger        = LogFactory.getLog(RunStateView.class);
+
+    private static final String                    RUN_PREFIX    = "run.";
+
+    private final Pattern                          runPattern    = Pattern.compile("^\\Qrun.\\E(\\w+)\\Q.\\E.*$");
+
+    private final IDynamicStatusStoreService       dss;
+
+    private final Object                           lock          = new Object();
+
+    // *** All guarded by the lock
+    private final Map<String, Map<String, String>> runProperties = new HashMap<>();
+    private final Map<String, IRun>                runs          = new HashMap<>();
+    private final Map<String, Map<String, IRun>>   byStatus      = new HashMap<>();
+    private final Map<String, Map<String, IRun>>   byGroup       = new HashMap<>();
+    private List<PendingEvent>                     pendingEvents;
+    private long                                   version;
+    private UUID                                   watchId;
+
+    private volatile Snapshot                      snapshot;
+
+    /**
+     * An immutable copy of the runs at a point in time
+     */
+    public static class Snapshot {
+        private final long                    version;
+        private final Map<String, IRun>       runs;
+        private final List<IRun>              runList;
+        private final Map<String, List<IRun>> byStatus;
+        private final Map<String, List<IRun>> byGroup;
+
+        private Snapshot(long version, Map<String, IRun> runs, Map<String, List<IRun>> byStatus,
+                Map<String, List<IRun>> byGroup) {
+            this.version = version;
+            this.runs = runs;
+            this.runList = Collections.unmodifiableList(new ArrayList<>(runs.values()));
+            this.byStatus = byStatus;
+            this.byGroup = byGroup;
+        }
+
+        /**
+         * @return a number which goes up every time a run changes
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public @NotNull List<IRun> getRuns() {
+            return runList;
+        }
+
+        public IRun getRun(String runName) {
+            return runs.get(runName);
+        }
+
+        public @NotNull List<IRun> getRunsWithStatus(String status) {
+            return byStatus.getOrDefault(status, Collections.emptyList());
+        }
+
+        public @NotNull List<IRun> getRunsInGroup(String group) {
+            return byGroup.getOrDefault(group, Collections.emptyList());
+        }
+    }
+
+    private static class PendingEvent {
+        private final String key;
+        private final Event  event;
+        private final String newValue;
+
+        private PendingEvent(String key, Event event, String newValue) {
+            this.key = key;
+            this.event = event;
+            this.newValue = newValue;
+        }
+    }
+
+    public RunStateView(IDynamicStatusStoreService dss) {
+        this.dss = dss;
+    }
+
+    /**
+     * Starts watching the runs and seeds the view from the DSS. Changes made
+     * while the view is being seeded are held back and applied afterwards, in
+     * the order they were made.
+     *
+     * @throws DynamicStatusStoreException if the DSS could not be read or watched
+     */
+    public void start() throws DynamicStatusStoreException {
+        synchronized (lock) {
+            if (this.watchId != null || this.pendingEvents != null) {
+                return;
+            }
+            this.pendingEvents = new ArrayList<>();
+        }
+
+        UUID newWatchId = this.dss.watchPrefix(this, RUN_PREFIX);
+        Map<String, String> properties;
+        try {
+            properties = this.dss.getPrefix(RUN_PREFIX);
+        } catch (DynamicStatusStoreException e) {
+            this.dss.unwatch(newWatchId);
+            synchronized (lock) {
+                this.pendingEvents = null;
+            }
+            throw e;
+        }
+
+        synchronized (lock) {
+            this.watchId = newWatchId;
+            for (Entry<String, String> property : properties.entrySet()) {
+                putProperty(property.getKey(), property.getValue());
+            }
+            for (PendingEvent pending : this.pendingEvents) {
+                applyEvent(pending.key, pending.event, pending.newValue);
+            }
+            this.pendingEvents = null;
+
+            this.snapshot = null;
+            this.version++;
+        }
+        logger.debug("Run state view started with " + getSnapshot().runs.size() + " runs");
+    }
+
+    /**
+     * Stops watching the runs, the view is no longer kept up to date.
+     */
+    public void shutdown() throws DynamicStatusStoreException {
+        UUID oldWatchId;
+        synchronized (lock) {
+            oldWatchId = this.watchId;
+            this.watchId = null;
+        }
+        if (oldWatchId != null) {
+            this.dss.unwatch(oldWatchId);
+        }
+    }
+
+    /**
+     * @return the runs as they are now, the snapshot does not change
+     */
+    public @NotNull Snapshot getSnapshot() {
+        Snapshot current = this.snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (lock) {
+            if (this.snapshot == null) {
+                this.snapshot = new Snapshot(this.version, new HashMap<>(this.runs), copyIndex(this.byStatus),
+                        copyIndex(this.byGroup));
+            }
+            return this.snapshot;
+        }
+    }
+
+    private Map<String, List<IRun>> copyIndex(Map<String, Map<String, IRun>> index) {
+        Map<String, List<IRun>> copy = new HashMap<>();
+        for (Entry<String, Map<String, IRun>> entry : index.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue().values())));
+        }
+        return copy;
+    }
+
+    @Override
+    public void propertyModified(String key, Event event, String oldValue, String newValue) {
+        synchronized (lock) {
+            if (this.pendingEvents != null) {
+                this.pendingEvents.add(new PendingEvent(key, event, newValue));
+                return;
+            }
+            if (this.watchId == null) {
+                return;
+            }
+
+            applyEvent(key, event, newValue);
+            this.snapshot = null;
+            this.version++;
+        }
+    }
+
+    private void applyEvent(String key, Event event, String newValue) {
+        if (event == Event.DELETE) {
+            removeProperty(key);
+        } else {
+            putProperty(key, newValue);
+        }
+    }
+
+    private void putProperty(String key, String value) {
+        String runName = getRunName(key);
+        if (runName == null) {
+            return;
+        }
+
+        Map<String, String> properties = this.runProperties.computeIfAbsent(runName, name -> new LinkedHashMap<>());
+        properties.put(key, value);
+        rebuildRun(runName, properties);
+    }
+
+    private void removeProperty(String key) {
+        String runName = getRunName(key);
+        if (runName == null) {
+            return;
+        }
+
+        Map<String, String> properties = this.runProperties.get(runName);
+        if (properties == null) {
+            return;
+        }
+        properties.remove(key);
+        if (properties.isEmpty()) {
+            this.runProperties.remove(runName);
+            unindex(this.runs.remove(runName));
+        } else {
+            rebuildRun(runName, properties);
+        }
+    }
+
+    private void rebuildRun(String runName, Map<String, String> properties) {
+        IRun run;
+        try {
+            run = new RunImpl(runName, properties);
+        } catch (RuntimeException e) {
+            logger.warn("Unable to build run " + runName + " from the DSS, keeping the previous state", e);
+            return;
+        }
+
+        unindex(this.runs.put(runName, run));
+        index(this.byStatus, run.getStatus(), run);
+        index(this.byGroup, run.getGroup(), run);
+    }
+
+    private void index(Map<String, Map<String, IRun>> index, String value, IRun run) {
+        if (value != null) {
+            index.computeIfAbsent(value, v -> new LinkedHashMap<>()).put(run.getName(), run);
+        }
+    }
+
+    private void unindex(IRun run) {
+        if (run == null) {
+            return;
+        }
+        unindex(this.byStatus, run.getStatus(), run.getName());
+        unindex(this.byGroup, run.getGroup(), run.getName());
+    }
+
+    private void unindex(Map<String, Map<String, IRun>> index, String value, String runName) {
+        if (value == null) {
+            return;
+        }
+        Map<String, IRun> runsForValue = index.get(value);
+        if (runsForValue != null) {
+            runsForValue.remove(runName);
+            if (runsForValue.isEmpty()) {
+                index.remove(value);
+            }
+        }
+    }
+
+    private String getRunName(String key) {
+        Matcher matcher = runPattern.matcher(key);
+        if (matcher.find()) {
+            return matcher.group(1);
+        }
+        return null;
+    }
+}
@@ -24,10 +24,8 @@ import dev.galasa.ContinueOnTestFailure;
 import dev.galasa.framework.GenericMethodWrapper.Type;
 import dev.galasa.framework.spi.AbstractManager;
 import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
-import dev.galasa.framework.spi.DynamicStatusStoreException;
 import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
-import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.Result;
 import dev.galasa.framework.spi.teststructure.TestMethod;
 import dev.galasa.framework.spi.teststructure.TestStructure;
@@ -176,12 +174,12 @@ public class TestClassWrapper {
      * with @BeforeClass, @Before, @After and @AfterClass
      * 
      * @param managers
-     * @param dss 
+     * @param progress - where the progress of the test methods is published
      * @param runName 
      * 
      * @throws TestRunException
      */
-    public void runTestMethods(@NotNull TestRunManagers managers, IDynamicStatusStoreService dss, String runName) throws TestRunException {
+    public void runTestMethods(@NotNull TestRunManagers managers, RunProgressPublisher progress, String runName) throws TestRunException {
 
         logger.info(LOG_STARTING + LOG_START_LINE + LOG_ASTERS + LOG_START_LINE + "*** Start of test class "
                 + testClass.getName() + LOG_START_LINE + LOG_ASTERS);
@@ -204,39 +202,36 @@ public class TestClassWrapper {
         if (result == null) {
             // Run test methods
 
-            try {
-                dss.put("run." + runName + ".method.total", Integer.toString(this.testMethods.size()));
-
-                int actualMethod = 0;
-                for (TestMethodWrapper testMethod : this.testMethods) {
-                    actualMethod++;
-                    dss.put("run." + runName + ".method.current", Integer.toString(actualMethod));
-                    dss.put("run." + runName + ".method.name", testMethod.getName());
-                    // Run @Test method
-                    testMethod.invoke(managers, this.testClassObject, this.continueOnTestFailure);
-                    if (testMethod.fullStop()) {
-                        break;
-                    }
+            // *** The method progress is only for display, so it is written by the publisher in batches
+            progress.put("run." + runName + ".method.total", Integer.toString(this.testMethods.size()));
+
+            int actualMethod = 0;
+            for (TestMethodWrapper testMethod : this.testMethods) {
+                actualMethod++;
+                progress.put("run." + runName + ".method.current", Integer.toString(actualMethod));
+                progress.put("run." + runName + ".method.name", testMethod.getName());
+                // Run @Test method
+                testMethod.invoke(managers, this.testClassObject, this.continueOnTestFailure);
+                if (testMethod.fullStop()) {
+                    break;
                 }
+            }
 
-                for (TestMethodWrapper testMethod : this.testMethods) {
-                    Result testMethodResult = testMethod.getResult();
-                    if (testMethodResult != null && testMethodResult.isFailed()) {
-                        this.result = Result.failed("A Test failed");
-                        break;
-                    }
+            for (TestMethodWrapper testMethod : this.testMethods) {
+                Result testMethodResult = testMethod.getResult();
+                if (testMethodResult != null && testMethodResult.isFailed()) {
+                    this.result = Result.failed("A Test failed");
+                    break;
                 }
+            }
 
-                if (this.result == null) {
-                    this.result = Result.passed();
-                }
-                
-                dss.delete("run." + runName + ".method.name");
-                dss.delete("run." + runName + ".method.total");
-                dss.delete("run." + runName + ".method.current");
-            } catch (DynamicStatusStoreException e) {
-                throw new TestRunException("Failed to update the run status", e);
-            }     
+            if (this.result == null) {
+                this.result = Result.passed();
+            }
+
+            progress.delete("run." + runName + ".method.name");
+            progress.delete("run." + runName + ".method.total");
+            progress.delete("run." + runName + ".method.current");
         }
 
         // Run @AfterClass methods
@@ -6,17 +6,39 @@
 package dev.galasa.framework;
 
 import java.time.Instant;
+import java.util.HashSet;
+import java.util.UUID;
 
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import dev.galasa.framework.spi.AbstractManager;
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IResultArchiveStore;
-
+import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.utils.DssUtils;
+
+/**
+ * <p>
+ * Keeps the heartbeat of the run alive, so the resource management can tell
+ * when an engine has died.
+ * </p>
+ * 
+ * <p>
+ * Normally the heartbeat is a timestamp rewritten every 20 seconds. With
+ * framework.heartbeat.lease=true, and a DSS which supports leases, the
+ * heartbeat is put once with a time to live of the dead heartbeat timeout,
+ * and then only the lease is kept alive. The lease id is put in
+ * run.&lt;name&gt;.heartbeat.lease so the resource management knows not to
+ * check the timestamp.
+ * </p>
+ */
 public class TestRunHeartbeat extends Thread {
 
     private final Log                        logger        = LogFactory.getLog(this.getClass());
@@ -25,9 +47,15 @@ public class TestRunHeartbeat extends Thread {
     private final IDynamicStatusStoreService dss;
     private final IResultArchiveStore        ras;
     private final String                     key;
+    private final String                     leaseKey;
+    private final String                     activeIndexKey;
 
     private String                           lastHeartbeat = null;
 
+    private boolean                          useLease;
+    private long                             leaseTtl      = 300;
+    private UUID                             leaseId;
+
     private boolean                          shutdown      = false;
 
     protected TestRunHeartbeat(@NotNull IFramework framework) throws DynamicStatusStoreException {
@@ -35,12 +63,37 @@ public class TestRunHeartbeat extends Thread {
         this.dss = this.framework.getDynamicStatusStoreService("framework");
         this.ras = this.framework.getResultArchiveStore();
         this.key = "run." + framework.getTestRunName() + ".heartbeat";
+        this.leaseKey = this.key + ".lease";
+        this.activeIndexKey = DssUtils.getRunActiveIndexPrefix() + framework.getTestRunName();
+
+        try {
+            IConfigurationPropertyStoreService cps = this.framework.getConfigurationPropertyService("framework");
+            this.useLease = Boolean.parseBoolean(AbstractManager.nulled(cps.getProperty("heartbeat", "lease")));
+            String sTimeout = AbstractManager.nulled(cps.getProperty("resource.management", "dead.heartbeat.timeout"));
+            if (sTimeout != null) {
+                this.leaseTtl = Long.parseLong(sTimeout);
+            }
+        } catch (ConfigurationPropertyStoreException | NumberFormatException e) {
+            logger.warn("Unable to read the heartbeat lease properties, using a timestamp heartbeat", e);
+            this.useLease = false;
+        }
+
+        // *** So the run can be found without reading every run, see DssUtils.RUN_INDEX_PREFIX
+        dss.put(this.activeIndexKey, framework.getTestRunName());
 
         // *** Set the initial
         setHeartbeat();
     }
 
     private void setHeartbeat() throws DynamicStatusStoreException {
+        if (this.useLease) {
+            if (startOrKeepLease()) {
+                this.ras.flush();
+                return;
+            }
+            this.useLease = false; // *** The DSS does not support leases
+        }
+
         String newHeartbeat = Instant.now().toString();
 
         if (!dss.putSwap(key, lastHeartbeat, newHeartbeat)) {
@@ -61,6 +114,58 @@ public class TestRunHeartbeat extends Thread {
         this.ras.flush();
     }
 
+    /**
+     * @return false if the DSS does not support leases
+     */
+    private boolean startOrKeepLease() throws DynamicStatusStoreException {
+        if (this.leaseId != null) {
+            if (!dss.keepAlive(this.leaseId)) {
+                // *** The lease has expired, so the run has been or is about to be reset
+                logger.fatal("The run heartbeat lease has expired");
+                logger.fatal("Cannot allow provision discard to run as this could affect another engine");
+                System.exit(0);
+            }
+            return true;
+        }
+
+        if (dss.get(key) != null) {
+            logger.fatal("The run heartbeat has been set by something else");
+            logger.fatal("Cannot allow provision discard to run as this could affect the other engine");
+            System.exit(0);
+        }
+
+        this.leaseId = dss.putWithTtl(key, Instant.now().toString(), this.leaseTtl);
+        if (this.leaseId == null) {
+            // *** Put without a lease, carry on with it as a timestamp
+            this.lastHeartbeat = dss.get(key);
+            return false;
+        }
+        dss.put(leaseKey, this.leaseId.toString());
+        return true;
+    }
+
+    /**
+     * Deletes the heartbeat once the run has finished with it. The heartbeat and
+     * lease id go together, so the resource management does not see a lease
+     * without a heartbeat and think the run has died. A shared environment is
+     * still active without a heartbeat, so it stays in the active index.
+     */
+    public void deleteHeartbeat() throws DynamicStatusStoreException {
+        HashSet<String> keys = new HashSet<>();
+        keys.add(key);
+        keys.add(leaseKey);
+        IRun run = this.framework.getTestRun();
+        if (run == null || !run.isSharedEnvironment()) {
+            keys.add(this.activeIndexKey);
+        }
+        dss.delete(keys);
+
+        if (this.leaseId != null) {
+            dss.revokeLease(this.leaseId);
+            this.leaseId = null;
+        }
+    }
+
     public void shutdown() {
         this.shutdown = true;
     }
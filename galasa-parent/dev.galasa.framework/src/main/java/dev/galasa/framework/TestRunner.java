@@ -80,6 +80,7 @@ public class TestRunner {
     private IMavenRepository                   mavenRepository;
 
     private TestRunHeartbeat                   heartbeat;
+    private RunProgressPublisher               progress;
 
     private IConfigurationPropertyStoreService cps;
     private IDynamicStatusStoreService         dss;
@@ -324,10 +325,10 @@ public class TestRunner {
 
             if (run.isLocal()) {
                 logger.debug("It's a local test");
-                DssUtils.incrementMetric(dss, "metrics.runs.local");
+                DssUtils.incrementMetric(dss, "metrics.runs.local", this.run.getName());
             } else {
                 logger.debug("It's an automated test");
-                DssUtils.incrementMetric(dss, "metrics.runs.automated");
+                DssUtils.incrementMetric(dss, "metrics.runs.automated", this.run.getName());
             }
         } else if (this.runType == RunType.SHARED_ENVIRONMENT_BUILD) {
             int expireHours = sharedEnvironmentAnnotation.expireAfterHours();
@@ -604,22 +605,47 @@ public class TestRunner {
             // Do nothing if we are setting up the shared environment
             if (this.runType != RunType.SHARED_ENVIRONMENT_BUILD ) {
                 
+                this.progress = new RunProgressPublisher(this.dss, getProgressInterval());
+                this.progress.start();
                 updateStatus(TestRunLifecycleStatus.RUNNING, null);
                 try {
                     logger.info("Running the test class");
-                    testClassWrapper.runTestMethods(managers, this.dss, this.run.getName());
+                    testClassWrapper.runTestMethods(managers, this.progress, this.run.getName());
                 } finally {
+                    try {
+                        this.progress.shutdown();
+                    } catch (DynamicStatusStoreException e) {
+                        logger.error("Unable to publish the final progress of the test class", e);
+                    }
+                    this.progress = null;
                     updateStatus(TestRunLifecycleStatus.RUNDONE, null);
                 }
             }
         }
     }
 
+    /**
+     * @return how often the test method progress is written to the DSS, from
+     *         framework.run.progress.interval in milliseconds
+     */
+    private long getProgressInterval() {
+        long interval = 1000;
+        try {
+            String sInterval = AbstractManager.nulled(this.cps.getProperty("run.progress", "interval"));
+            if (sInterval != null) {
+                interval = Long.parseLong(sInterval);
+            }
+        } catch (ConfigurationPropertyStoreException | NumberFormatException e) {
+            logger.error("Problem with framework.run.progress.interval, using default " + interval, e);
+        }
+        return interval;
+    }
+
     private void markWaiting(@NotNull IFramework framework) throws TestRunException {
         int initialDelay = 600;
         int randomDelay = 180;
 
-        DssUtils.incrementMetric(dss, "metrics.runs.made.to.wait");
+        DssUtils.incrementMetric(dss, "metrics.runs.made.to.wait", this.run.getName());
 
         try {
             String sInitialDelay = AbstractManager.nulled(this.cps.getProperty("waiting.initial", "delay"));
@@ -642,10 +668,9 @@ public class TestRunner {
         until = until.plus(totalDelay, ChronoUnit.SECONDS);
 
         HashMap<String, String> properties = new HashMap<>();
-        properties.put("run." + run.getName() + ".status", "waiting");
         properties.put("run." + run.getName() + ".wait.until", until.toString());
         try {
-            this.dss.put(properties);
+            DssUtils.putRunStatus(this.dss, run.getName(), "waiting", properties);
         } catch (DynamicStatusStoreException e) {
             throw new TestRunException("Unable to place run in waiting state", e);
         }
@@ -661,11 +686,21 @@ public class TestRunner {
 
         writeTestStructure();
 
+        // *** So the progress is never behind the status
+        if (this.progress != null) {
+            try {
+                this.progress.flush();
+            } catch (DynamicStatusStoreException e) {
+                logger.warn("Unable to publish the run progress", e);
+            }
+        }
+
         try {
-            this.dss.put("run." + run.getName() + ".status", status.toString());
+            HashMap<String, String> properties = new HashMap<>();
             if (timestamp != null) {
-                this.dss.put("run." + run.getName() + "." + timestamp, Instant.now().toString());
+                properties.put("run." + run.getName() + "." + timestamp, Instant.now().toString());
             }
+            DssUtils.putRunStatus(this.dss, run.getName(), status.toString(), properties);
         } catch (DynamicStatusStoreException e) {
             throw new TestRunException("Failed to update status", e);
         }
@@ -718,7 +753,7 @@ public class TestRunner {
         }
 
         try {
-            dss.delete("run." + run.getName() + ".heartbeat");
+            heartbeat.deleteHeartbeat();
         } catch (DynamicStatusStoreException e) {
             logger.error("Unable to delete heartbeat", e);
         }
@@ -0,0 +1,290 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.cps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Null;
+
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.IConfigurationPropertyStore;
+
+/**
+ * <p>
+ * A read-through cache in front of the registered CPS store, so that a property
+ * which is read over and over, or looked for and not found, only costs a store
+ * call once per time to live.
+ * </p>
+ *
+ * <p>
+ * Only the keys in the chosen namespaces are cached. Missing keys are cached as
+ * well as found ones, as most of the key variants tried by
+ * {@link FrameworkConfigurationPropertyService#getProperty(String, String, String...)}
+ * do not exist. The cache holds up to a maximum number of entries, dropping the
+ * least recently used. Properties set or deleted through the cache are
+ * invalidated straight away, changes made elsewhere are seen once the entry has
+ * expired.
+ * </p>
+ *
+ * <p>
+ * The cache sits below {@link FrameworkConfigurationPropertyService}, so every
+ * read is still written to the access record, whether it came from the cache or
+ * not.
+ * </p>
+ */
+public class CachingConfigurationPropertyStore implements IConfigurationPropertyStore {
+
+    private static class CacheEntry {
+        private final String value;
+        private final long   expires;
+
+        private CacheEntry(String value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+    private final IConfigurationPropertyStore cpsStore;
+    private final Set<String>                 namespaces;
+    private final boolean                     allNamespaces;
+    private final long                        ttlNanos;
+    private final LongSupplier                clock;
+
+    // Least recently used first
+    private final LinkedHashMap<String, CacheEntry> cache;
+
+    // Counts invalidations, so a read which overlaps one does not cache a stale value
+    private long invalidations;
+
+    private final AtomicLong hits      = new AtomicLong();
+    private final AtomicLong misses    = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param cpsStore      - the store to cache
+     * @param namespaces    - the namespaces to cache, "*" for all of them
+     * @param ttlMillisecs  - how long an entry is used for
+     * @param maxEntries    - the most entries to hold
+     */
+    public CachingConfigurationPropertyStore(IConfigurationPropertyStore cpsStore, Collection<String> namespaces,
+            long ttlMillisecs, int maxEntries) {
+        this(cpsStore, namespaces, ttlMillisecs, maxEntries, System::nanoTime);
+    }
+
+    CachingConfigurationPropertyStore(IConfigurationPropertyStore cpsStore, Collection<String> namespaces,
+            long ttlMillisecs, int maxEntries, LongSupplier clock) {
+        this.cpsStore = cpsStore;
+        this.namespaces = new HashSet<>(namespaces);
+        this.allNamespaces = this.namespaces.contains("*");
+        this.ttlNanos = ttlMillisecs * 1000000L;
+        this.clock = clock;
+        this.cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private boolean isCached(String key) {
+        if (allNamespaces) {
+            return true;
+        }
+        int dot = key.indexOf('.');
+        return dot > 0 && namespaces.contains(key.substring(0, dot));
+    }
+
+    @Override
+    public @Null String getProperty(@NotNull String key) throws ConfigurationPropertyStoreException {
+        if (!isCached(key)) {
+            return cpsStore.getProperty(key);
+        }
+
+        long now = clock.getAsLong();
+        long invalidationsBefore;
+        synchronized (cache) {
+            CacheEntry entry = cache.get(key);
+            if (entry != null && now - entry.expires < 0) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            invalidationsBefore = invalidations;
+        }
+
+        misses.incrementAndGet();
+        String value = cpsStore.getProperty(key);
+        synchronized (cache) {
+            if (invalidations == invalidationsBefore) {
+                cache.put(key, new CacheEntry(value, now + ttlNanos));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Answers what it can from the cache, and looks up the rest from the store in
+     * one batch.
+     */
+    @Override
+    public @NotNull Map<String, String> getProperties(@NotNull List<String> keys) throws ConfigurationPropertyStoreException {
+        Map<String, String> values = new HashMap<>();
+        List<String> uncachedKeys = new ArrayList<>();
+
+        long now = clock.getAsLong();
+        long invalidationsBefore;
+        synchronized (cache) {
+            for (String key : keys) {
+                CacheEntry entry = isCached(key) ? cache.get(key) : null;
+                if (entry != null && now - entry.expires < 0) {
+                    hits.incrementAndGet();
+                    if (entry.value != null) {
+                        values.put(key, entry.value);
+                    }
+                } else {
+                    uncachedKeys.add(key);
+                }
+            }
+            invalidationsBefore = invalidations;
+        }
+
+        if (uncachedKeys.isEmpty()) {
+            return values;
+        }
+
+        Map<String, String> storeValues = cpsStore.getProperties(uncachedKeys);
+        values.putAll(storeValues);
+        synchronized (cache) {
+            for (String key : uncachedKeys) {
+                if (isCached(key)) {
+                    misses.incrementAndGet();
+                    if (invalidations == invalidationsBefore) {
+                        cache.put(key, new CacheEntry(storeValues.get(key), now + ttlNanos));
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public @NotNull Map<String, String> getPrefixedProperties(@NotNull String prefix)
+            throws ConfigurationPropertyStoreException {
+        return cpsStore.getPrefixedProperties(prefix);
+    }
+
+    @Override
+    public void setProperty(@NotNull String key, @NotNull String value) throws ConfigurationPropertyStoreException {
+        try {
+            cpsStore.setProperty(key, value);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public void deleteProperty(@NotNull String key) throws ConfigurationPropertyStoreException {
+        try {
+            cpsStore.deleteProperty(key);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public Map<String, String> getPropertiesFromNamespace(String namespace) throws ConfigurationPropertyStoreException {
+        return cpsStore.getPropertiesFromNamespace(namespace);
+    }
+
+    @Override
+    public List<String> getNamespaces() throws ConfigurationPropertyStoreException {
+        return cpsStore.getNamespaces();
+    }
+
+    @Override
+    public void shutdown() throws ConfigurationPropertyStoreException {
+        invalidateAll();
+        cpsStore.shutdown();
+    }
+
+    /**
+     * Drops a key from the cache, so the next read goes to the store.
+     *
+     * @param key
+     */
+    public void invalidate(String key) {
+        synchronized (cache) {
+            invalidations++;
+            cache.remove(key);
+        }
+    }
+
+    /**
+     * Drops all the keys in a namespace from the cache.
+     *
+     * @param namespace
+     */
+    public void invalidateNamespace(String namespace) {
+        String prefix = namespace + ".";
+        synchronized (cache) {
+            invalidations++;
+            Iterator<String> keys = cache.keySet().iterator();
+            while (keys.hasNext()) {
+                if (keys.next().startsWith(prefix)) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (cache) {
+            invalidations++;
+            cache.clear();
+        }
+    }
+
+    /**
+     * @return the store being cached
+     */
+    public IConfigurationPropertyStore getCachedStore() {
+        return cpsStore;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int getSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
@@ -54,6 +54,19 @@ public class FpfConfigurationPropertyStore implements IConfigurationPropertyStor
         return fpf.get(key);
     }
     
+    /**
+     * <p>
+     * Answers all the keys from one version of the property file.
+     * </p>
+     * 
+     * @param keys
+     * @throws ConfigurationPropertyStoreException
+     */
+    @Override
+    public @NotNull Map<String, String> getProperties(@NotNull List<String> keys) throws ConfigurationPropertyStoreException {
+        return fpf.get(keys);
+    }
+
     @Override
     public @NotNull Map<String, String> getPrefixedProperties(@NotNull String prefix)
             throws ConfigurationPropertyStoreException {
@@ -5,11 +5,15 @@
  */
 package dev.galasa.framework.internal.cps;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.validation.constraints.NotNull;
 
@@ -17,6 +21,7 @@ import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
 import dev.galasa.framework.spi.IConfigurationPropertyStore;
 import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IFramework;
+import dev.galasa.framework.spi.PropertyKey;
 
 /**
  * This class is used to drive the registered CPS service, and retireve values
@@ -26,10 +31,56 @@ import dev.galasa.framework.spi.IFramework;
  *  
  */
 public class FrameworkConfigurationPropertyService implements IConfigurationPropertyStoreService {
-    private String                      namespace;
-    private Properties                  record;
-    private Properties                  overrides;
-    private IConfigurationPropertyStore cpsStore;
+
+    private static final String[] NO_INFIXES            = new String[0];
+    private static final int      MAX_INTERNED_VARIANTS = 10000;
+
+    /**
+     * The call to getProperty that a variants array was built for
+     */
+    private static final class VariantsKey {
+        private final String   namespace;
+        private final String   prefix;
+        private final String   suffix;
+        private final String[] infixes;
+        private final int      hashCode;
+
+        private VariantsKey(String namespace, String prefix, String suffix, String[] infixes) {
+            this.namespace = namespace;
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.infixes = infixes;
+
+            int hash = Objects.hashCode(namespace);
+            hash = hash * 31 + Objects.hashCode(prefix);
+            hash = hash * 31 + Objects.hashCode(suffix);
+            this.hashCode = hash * 31 + Arrays.hashCode(infixes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof VariantsKey)) {
+                return false;
+            }
+            VariantsKey otherKey = (VariantsKey) other;
+            return hashCode == otherKey.hashCode && Objects.equals(namespace, otherKey.namespace)
+                    && Objects.equals(prefix, otherKey.prefix) && Objects.equals(suffix, otherKey.suffix)
+                    && Arrays.equals(infixes, otherKey.infixes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    // Shared by all the services, as each manager asks for the same few keys over and over
+    private static final ConcurrentHashMap<VariantsKey, String[]> internedVariants = new ConcurrentHashMap<>();
+
+    private String                              namespace;
+    private Map<? super String, ? super String> record;
+    private Properties                          overrides;
+    private IConfigurationPropertyStore         cpsStore;
 
     /**
      * <p>
@@ -42,12 +93,13 @@ public class FrameworkConfigurationPropertyService implements IConfigurationProp
      * @param cpsStore - the registered service for the CPS
      * @param overrides  - property values to be selected as preference from these
      *                   properties
-     * @param record     - a properties object for recording the keys accessed and
-     *                   where from '&lt;Location&gt;=&lt;KeyAccessed&gt;'
+     * @param record     - a map for recording the keys accessed and where from
+     *                   '&lt;Location&gt;=&lt;KeyAccessed&gt;', which may be
+     *                   shared by the services on several threads
      * @param namespace  - The name space for keys for a specfic manager
      */
     public FrameworkConfigurationPropertyService(IFramework framework, IConfigurationPropertyStore cpsStore,
-            Properties overrides, Properties record, String namespace) {
+            Properties overrides, Map<? super String, ? super String> record, String namespace) {
         this.namespace = namespace;
         this.record = record;
         this.overrides = overrides;
@@ -76,13 +128,39 @@ public class FrameworkConfigurationPropertyService implements IConfigurationProp
      */
     public String getProperty(@NotNull String prefix, @NotNull String suffix, String... infixes)
             throws ConfigurationPropertyStoreException {
-        if (infixes == null) {
-            infixes = new String[0];
+        return getProperty(getVariants(prefix, suffix, infixes));
+    }
+
+    /**
+     * <p>
+     * As {@link #getProperty(String, String, String...)}, but with the key
+     * variants already built by the caller's {@link PropertyKey}.
+     * </p>
+     */
+    @Override
+    public String getProperty(@NotNull PropertyKey key) throws ConfigurationPropertyStoreException {
+        return getProperty(key.getVariants(namespace));
+    }
+
+    private String getProperty(String[] keys) throws ConfigurationPropertyStoreException {
+        // Look up all the variants in one call to the store. The variants after an
+        // overridden one can never be used, so they are not asked for.
+        int storeKeyCount = 0;
+        while (storeKeyCount < keys.length && overrides.getProperty(keys[storeKeyCount]) == null) {
+            storeKeyCount++;
+        }
+        Map<String, String> storeValues = Collections.emptyMap();
+        if (storeKeyCount > 0) {
+            List<String> storeKeys = Arrays.asList(keys);
+            if (storeKeyCount < keys.length) {
+                storeKeys = storeKeys.subList(0, storeKeyCount);
+            }
+            storeValues = cpsStore.getProperties(storeKeys);
         }
-        String[] keys = createOrderedKeyList(prefix, suffix, infixes);
+
         String value = null;
         for (String key : keys) {
-            value = getValueAndMakeAccessRecord(key);
+            value = getValueAndMakeAccessRecord(key, storeValues);
             if (value != null) {
                 return value.trim();
             }
@@ -142,10 +220,7 @@ public class FrameworkConfigurationPropertyService implements IConfigurationProp
      * @return - an array of the keys as strings in the order they would be serached
      */
     public String[] reportPropertyVariants(@NotNull String prefix, @NotNull String suffix, String... infixes) {
-        if (infixes == null) {
-            infixes = new String[0];
-        }
-        return createOrderedKeyList(prefix, suffix, infixes);
+        return getVariants(prefix, suffix, infixes).clone();
     }
 
     /**
@@ -185,14 +260,13 @@ public class FrameworkConfigurationPropertyService implements IConfigurationProp
      * cpsService.
      * </p>
      * 
-     * @param key - generated from the prefix, suffix and infixes provided to the
-     *            getProprty().
+     * @param key         - generated from the prefix, suffix and infixes provided
+     *                    to the getProprty().
+     * @param storeValues - the values already fetched from the CPS store for the
+     *                    key variants
      * @return - String value returned from either CPS store or the overrides.
-     * @throws ConfigurationPropertyStoreException - throws an exception is the
-     *                                             registered CPS service is not
-     *                                             available.
      */
-    private String getValueAndMakeAccessRecord(String key) throws ConfigurationPropertyStoreException {
+    private String getValueAndMakeAccessRecord(String key, Map<String, String> storeValues) {
         String value;
 
         value = overrides.getProperty(key);
@@ -200,7 +274,7 @@ public class FrameworkConfigurationPropertyService implements IConfigurationProp
             record.put(key, value);
             return value;
         }
-        value = cpsStore.getProperty(key);
+        value = storeValues.get(key);
 
         if (value != null) {
             record.put(key, value);
@@ -212,50 +286,37 @@ public class FrameworkConfigurationPropertyService implements IConfigurationProp
 
     /**
      * <p>
-     * This method creates an array filled in order of all the keys to try and find
+     * This method returns an array filled in order of all the keys to try and find
      * in both the overrides properties or the CPS store. The order of this keyList
      * is important as it will be used by the getProprty() method.
      * </p>
      * 
+     * <p>
+     * The arrays are interned, so asking for the same key again does not build
+     * the strings again. The array returned is shared, so must not be changed.
+     * </p>
+     * 
      * @param prefix  - in the above example is "image"
      * @param suffix  - in the above example is "credentialid"
      * @param infixes - the hierachal structure above, supplied in order, e.g
      *                "PLEXMA", "MVMA"
      * @return - String array of the keys in the correct order to check from 0-x
      */
-    private String[] createOrderedKeyList(String prefix, String suffix, String... infixes) {
-        String[] keys = new String[(infixes.length + 1)];
-        String[] infixOrder = getInfixOrder(infixes);
-
-        for (int i = 0; i < infixOrder.length; i++) {
-            keys[i] = namespace + "." + prefix + infixOrder[i] + suffix;
+    private String[] getVariants(String prefix, String suffix, String... infixes) {
+        if (infixes == null) {
+            infixes = NO_INFIXES;
         }
 
-        keys[infixes.length] = namespace + "." + prefix + "." + suffix;
-
-        return keys;
-    }
-
-    /**
-     * This method takes passed infixes and generates the list of infixes of
-     * hierachy order, which is will be surrounded by the prefix and suffix to
-     * genterate the kys to be searched.
-     * 
-     * @param infixes - all the heirachy levels that could be appended to the
-     *                namespace and prefix.
-     * @return - string array of the infixes that need to be checked.
-     */
-    private String[] getInfixOrder(String... infixes) {
-        String[] infixOrderList = new String[infixes.length];
-        for (int i = 0; i < infixes.length; i++) {
-            StringBuilder majorInfix = new StringBuilder();
-            for (int j = 0; j < (infixes.length - i); j++) {
-                majorInfix.append("." + infixes[j]);
+        String[] variants = internedVariants.get(new VariantsKey(namespace, prefix, suffix, infixes));
+        if (variants == null) {
+            PropertyKey key = new PropertyKey(prefix, suffix, infixes);
+            variants = key.getVariants(namespace);
+            if (internedVariants.size() < MAX_INTERNED_VARIANTS) {
+                // *** Take a copy of the infixes, as the caller may reuse their array
+                internedVariants.putIfAbsent(new VariantsKey(namespace, prefix, suffix, key.getInfixes()), variants);
             }
-            majorInfix.append(".");
-            infixOrderList[i] = majorInfix.toString();
         }
-        return infixOrderList;
+        return variants;
     }
 
     public List<String> getCPSNamespaces() throws ConfigurationPropertyStoreException {
@@ -275,7 +336,7 @@ public class FrameworkConfigurationPropertyService implements IConfigurationProp
             String value = (String) entry.getValue();
             
             if (key.startsWith(fullPrefix)) {
-                this.record.setProperty(key, value);
+                this.record.put(key, value);
                 
                 key = key.substring(this.namespace.length() + 1);
                 returnValues.put(key, value);
@@ -291,7 +352,7 @@ public class FrameworkConfigurationPropertyService implements IConfigurationProp
             String unPrefixedKey = key.substring(this.namespace.length() + 1);
             
             if (!returnValues.containsKey(unPrefixedKey)) {
-                this.record.setProperty(key, value);
+                this.record.put(key, value);
                 
                 returnValues.put(unPrefixedKey, value);
             }
@@ -0,0 +1,213 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.cps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Null;
+
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.IConfigurationPropertyStore;
+
+/**
+ * <p>
+ * A snapshot of the CPS taken at the start of a test run, so that the reads
+ * made during the run come from memory and do not depend on the CPS store
+ * still being available.
+ * </p>
+ *
+ * <p>
+ * The chosen namespaces are read from the store in one go, one call per
+ * namespace, and held in an immutable map. The overrides for the run are taken
+ * at the same time and win over the store values, as they would in
+ * {@link FrameworkConfigurationPropertyService}. Keys in other namespaces are
+ * still read from the store.
+ * </p>
+ *
+ * <p>
+ * Properties set or deleted during the run are written through to the store,
+ * and the snapshot is replaced with a copy holding the change, so that a run
+ * sees its own writes. Changes made elsewhere are not seen by the run.
+ * </p>
+ */
+public class FrozenConfigurationPropertyStore implements IConfigurationPropertyStore {
+
+    private final IConfigurationPropertyStore cpsStore;
+    private final Set<String>                 namespaces;
+    private final Map<String, String>         overrides;
+
+    // Replaced, never changed, so can be read without locking
+    private volatile NavigableMap<String, String> snapshot;
+
+    /**
+     * @param cpsStore   - the store to take the snapshot from
+     * @param namespaces - the namespaces to take, "*" for all of them
+     * @param overrides  - the override properties for the run
+     * @throws ConfigurationPropertyStoreException - if the store could not be
+     *                                             read
+     */
+    public FrozenConfigurationPropertyStore(IConfigurationPropertyStore cpsStore, Collection<String> namespaces,
+            Properties overrides) throws ConfigurationPropertyStoreException {
+        this.cpsStore = cpsStore;
+
+        if (namespaces.contains("*")) {
+            this.namespaces = new HashSet<>(cpsStore.getNamespaces());
+        } else {
+            this.namespaces = new HashSet<>(namespaces);
+        }
+
+        TreeMap<String, String> properties = new TreeMap<>();
+        for (String namespace : this.namespaces) {
+            String namespacePrefix = namespace + ".";
+            for (Entry<String, String> property : cpsStore.getPropertiesFromNamespace(namespace).entrySet()) {
+                if (property.getKey().startsWith(namespacePrefix)) {
+                    properties.put(property.getKey(), property.getValue());
+                }
+            }
+        }
+        this.snapshot = Collections.unmodifiableNavigableMap(properties);
+
+        Map<String, String> overrideValues = new HashMap<>();
+        for (String key : overrides.stringPropertyNames()) {
+            overrideValues.put(key, overrides.getProperty(key));
+        }
+        this.overrides = Collections.unmodifiableMap(overrideValues);
+    }
+
+    private boolean isFrozen(String key) {
+        int dot = key.indexOf('.');
+        return dot > 0 && namespaces.contains(key.substring(0, dot));
+    }
+
+    @Override
+    public @Null String getProperty(@NotNull String key) throws ConfigurationPropertyStoreException {
+        String value = overrides.get(key);
+        if (value != null) {
+            return value;
+        }
+        if (isFrozen(key)) {
+            return snapshot.get(key);
+        }
+        return cpsStore.getProperty(key);
+    }
+
+    /**
+     * Answers the keys in the snapshot from memory, and looks up any others from
+     * the store in one batch.
+     */
+    @Override
+    public @NotNull Map<String, String> getProperties(@NotNull List<String> keys) throws ConfigurationPropertyStoreException {
+        Map<String, String> values = new HashMap<>();
+        List<String> storeKeys = new ArrayList<>();
+
+        NavigableMap<String, String> properties = this.snapshot;
+        for (String key : keys) {
+            String value = overrides.get(key);
+            if (value == null) {
+                if (!isFrozen(key)) {
+                    storeKeys.add(key);
+                    continue;
+                }
+                value = properties.get(key);
+            }
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+
+        if (!storeKeys.isEmpty()) {
+            values.putAll(cpsStore.getProperties(storeKeys));
+        }
+        return values;
+    }
+
+    @Override
+    public @NotNull Map<String, String> getPrefixedProperties(@NotNull String prefix)
+            throws ConfigurationPropertyStoreException {
+        Map<String, String> values = new HashMap<>();
+        if (isFrozen(prefix)) {
+            values.putAll(snapshot.subMap(prefix, true, prefix + Character.MAX_VALUE, false));
+        } else {
+            values.putAll(cpsStore.getPrefixedProperties(prefix));
+        }
+
+        for (Entry<String, String> override : overrides.entrySet()) {
+            if (override.getKey().startsWith(prefix)) {
+                values.put(override.getKey(), override.getValue());
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void setProperty(@NotNull String key, @NotNull String value) throws ConfigurationPropertyStoreException {
+        cpsStore.setProperty(key, value);
+        if (isFrozen(key)) {
+            synchronized (this) {
+                TreeMap<String, String> properties = new TreeMap<>(snapshot);
+                properties.put(key, value);
+                this.snapshot = Collections.unmodifiableNavigableMap(properties);
+            }
+        }
+    }
+
+    @Override
+    public void deleteProperty(@NotNull String key) throws ConfigurationPropertyStoreException {
+        cpsStore.deleteProperty(key);
+        if (isFrozen(key)) {
+            synchronized (this) {
+                TreeMap<String, String> properties = new TreeMap<>(snapshot);
+                properties.remove(key);
+                this.snapshot = Collections.unmodifiableNavigableMap(properties);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, String> getPropertiesFromNamespace(String namespace) throws ConfigurationPropertyStoreException {
+        if (!namespaces.contains(namespace)) {
+            return cpsStore.getPropertiesFromNamespace(namespace);
+        }
+        String namespacePrefix = namespace + ".";
+        return new HashMap<>(snapshot.subMap(namespacePrefix, true, namespacePrefix + Character.MAX_VALUE, false));
+    }
+
+    @Override
+    public List<String> getNamespaces() throws ConfigurationPropertyStoreException {
+        return cpsStore.getNamespaces();
+    }
+
+    @Override
+    public void shutdown() throws ConfigurationPropertyStoreException {
+        cpsStore.shutdown();
+    }
+
+    /**
+     * @return the store the snapshot was taken from
+     */
+    public IConfigurationPropertyStore getFrozenStore() {
+        return cpsStore;
+    }
+
+    /**
+     * @return the number of store properties in the snapshot
+     */
+    public int getSize() {
+        return snapshot.size();
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.dss;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.framework.spi.DssDelete;
+import dev.galasa.framework.spi.DssDeletePrefix;
+import dev.galasa.framework.spi.DssUpdate;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.IDynamicStatusStore;
+import dev.galasa.framework.spi.IDynamicStatusStoreWatcher;
+
+/**
+ * <p>
+ * Leases for the property file DSS stores.
+ * </p>
+ *
+ * <p>
+ * A lease is kept in the store next to the keys, as lease.&lt;id&gt;.key,
+ * .value, .ttl and .expires, so every process using the file can see it. A
+ * keep alive just moves the expiry time on. Each process which uses leases or
+ * watches the DSS runs an {@link ExpiryWheel} fed from a watch on the lease
+ * keys, and deletes the key of a lease once it has expired. The deletes check
+ * the values they expect, so when several processes race to expire the same
+ * lease only one of them does it, and a key which has since been put again
+ * without the lease is left alone.
+ * </p>
+ *
+ * <p>
+ * Expiry times are wall clock times, so the processes sharing the file need
+ * their clocks in step, as they already do for the run heartbeats.
+ * </p>
+ */
+class DssLeaseManager implements IDynamicStatusStoreWatcher {
+
+    private final Log                 logger        = LogFactory.getLog(DssLeaseManager.class);
+
+    static final String               LEASE_PREFIX  = "lease.";
+
+    private static final int          WHEEL_SLOTS   = 512;
+    private static final long         TICK_MILLIS   = 1000;
+    private static final int          MAX_KEEP_ALIVE_ATTEMPTS = 10;
+
+    private final IDynamicStatusStore store;
+    private final LongSupplier        clock;
+    private final ExpiryWheel<UUID>   wheel;
+
+    // *** The latest expiry time seen for each lease
+    private final Map<UUID, Long>     deadlines     = new ConcurrentHashMap<>();
+
+    private boolean                   started;
+    private UUID                      watchId;
+    private ScheduledExecutorService  expirer;
+
+    DssLeaseManager(IDynamicStatusStore store) {
+        this(store, System::currentTimeMillis);
+    }
+
+    DssLeaseManager(IDynamicStatusStore store, LongSupplier clock) {
+        this.store = store;
+        this.clock = clock;
+        this.wheel = new ExpiryWheel<>(WHEEL_SLOTS, TICK_MILLIS, clock.getAsLong());
+    }
+
+    UUID grant(String key, String value, long ttlSeconds) throws DynamicStatusStoreException {
+        if (ttlSeconds <= 0) {
+            throw new DynamicStatusStoreException("The time to live of a lease must be at least 1 second");
+        }
+        start(true);
+
+        UUID leaseId = UUID.randomUUID();
+        String prefix = getLeasePrefix(leaseId);
+        long expires = this.clock.getAsLong() + TimeUnit.SECONDS.toMillis(ttlSeconds);
+
+        // *** The expiry goes last so the watch only sees complete leases
+        this.store.performActions(new DssUpdate(key, value),
+                new DssUpdate(prefix + "key", key),
+                new DssUpdate(prefix + "value", value),
+                new DssUpdate(prefix + "ttl", Long.toString(ttlSeconds)),
+                new DssUpdate(prefix + "expires", Long.toString(expires)));
+        schedule(leaseId, expires);
+        return leaseId;
+    }
+
+    boolean keepAlive(UUID leaseId) throws DynamicStatusStoreException {
+        start(true);
+
+        String prefix = getLeasePrefix(leaseId);
+        for (int attempt = 0; attempt < MAX_KEEP_ALIVE_ATTEMPTS; attempt++) {
+            Map<String, String> lease = this.store.getPrefix(prefix);
+            String sExpires = lease.get(prefix + "expires");
+            String sTtl = lease.get(prefix + "ttl");
+            if (sExpires == null || sTtl == null) {
+                return false;
+            }
+
+            long expires = this.clock.getAsLong() + TimeUnit.SECONDS.toMillis(Long.parseLong(sTtl));
+            if (this.store.putSwap(prefix + "expires", sExpires, Long.toString(expires))) {
+                schedule(leaseId, expires);
+                return true;
+            }
+        }
+        throw new DynamicStatusStoreException("Unable to keep DSS lease " + leaseId + " alive, it kept changing");
+    }
+
+    void revoke(UUID leaseId) throws DynamicStatusStoreException {
+        String prefix = getLeasePrefix(leaseId);
+        Map<String, String> lease = this.store.getPrefix(prefix);
+
+        List<IDssAction> actions = new ArrayList<>();
+        actions.add(new DssDeletePrefix(prefix));
+        addKeyDelete(actions, lease, prefix);
+        try {
+            this.store.performActions(actions.toArray(new IDssAction[actions.size()]));
+        } catch (DynamicStatusStoreMatchException e) {
+            // *** The key changed underneath us, so only remove the lease
+            this.store.performActions(new DssDeletePrefix(prefix));
+        }
+        this.deadlines.remove(leaseId);
+    }
+
+    /**
+     * Starts watching the leases in the store and expiring them
+     *
+     * @param thread - false if the caller will drive expiry with
+     *               {@link #expireLeases()}, as the tests do
+     */
+    synchronized void start(boolean thread) throws DynamicStatusStoreException {
+        if (this.started) {
+            return;
+        }
+        this.started = true;
+
+        this.watchId = this.store.watchPrefix(this, LEASE_PREFIX);
+        for (Entry<String, String> entry : this.store.getPrefix(LEASE_PREFIX).entrySet()) {
+            propertyModified(entry.getKey(), Event.NEW, null, entry.getValue());
+        }
+
+        if (thread) {
+            this.expirer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread expiryThread = new Thread(runnable, "DSS lease expiry");
+                expiryThread.setDaemon(true);
+                return expiryThread;
+            });
+            this.expirer.scheduleWithFixedDelay(this::expireLeases, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    synchronized void shutdown() throws DynamicStatusStoreException {
+        if (this.expirer != null) {
+            this.expirer.shutdownNow();
+            this.expirer = null;
+        }
+        if (this.watchId != null) {
+            this.store.unwatch(this.watchId);
+            this.watchId = null;
+        }
+    }
+
+    @Override
+    public void propertyModified(String key, Event event, String oldValue, String newValue) {
+        if (!key.endsWith(".expires")) {
+            return;
+        }
+
+        try {
+            UUID leaseId = UUID.fromString(key.substring(LEASE_PREFIX.length(), key.length() - ".expires".length()));
+            if (event == Event.DELETE) {
+                this.deadlines.remove(leaseId);
+            } else {
+                schedule(leaseId, Long.parseLong(newValue));
+            }
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring badly formed DSS lease key " + key);
+        }
+    }
+
+    /**
+     * Expires the leases whose time is up. Called on each tick of the wheel.
+     */
+    void expireLeases() {
+        long now = this.clock.getAsLong();
+        for (UUID leaseId : this.wheel.expire(now)) {
+            Long deadline = this.deadlines.get(leaseId);
+            if (deadline == null || deadline > now) {
+                continue; // *** Revoked, or kept alive and already back in the wheel
+            }
+
+            try {
+                expire(leaseId, now);
+            } catch (DynamicStatusStoreException e) {
+                logger.warn("Unable to expire DSS lease " + leaseId + ", will try again", e);
+                this.wheel.add(leaseId, now + TICK_MILLIS);
+            } catch (RuntimeException e) {
+                // *** Must not escape, it would cancel the expiry thread and no lease would expire again
+                logger.warn("Unable to expire DSS lease " + leaseId + ", removing it", e);
+                discard(leaseId);
+            }
+        }
+    }
+
+    /**
+     * Removes a lease which cannot be expired, such as one with a badly formed
+     * expiry time, so it is not tried on every tick
+     */
+    private void discard(UUID leaseId) {
+        this.deadlines.remove(leaseId);
+        try {
+            revoke(leaseId);
+        } catch (DynamicStatusStoreException | RuntimeException e) {
+            logger.warn("Unable to remove DSS lease " + leaseId, e);
+        }
+    }
+
+    private void expire(UUID leaseId, long now) throws DynamicStatusStoreException {
+        String prefix = getLeasePrefix(leaseId);
+        Map<String, String> lease = this.store.getPrefix(prefix);
+        String sExpires = lease.get(prefix + "expires");
+        if (sExpires == null) {
+            this.deadlines.remove(leaseId);
+            return;
+        }
+
+        long expires = Long.parseLong(sExpires);
+        if (expires > now) {
+            schedule(leaseId, expires);
+            return;
+        }
+
+        List<IDssAction> actions = new ArrayList<>();
+        actions.add(new DssDelete(prefix + "expires", sExpires));
+        for (String leaseKey : lease.keySet()) {
+            if (!leaseKey.equals(prefix + "expires")) {
+                actions.add(new DssDelete(leaseKey, null));
+            }
+        }
+        addKeyDelete(actions, lease, prefix);
+
+        try {
+            this.store.performActions(actions.toArray(new IDssAction[actions.size()]));
+            this.deadlines.remove(leaseId);
+            logger.debug("DSS lease " + leaseId + " for " + lease.get(prefix + "key") + " has expired");
+        } catch (DynamicStatusStoreMatchException e) {
+            // *** Kept alive or expired by someone else in the meantime, look again next tick
+            this.wheel.add(leaseId, now + TICK_MILLIS);
+        }
+    }
+
+    /**
+     * Deletes the key of the lease, but only if it still has the value the
+     * lease put, so a later put of the same key is not lost
+     */
+    private void addKeyDelete(List<IDssAction> actions, Map<String, String> lease, String prefix)
+            throws DynamicStatusStoreException {
+        String key = lease.get(prefix + "key");
+        String value = lease.get(prefix + "value");
+        if (key != null && value != null && value.equals(this.store.get(key))) {
+            actions.add(new DssDelete(key, value));
+        }
+    }
+
+    private void schedule(UUID leaseId, long expires) {
+        Long previous = this.deadlines.put(leaseId, expires);
+        if (previous == null || previous != expires) {
+            this.wheel.add(leaseId, expires);
+        }
+    }
+
+    private String getLeasePrefix(UUID leaseId) {
+        return LEASE_PREFIX + leaseId + ".";
+    }
+}
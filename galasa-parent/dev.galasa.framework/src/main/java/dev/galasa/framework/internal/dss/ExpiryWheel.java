@@ -0,0 +1,90 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.dss;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * <p>
+ * A hashed timing wheel. Items are put in the slot for the tick their deadline
+ * falls in, so each tick only looks at one slot rather than every item. Items
+ * due more than one turn of the wheel away stay in their slot until the wheel
+ * comes round to them again.
+ * </p>
+ *
+ * <p>
+ * The time is passed in, so the wheel can be driven by a thread or a test.
+ * </p>
+ */
+class ExpiryWheel<T> {
+
+    private final long               tickMillis;
+    private final List<Map<T, Long>> slots;
+
+    private long                     lastTick;
+
+    ExpiryWheel(int slotCount, long tickMillis, long now) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            this.slots.add(new HashMap<>());
+        }
+        this.lastTick = now / tickMillis;
+    }
+
+    /**
+     * Adds an item, replacing it if it is already in the same slot. An item
+     * added twice with deadlines in different slots is returned once for each.
+     */
+    synchronized void add(T item, long deadline) {
+        // *** The first tick at or after the deadline, items already due go in the next tick
+        long tick = Math.max((deadline + this.tickMillis - 1) / this.tickMillis, this.lastTick + 1);
+        slot(tick).put(item, deadline);
+    }
+
+    /**
+     * Moves the wheel on to now
+     *
+     * @return the items whose deadline has passed, they are removed from the wheel
+     */
+    synchronized List<T> expire(long now) {
+        long nowTick = now / this.tickMillis;
+        List<T> expired = new ArrayList<>();
+
+        // *** Look at each slot at most once, however long it has been since the last tick
+        long ticks = Math.min(nowTick - this.lastTick, this.slots.size());
+        for (long t = 1; t <= ticks; t++) {
+            Iterator<Entry<T, Long>> entries = slot(this.lastTick + t).entrySet().iterator();
+            while (entries.hasNext()) {
+                Entry<T, Long> entry = entries.next();
+                if (entry.getValue() <= now) {
+                    expired.add(entry.getKey());
+                    entries.remove();
+                }
+            }
+        }
+
+        this.lastTick = Math.max(this.lastTick, nowTick);
+        return expired;
+    }
+
+    synchronized int size() {
+        int size = 0;
+        for (Map<T, Long> slot : this.slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+
+    private Map<T, Long> slot(long tick) {
+        return this.slots.get((int) (tick % this.slots.size()));
+    }
+}
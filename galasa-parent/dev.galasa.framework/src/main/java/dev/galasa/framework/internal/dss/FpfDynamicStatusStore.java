@@ -18,8 +18,8 @@ import dev.galasa.framework.spi.DynamicStatusStoreException;
 import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
 import dev.galasa.framework.spi.FrameworkPropertyFile;
 import dev.galasa.framework.spi.FrameworkPropertyFileException;
+import dev.galasa.framework.spi.FrameworkPropertyFileOptions;
 import dev.galasa.framework.spi.IDssAction;
-import dev.galasa.framework.spi.IDynamicStatusStore;
 import dev.galasa.framework.spi.IDynamicStatusStoreWatcher;
 import dev.galasa.framework.spi.IFrameworkPropertyFileWatcher;
 
@@ -31,15 +31,34 @@ import dev.galasa.framework.spi.IFrameworkPropertyFileWatcher;
  * 
  *  
  */
-public class FpfDynamicStatusStore implements IDynamicStatusStore {
+public class FpfDynamicStatusStore extends OrderedAsyncDynamicStatusStore {
     private FrameworkPropertyFile fpf;
 
+    private final DssLeaseManager leases;
+
     public FpfDynamicStatusStore(URI file) throws DynamicStatusStoreException {
+        this(file, new FrameworkPropertyFileOptions());
+    }
+
+    public FpfDynamicStatusStore(URI file, FrameworkPropertyFileOptions options) throws DynamicStatusStoreException {
+        this(file, options, true);
+    }
+
+    /**
+     * @param leases - false for a store used inside another store, which looks
+     *               after the leases itself
+     */
+    FpfDynamicStatusStore(URI file, FrameworkPropertyFileOptions options, boolean leases) throws DynamicStatusStoreException {
         try {
-            fpf = new FrameworkPropertyFile(file);
+            fpf = new FrameworkPropertyFile(file, options);
         } catch (FrameworkPropertyFileException e) {
             throw new DynamicStatusStoreException("Failed to create Framework property file", e);
         }
+        this.leases = leases ? new DssLeaseManager(this) : null;
+    }
+
+    FrameworkPropertyFile getFrameworkPropertyFile() {
+        return fpf;
     }
 
     /**
@@ -210,8 +229,43 @@ public class FpfDynamicStatusStore implements IDynamicStatusStore {
         fpf.performActions(actions);
     }
 
+    @Override
+    public UUID putWithTtl(@NotNull String key, @NotNull String value, long ttlSeconds) throws DynamicStatusStoreException {
+        if (this.leases == null) {
+            throw new DynamicStatusStoreException("Leases are handled by the enclosing DSS");
+        }
+        return this.leases.grant(key, value, ttlSeconds);
+    }
+
+    @Override
+    public boolean keepAlive(@NotNull UUID leaseId) throws DynamicStatusStoreException {
+        if (this.leases == null) {
+            throw new DynamicStatusStoreException("Leases are handled by the enclosing DSS");
+        }
+        return this.leases.keepAlive(leaseId);
+    }
+
+    @Override
+    public void revokeLease(@NotNull UUID leaseId) throws DynamicStatusStoreException {
+        if (this.leases == null) {
+            throw new DynamicStatusStoreException("Leases are handled by the enclosing DSS");
+        }
+        this.leases.revoke(leaseId);
+    }
+
+    /**
+     * Anyone watching the DSS expects to be told about expired leases, so the
+     * leases are looked after from then on
+     */
+    private void startLeases() throws DynamicStatusStoreException {
+        if (this.leases != null) {
+            this.leases.start(true);
+        }
+    }
+
     @Override
     public UUID watch(IDynamicStatusStoreWatcher watcher, String key) throws DynamicStatusStoreException {
+        startLeases();
         try {
             return fpf.watch(new PassthroughWatcher(watcher), key);
         } catch (FrameworkPropertyFileException e) {
@@ -221,6 +275,7 @@ public class FpfDynamicStatusStore implements IDynamicStatusStore {
 
     @Override
     public UUID watchPrefix(IDynamicStatusStoreWatcher watcher, String keyPrefix) throws DynamicStatusStoreException {
+        startLeases();
         try {
             return fpf.watchPrefix(new PassthroughWatcher(watcher), keyPrefix);
         } catch (FrameworkPropertyFileException e) {
@@ -255,6 +310,10 @@ public class FpfDynamicStatusStore implements IDynamicStatusStore {
 
     @Override
     public void shutdown() throws DynamicStatusStoreException {
+        shutdownAsync();
+        if (this.leases != null) {
+            this.leases.shutdown();
+        }
         try {
             this.fpf.shutdown();
         } catch (FrameworkPropertyFileException e) {
@@ -6,12 +6,19 @@
 package dev.galasa.framework.internal.dss;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import javax.validation.constraints.NotNull;
 
 import org.osgi.service.component.annotations.Component;
 
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.FrameworkPropertyFileOptions;
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
+import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IDynamicStatusStoreRegistration;
 import dev.galasa.framework.spi.IFrameworkInitialisation;
 
@@ -36,7 +43,126 @@ public class FpfDynamicStatusStoreRegistration implements IDynamicStatusStoreReg
             throws DynamicStatusStoreException {
         URI dss = frameworkInitialisation.getDynamicStatusStoreUri();
         if (isFileUri(dss)) {
-            frameworkInitialisation.registerDynamicStatusStore(new FpfDynamicStatusStore(dss));
+            IFramework framework = frameworkInitialisation.getFramework();
+            FrameworkPropertyFileOptions options = getFileOptions(framework);
+            List<String> shardPrefixes = getShardPrefixes(framework);
+            if (shardPrefixes.isEmpty()) {
+                frameworkInitialisation.registerDynamicStatusStore(new FpfDynamicStatusStore(dss, options));
+            } else {
+                frameworkInitialisation.registerDynamicStatusStore(new ShardedFpfDynamicStatusStore(dss, options, shardPrefixes));
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Builds the options for the DSS property file from the CPS, for example:
+     * </p>
+     * <pre>
+     * framework.dynamicstatus.file.snapshot.reads=true
+     * framework.dynamicstatus.file.poll.interval.ms=50
+     * framework.dynamicstatus.file.journal=true
+     * framework.dynamicstatus.file.journal.compaction.threshold.bytes=1048576
+     * framework.dynamicstatus.file.group.commit.window.ms=0
+     * </pre>
+     * <p>
+     * If the CPS is not available, the default options are used.
+     * </p>
+     * 
+     * @param framework
+     * @return the options to use for the DSS property file
+     * @throws DynamicStatusStoreException
+     */
+    FrameworkPropertyFileOptions getFileOptions(IFramework framework) throws DynamicStatusStoreException {
+        FrameworkPropertyFileOptions options = new FrameworkPropertyFileOptions();
+        if (framework == null) {
+            return options;
+        }
+
+        IConfigurationPropertyStoreService cps;
+        try {
+            cps = framework.getConfigurationPropertyService("framework");
+        } catch (ConfigurationPropertyStoreException e) {
+            // The CPS has not been initialised, so stay with the defaults
+            return options;
+        }
+
+        try {
+            options.setSnapshotReads(Boolean.parseBoolean(cps.getProperty("dynamicstatus.file", "snapshot.reads")));
+
+            String pollInterval = cps.getProperty("dynamicstatus.file", "poll.interval.ms");
+            if (pollInterval != null) {
+                options.setPollIntervalMillisecs(Long.parseLong(pollInterval));
+            }
+
+            options.setJournal(Boolean.parseBoolean(cps.getProperty("dynamicstatus.file", "journal")));
+
+            String compactionThreshold = cps.getProperty("dynamicstatus.file", "journal.compaction.threshold.bytes");
+            if (compactionThreshold != null) {
+                options.setCompactionThresholdBytes(Long.parseLong(compactionThreshold));
+            }
+
+            String groupCommitWindow = cps.getProperty("dynamicstatus.file", "group.commit.window.ms");
+            if (groupCommitWindow != null) {
+                options.setGroupCommitWindowMillisecs(Long.parseLong(groupCommitWindow));
+            }
+        } catch (ConfigurationPropertyStoreException | NumberFormatException e) {
+            throw new DynamicStatusStoreException("Invalid options for the DSS property file", e);
+        }
+        return options;
+    }
+
+    /**
+     * <p>
+     * Works out which key prefixes should be kept in their own property files, for
+     * example:
+     * </p>
+     * <pre>
+     * framework.dynamicstatus.file.sharded=true
+     * framework.dynamicstatus.file.shard.prefixes=dss.framework.run.,dss.framework.metrics.
+     * </pre>
+     * <p>
+     * If sharding is enabled without a list of prefixes, the framework key
+     * families in {@link ShardedFpfDynamicStatusStore#DEFAULT_SHARD_PREFIXES} are
+     * used.
+     * </p>
+     * 
+     * @param framework
+     * @return the shard prefixes, empty if the DSS is not sharded
+     * @throws DynamicStatusStoreException
+     */
+    List<String> getShardPrefixes(IFramework framework) throws DynamicStatusStoreException {
+        if (framework == null) {
+            return Collections.emptyList();
+        }
+
+        IConfigurationPropertyStoreService cps;
+        try {
+            cps = framework.getConfigurationPropertyService("framework");
+        } catch (ConfigurationPropertyStoreException e) {
+            return Collections.emptyList();
+        }
+
+        try {
+            if (!Boolean.parseBoolean(cps.getProperty("dynamicstatus.file", "sharded"))) {
+                return Collections.emptyList();
+            }
+
+            String prefixes = cps.getProperty("dynamicstatus.file", "shard.prefixes");
+            if (prefixes == null || prefixes.trim().isEmpty()) {
+                return ShardedFpfDynamicStatusStore.DEFAULT_SHARD_PREFIXES;
+            }
+
+            List<String> shardPrefixes = new ArrayList<>();
+            for (String prefix : prefixes.split(",")) {
+                prefix = prefix.trim();
+                if (!prefix.isEmpty()) {
+                    shardPrefixes.add(prefix);
+                }
+            }
+            return shardPrefixes;
+        } catch (ConfigurationPropertyStoreException e) {
+            throw new DynamicStatusStoreException("Invalid shard options for the DSS property file", e);
         }
     }
 
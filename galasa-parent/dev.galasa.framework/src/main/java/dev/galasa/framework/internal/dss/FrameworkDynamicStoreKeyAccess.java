@@ -12,6 +12,8 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Null;
@@ -68,21 +70,7 @@ public class FrameworkDynamicStoreKeyAccess implements IDynamicStatusStoreKeyAcc
      */
     @Override
     public void put(@NotNull Map<String, String> keyValues) throws DynamicStatusStoreException {
-        Objects.requireNonNull(keyValues);
-
-        // *** Copy all the keys and prefix them
-        final HashMap<String, String> newKeyValues = new HashMap<>();
-        for (final Entry<String, String> entry : keyValues.entrySet()) {
-            final String oKey = entry.getKey();
-            final String oValue = entry.getValue();
-
-            Objects.requireNonNull(oKey);
-            Objects.requireNonNull(oValue);
-
-            newKeyValues.put(prefixKey(oKey), oValue);
-        }
-
-        this.dssStore.put(newKeyValues);
+        this.dssStore.put(prefixKeys(keyValues));
     }
 
     /*
@@ -108,21 +96,7 @@ public class FrameworkDynamicStoreKeyAccess implements IDynamicStatusStoreKeyAcc
     public boolean putSwap(@NotNull String key, String oldValue, @NotNull String newValue,
             @NotNull Map<String, String> others) throws DynamicStatusStoreException {
         Objects.requireNonNull(newValue);
-        Objects.requireNonNull(others);
-
-        // *** Copy all the other keys and prefix them
-        final HashMap<String, String> newOthers = new HashMap<>();
-        for (final Entry<String, String> entry : others.entrySet()) {
-            final String oKey = entry.getKey();
-            final String oValue = entry.getValue();
-
-            Objects.requireNonNull(oKey);
-            Objects.requireNonNull(oValue);
-
-            newOthers.put(prefixKey(oKey), oValue);
-        }
-
-        return this.dssStore.putSwap(prefixKey(key), oldValue, newValue, newOthers);
+        return this.dssStore.putSwap(prefixKey(key), oldValue, newValue, prefixKeys(others));
     }
 
     /*
@@ -145,7 +119,13 @@ public class FrameworkDynamicStoreKeyAccess implements IDynamicStatusStoreKeyAcc
      */
     @Override
     public @NotNull Map<String, String> getPrefix(@NotNull String keyPrefix) throws DynamicStatusStoreException {
-        final Map<String, String> gotSet = this.dssStore.getPrefix(prefixKey(keyPrefix));
+        return unprefixKeys(this.dssStore.getPrefix(prefixKey(keyPrefix)));
+    }
+
+    /**
+     * Strip the namespace from the keys returned by the store
+     */
+    private Map<String, String> unprefixKeys(Map<String, String> gotSet) throws DynamicStatusStoreException {
         final HashMap<String, String> returnSet = new HashMap<>();
 
         for (Entry<String, String> entry : gotSet.entrySet()) {
@@ -182,16 +162,7 @@ public class FrameworkDynamicStoreKeyAccess implements IDynamicStatusStoreKeyAcc
      */
     @Override
     public void delete(@NotNull Set<String> keys) throws DynamicStatusStoreException {
-        Objects.requireNonNull(keys);
-
-        // *** Copy all the keys and prefix them
-        final HashSet<String> newKeys = new HashSet<>();
-        for (final String key : keys) {
-            Objects.requireNonNull(key);
-            newKeys.add(prefixKey(key));
-        }
-
-        this.dssStore.delete(newKeys);
+        this.dssStore.delete(prefixKeys(keys));
     }
 
     /*
@@ -217,6 +188,52 @@ public class FrameworkDynamicStoreKeyAccess implements IDynamicStatusStoreKeyAcc
         return this.prefix + key;
     }
 
+    private Map<String, String> prefixKeys(Map<String, String> keyValues) {
+        Objects.requireNonNull(keyValues);
+
+        // *** Copy all the keys and prefix them
+        final HashMap<String, String> newKeyValues = new HashMap<>();
+        for (final Entry<String, String> entry : keyValues.entrySet()) {
+            final String oKey = entry.getKey();
+            final String oValue = entry.getValue();
+
+            Objects.requireNonNull(oKey);
+            Objects.requireNonNull(oValue);
+
+            newKeyValues.put(prefixKey(oKey), oValue);
+        }
+        return newKeyValues;
+    }
+
+    private Set<String> prefixKeys(Set<String> keys) {
+        Objects.requireNonNull(keys);
+
+        // *** Copy all the keys and prefix them
+        final HashSet<String> newKeys = new HashSet<>();
+        for (final String key : keys) {
+            Objects.requireNonNull(key);
+            newKeys.add(prefixKey(key));
+        }
+        return newKeys;
+    }
+
+    @Override
+    public @Null UUID putWithTtl(@NotNull String key, @NotNull String value, long ttlSeconds)
+            throws DynamicStatusStoreException {
+        Objects.requireNonNull(value);
+        return this.dssStore.putWithTtl(prefixKey(key), value, ttlSeconds);
+    }
+
+    @Override
+    public boolean keepAlive(@NotNull UUID leaseId) throws DynamicStatusStoreException {
+        return this.dssStore.keepAlive(leaseId);
+    }
+
+    @Override
+    public void revokeLease(@NotNull UUID leaseId) throws DynamicStatusStoreException {
+        this.dssStore.revokeLease(leaseId);
+    }
+
     @Override
     public UUID watch(IDynamicStatusStoreWatcher watcher, String key) throws DynamicStatusStoreException {
         return this.dssStore.watch(new PassthroughWatcher(watcher, prefix), prefixKey(key));
@@ -253,7 +270,10 @@ public class FrameworkDynamicStoreKeyAccess implements IDynamicStatusStoreKeyAcc
 
     @Override
     public void performActions(IDssAction... actions) throws DynamicStatusStoreException, DynamicStatusStoreMatchException {
+        this.dssStore.performActions(prefixActions(actions));
+    }
 
+    private IDssAction[] prefixActions(IDssAction... actions) {
         IDssAction[] dssActions = new IDssAction[actions.length];
         for(int i = 0; i < actions.length; i++) {
             if (actions[i] instanceof IDssResourceAction) {
@@ -262,8 +282,68 @@ public class FrameworkDynamicStoreKeyAccess implements IDynamicStatusStoreKeyAcc
                 dssActions[i] = actions[i].applyPrefix(this.prefix);
             }
         }
+        return dssActions;
+    }
+
+    // *** The asynchronous calls go straight to the store, so it can overlap them
+
+    @Override
+    public CompletableFuture<Void> putAsync(@NotNull String key, @NotNull String value) {
+        return this.dssStore.putAsync(prefixKey(key), value);
+    }
+
+    @Override
+    public CompletableFuture<Void> putAsync(@NotNull Map<String, String> keyValues) {
+        return this.dssStore.putAsync(prefixKeys(keyValues));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> putSwapAsync(@NotNull String key, String oldValue, @NotNull String newValue) {
+        Objects.requireNonNull(newValue);
+        return this.dssStore.putSwapAsync(prefixKey(key), oldValue, newValue);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> putSwapAsync(@NotNull String key, String oldValue, @NotNull String newValue,
+            @NotNull Map<String, String> others) {
+        Objects.requireNonNull(newValue);
+        return this.dssStore.putSwapAsync(prefixKey(key), oldValue, newValue, prefixKeys(others));
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync(@NotNull String key) {
+        return this.dssStore.getAsync(prefixKey(key));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> getPrefixAsync(@NotNull String keyPrefix) {
+        return this.dssStore.getPrefixAsync(prefixKey(keyPrefix)).thenApply(gotSet -> {
+            try {
+                return unprefixKeys(gotSet);
+            } catch (DynamicStatusStoreException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
 
-        this.dssStore.performActions(dssActions);
+    @Override
+    public CompletableFuture<Void> deleteAsync(@NotNull String key) {
+        return this.dssStore.deleteAsync(prefixKey(key));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(@NotNull Set<String> keys) {
+        return this.dssStore.deleteAsync(prefixKeys(keys));
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePrefixAsync(@NotNull String keyPrefix) {
+        return this.dssStore.deletePrefixAsync(prefixKey(keyPrefix));
+    }
+
+    @Override
+    public CompletableFuture<Void> performActionsAsync(IDssAction... actions) {
+        return this.dssStore.performActionsAsync(prefixActions(actions));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.dss;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.FrameworkException;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.IDynamicStatusStore;
+import dev.galasa.framework.spi.utils.StoreFutures.StoreCall;
+
+/**
+ * <p>
+ * Runs the asynchronous calls of a local DSS on a writer thread of its own, one
+ * at a time in the order they were made.
+ * </p>
+ *
+ * <p>
+ * The caller carries on while the file is updated, and as the writes reach the
+ * file from one thread they are grouped into the same commit as writes made by
+ * the other threads of the JVM. As each call waits for the one before, a later
+ * call never overtakes an earlier one for the same key.
+ * </p>
+ */
+abstract class OrderedAsyncDynamicStatusStore implements IDynamicStatusStore {
+
+    private static final long SHUTDOWN_WAIT_SECONDS = 30;
+
+    private ExecutorService   writer;
+    private boolean           shutdown;
+
+    /**
+     * Queues a call behind the asynchronous calls already made
+     */
+    protected <T> CompletableFuture<T> submit(StoreCall<T> call) {
+        ExecutorService executor;
+        synchronized (this) {
+            if (this.shutdown) {
+                return CompletableFuture.failedFuture(new DynamicStatusStoreException("The DSS has been shutdown"));
+            }
+            if (this.writer == null) {
+                this.writer = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread writerThread = new Thread(runnable, "DSS async writer");
+                    writerThread.setDaemon(true);
+                    return writerThread;
+                });
+            }
+            executor = this.writer;
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (FrameworkException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new DynamicStatusStoreException("The DSS has been shutdown", e));
+        }
+        return future;
+    }
+
+    /**
+     * Waits for the asynchronous calls already made to finish, and stops any
+     * more being made
+     */
+    protected void shutdownAsync() throws DynamicStatusStoreException {
+        ExecutorService executor;
+        synchronized (this) {
+            this.shutdown = true;
+            executor = this.writer;
+            this.writer = null;
+        }
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                throw new DynamicStatusStoreException("Asynchronous DSS calls did not finish before shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DynamicStatusStoreException("Interrupted waiting for asynchronous DSS calls", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> putAsync(@NotNull String key, @NotNull String value) {
+        return submit(() -> {
+            put(key, value);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> putAsync(@NotNull Map<String, String> keyValues) {
+        return submit(() -> {
+            put(keyValues);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> putSwapAsync(@NotNull String key, String oldValue, @NotNull String newValue) {
+        return submit(() -> putSwap(key, oldValue, newValue));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> putSwapAsync(@NotNull String key, String oldValue, @NotNull String newValue,
+            @NotNull Map<String, String> others) {
+        return submit(() -> putSwap(key, oldValue, newValue, others));
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync(@NotNull String key) {
+        return submit(() -> get(key));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> getPrefixAsync(@NotNull String keyPrefix) {
+        return submit(() -> getPrefix(keyPrefix));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(@NotNull String key) {
+        return submit(() -> {
+            delete(key);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(@NotNull Set<String> keys) {
+        return submit(() -> {
+            delete(keys);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePrefixAsync(@NotNull String keyPrefix) {
+        return submit(() -> {
+            deletePrefix(keyPrefix);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> performActionsAsync(IDssAction... actions) {
+        return submit(() -> {
+            performActions(actions);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.dss;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Null;
+
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.DssDelete;
+import dev.galasa.framework.spi.DssDeletePrefix;
+import dev.galasa.framework.spi.DssSwap;
+import dev.galasa.framework.spi.DssUpdate;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
+import dev.galasa.framework.spi.FrameworkPropertyFile;
+import dev.galasa.framework.spi.FrameworkPropertyFileOptions;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.IDynamicStatusStoreWatcher;
+
+/**
+ * <p>
+ * A Dynamic Status Store which splits the keys across several property files,
+ * so that writes to unrelated keys, for example run heartbeats and metrics, do
+ * not queue for the same lock or rewrite each other's keys.
+ * </p>
+ *
+ * <p>
+ * Each shard holds the keys starting with a prefix, in a file next to the main
+ * DSS file. Keys which do not match a shard are kept in the main file. Where
+ * shard prefixes overlap, the longest one wins. Updates to keys in several
+ * shards are made with {@link FrameworkPropertyFile#performActions(Map)}, which
+ * locks the shard files in a fixed order.
+ * </p>
+ *
+ * <p>
+ * Any keys for a shard still in the main file, for example from before the
+ * shard existed, are moved across when the store is created. The keys are
+ * copied to the shard while the main file still holds them, then deleted from
+ * the main file if they are unchanged. A move cut short by a crash is finished
+ * by the next store created, and a store racing another one to move the keys
+ * just tries again.
+ * </p>
+ */
+public class ShardedFpfDynamicStatusStore extends OrderedAsyncDynamicStatusStore {
+
+    public static final List<String> DEFAULT_SHARD_PREFIXES = Collections.unmodifiableList(Arrays.asList(
+            "dss.framework.run.",
+            "dss.framework.request.",
+            "dss.framework.metrics.",
+            "dss.framework.resource."));
+
+    private final FpfDynamicStatusStore              mainStore;
+    private final Map<String, FpfDynamicStatusStore> shards  = new LinkedHashMap<>();
+
+    // The shard watches behind each watch id handed out
+    private final Map<UUID, Map<FpfDynamicStatusStore, UUID>> watches = new ConcurrentHashMap<>();
+
+    private final DssLeaseManager                    leases;
+
+    private static final int                         MAX_MOVE_ATTEMPTS = 10;
+
+    public ShardedFpfDynamicStatusStore(URI file, FrameworkPropertyFileOptions options, List<String> shardPrefixes)
+            throws DynamicStatusStoreException {
+        this.mainStore = new FpfDynamicStatusStore(file, options, false);
+
+        for (String shardPrefix : shardPrefixes) {
+            Path shardPath = getShardPath(Paths.get(file), shardPrefix);
+            try {
+                Files.createFile(shardPath);
+            } catch (FileAlreadyExistsException e) {
+                // *** Already created by this or another JVM
+            } catch (IOException e) {
+                throw new DynamicStatusStoreException("Unable to create the DSS shard file " + shardPath, e);
+            }
+
+            FpfDynamicStatusStore shard = new FpfDynamicStatusStore(shardPath.toUri(), options, false);
+            moveKeys(shardPrefix, shard);
+            this.shards.put(shardPrefix, shard);
+        }
+
+        // *** The lease keys go in the main file, a lease and its key are updated across files
+        this.leases = new DssLeaseManager(this);
+    }
+
+    /**
+     * @return the file for a shard, named after the main file and the prefix, eg
+     *         dss-dss.framework.run.properties for the prefix dss.framework.run.
+     */
+    static Path getShardPath(Path mainFile, String shardPrefix) {
+        String name = mainFile.getFileName().toString();
+        String extension = "";
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            extension = name.substring(dot);
+            name = name.substring(0, dot);
+        }
+
+        String shardName = shardPrefix;
+        if (shardName.endsWith(".")) {
+            shardName = shardName.substring(0, shardName.length() - 1);
+        }
+        shardName = shardName.replaceAll("[^A-Za-z0-9._-]", "_");
+
+        return mainFile.resolveSibling(name + "-" + shardName + extension);
+    }
+
+    /**
+     * Moves the keys for a shard out of the main file. The keys are copied first,
+     * so a crash can only leave them in both files, which the next move tidies.
+     */
+    private void moveKeys(String shardPrefix, FpfDynamicStatusStore shard) throws DynamicStatusStoreException {
+        for (int attempt = 0; attempt < MAX_MOVE_ATTEMPTS; attempt++) {
+            Map<String, String> existing = mainStore.getPrefix(shardPrefix);
+            if (existing.isEmpty()) {
+                return;
+            }
+
+            // *** Only copy while the main file still holds the values, or the copy could
+            // *** overwrite newer values written to the shard since another JVM moved them
+            Map<FrameworkPropertyFile, List<IDssAction>> copyActions = new HashMap<>();
+            List<IDssAction> checks = new ArrayList<>();
+            List<IDssAction> copies = new ArrayList<>();
+            List<IDssAction> deletes = new ArrayList<>();
+            for (Map.Entry<String, String> entry : existing.entrySet()) {
+                checks.add(new DssSwap(entry.getKey(), entry.getValue(), entry.getValue()));
+                copies.add(new DssUpdate(entry.getKey(), entry.getValue()));
+                deletes.add(new DssDelete(entry.getKey(), entry.getValue()));
+            }
+            copyActions.put(mainStore.getFrameworkPropertyFile(), checks);
+            copyActions.put(shard.getFrameworkPropertyFile(), copies);
+
+            try {
+                FrameworkPropertyFile.performActions(copyActions);
+                mainStore.performActions(deletes.toArray(new IDssAction[deletes.size()]));
+                return;
+            } catch (DynamicStatusStoreMatchException e) {
+                // *** The keys changed under us, probably moved by another JVM, so look again
+            }
+        }
+        throw new DynamicStatusStoreException("Unable to move the keys with prefix " + shardPrefix
+                + " into their DSS shard, they keep changing");
+    }
+
+    /**
+     * @return the store holding the key
+     */
+    private FpfDynamicStatusStore getStore(String key) {
+        FpfDynamicStatusStore store = mainStore;
+        String matchedPrefix = "";
+        for (Map.Entry<String, FpfDynamicStatusStore> shard : shards.entrySet()) {
+            String shardPrefix = shard.getKey();
+            if (key.startsWith(shardPrefix) && shardPrefix.length() > matchedPrefix.length()) {
+                store = shard.getValue();
+                matchedPrefix = shardPrefix;
+            }
+        }
+        return store;
+    }
+
+    /**
+     * @return the stores which may hold keys starting with the prefix
+     */
+    private Set<FpfDynamicStatusStore> getStores(String keyPrefix) {
+        Set<FpfDynamicStatusStore> stores = new HashSet<>();
+        stores.add(getStore(keyPrefix));
+        for (Map.Entry<String, FpfDynamicStatusStore> shard : shards.entrySet()) {
+            if (shard.getKey().startsWith(keyPrefix)) {
+                stores.add(shard.getValue());
+            }
+        }
+        return stores;
+    }
+
+    @Override
+    public void put(@NotNull String key, @NotNull String value) throws DynamicStatusStoreException {
+        getStore(key).put(key, value);
+    }
+
+    @Override
+    public void put(@NotNull Map<String, String> keyValues) throws DynamicStatusStoreException {
+        List<IDssAction> actions = new ArrayList<>();
+        for (Map.Entry<String, String> entry : keyValues.entrySet()) {
+            actions.add(new DssUpdate(entry.getKey(), entry.getValue()));
+        }
+        performActions(actions.toArray(new IDssAction[actions.size()]));
+    }
+
+    @Override
+    public boolean putSwap(@NotNull String key, String oldValue, @NotNull String newValue)
+            throws DynamicStatusStoreException {
+        return getStore(key).putSwap(key, oldValue, newValue);
+    }
+
+    @Override
+    public boolean putSwap(@NotNull String key, String oldValue, @NotNull String newValue,
+            @NotNull Map<String, String> others) throws DynamicStatusStoreException {
+        List<IDssAction> actions = new ArrayList<>();
+        actions.add(new DssSwap(key, oldValue, newValue));
+        for (Map.Entry<String, String> entry : others.entrySet()) {
+            actions.add(new DssUpdate(entry.getKey(), entry.getValue()));
+        }
+
+        try {
+            performActions(actions.toArray(new IDssAction[actions.size()]));
+            return true;
+        } catch (DynamicStatusStoreMatchException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public @Null String get(@NotNull String key) throws DynamicStatusStoreException {
+        return getStore(key).get(key);
+    }
+
+    @Override
+    public @NotNull Map<String, String> getPrefix(@NotNull String keyPrefix) throws DynamicStatusStoreException {
+        Set<FpfDynamicStatusStore> stores = getStores(keyPrefix);
+        if (stores.size() == 1) {
+            return stores.iterator().next().getPrefix(keyPrefix);
+        }
+
+        Map<String, String> values = new HashMap<>();
+        for (FpfDynamicStatusStore store : stores) {
+            values.putAll(store.getPrefix(keyPrefix));
+        }
+        return values;
+    }
+
+    @Override
+    public void delete(@NotNull String key) throws DynamicStatusStoreException {
+        getStore(key).delete(key);
+    }
+
+    @Override
+    public void delete(@NotNull Set<String> keys) throws DynamicStatusStoreException {
+        List<IDssAction> actions = new ArrayList<>();
+        for (String key : keys) {
+            actions.add(new DssDelete(key, null));
+        }
+        performActions(actions.toArray(new IDssAction[actions.size()]));
+    }
+
+    @Override
+    public void deletePrefix(@NotNull String keyPrefix) throws DynamicStatusStoreException {
+        performActions(new DssDeletePrefix(keyPrefix));
+    }
+
+    @Override
+    public void performActions(IDssAction... actions) throws DynamicStatusStoreException, DynamicStatusStoreMatchException {
+        Map<FpfDynamicStatusStore, List<IDssAction>> storeActions = new LinkedHashMap<>();
+        for (IDssAction action : actions) {
+            for (FpfDynamicStatusStore store : getStores(action)) {
+                storeActions.computeIfAbsent(store, s -> new ArrayList<>()).add(action);
+            }
+        }
+
+        if (storeActions.isEmpty()) {
+            return;
+        }
+
+        if (storeActions.size() == 1) {
+            Map.Entry<FpfDynamicStatusStore, List<IDssAction>> only = storeActions.entrySet().iterator().next();
+            List<IDssAction> onlyActions = only.getValue();
+            only.getKey().performActions(onlyActions.toArray(new IDssAction[onlyActions.size()]));
+            return;
+        }
+
+        Map<FrameworkPropertyFile, List<IDssAction>> fileActions = new HashMap<>();
+        for (Map.Entry<FpfDynamicStatusStore, List<IDssAction>> entry : storeActions.entrySet()) {
+            fileActions.put(entry.getKey().getFrameworkPropertyFile(), entry.getValue());
+        }
+        FrameworkPropertyFile.performActions(fileActions);
+    }
+
+    private Set<FpfDynamicStatusStore> getStores(IDssAction action) throws DynamicStatusStoreException {
+        if (action instanceof DssDeletePrefix) {
+            return getStores(((DssDeletePrefix) action).getPrefix());
+        }
+
+        String key;
+        if (action instanceof DssUpdate) {
+            key = ((DssUpdate) action).getKey();
+        } else if (action instanceof DssSwap) {
+            key = ((DssSwap) action).getKey();
+        } else if (action instanceof DssDelete) {
+            key = ((DssDelete) action).getKey();
+        } else if (action instanceof DssAdd) {
+            key = ((DssAdd) action).getKey();
+        } else {
+            throw new DynamicStatusStoreException("Unrecognised DSS Action - " + action.getClass().getName());
+        }
+        return Collections.singleton(getStore(key));
+    }
+
+    @Override
+    public UUID putWithTtl(@NotNull String key, @NotNull String value, long ttlSeconds) throws DynamicStatusStoreException {
+        return this.leases.grant(key, value, ttlSeconds);
+    }
+
+    @Override
+    public boolean keepAlive(@NotNull UUID leaseId) throws DynamicStatusStoreException {
+        return this.leases.keepAlive(leaseId);
+    }
+
+    @Override
+    public void revokeLease(@NotNull UUID leaseId) throws DynamicStatusStoreException {
+        this.leases.revoke(leaseId);
+    }
+
+    @Override
+    public UUID watch(IDynamicStatusStoreWatcher watcher, String key) throws DynamicStatusStoreException {
+        this.leases.start(true);
+        FpfDynamicStatusStore store = getStore(key);
+        UUID shardWatchId = store.watch(watcher, key);
+
+        UUID watchId = UUID.randomUUID();
+        this.watches.put(watchId, Collections.singletonMap(store, shardWatchId));
+        return watchId;
+    }
+
+    @Override
+    public UUID watchPrefix(IDynamicStatusStoreWatcher watcher, String keyPrefix) throws DynamicStatusStoreException {
+        this.leases.start(true);
+        Map<FpfDynamicStatusStore, UUID> shardWatchIds = new HashMap<>();
+        for (FpfDynamicStatusStore store : getStores(keyPrefix)) {
+            shardWatchIds.put(store, store.watchPrefix(watcher, keyPrefix));
+        }
+
+        UUID watchId = UUID.randomUUID();
+        this.watches.put(watchId, shardWatchIds);
+        return watchId;
+    }
+
+    @Override
+    public void unwatch(UUID watchId) throws DynamicStatusStoreException {
+        Map<FpfDynamicStatusStore, UUID> shardWatchIds = this.watches.remove(watchId);
+        if (shardWatchIds == null) {
+            return;
+        }
+        for (Map.Entry<FpfDynamicStatusStore, UUID> shardWatch : shardWatchIds.entrySet()) {
+            shardWatch.getKey().unwatch(shardWatch.getValue());
+        }
+    }
+
+    @Override
+    public void shutdown() throws DynamicStatusStoreException {
+        shutdownAsync();
+        this.leases.shutdown();
+        this.watches.clear();
+        for (FpfDynamicStatusStore shard : shards.values()) {
+            shard.shutdown();
+        }
+        mainStore.shutdown();
+    }
+}
@@ -5,6 +5,7 @@
  */
 package dev.galasa.framework.internal.ras.directory;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -15,6 +16,8 @@ import java.util.Base64.Encoder;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -35,12 +38,20 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
 
     public final static String ID_PREFIX = "local-";
 
+    private final Log logger = LogFactory.getLog(DirectoryRASDirectoryService.class);
+
     private final Path baseDirectory;
     private final GalasaGson gson;
+    private final DirectoryRASRunIndex runIndex;
 
     protected DirectoryRASDirectoryService(@NotNull Path baseDirectory, GalasaGson gson) {
+        this(baseDirectory, gson, (baseDirectory != null) ? new DirectoryRASRunIndex(baseDirectory) : null);
+    }
+
+    protected DirectoryRASDirectoryService(@NotNull Path baseDirectory, GalasaGson gson, DirectoryRASRunIndex runIndex) {
         this.baseDirectory = baseDirectory;
         this.gson = gson;
+        this.runIndex = runIndex;
     }
 
     @Override
@@ -55,7 +66,7 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
         for(DirectoryRASRunResult run : allRuns) {
             matched = true;
             for(IRasSearchCriteria criteria : searchCriteria) {
-                if(!criteria.criteriaMatched(run.getTestStructure())) {
+                if(!criteria.criteriaMatched(run.getSummary())) {
                     matched = false;
                     break;
                 }
@@ -85,7 +96,7 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
 
         for (DirectoryRASRunResult result : getAllRuns()) {
             if(result!=null) {
-                TestStructure testStructure = result.getTestStructure();
+                TestStructure testStructure = result.getSummary();
                 if(testStructure != null && testStructure.getTestName()!=null) {
                     requestors.add(testStructure.getRequestor());
                 }
@@ -103,7 +114,7 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
         for (DirectoryRASRunResult result : getAllRuns()) {
             if(result != null) {
 
-                TestStructure testStructure = result.getTestStructure();
+                TestStructure testStructure = result.getSummary();
                 if(testStructure != null && testStructure.getTestName()!=null) {
                     key = testStructure.getBundle()+"/"+testStructure.getTestName();
                     if(!tests.containsKey(key)){
@@ -122,7 +133,7 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
 
         for (DirectoryRASRunResult result : getAllRuns()) {
             if(result!=null) {
-                TestStructure testStructure = result.getTestStructure();
+                TestStructure testStructure = result.getSummary();
                 if(testStructure != null  ) {
                     if(testStructure.getResult()==null) {
                         results.add("UNKNOWN");
@@ -137,8 +148,61 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
         return new ArrayList<>(results);
     }
 
+    /**
+     * Replaces the run index with the runs found in the RAS directory
+     * 
+     * @return the number of runs indexed
+     * @throws ResultArchiveStoreException
+     */
+    public int rebuildIndex() throws ResultArchiveStoreException {
+        try {
+            return runIndex.rebuild().size();
+        } catch (IOException e) {
+            throw new ResultArchiveStoreException("Unable to rebuild the run index of " + this.baseDirectory, e);
+        }
+    }
+
+    /**
+     * Compares the run index with the runs found in the RAS directory
+     * 
+     * @return a description of each difference, empty if the index is up to date
+     * @throws ResultArchiveStoreException
+     */
+    public @NotNull List<String> verifyIndex() throws ResultArchiveStoreException {
+        try {
+            return runIndex.verify();
+        } catch (IOException e) {
+            throw new ResultArchiveStoreException("Unable to verify the run index of " + this.baseDirectory, e);
+        }
+    }
+
+    /**
+     * Returns the runs from the run index, building the index if this is the first
+     * search of the RAS. If the index cannot be built, every run is read from the
+     * RAS directory.
+     */
     protected @NotNull List<DirectoryRASRunResult> getAllRuns() throws ResultArchiveStoreException {
 
+        Map<String, TestStructure> indexedRuns = null;
+        try {
+            indexedRuns = runIndex.read();
+            if (indexedRuns == null) {
+                indexedRuns = runIndex.rebuild();
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to use the run index of " + this.baseDirectory + ", reading every run", e);
+        }
+
+        if (indexedRuns != null) {
+            Encoder encoder = Base64.getEncoder();
+            ArrayList<DirectoryRASRunResult> runs = new ArrayList<>(indexedRuns.size());
+            for (Entry<String, TestStructure> run : indexedRuns.entrySet()) {
+                String id = ID_PREFIX + encoder.encodeToString(run.getKey().getBytes(StandardCharsets.UTF_8));
+                runs.add(new DirectoryRASRunResult(baseDirectory.resolve(run.getKey()), gson, id, run.getValue()));
+            }
+            return runs;
+        }
+
         try {
             ArrayList<DirectoryRASRunResult> runs = new ArrayList<>();
 
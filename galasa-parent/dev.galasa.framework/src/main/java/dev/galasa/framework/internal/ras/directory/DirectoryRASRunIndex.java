@@ -0,0 +1,382 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.ras.directory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Stream;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.google.gson.JsonParseException;
+
+import dev.galasa.framework.spi.teststructure.TestStructure;
+import dev.galasa.framework.spi.utils.GalasaGson;
+import dev.galasa.framework.spi.utils.GalasaGsonBuilder;
+
+/**
+ * <p>
+ * An index of the runs in a directory RAS, so the runs can be searched without
+ * reading the structure.json of every run.
+ * </p>
+ *
+ * <p>
+ * The index is a file of JSON lines in the base directory, each holding the
+ * searchable fields of a run. The runs only ever append to it, and the last
+ * line for a run directory is the one that counts. Rebuilding the index
+ * replaces it with one line for each run found in the directory.
+ * </p>
+ *
+ * <p>
+ * Reading the index compacts it once the lines which have been replaced by
+ * later ones outnumber the runs by {@link #COMPACT_RATIO}, rewriting it with
+ * one line for each run.
+ * </p>
+ *
+ * <p>
+ * A run only appends to an index which already exists, so a RAS holding runs
+ * from before there was an index is never mistaken for an empty one. The index
+ * is built by the first search, or by the rebuild command. Runs written by
+ * levels of the framework without the index are not in it until it is rebuilt.
+ * </p>
+ */
+public class DirectoryRASRunIndex {
+
+    public static final String  INDEX_FILE = "runs.index";
+    private static final String LOCK_FILE  = "runs.index.lock";
+
+    // *** A file lock is held for the whole JVM, so the threads take turns first
+    private static final Object JVM_LOCK   = new Object();
+
+    // *** Compact once there are this many replaced lines for each run, and at least
+    // *** MIN_COMPACT_LINES of them, so a small index is not rewritten over and over
+    static final int            COMPACT_RATIO     = 4;
+    static final int            MIN_COMPACT_LINES = 100;
+
+    private final Log           logger     = LogFactory.getLog(DirectoryRASRunIndex.class);
+
+    private final Path          baseDirectory;
+    private final Path          indexFile;
+    private final Path          lockFile;
+    private final GalasaGson    gson       = new GalasaGson();
+
+    /**
+     * A line of the index, either the summary of a run or the move of a run
+     * directory
+     */
+    private static class IndexEntry {
+        private String        run;
+        private String        movedTo;
+        private TestStructure summary;
+    }
+
+    /**
+     * The runs in the index, and how many lines it took to hold them
+     */
+    private static class IndexContents {
+        private final Map<String, TestStructure> runs  = new LinkedHashMap<>();
+        private int                              lines;
+
+        private boolean needsCompacting() {
+            int replaced = this.lines - this.runs.size();
+            return replaced >= MIN_COMPACT_LINES && replaced > COMPACT_RATIO * this.runs.size();
+        }
+    }
+
+    /**
+     * Something done to the index while holding the lock
+     */
+    @FunctionalInterface
+    private interface LockedAction<T> {
+        T run() throws IOException;
+    }
+
+    public DirectoryRASRunIndex(@NotNull Path baseDirectory) {
+        this.baseDirectory = baseDirectory;
+        this.indexFile = baseDirectory.resolve(INDEX_FILE);
+        this.lockFile = baseDirectory.resolve(LOCK_FILE);
+
+        // *** One line for each entry
+        this.gson.setGsonBuilder(new GalasaGsonBuilder(false));
+    }
+
+    /**
+     * Records the latest test structure of a run, if there is an index
+     *
+     * @param runDirectory  - the directory of the run
+     * @param testStructure - the test structure just written
+     * @throws IOException
+     */
+    public void update(@NotNull Path runDirectory, @NotNull TestStructure testStructure) throws IOException {
+        IndexEntry entry = new IndexEntry();
+        entry.run = getRunPath(runDirectory);
+        entry.summary = summarise(testStructure);
+        append(entry);
+    }
+
+    /**
+     * Records that a run directory has been moved, if there is an index
+     *
+     * @param from - the old directory of the run
+     * @param to   - the new directory of the run
+     * @throws IOException
+     */
+    public void moved(@NotNull Path from, @NotNull Path to) throws IOException {
+        IndexEntry entry = new IndexEntry();
+        entry.run = getRunPath(from);
+        entry.movedTo = getRunPath(to);
+        append(entry);
+    }
+
+    /**
+     * Reads the index, compacting it if it is mostly lines which have been
+     * replaced
+     *
+     * @return the summary of each run by the path of the run directory relative to
+     *         the base directory, or null if there is no index
+     * @throws IOException
+     */
+    public Map<String, TestStructure> read() throws IOException {
+        IndexContents contents = readIndex();
+        if (contents == null) {
+            return null;
+        }
+
+        if (contents.needsCompacting()) {
+            try {
+                compact();
+            } catch (IOException e) {
+                // *** The index is still good, just longer than it needs to be
+                logger.warn("Unable to compact the run index of " + this.baseDirectory, e);
+            }
+        }
+        return contents.runs;
+    }
+
+    /**
+     * Replaces the index with the runs found in the base directory. The runs wait
+     * to update the index until it has been rebuilt.
+     *
+     * @return the summary of each run, as read() would return
+     * @throws IOException
+     */
+    public Map<String, TestStructure> rebuild() throws IOException {
+        return withLock(() -> {
+            Map<String, TestStructure> runs = scan();
+            writeIndex(runs);
+
+            logger.debug("Rebuilt the run index of " + this.baseDirectory + " with " + runs.size() + " runs");
+            return runs;
+        });
+    }
+
+    /**
+     * Rewrites the index with only the latest line for each run. The index is
+     * read again under the lock, so nothing appended since is lost.
+     */
+    private void compact() throws IOException {
+        withLock(() -> {
+            IndexContents contents = readIndex();
+            if (contents == null || !contents.needsCompacting()) {
+                return null; // *** Rebuilt or compacted by someone else in the meantime
+            }
+
+            writeIndex(contents.runs);
+
+            logger.debug("Compacted the run index of " + this.baseDirectory + " from " + contents.lines + " to "
+                    + contents.runs.size() + " lines");
+            return null;
+        });
+    }
+
+    private IndexContents readIndex() throws IOException {
+        IndexContents contents = new IndexContents();
+        try (BufferedReader reader = Files.newBufferedReader(this.indexFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                contents.lines++;
+
+                IndexEntry entry = parse(line);
+                if (entry == null || entry.run == null) {
+                    continue;
+                }
+
+                if (entry.movedTo != null) {
+                    TestStructure summary = contents.runs.remove(entry.run);
+                    if (summary != null) {
+                        contents.runs.put(entry.movedTo, summary);
+                    }
+                } else if (entry.summary != null) {
+                    contents.runs.remove(entry.run); // *** So the runs stay in the order they were last updated
+                    contents.runs.put(entry.run, entry.summary);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return contents;
+    }
+
+    /**
+     * Replaces the index with one line for each run, by writing a new file and
+     * moving it into place, so a reader sees either the old or the new index
+     */
+    private void writeIndex(Map<String, TestStructure> runs) throws IOException {
+        Path tempFile = this.baseDirectory.resolve(INDEX_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            for (Entry<String, TestStructure> run : runs.entrySet()) {
+                IndexEntry entry = new IndexEntry();
+                entry.run = run.getKey();
+                entry.summary = run.getValue();
+                writer.write(this.gson.toJson(entry));
+                writer.newLine();
+            }
+        }
+        Files.move(tempFile, this.indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Compares the index with the runs found in the base directory
+     *
+     * @return a description of each difference, empty if the index is up to date
+     * @throws IOException
+     */
+    public List<String> verify() throws IOException {
+        List<String> problems = new ArrayList<>();
+
+        Map<String, TestStructure> indexed = read();
+        if (indexed == null) {
+            problems.add("There is no run index in " + this.baseDirectory);
+            return problems;
+        }
+
+        Map<String, TestStructure> found = scan();
+        for (Entry<String, TestStructure> run : found.entrySet()) {
+            TestStructure summary = indexed.get(run.getKey());
+            if (summary == null) {
+                problems.add("Run " + run.getKey() + " is missing from the index");
+            } else if (!this.gson.toJson(summary).equals(this.gson.toJson(run.getValue()))) {
+                problems.add("Run " + run.getKey() + " is out of date in the index");
+            }
+        }
+        for (String run : indexed.keySet()) {
+            if (!found.containsKey(run)) {
+                problems.add("Run " + run + " is in the index but not in the RAS");
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Reads the structure.json of every run in the base directory
+     */
+    private Map<String, TestStructure> scan() throws IOException {
+        Map<String, TestStructure> runs = new LinkedHashMap<>();
+        try (Stream<Path> stream = Files.list(this.baseDirectory)) {
+            stream.filter(Files::isDirectory).sorted().forEach(path -> {
+                Path structureFile = path.resolve("structure.json");
+                if (!Files.exists(structureFile)) {
+                    return;
+                }
+
+                try (InputStreamReader in = new InputStreamReader(Files.newInputStream(structureFile),
+                        StandardCharsets.UTF_8)) {
+                    TestStructure testStructure = this.gson.fromJson(in, TestStructure.class);
+                    if (testStructure != null) {
+                        runs.put(getRunPath(path), summarise(testStructure));
+                    }
+                } catch (IOException | JsonParseException e) {
+                    logger.trace("Unable to index the run in " + path);
+                }
+            });
+        }
+        return runs;
+    }
+
+    private void append(IndexEntry entry) throws IOException {
+        byte[] line = (this.gson.toJson(entry) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+
+        try {
+            withLock(() -> {
+                // *** Not CREATE, there is nothing to keep up to date until the index is built
+                return Files.write(this.indexFile, line, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            });
+        } catch (NoSuchFileException e) {
+            logger.trace("No run index in " + this.baseDirectory + " to update");
+        }
+    }
+
+    /**
+     * Runs the action holding the lock on the index, against the other threads
+     * of this JVM and then the other JVMs sharing the RAS
+     */
+    private <T> T withLock(LockedAction<T> action) throws IOException {
+        synchronized (JVM_LOCK) {
+            try (FileChannel channel = FileChannel.open(this.lockFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    return action.run();
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    private IndexEntry parse(String line) {
+        if (line.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return this.gson.fromJson(line, IndexEntry.class);
+        } catch (JsonParseException e) {
+            // *** A line cut short by a failing system, the next rebuild will tidy it
+            logger.trace("Ignoring an unreadable line in the run index of " + this.baseDirectory);
+            return null;
+        }
+    }
+
+    private String getRunPath(Path runDirectory) {
+        return this.baseDirectory.relativize(runDirectory).toString();
+    }
+
+    /**
+     * @return a copy of the fields of the test structure which can be searched on
+     */
+    static TestStructure summarise(TestStructure testStructure) {
+        TestStructure summary = new TestStructure();
+        summary.setRunName(testStructure.getRunName());
+        summary.setBundle(testStructure.getBundle());
+        summary.setTestName(testStructure.getTestName());
+        summary.setTestShortName(testStructure.getTestShortName());
+        summary.setRequestor(testStructure.getRequestor());
+        summary.setStatus(testStructure.getStatus());
+        summary.setResult(testStructure.getResult());
+        summary.setQueued(testStructure.getQueued());
+        summary.setStartTime(testStructure.getStartTime());
+        summary.setEndTime(testStructure.getEndTime());
+        return summary;
+    }
+}
@@ -11,6 +11,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
 
 import dev.galasa.framework.spi.IRunResult;
@@ -21,14 +22,18 @@ import dev.galasa.framework.spi.utils.GalasaGson;
 public class DirectoryRASRunResult implements IRunResult {
 
     private final Path                           runDirectory;
-    private final TestStructure                  testStructure;
-    private final DirectoryRASFileSystemProvider fileSystemProvider;
+    private final GalasaGson                     gson;
     private final String                         id;
+    private final TestStructure                  summary;
+    private TestStructure                        testStructure;
+    private DirectoryRASFileSystemProvider       fileSystemProvider;
 
     protected DirectoryRASRunResult(Path runDirectory, GalasaGson gson, String id)
             throws JsonSyntaxException, JsonIOException, IOException {
         this.runDirectory = runDirectory;
+        this.gson         = gson;
         this.id           = id;
+        this.summary      = null;
 
         Path structureFile = this.runDirectory.resolve("structure.json");
         
@@ -39,22 +44,65 @@ public class DirectoryRASRunResult implements IRunResult {
 
         this.fileSystemProvider = new DirectoryRASFileSystemProvider(this.runDirectory);
     }
+
+    /**
+     * A run found in the run index, the structure.json is only read if the
+     * full test structure is asked for
+     */
+    protected DirectoryRASRunResult(Path runDirectory, GalasaGson gson, String id, TestStructure summary) {
+        this.runDirectory = runDirectory;
+        this.gson         = gson;
+        this.id           = id;
+        this.summary      = summary;
+    }
     
     //for testing purposes
     protected DirectoryRASRunResult() {
     	this.testStructure = null;
     	this.runDirectory = null;
     	this.fileSystemProvider = null;
+    	this.gson               = null;
     	this.id                 = null;
+    	this.summary            = null;
     }
 
     @Override
-    public TestStructure getTestStructure() throws ResultArchiveStoreException {
+    public synchronized TestStructure getTestStructure() throws ResultArchiveStoreException {
+        if (this.testStructure == null && this.summary != null) {
+            Path structureFile = this.runDirectory.resolve("structure.json");
+            if (!Files.exists(structureFile)) {
+                return this.summary; // *** The run has been removed since the index was read
+            }
+
+            try (InputStreamReader in = new InputStreamReader(Files.newInputStream(structureFile))) {
+                this.testStructure = gson.fromJson(in, TestStructure.class);
+            } catch (IOException | JsonParseException e) {
+                throw new ResultArchiveStoreException("Unable to read the test structure at " + structureFile, e);
+            }
+        }
         return this.testStructure;
     }
 
+    /**
+     * @return the fields of the test structure which can be searched on, from
+     *         the run index if the run was found there
+     */
+    public TestStructure getSummary() throws ResultArchiveStoreException {
+        if (this.summary != null) {
+            return this.summary;
+        }
+        return getTestStructure();
+    }
+
     @Override
-    public Path getArtifactsRoot() throws ResultArchiveStoreException {
+    public synchronized Path getArtifactsRoot() throws ResultArchiveStoreException {
+        if (this.fileSystemProvider == null) {
+            try {
+                this.fileSystemProvider = new DirectoryRASFileSystemProvider(this.runDirectory);
+            } catch (IOException e) {
+                throw new ResultArchiveStoreException("Unable to access the artifacts at " + this.runDirectory, e);
+            }
+        }
         return this.fileSystemProvider.getActualFileSystem().getPath("/");
     }
 
@@ -20,6 +20,8 @@ import java.util.Objects;
 
 import javax.validation.constraints.NotNull;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.annotations.Component;
 
 import dev.galasa.framework.spi.IFramework;
@@ -43,6 +45,7 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
     private final IFramework               framework;                           // NOSONAR
     private final URI                      rasUri;
     private final Path                     baseDirectory;
+    private final DirectoryRASRunIndex     runIndex;
 
     private boolean                        shutdown = false;
 
@@ -54,6 +57,8 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
 
     private DirectoryRASFileSystemProvider provider;
 
+    private final Log                      logger   = LogFactory.getLog(getClass());
+
     public DirectoryResultArchiveStoreService(IFramework framework, URI rasUri) throws ResultArchiveStoreException {
         this.framework = framework;
         this.rasUri = rasUri;
@@ -66,6 +71,7 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
             throw new ResultArchiveStoreException(
                     "Unable to create the RAS base directory '" + this.baseDirectory + "'", e);
         }
+        this.runIndex = new DirectoryRASRunIndex(this.baseDirectory);
 
         // *** Get the runname to create the directory
         final String runName = this.framework.getTestRunName();
@@ -114,6 +120,7 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
                     movePath = this.runDirectory.resolveSibling(runname + "-" + Integer.toString(i));
                     if (!Files.exists(movePath)) {
                         Files.move(runDirectory, movePath);
+                        recordMove(runDirectory, movePath);
                         break;
                     }
                 }
@@ -132,6 +139,14 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
         }
     }
 
+    private void recordMove(Path from, Path to) {
+        try {
+            this.runIndex.moved(from, to);
+        } catch (final IOException e) {
+            logger.warn("Unable to record the move of " + from + " in the run index, it will be out of date until rebuilt", e);
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -190,6 +205,13 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
         } catch (final Exception e) {
             throw new ResultArchiveStoreException("Unable to write the test structure", e);
         }
+
+        // *** The structure file is what counts, the index can be rebuilt from it
+        try {
+            this.runIndex.update(this.runDirectory, testStructure);
+        } catch (final Exception e) {
+            logger.warn("Unable to update the run index, it will be out of date until rebuilt", e);
+        }
     }
 
     /*
@@ -218,7 +240,7 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
     @Override
     public @NotNull List<IResultArchiveStoreDirectoryService> getDirectoryServices() {
         ArrayList<IResultArchiveStoreDirectoryService> dirs = new ArrayList<>(1);
-        dirs.add(new DirectoryRASDirectoryService(this.baseDirectory, gson));
+        dirs.add(new DirectoryRASDirectoryService(this.baseDirectory, gson, this.runIndex));
         return dirs;
     }
 
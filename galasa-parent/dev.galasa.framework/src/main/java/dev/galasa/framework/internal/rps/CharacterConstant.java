@@ -69,4 +69,18 @@ public class CharacterConstant implements ICharacter {
     public int numberOfCombinations() {
         return 1;
     }
+
+    /**
+     * @return - returns the constant chacacter.
+     */
+    public char charAt(int index) {
+        return character;
+    }
+
+    /**
+     * @return - 0 if it is the constant character, otherwise -1.
+     */
+    public int indexOf(char c) {
+        return c == character ? 0 : -1;
+    }
 }
\ No newline at end of file
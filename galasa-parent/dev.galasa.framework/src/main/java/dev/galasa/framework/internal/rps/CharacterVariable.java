@@ -6,6 +6,7 @@
 package dev.galasa.framework.internal.rps;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Random;
 
@@ -31,6 +32,11 @@ public class CharacterVariable implements ICharacter {
 
     private ArrayList<Character> chars     = new ArrayList<>();
 
+    // *** The acceptable chars in order, and the position of each char, so
+    // *** looking up either way does not search the list
+    private char[]               values;
+    private int[]                positions = new int[128];
+
     /**
      * This constructor takes in a node which contains the deifnition of the
      * variable character. The called method generates the acceptable chars that
@@ -40,6 +46,13 @@ public class CharacterVariable implements ICharacter {
      */
     public CharacterVariable(SimpleNode child) {
         generateAcceptableChars((ASTVariable) child);
+
+        values = new char[chars.size()];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = chars.get(i);
+            positions[values[i]] = i;
+        }
     }
 
     /**
@@ -49,7 +62,7 @@ public class CharacterVariable implements ICharacter {
      * @return - char, randomly selected.
      */
     public char getRandomChar() {
-        character = chars.get(random.nextInt(chars.size()));
+        character = values[random.nextInt(values.length)];
         return character;
     }
 
@@ -59,12 +72,12 @@ public class CharacterVariable implements ICharacter {
      * @return - char, next in order defined by the defintion.
      */
     public char getNextChar() {
-        int charIndex = chars.lastIndexOf(character);
-        if (charIndex == (chars.size() - 1)) {
-            character = chars.get(0);
+        int charIndex = indexOf(character);
+        if (charIndex == (values.length - 1)) {
+            character = values[0];
             return character;
         }
-        character = chars.get(charIndex + 1);
+        character = values[charIndex + 1];
         return character;
     }
 
@@ -83,7 +96,7 @@ public class CharacterVariable implements ICharacter {
      * @return - char, first chracter.
      */
     public char getFirstChar() {
-        character = chars.get(0);
+        character = values[0];
         return character;
     }
 
@@ -93,7 +106,7 @@ public class CharacterVariable implements ICharacter {
      * @return - char, first chracter.
      */
     public char firstChar() {
-        return chars.get(0);
+        return values[0];
     }
 
     /**
@@ -103,7 +116,28 @@ public class CharacterVariable implements ICharacter {
      * @return int - number of combinations.
      */
     public int numberOfCombinations() {
-        return chars.size();
+        return values.length;
+    }
+
+    /**
+     * This method returns the character at a position in the array list chars.
+     * 
+     * @return - char, at that position.
+     */
+    public char charAt(int index) {
+        return values[index];
+    }
+
+    /**
+     * This method returns the position of a character in the array list chars.
+     * 
+     * @return - int, the position or -1 if it is not an acceptable char.
+     */
+    public int indexOf(char c) {
+        if (c >= positions.length) {
+            return -1;
+        }
+        return positions[c];
     }
 
     /**
@@ -71,4 +71,22 @@ public interface ICharacter {
      * @return - int.
      */
     int numberOfCombinations();
+
+    /**
+     * This method returns a character by its position in the definition, without
+     * storing it.
+     * 
+     * @param index - from 0 to numberOfCombinations() - 1
+     * @return - the character at that position.
+     */
+    char charAt(int index);
+
+    /**
+     * This method returns the position of a character in the definition.
+     * 
+     * @param c - the character to look for
+     * @return - from 0 to numberOfCombinations() - 1, or -1 if the character is
+     *         not in the definition.
+     */
+    int indexOf(char c);
 }
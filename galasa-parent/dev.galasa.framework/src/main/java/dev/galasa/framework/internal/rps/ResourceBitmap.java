@@ -0,0 +1,95 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.rps;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * This class records which of the resources of a resource string definition
+ * are in use, one bit for each resource in the order given by
+ * getFirstResource() and getNextResource(). Runs of free resources can then be
+ * found without checking each name.
+ *
+ *
+ */
+public class ResourceBitmap {
+    private final ResourceString definition;
+    private final int            size;
+    private final BitSet         used;
+
+    public ResourceBitmap(ResourceString definition) {
+        this.definition = definition;
+        this.size = definition.getNumberOfCombinations();
+        this.used = new BitSet(this.size);
+    }
+
+    /**
+     * This method marks a resource as in use. Names outside the definition are
+     * ignored.
+     *
+     * @param resource - the resource name
+     */
+    public void markUsed(String resource) {
+        int index = this.definition.getIndex(resource);
+        if (index >= 0) {
+            this.used.set(index);
+        }
+    }
+
+    /**
+     * This method finds the first run of free resources at or after a position,
+     * going back to the start of the definition if there is none.
+     *
+     * @param from  - the position to start looking from
+     * @param count - the number of consecutive free resources needed
+     * @return - the position of the first resource of the run, or -1 if there
+     *         is no run that long.
+     */
+    public int findFree(int from, int count) {
+        int found = findFree(from, this.size, count);
+        if (found < 0 && from > 0) {
+            found = findFree(0, Math.min(this.size, from + count - 1), count);
+        }
+        return found;
+    }
+
+    private int findFree(int from, int to, int count) {
+        int start = this.used.nextClearBit(from);
+        while (start + count <= to) {
+            int end = this.used.nextSetBit(start);
+            if (end < 0 || end >= start + count) {
+                return start;
+            }
+            start = this.used.nextClearBit(end);
+        }
+        return -1;
+    }
+
+    /**
+     * This method marks a run of resources as in use and returns their names.
+     *
+     * @param start - the position of the first resource
+     * @param count - the number of resources
+     * @return - the resource names, in order.
+     */
+    public List<String> take(int start, int count) {
+        List<String> resources = new ArrayList<>(count);
+        for (int i = start; i < start + count; i++) {
+            resources.add(this.definition.getResource(i));
+        }
+        this.used.set(start, start + count);
+        return resources;
+    }
+
+    /**
+     * @return - the number of resources in the definition.
+     */
+    public int size() {
+        return this.size;
+    }
+}
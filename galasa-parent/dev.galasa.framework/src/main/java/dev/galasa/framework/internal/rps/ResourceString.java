@@ -8,6 +8,7 @@ package dev.galasa.framework.internal.rps;
 import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import dev.galasa.framework.internal.rps.tree.ASTConstant;
 import dev.galasa.framework.internal.rps.tree.ASTStart;
@@ -21,10 +22,25 @@ import dev.galasa.framework.spi.ResourcePoolingServiceException;
 /**
  * This class creates the resource string defintion build up of ICharacters.
  * 
+ * Each resource name is also a position in the definition, written in a mixed
+ * radix with one digit for each character and the last character changing
+ * fastest. The weight of each digit is worked out once when the definition is
+ * parsed, so moving between a name and its position is arithmetic rather than
+ * stepping through the names.
+ * 
  *  
  */
 public class ResourceString {
     private List<ICharacter> string = new ArrayList<>();
+    private Random           random = new Random();
+
+    private int[]            radixes;
+    private long[]           weights;
+    private long             combinations;
+    private boolean          overflowReported;
+
+    // *** The position of the last resource returned, -1 for none yet
+    private long             current = -1;
 
     /**
      * This method takes the input string which defines a range of strings and
@@ -55,6 +71,38 @@ public class ResourceString {
             }
         }
 
+        calculateWeights();
+    }
+
+    /**
+     * This method, called by the constructor, works out the radix and weight of
+     * each character. Constant characters have a radix of 1, so they never change.
+     */
+    private void calculateWeights() {
+        radixes = new int[string.size()];
+        weights = new long[string.size()];
+
+        long weight = 1;
+        for (int i = string.size() - 1; i >= 0; i--) {
+            radixes[i] = string.get(i).numberOfCombinations();
+            weights[i] = weight;
+            weight *= radixes[i];
+
+            // *** getNextResource has always reported running off the end, unless
+            // *** the only variable character is the first
+            if (i != 0 && string.get(i) instanceof CharacterVariable) {
+                overflowReported = true;
+            }
+        }
+        combinations = weight;
+    }
+
+    private String resourceAt(long index) {
+        char[] resource = new char[string.size()];
+        for (int i = 0; i < resource.length; i++) {
+            resource[i] = string.get(i).charAt((int) ((index / weights[i]) % radixes[i]));
+        }
+        return new String(resource);
     }
 
     /**
@@ -65,11 +113,8 @@ public class ResourceString {
      *         APPLID000
      */
     public String getFirstResource() {
-        StringBuilder resource = new StringBuilder();
-        for (ICharacter character : string) {
-            resource.append(character.getFirstChar());
-        }
-        return resource.toString();
+        current = 0;
+        return resourceAt(current);
     }
 
     /**
@@ -79,11 +124,8 @@ public class ResourceString {
      *         be APPLID359.
      */
     public String getRandomResource() {
-        StringBuilder resource = new StringBuilder();
-        for (ICharacter character : string) {
-            resource.append(character.getRandomChar());
-        }
-        return resource.toString();
+        current = Math.floorMod(random.nextLong(), combinations);
+        return resourceAt(current);
     }
 
     /**
@@ -95,49 +137,79 @@ public class ResourceString {
      *         APPLID16a.
      */
     public String getNextResource() throws InsufficientResourcesAvailableException {
-        StringBuilder builder = new StringBuilder();
-        boolean stillIncrementing = true;
-        boolean overflow = false;
+        current++;
+        if (current >= combinations) {
+            current = 0;
+            if (overflowReported) {
+                throw new InsufficientResourcesAvailableException("Not enough resources available, hit overflow.");
+            }
+        }
+        return resourceAt(current);
+    }
 
-        for (int i = string.size() - 1; i >= 0; i--) {
-            ICharacter character = string.get(i);
-
-            if (character instanceof CharacterVariable && stillIncrementing) {
-                char nextChar = character.getNextChar();
-                if (nextChar != character.firstChar()) {
-                    stillIncrementing = false;
-                    builder.append(nextChar);
-                    overflow = false;
-                } else {
-                    if (i != 0) {
-                        overflow = true;
-                    }
-                    builder.append(nextChar);
-                }
-            } else {
-                builder.append(character.getChar());
+    /**
+     * This method returns the resource name at a position, like getResource(int),
+     * and makes it the current resource so getNextResource() carries on from
+     * there.
+     * 
+     * @param index - any position, it is wrapped into the definition
+     * @return string, for the definition: APPLID{9}{9}{9} index 1042 would be
+     *         APPLID042.
+     */
+    public String seekResource(long index) {
+        current = Math.floorMod(index, combinations);
+        return resourceAt(current);
+    }
+
+    /**
+     * This method returns the resource name at a position in the order given by
+     * getFirstResource() and getNextResource(). The last character changes
+     * fastest, so the name is the position written in a mixed radix, one digit
+     * for each character.
+     * 
+     * @param index - from 0 to getNumberOfCombinations() - 1
+     * @return string, for the definition: APPLID{9}{9}{9} index 42 would be
+     *         APPLID042.
+     */
+    public String getResource(int index) {
+        return resourceAt(index);
+    }
+
+    /**
+     * This method returns the position of a resource name in the order given by
+     * getFirstResource() and getNextResource(), the reverse of getResource(int).
+     * 
+     * @param resource - a resource name
+     * @return - int, the position, or -1 if the name is not in the range defined
+     *         or its position is too large for an int.
+     */
+    public int getIndex(String resource) {
+        if (resource.length() != string.size()) {
+            return -1;
+        }
+
+        long index = 0;
+        for (int i = 0; i < resource.length(); i++) {
+            int digit = string.get(i).indexOf(resource.charAt(i));
+            if (digit < 0) {
+                return -1;
             }
+            index += digit * weights[i];
         }
-        builder.reverse();
-        if (overflow) {
-            throw new InsufficientResourcesAvailableException("Not enough resources available, hit overflow.");
+        if (index > Integer.MAX_VALUE) {
+            return -1;
         }
-        return builder.toString();
+        return (int) index;
     }
 
     /**
-     * This method calculates and returns the number of combinations that a resource
-     * string definition could provide.
+     * This method returns the number of combinations that a resource string
+     * definition could provide, worked out when the definition was parsed.
      * 
-     * @return - int, number of combinations.
+     * @return - int, number of combinations, or Integer.MAX_VALUE if there are
+     *         more than that.
      */
     public int getNumberOfCombinations() {
-        int combintations = 1;
-        for (ICharacter c : string) {
-            if (c instanceof CharacterVariable) {
-                combintations *= c.numberOfCombinations();
-            }
-        }
-        return combintations;
+        return (int) Math.min(combinations, Integer.MAX_VALUE);
     }
 }
\ No newline at end of file
@@ -5,24 +5,36 @@
  */
 package dev.galasa.framework.spi;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Properties;
 import java.util.Set;
-import java.util.HashSet;
 import java.util.List;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.FileFilterUtils;
@@ -47,18 +59,104 @@ import dev.galasa.framework.spi.IFrameworkPropertyFileWatcher.Event;
  * and the watchng of values inside the properties.
  * </p>
  * 
- *  
+ * <p>
+ * If snapshot reads are enabled in the {@link FrameworkPropertyFileOptions},
+ * the file is checked for changes by a background poller and the properties are
+ * published as an immutable snapshot. Reads then do not check the file or take
+ * the FPF lock, they just look up the latest snapshot. The snapshot is copied
+ * by the first read after a change rather than by every write, so a write only
+ * costs the size of the change.
+ * </p>
+ * 
+ * <p>
+ * The properties are held sorted by key, so prefix queries and deletes only
+ * visit the matching range of keys rather than every key in the file.
+ * </p>
+ * 
+ * <p>
+ * If the journal is enabled, changes are appended to a journal file next to the
+ * properties file instead of rewriting the whole properties file each time. The
+ * journal is replayed on load, and compacted back into the properties file in
+ * the background once it grows past a threshold. All the JVMs sharing a file
+ * must use the same setting.
+ * </p>
+ * 
+ * <p>
+ * A compaction first writes a complete copy of the properties to a .compacting
+ * file beside the properties file, and only removes it once the properties
+ * file has been rewritten and the journal emptied. While it exists it is
+ * loaded in place of the properties file, which a crash may have left part
+ * written.
+ * </p>
  *
  */
 
 public class FrameworkPropertyFile implements FileAlterationListener {
-    private Properties             currentProperties = new Properties();
-    private HashMap<UUID, Watch>   watches           = new HashMap<>();
+    private TreeMap<String, String> currentProperties = new TreeMap<>();
+    private final PropertyWatchTrie<IFrameworkPropertyFileWatcher> watches = new PropertyWatchTrie<>();
     private URI                    file;
     private File                   propertyFile;
     private String                 parent;
     private FileAlterationObserver observer;
     private FileAlterationMonitor  monitor;
+    private final boolean          snapshotReads;
+    private final long             pollIntervalMillisecs;
+    private final FrameworkPropertyFileJournal journal;
+    private final Path             compactingPath;
+    private final long             compactionThresholdBytes;
+    private ScheduledExecutorService compactor;
+    private final long             groupCommitWindowMillisecs;
+
+    // Held while a file lock is held, as a JVM cannot hold the same file lock twice
+    private static final ConcurrentHashMap<Path, Object> FILE_LOCKS = new ConcurrentHashMap<>();
+    private final Path             lockPath;
+    private final Object           fileLock;
+
+    // Updates waiting to be group committed, also the monitor for the queue
+    private final List<PendingUpdate<?>> pendingUpdates = new ArrayList<>();
+    private Thread                 updateLeader;
+
+    // Changes the watchers have not been told about yet, as the watchers are
+    // only called once the file locks are released
+    private final List<PropertyChanges> unnotifiedChanges = new ArrayList<>();
+    private boolean                notifying;
+
+    /**
+     * <p>
+     * A change to the properties, made with the write lock held.
+     * </p>
+     */
+    private interface PropertyUpdate<T, E extends Exception> {
+        T apply(PropertyChanges changes) throws E;
+    }
+
+    private static class PendingUpdate<T> {
+        private final PropertyUpdate<T, ?> update;
+        private T                          result;
+        private Exception                  failure;
+        private volatile boolean           done;
+
+        private PendingUpdate(PropertyUpdate<T, ?> update) {
+            this.update = update;
+        }
+
+        private void apply(PropertyChanges changes) throws Exception {
+            this.result = update.apply(changes);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <E extends Exception> T getResult() throws IOException, E {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure != null) {
+                throw (E) failure;
+            }
+            return result;
+        }
+    }
+    // Null when the properties have changed since the snapshot was last made
+    private volatile NavigableMap<String, String> snapshot = Collections.emptyNavigableMap();
     private static Log             fpfLog            = LogFactory.getLog(FrameworkPropertyFile.class);
 
     /**
@@ -73,13 +171,44 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      */
 
     public FrameworkPropertyFile(URI file) throws FrameworkPropertyFileException {
+        this(file, new FrameworkPropertyFileOptions());
+    }
+
+    /**
+     * <p>
+     * As {@link #FrameworkPropertyFile(URI)}, but with optional behaviours. If
+     * snapshot reads are requested, the file monitor is started straight away so
+     * that the snapshot is kept up to date with changes from other JVMs.
+     * </p>
+     * 
+     * @param file    - URI of the java properties file
+     * @param options - the optional behaviours to use
+     * @throws FrameworkPropertyFileException
+     */
+    public FrameworkPropertyFile(URI file, FrameworkPropertyFileOptions options) throws FrameworkPropertyFileException {
         this.file = file;
         this.propertyFile = new File(file);
         this.parent = propertyFile.getParent();
+        this.lockPath = propertyFile.getAbsoluteFile().toPath().normalize();
+        this.fileLock = FILE_LOCKS.computeIfAbsent(lockPath, path -> new Object());
+        this.snapshotReads = options.isSnapshotReads();
+        this.pollIntervalMillisecs = options.getPollIntervalMillisecs();
+        this.compactionThresholdBytes = options.getCompactionThresholdBytes();
+        this.groupCommitWindowMillisecs = options.getGroupCommitWindowMillisecs();
+        if (options.isJournal()) {
+            this.journal = new FrameworkPropertyFileJournal(Paths.get(propertyFile.getPath() + ".journal"));
+            this.compactingPath = Paths.get(propertyFile.getPath() + ".compacting");
+        } else {
+            this.journal = null;
+            this.compactingPath = null;
+        }
 
         load();
 
         IOFileFilter filter = FileFilterUtils.nameFileFilter(propertyFile.getName());
+        if (journal != null) {
+            filter = FileFilterUtils.or(filter, FileFilterUtils.nameFileFilter(journal.getPath().getFileName().toString()));
+        }
         try {
             observer = new FileAlterationObserver(FileUtils.getFile(parent), filter);
             observer.addListener(this);
@@ -87,6 +216,20 @@ public class FrameworkPropertyFile implements FileAlterationListener {
         } catch (Exception e) {
             throw new FrameworkPropertyFileException("Problem starting observer", e);
         }
+
+        if (snapshotReads) {
+            startMonitor();
+        }
+
+        if (journal != null) {
+            long interval = options.getCompactionIntervalMillisecs();
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "FrameworkPropertyFile journal compactor - " + propertyFile.getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactIfNeeded, interval, interval, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
@@ -97,10 +240,46 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @param key
      * @return - corresponding value from the key, null if non-exsisting
      */
-    public synchronized String get(final String key) {
-        observer.checkAndNotify();
-        return currentProperties.getProperty(key);
+    public String get(final String key) {
+        if (snapshotReads) {
+            return getSnapshot().get(key);
+        }
+
+        synchronized (this) {
+            observer.checkAndNotify();
+            return currentProperties.get(key);
+        }
+    }
+
+    /**
+     * <p>
+     * Retrieves several keys at once. All the values come from the same version
+     * of the file.
+     * </p>
+     * 
+     * @param keys - the keys to look up
+     * @return a map of the keys which exist to their values
+     */
+    public Map<String, String> get(Collection<String> keys) {
+        if (snapshotReads) {
+            return get(getSnapshot(), keys);
+        }
+
+        synchronized (this) {
+            observer.checkAndNotify();
+            return get(currentProperties, keys);
+        }
+    }
 
+    private static Map<String, String> get(Map<String, String> properties, Collection<String> keys) {
+        Map<String, String> values = new HashMap<>();
+        for (String key : keys) {
+            String value = properties.get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
     }
 
     /**
@@ -113,18 +292,35 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      *                  store.
      * @return A map of any size or null. The key is a string which starts with the specified prefix.
      */
-    public synchronized Map<String, String> getPrefix(String keyPrefix) {
+    public Map<String, String> getPrefix(String keyPrefix) {
+        if (snapshotReads) {
+            return getPrefix(getSnapshot(), keyPrefix);
+        }
+
+        synchronized (this) {
+            observer.checkAndNotify();
+            return getPrefix(currentProperties, keyPrefix);
+        }
+    }
+
+    /**
+     * <p>
+     * Copies the properties with the prefix, starting at the first key that could
+     * match and stopping at the first key that doesn't.
+     * </p>
+     */
+    private static Map<String, String> getPrefix(NavigableMap<String, String> properties, String keyPrefix) {
         Map<String, String> values = new HashMap<>();
-        observer.checkAndNotify();
-        for (Object k : currentProperties.keySet()) {
-            String key = (String) k;
-            if (key.startsWith(keyPrefix)) {
-                values.put(key, currentProperties.getProperty(key));
+        for (Map.Entry<String, String> entry : properties.tailMap(keyPrefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(keyPrefix)) {
+                break;
             }
+            values.put(entry.getKey(), entry.getValue());
         }
         return values;
     }
 
+
     /**
      * <p>
      * This method retrieves a List of namespaces which have properties set
@@ -133,14 +329,34 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * 
      * @return - List of namespaces
      */
-    public synchronized List<String> getNamespaces() {
+    public List<String> getNamespaces() {
+        if (snapshotReads) {
+            return getNamespaces(getSnapshot());
+        }
+
+        synchronized (this) {
+            observer.checkAndNotify();
+            return getNamespaces(currentProperties);
+        }
+    }
+
+    /**
+     * <p>
+     * As the keys are sorted, all the keys of a namespace are next to each other.
+     * So after finding a namespace we can skip straight past all of its keys,
+     * touching one key per namespace.
+     * </p>
+     */
+    private static List<String> getNamespaces(NavigableMap<String, String> properties) {
         List<String> namespaces = new ArrayList<>();
-        observer.checkAndNotify();
-        for (Object k : currentProperties.keySet()) {
-            String name = ((String)k).substring(0,((String)k).indexOf("."));
-            if(!namespaces.contains(name)) {
-                namespaces.add(name);
-            }
+        String key = properties.isEmpty() ? null : properties.firstKey();
+        while (key != null) {
+            int dot = key.indexOf('.');
+            String name = (dot < 0) ? key : key.substring(0, dot);
+            namespaces.add(name);
+
+            // '/' sorts immediately after '.', so this is the first key after the namespace
+            key = properties.ceilingKey(name + "/");
         }
         return namespaces;
     }
@@ -155,25 +371,15 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      *            properties.
      * @throws FrameworkPropertyFileException
      */
-    public synchronized void delete(String key) throws FrameworkPropertyFileException {
-        // Make the current properties as close to the values in the file as 
-        // we can. So when we write they are up-to-date.
-        if (observer!=null) {
-            observer.checkAndNotify();
-        }
-
-        // There is a small window here when another JVM may write to the file,
-        // which will get lost when we over-write it.
-        synchronized (FrameworkPropertyFile.class) {
-            try (FileChannel fileChannel = getWriteChannel(false)) {
-                Properties oldProperties = (Properties) this.currentProperties.clone();
-                this.currentProperties.remove(key);
-                write(fileChannel, this.currentProperties);
-                fileModified(this.currentProperties, oldProperties);
-            } catch (IOException e) {
-                fpfLog.error("Unable to delete the key: " + key, e);
-                throw new FrameworkPropertyFileException("Unable to delete key: " + key, e);
-            }
+    public void delete(String key) throws FrameworkPropertyFileException {
+        try {
+            update(changes -> {
+                changes.remove(key);
+                return null;
+            });
+        } catch (IOException e) {
+            fpfLog.error("Unable to delete the key: " + key, e);
+            throw new FrameworkPropertyFileException("Unable to delete key: " + key, e);
         }
     }
 
@@ -184,28 +390,15 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @param keys - a set of string keys to remove from properties
      * @throws FrameworkPropertyFileException
      */
-    public synchronized void delete(Set<String> keys) throws FrameworkPropertyFileException {
-        // Make the current properties as close to the values in the file as 
-        // we can. So when we write they are up-to-date.
-        if (observer!=null) {
-            observer.checkAndNotify();
-        }
-        // There is a small window here when another JVM may write to the file,
-        // which will get lost when we over-write it.
-        synchronized (FrameworkPropertyFile.class) {
-            try (FileChannel fileChannel = getWriteChannel(false)) {
-                Properties oldProperties = (Properties) this.currentProperties.clone();
-
-                for (String key : keys) {
-                    this.currentProperties.remove(key);
-                }
-
-                write(fileChannel, this.currentProperties);
-                fileModified(this.currentProperties, oldProperties);
-            } catch (IOException e) {
-                fpfLog.error("Unable to delete keys", e);
-                throw new FrameworkPropertyFileException("Unable to delete keys.", e);
-            }
+    public void delete(Set<String> keys) throws FrameworkPropertyFileException {
+        try {
+            update(changes -> {
+                changes.removeAll(keys);
+                return null;
+            });
+        } catch (IOException e) {
+            fpfLog.error("Unable to delete keys", e);
+            throw new FrameworkPropertyFileException("Unable to delete keys.", e);
         }
     }
 
@@ -215,141 +408,373 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @param prefix - a prefix of keys to remove from properties
      * @throws FrameworkPropertyFileException
      */
-    public synchronized void deletePrefix(String prefix) throws FrameworkPropertyFileException {
-        Set<String> deleteKeys = new HashSet<>();
+    public void deletePrefix(String prefix) throws FrameworkPropertyFileException {
+        try {
+            update(changes -> {
+                changes.removePrefix(prefix);
+                return null;
+            });
+        } catch (IOException e) {
+            fpfLog.error("Failed to update file with DSS actions", e);
+            throw new FrameworkPropertyFileException("Unable to delete key prefix: " + prefix, e);
+        }
+    }
 
-        // refresh our cache of properties from the file contents.
-        // Note that we can't do this while holding a write lock as the check
-        // attempts to get a read lock which fails, as the write lock is held.
-        if (observer!=null) {
-            observer.checkAndNotify();
+    public void performActions(IDssAction... actions) throws DynamicStatusStoreException, DynamicStatusStoreMatchException {
+        try {
+            update(changes -> {
+                performActions(changes, actions);
+                return null;
+            });
+        } catch (IOException e) {
+            fpfLog.error("Failed to update file with DSS actions", e);
+            throw new DynamicStatusStoreException("Failed to update file with DSS actions", e);
         }
-        // There is a small timing window here where another JVM will enter and write a
-        // new set of properties to the file. We have no lock protecting it, so are 
-        // likely to over-write the file with our property cache values...
-        // Meaning this code is not able to protect itself from other JVMs interfering, and 
-        // vice-versa.
+    }
 
-        synchronized (FrameworkPropertyFile.class) {
-            try {
-                // Block other JVMs from writing to the property file while we delete things.
-                try (FileChannel fileChannel = getWriteChannel(false)) {
+    /**
+     * <p>
+     * Performs actions on several property files as a single update. Either all
+     * the actions are made, or none of them are.
+     * </p>
+     * 
+     * <p>
+     * The files are locked in order of their path, so that updates across the
+     * same files cannot deadlock. The lock on every file is held until all the
+     * actions have been checked and made. The changes are then written to each
+     * file in turn, so a crash part way through can leave some of the files
+     * updated.
+     * </p>
+     * 
+     * @param actions - the actions for each property file
+     * @throws DynamicStatusStoreException
+     * @throws DynamicStatusStoreMatchException
+     */
+    public static void performActions(Map<FrameworkPropertyFile, List<IDssAction>> actions) throws DynamicStatusStoreException, DynamicStatusStoreMatchException {
+        List<FrameworkPropertyFile> files = new ArrayList<>(actions.keySet());
+        files.sort(Comparator.comparing(file -> file.lockPath));
 
-                    // Gather the list of keys to be deleted.
-                    for (Object k : currentProperties.keySet()) {
-                        String key = (String) k;
-                        if (key.startsWith(prefix)) {
-                            deleteKeys.add(key);
-                        }
-                    }
+        for (FrameworkPropertyFile file : files) {
+            if (file.observer != null && file.journal == null) {
+                file.observer.checkAndNotify();
+            }
+        }
 
-                    // Make a note of the current property values, so we retain a before... and after...
-                    // set to be used later notifying any observers of property changes.
-                    Properties oldProperties = (Properties) this.currentProperties.clone();
+        try {
+            performActionsLocked(files, 0, actions, new ArrayList<>());
+        } catch (IOException e) {
+            fpfLog.error("Failed to update files with DSS actions", e);
+            throw new DynamicStatusStoreException("Failed to update files with DSS actions", e);
+        } finally {
+            for (FrameworkPropertyFile file : files) {
+                file.notifyWatchers();
+            }
+        }
+    }
 
-                    // Now delete the keys
-                    for (String key : deleteKeys) {
-                        this.currentProperties.remove(key);
+    private static void performActionsLocked(List<FrameworkPropertyFile> files, int index, Map<FrameworkPropertyFile, List<IDssAction>> actions, List<FileChannel> fileChannels) throws IOException, DynamicStatusStoreException {
+        if (index < files.size()) {
+            // Lock the next file, then carry on with the rest while holding it
+            FrameworkPropertyFile file = files.get(index);
+            synchronized (file) {
+                synchronized (file.fileLock) {
+                    try (FileChannel fileChannel = file.getWriteChannel(false)) {
+                        fileChannels.add(fileChannel);
+                        performActionsLocked(files, index + 1, actions, fileChannels);
                     }
+                }
+            }
+            return;
+        }
+
+        List<PropertyChanges> changes = new ArrayList<>();
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                FrameworkPropertyFile file = files.get(i);
+                PropertyChanges fileChanges = file.startChanges(fileChannels.get(i));
+                changes.add(fileChanges);
+                List<IDssAction> fileActions = actions.get(file);
+                file.performActions(fileChanges, fileActions.toArray(new IDssAction[fileActions.size()]));
+            }
+        } catch (DynamicStatusStoreException e) {
+            // None of the actions are applied if any of them fail
+            for (PropertyChanges fileChanges : changes) {
+                fileChanges.rollback();
+            }
+            throw e;
+        }
 
-                    write(fileChannel, this.currentProperties);
-                    fileModified(this.currentProperties, oldProperties);
+        int committed = 0;
+        try {
+            for (; committed < files.size(); committed++) {
+                files.get(committed).commit(fileChannels.get(committed), changes.get(committed));
+            }
+        } catch (IOException e) {
+            // The file that failed has already been rolled back by commit
+            for (int i = committed + 1; i < files.size(); i++) {
+                changes.get(i).rollback();
+            }
+            throw e;
+        }
+    }
+
+    private void performActions(PropertyChanges changes, IDssAction... actions) throws DynamicStatusStoreException {
+        for(IDssAction action : actions) {
+            if (action instanceof DssAdd) {
+                performActionsAdd(changes, (DssAdd) action);
+            } else if (action instanceof DssDelete) {
+                performActionsDelete(changes, (DssDelete) action);
+            } else if (action instanceof DssDeletePrefix) {
+                performActionsDeletePrefix(changes, (DssDeletePrefix) action);
+            } else if (action instanceof DssUpdate) {
+                performActionsUpdate(changes, (DssUpdate) action);
+            } else if (action instanceof DssSwap) {
+                performActionsSwap(changes, (DssSwap) action);
+            } else {
+                throw new DynamicStatusStoreException("Unrecognised DSS Action - " + action.getClass().getName());
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Makes an update to the properties and waits for it to be persisted.
+     * </p>
+     * 
+     * <p>
+     * Updates from different threads are group committed. The first thread to
+     * arrive becomes the leader, takes the locks, applies every update queued by
+     * then in order, and persists them all with a single write. Updates arriving
+     * while the leader is writing queue up for the next write. Each update sees
+     * the changes made by the updates before it, so atomic sets behave as if the
+     * updates were made one at a time. If an update throws, only that update is
+     * undone.
+     * </p>
+     * 
+     * @param update - the change to make to the properties
+     * @return the result of the update
+     * @throws IOException if the changes could not be persisted
+     * @throws E           if the update failed, in which case none of its changes
+     *                     are made
+     */
+    private <T, E extends Exception> T update(PropertyUpdate<T, E> update) throws IOException, E {
+        PendingUpdate<T> pending = new PendingUpdate<>(update);
+        boolean interrupted = false;
+        boolean nested;
+        synchronized (this.pendingUpdates) {
+            nested = (this.updateLeader == Thread.currentThread());
+        }
+        if (nested || Thread.holdsLock(this)) {
+            // An update made by a watcher, or while holding the FPF lock, which
+            // must not wait for a leader that needs the same lock
+            commitBatch(Collections.singletonList(pending));
+            return pending.<E>getResult();
+        }
+
+        synchronized (this.pendingUpdates) {
+            this.pendingUpdates.add(pending);
+            while (!pending.done && this.updateLeader != null) {
+                try {
+                    this.pendingUpdates.wait();
+                } catch (InterruptedException e) {
+                    // The update may already be part of a batch, so wait for it anyway
+                    interrupted = true;
                 }
-            } catch (IOException e) {
-                fpfLog.error("Failed to update file with DSS actions", e);
-                throw new FrameworkPropertyFileException("Unable to delete key prefix: " + prefix, e);
+            }
+            if (!pending.done) {
+                this.updateLeader = Thread.currentThread();
             }
         }
+
+        if (!pending.done) {
+            try {
+                if (this.groupCommitWindowMillisecs > 0) {
+                    // Give other threads a chance to join this batch
+                    Thread.sleep(this.groupCommitWindowMillisecs);
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+
+            List<PendingUpdate<?>> batch;
+            synchronized (this.pendingUpdates) {
+                batch = new ArrayList<>(this.pendingUpdates);
+                this.pendingUpdates.clear();
+            }
+            try {
+                commitBatch(batch);
+            } finally {
+                synchronized (this.pendingUpdates) {
+                    this.updateLeader = null;
+                    this.pendingUpdates.notifyAll();
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return pending.<E>getResult();
     }
 
-    public synchronized void performActions(IDssAction... actions) throws DynamicStatusStoreException, DynamicStatusStoreMatchException {
-        synchronized (FrameworkPropertyFile.class) {
-            try (FileChannel fileChannel = getWriteChannel(false)) {
-                Properties oldProperties = (Properties) this.currentProperties.clone();
-
-                for(IDssAction action : actions) {
-                    if (action instanceof DssAdd) {
-                        performActionsAdd((DssAdd) action);
-                    } else if (action instanceof DssDelete) {
-                        performActionsDelete((DssDelete) action);
-                    } else if (action instanceof DssDeletePrefix) {
-                        performActionsDeletePrefix((DssDeletePrefix) action);
-                    } else if (action instanceof DssUpdate) {
-                        performActionsUpdate((DssUpdate) action);
-                    } else if (action instanceof DssSwap) {
-                        performActionsSwap((DssSwap) action);
-                    } else {
-                        throw new DynamicStatusStoreException("Unrecognised DSS Action - " + action.getClass().getName());
+    /**
+     * <p>
+     * Applies a batch of updates and persists them with a single write. Every
+     * update in the batch is completed, successfully or not.
+     * </p>
+     */
+    private synchronized void commitBatch(List<PendingUpdate<?>> batch) {
+        try {
+            // Make the current properties as close to the values in the file as 
+            // we can. So when we write they are up-to-date. A journal is read
+            // under the lock instead.
+            if (observer != null && journal == null) {
+                observer.checkAndNotify();
+            }
+
+            synchronized (fileLock) {
+                try (FileChannel fileChannel = getWriteChannel(false)) {
+                    PropertyChanges changes = startChanges(fileChannel);
+                    for (PendingUpdate<?> pending : batch) {
+                        PropertyChanges updateChanges = new PropertyChanges(this.currentProperties);
+                        try {
+                            pending.apply(updateChanges);
+                            changes.merge(updateChanges);
+                        } catch (Exception e) {
+                            updateChanges.rollback();
+                            pending.failure = e;
+                        }
                     }
+                    commit(fileChannel, changes);
+                }
+            }
+        } catch (IOException e) {
+            for (PendingUpdate<?> pending : batch) {
+                if (pending.failure == null) {
+                    pending.failure = e;
                 }
+            }
+        } finally {
+            for (PendingUpdate<?> pending : batch) {
+                pending.done = true;
+            }
+        }
+        notifyWatchers();
+    }
 
+    /**
+     * <p>
+     * The atomic set used by setAtomic. A null old value means the key must not
+     * currently exist.
+     * </p>
+     * 
+     * @return true if the key had the expected value and was set
+     */
+    private boolean swap(PropertyChanges changes, String key, String oldValue, String newValue) {
+        String currentValue = changes.get(key);
+        if (oldValue == null ? currentValue != null : !oldValue.equals(currentValue)) {
+            return false;
+        }
+        changes.put(key, newValue);
+        return true;
+    }
+
+    /**
+     * <p>
+     * Called with the write lock held, before changing the properties. With a
+     * journal, any batches written by other JVMs are applied first, so that the
+     * change is made against the latest values.
+     * </p>
+     * 
+     * @param fileChannel - a read/write channel holding the exclusive lock
+     * @return a new set of changes to the current properties
+     * @throws IOException
+     */
+    private PropertyChanges startChanges(FileChannel fileChannel) throws IOException {
+        if (journal != null) {
+            refresh(fileChannel);
+        }
+        return new PropertyChanges(this.currentProperties);
+    }
+
+    /**
+     * <p>
+     * Persists the changes, either by appending them to the journal or rewriting
+     * the properties file, then publishes them to readers and watchers. If the
+     * changes cannot be persisted, they are rolled back.
+     * </p>
+     * 
+     * @param fileChannel - a read/write channel holding the exclusive lock
+     * @param changes     - the changes made to the current properties
+     * @throws IOException
+     */
+    private void commit(FileChannel fileChannel, PropertyChanges changes) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (journal != null) {
+                journal.append(changes);
+            } else {
                 write(fileChannel, this.currentProperties);
-                fileModified(this.currentProperties, oldProperties);
-            } catch (IOException e) {
-                fpfLog.error("Failed to update file with DSS actions", e);
-                throw new DynamicStatusStoreException("Failed to update file with DSS actions", e);
             }
+        } catch (IOException e) {
+            changes.rollback();
+            throw e;
         }
+
+        publishSnapshot();
+        fileModified(changes);
     }
 
-    private void performActionsAdd(DssAdd dssAdd) throws DynamicStatusStoreMatchException {
+    private void performActionsAdd(PropertyChanges changes, DssAdd dssAdd) throws DynamicStatusStoreMatchException {
         String key = dssAdd.getKey();
         String value = dssAdd.getValue();
 
-        String currentValue = this.currentProperties.getProperty(key);
+        String currentValue = changes.get(key);
         if (currentValue != null) {
             throw new DynamicStatusStoreMatchException("Attempt to add new property '" + key + "' but it already exists");
         }
 
-        this.currentProperties.put(key, value);
+        changes.put(key, value);
     }
 
 
-    private void performActionsDelete(DssDelete dssDelete) throws DynamicStatusStoreMatchException {
+    private void performActionsDelete(PropertyChanges changes, DssDelete dssDelete) throws DynamicStatusStoreMatchException {
         String key = dssDelete.getKey();
         String oldValue = dssDelete.getOldValue();
 
         if (oldValue != null) {
-            String currentValue = this.currentProperties.getProperty(key);
+            String currentValue = changes.get(key);
             if (!oldValue.equals(currentValue)) {
                 throw new DynamicStatusStoreMatchException("Attempt to delete property '" + key + "', but current value '" + currentValue + "' does not match required value '" +oldValue + "'");
             }
         }
 
-        this.currentProperties.remove(key);
+        changes.remove(key);
     }
 
 
-    private void performActionsDeletePrefix(DssDeletePrefix dssDeletePrefix) {
-        ArrayList<String> toBeDeleted = new ArrayList<>();
-        for (Object k : this.currentProperties.keySet()) {
-            String key = (String) k;
-            if (key.startsWith(dssDeletePrefix.getPrefix())) {
-                toBeDeleted.add(key);
-            }
-        }
-        
-        for(String key : toBeDeleted) {
-            this.currentProperties.remove(key);
-        }
-        
+    private void performActionsDeletePrefix(PropertyChanges changes, DssDeletePrefix dssDeletePrefix) {
+        changes.removePrefix(dssDeletePrefix.getPrefix());
     }
 
 
-    private void performActionsUpdate(DssUpdate dssUpdate) {
+    private void performActionsUpdate(PropertyChanges changes, DssUpdate dssUpdate) {
         String key   = dssUpdate.getKey();
         String value = dssUpdate.getValue();
 
-        this.currentProperties.put(key, value);
+        changes.put(key, value);
     }
 
 
-    private void performActionsSwap(DssSwap dssSwap) throws DynamicStatusStoreMatchException {
+    private void performActionsSwap(PropertyChanges changes, DssSwap dssSwap) throws DynamicStatusStoreMatchException {
         String key      = dssSwap.getKey();
         String newValue = dssSwap.getNewValue();
         String oldValue = dssSwap.getOldValue();
         
-        String currentValue = this.currentProperties.getProperty(key);
+        String currentValue = changes.get(key);
 
         if (oldValue == null) {
             if (currentValue != null) {
@@ -361,7 +786,7 @@ public class FrameworkPropertyFile implements FileAlterationListener {
             }
         }
         
-        this.currentProperties.put(key, newValue);
+        changes.put(key, newValue);
     }
 
 
@@ -382,6 +807,52 @@ public class FrameworkPropertyFile implements FileAlterationListener {
         out.close();
     }
 
+    /**
+     * <p>
+     * Writes the properties to the file without closing the channel, so the lock
+     * is kept.
+     * </p>
+     */
+    private void write(FileChannel fileChannel, Map<String, String> newProperties) throws IOException {
+        byte[] bytes = toBytes(newProperties);
+
+        fileChannel.truncate(0);
+        writeFully(fileChannel, bytes);
+    }
+
+    /**
+     * <p>
+     * Writes a complete copy of the properties to the .compacting file and forces
+     * it to disk. It is written under another name and renamed, so the
+     * .compacting file is never seen part written.
+     * </p>
+     */
+    private void writeCompacting(Map<String, String> newProperties) throws IOException {
+        Path tempPath = Paths.get(compactingPath.toString() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, toBytes(newProperties));
+            channel.force(true);
+        }
+        Files.move(tempPath, compactingPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] toBytes(Map<String, String> newProperties) throws IOException {
+        Properties properties = new Properties();
+        properties.putAll(newProperties);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        properties.store(out, null);
+        return out.toByteArray();
+    }
+
+    private static void writeFully(FileChannel fileChannel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long position = 0;
+        while (buffer.hasRemaining()) {
+            position += fileChannel.write(buffer, position);
+        }
+    }
+
     /**
      * <p>
      * This method is used to set a single k-v pair into the properties file.
@@ -393,24 +864,15 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @param value - String value
      * @throws FrameworkPropertyFileException
      */
-    public synchronized void set(String key, String value) throws FrameworkPropertyFileException {
-
-        if (observer!=null) {
-            observer.checkAndNotify();
-        }
-
-        synchronized (FrameworkPropertyFile.class) {
-            try (FileChannel fileChannel = getWriteChannel(false)) {
-                Properties oldProperties = (Properties) this.currentProperties.clone();
-
-                this.currentProperties.put(key, value);
-
-                write(fileChannel, this.currentProperties);
-                fileModified(this.currentProperties, oldProperties);
-            } catch (IOException e) {
-                fpfLog.error("Unable to set key value pair: " + key + ":" + value, e);
-                throw new FrameworkPropertyFileException("Failed Setting value: " + key + "=" + value, e);
-            }
+    public void set(String key, String value) throws FrameworkPropertyFileException {
+        try {
+            update(changes -> {
+                changes.put(key, value);
+                return null;
+            });
+        } catch (IOException e) {
+            fpfLog.error("Unable to set key value pair: " + key + ":" + value, e);
+            throw new FrameworkPropertyFileException("Failed Setting value: " + key + "=" + value, e);
         }
     }
 
@@ -425,22 +887,15 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @throws FrameworkPropertyFileException
      * @throws IOException
      */
-    public synchronized void set(Map<String, String> values) throws FrameworkPropertyFileException, IOException {
-        if (observer!=null) {
-            observer.checkAndNotify();
-        }
-        synchronized (FrameworkPropertyFile.class) {
-            try (FileChannel fileChannel = getWriteChannel(false)) {
-                Properties oldProperties = (Properties) this.currentProperties.clone();
-
-                this.currentProperties.putAll(values);
-
-                write(fileChannel, this.currentProperties);
-                fileModified(this.currentProperties, oldProperties);
-            } catch (IOException e) {
-                fpfLog.error("Unable to set values", e);
-                throw new FrameworkPropertyFileException("Unable to set values", e);
-            }
+    public void set(Map<String, String> values) throws FrameworkPropertyFileException, IOException {
+        try {
+            update(changes -> {
+                changes.putAll(values);
+                return null;
+            });
+        } catch (IOException e) {
+            fpfLog.error("Unable to set values", e);
+            throw new FrameworkPropertyFileException("Unable to set values", e);
         }
     }
 
@@ -467,17 +922,10 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      */
     public synchronized UUID watch(IFrameworkPropertyFileWatcher watcher, String key)
             throws FrameworkPropertyFileException {
-        if (monitor == null) {
-            monitor = new FileAlterationMonitor(50, observer);
-            try {
-                monitor.start();
-            } catch (Exception e) {
-                throw new FrameworkPropertyFileException("Unable to start file monitor", e);
-            }
-        }
+        startMonitor();
 
         UUID watchID = UUID.randomUUID();
-        this.watches.put(watchID, new Watch(watcher, key, false));
+        this.watches.add(watchID, key, false, watcher);
         return watchID;
     }
 
@@ -494,7 +942,8 @@ public class FrameworkPropertyFile implements FileAlterationListener {
     public synchronized void unwatch(UUID watchId) throws FrameworkPropertyFileException {
         this.watches.remove(watchId);
 
-        if (this.watches.isEmpty() && this.monitor != null) {
+        // The snapshot relies on the monitor, so it keeps running until shutdown
+        if (this.watches.isEmpty() && this.monitor != null && !snapshotReads) {
             this.monitor.removeObserver(observer);
             try {
                 this.monitor.stop();
@@ -518,18 +967,72 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      */
     public synchronized UUID watchPrefix(IFrameworkPropertyFileWatcher watcher, String keyPrefix)
             throws FrameworkPropertyFileException {
+        startMonitor();
+
+        UUID watchID = UUID.randomUUID();
+        this.watches.add(watchID, keyPrefix, true, watcher);
+        return watchID;
+    }
+
+    /**
+     * <p>
+     * Starts the background monitor which polls the file for changes, if it is not
+     * already running.
+     * </p>
+     * 
+     * @throws FrameworkPropertyFileException
+     */
+    private synchronized void startMonitor() throws FrameworkPropertyFileException {
         if (monitor == null) {
-            monitor = new FileAlterationMonitor(50, observer);
+            monitor = new FileAlterationMonitor(pollIntervalMillisecs, observer);
+            if (snapshotReads) {
+                // The snapshot poller lives as long as the FPF, so don't let it hold up JVM exit
+                monitor.setThreadFactory(runnable -> {
+                    Thread thread = new Thread(runnable, "FrameworkPropertyFile snapshot poller - " + propertyFile.getName());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
             try {
                 monitor.start();
             } catch (Exception e) {
-                throw new FrameworkPropertyFileException("Unable to start file monitor for prefixs", e);
+                throw new FrameworkPropertyFileException("Unable to start file monitor", e);
             }
         }
+    }
 
-        UUID watchID = UUID.randomUUID();
-        this.watches.put(watchID, new Watch(watcher, keyPrefix, true));
-        return watchID;
+    /**
+     * <p>
+     * Marks the snapshot as out of date, so the next lock free read makes a new
+     * immutable copy of the current properties. Does nothing unless snapshot
+     * reads are enabled.
+     * </p>
+     */
+    private void publishSnapshot() {
+        if (snapshotReads) {
+            this.snapshot = null;
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the latest snapshot. Only the first read after a change takes the
+     * FPF lock, to copy the properties, later reads share the copy.
+     * </p>
+     */
+    private NavigableMap<String, String> getSnapshot() {
+        NavigableMap<String, String> current = this.snapshot;
+        if (current != null) {
+            return current;
+        }
+        return makeSnapshot();
+    }
+
+    private synchronized NavigableMap<String, String> makeSnapshot() {
+        if (this.snapshot == null) {
+            this.snapshot = Collections.unmodifiableNavigableMap(new TreeMap<>(currentProperties));
+        }
+        return this.snapshot;
     }
 
     /**
@@ -556,34 +1059,13 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @return returns a boolean which informs if the set took place.
      * @throws FrameworkPropertyFileException
      */
-    public synchronized boolean setAtomic(String key, String oldValue, String newValue)
+    public boolean setAtomic(String key, String oldValue, String newValue)
             throws FrameworkPropertyFileException {
-
-        if (observer!=null) {
-            observer.checkAndNotify();
-        }
-
-        synchronized (FrameworkPropertyFile.class) {
-            try (FileChannel fileChannel = getWriteChannel(false)) {
-                Properties oldProperties = (Properties) this.currentProperties.clone();
-                if (oldValue == null && oldProperties.get(key) == null) {
-                    this.currentProperties.put(key, newValue);
-                } else {
-                    if (oldValue == null) {
-                        return false;
-                    }
-                    if (!this.currentProperties.replace(key, oldValue, newValue)) {
-                        return false;
-                    }
-                }
-
-                write(fileChannel, this.currentProperties);
-                fileModified(this.currentProperties, oldProperties);
-                return true;
-            } catch (IOException e) {
-                fpfLog.error("Failed to set Atomically", e);
-                throw new FrameworkPropertyFileException("Failed to set atomically", e);
-            }
+        try {
+            return update(changes -> swap(changes, key, oldValue, newValue));
+        } catch (IOException e) {
+            fpfLog.error("Failed to set Atomically", e);
+            throw new FrameworkPropertyFileException("Failed to set atomically", e);
         }
     }
 
@@ -611,37 +1093,19 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @return - boolean for if the atomic set was done
      * @throws FrameworkPropertyFileException
      */
-    public synchronized boolean setAtomic(String key, String oldValue, String newValue, Map<String, String> otherValues)
+    public boolean setAtomic(String key, String oldValue, String newValue, Map<String, String> otherValues)
             throws FrameworkPropertyFileException {
-
-        if (observer!=null) {
-            observer.checkAndNotify();
-        }
-
-        synchronized (FrameworkPropertyFile.class) {
-            try (FileChannel fileChannel = getWriteChannel(false)) {
-                Properties oldProperties = (Properties) this.currentProperties.clone();
-
-                if (oldValue == null && oldProperties.get(key) == null) {
-                    this.currentProperties.put(key, newValue);
-                } else {
-                    if (oldValue == null) {
-                        return false;
-                    }
-                    if (!this.currentProperties.replace(key, oldValue, newValue)) {
-                        return false;
-                    }
+        try {
+            return update(changes -> {
+                if (!swap(changes, key, oldValue, newValue)) {
+                    return false;
                 }
-
-                this.currentProperties.putAll(otherValues);
-
-                write(fileChannel, this.currentProperties);
-                fileModified(this.currentProperties, oldProperties);
+                changes.putAll(otherValues);
                 return true;
-            } catch (IOException e) {
-                fpfLog.error("Failed to set Atomically", e);
-                throw new FrameworkPropertyFileException("Failed to set atomically", e);
-            }
+            });
+        } catch (IOException e) {
+            fpfLog.error("Failed to set Atomically", e);
+            throw new FrameworkPropertyFileException("Failed to set atomically", e);
         }
     }
 
@@ -653,7 +1117,9 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @throws FrameworkPropertyFileException
      */
     public synchronized void destroy() throws FrameworkPropertyFileException {
+        stopCompactor();
         currentProperties = null;
+        snapshot = Collections.emptyNavigableMap();
         observer = null;
         try {
             if (monitor != null) {
@@ -666,44 +1132,77 @@ public class FrameworkPropertyFile implements FileAlterationListener {
 
     /**
      * <p>
-     * This method is for updating any watchers. All running watches are stored in a
-     * watches Map. Comparing what is loaded in memory to the file version alerts
-     * any watches that a value has changed. This alert is interfaced through the
-     * property modified method
+     * Queues the changes for the watchers of the changed keys. The watchers are
+     * called by notifyWatchers once the file lock has been released, so that a
+     * watcher can update the file itself.
      * </p>
      * 
-     * @param newProperties - loaded from file
-     * @param oldProperties - in memory currently
+     * @param changes - the changes made
+     */
+    private synchronized void fileModified(PropertyChanges changes) {
+        if (!this.watches.isEmpty() && !changes.isEmpty()) {
+            this.unnotifiedChanges.add(changes);
+        }
+    }
+
+    /**
+     * <p>
+     * Updates the watchers of the changed keys, in the order the changes were
+     * made. The watches are held in a prefix trie, so each key only visits the
+     * watches which match it. Must not be called with the file lock held.
+     * </p>
+     * 
+     * <p>
+     * Changes made by the watchers themselves are passed on by the same loop,
+     * rather than by a nested one.
+     * </p>
      */
-    private synchronized void fileModified(Properties newProperties, Properties oldProperties) {
-        // Checks a list of Strings that are keys to watch. Compares file to loaded.
-        for (Watch watch : this.watches.values()) {
-            for (Object oNewKey : newProperties.keySet()) {
-                String newKey = (String) oNewKey;
-                String newValue = newProperties.getProperty(newKey);
-                if (watch.matchKey(newKey)) {
-                    String oldValue = oldProperties.getProperty(newKey);
+    private synchronized void notifyWatchers() {
+        if (this.notifying) {
+            return;
+        }
+        this.notifying = true;
+        try {
+            while (!this.unnotifiedChanges.isEmpty()) {
+                PropertyChanges changes = this.unnotifiedChanges.remove(0);
+                for (String key : changes.getChangedKeys()) {
+                    String oldValue = changes.getOldValue(key);
+                    String newValue = changes.getNewValue(key);
+
+                    Event event = Event.MODIFIED;
                     if (oldValue == null) {
-                        watch.watcher.propertyModified(newKey, Event.NEW, oldValue, newValue);
-                    } else if (!oldValue.equals(newValue)) {
-                        watch.watcher.propertyModified(newKey, Event.MODIFIED, oldValue, newValue);
+                        event = Event.NEW;
+                    } else if (newValue == null) {
+                        event = Event.DELETE;
                     }
-                }
-            }
 
-            // Check for deleted properties
-            for (Object oOldKey : oldProperties.keySet()) {
-                String oldKey = (String) oOldKey;
-                String oldValue = oldProperties.getProperty(oldKey);
-
-                if (watch.matchKey(oldKey)) {
-                    String newValue = newProperties.getProperty(oldKey);
-                    if (newValue == null) {
-                        watch.watcher.propertyModified(oldKey, Event.DELETE, oldValue, newValue);
+                    for (IFrameworkPropertyFileWatcher watcher : this.watches.match(key)) {
+                        watcher.propertyModified(key, event, oldValue, newValue);
                     }
                 }
             }
+        } finally {
+            this.notifying = false;
+        }
+    }
+
+    /**
+     * <p>
+     * This method is for updating any watchers after the file has been reloaded.
+     * The changed keys are worked out once by comparing what was in memory to the
+     * file version, and only the watches matching those keys are alerted. This
+     * alert is interfaced through the property modified method
+     * </p>
+     * 
+     * @param newProperties - loaded from file
+     * @param oldProperties - in memory currently
+     */
+    private synchronized void fileModified(NavigableMap<String, String> newProperties, NavigableMap<String, String> oldProperties) {
+        // Nothing to compare if nobody is watching
+        if (this.watches.isEmpty()) {
+            return;
         }
+        fileModified(PropertyChanges.diff(oldProperties, newProperties));
     }
 
     /**
@@ -740,7 +1239,7 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      */
     private synchronized FileChannel getWriteChannel(boolean shared) throws IOException {
         Path path = Paths.get(file);
-        FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.WRITE);
+        FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
         try {
             fileChannel.lock(0, Long.MAX_VALUE, shared);
             return fileChannel;
@@ -765,19 +1264,124 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @throws FrameworkPropertyFileException
      */
     public synchronized void load() throws FrameworkPropertyFileException {
-        Properties newProperties = new Properties();
-        synchronized (FrameworkPropertyFile.class) {
+        synchronized (fileLock) {
             try (FileChannel fileChannel = getReadChannel(true)) {
-                InputStream in = Channels.newInputStream(fileChannel);
-                newProperties.load(in);
-                in.close();
+                load(fileChannel);
             } catch (IOException e) {
                 fpfLog.error("Unable to Load Property from file", e);
                 throw new FrameworkPropertyFileException(
                         "Unable to Load Property from file: " + propertyFile.toString(), e);
             }
         }
-        this.currentProperties = newProperties;
+    }
+
+    /**
+     * <p>
+     * Loads the properties from a channel which is already locked, replaying the
+     * journal on top if there is one. The channel is left open.
+     * </p>
+     * 
+     * @param fileChannel - a readable channel holding a lock on the file
+     * @throws IOException
+     */
+    private void load(FileChannel fileChannel) throws IOException {
+        Properties newProperties = new Properties();
+        if (journal != null && Files.exists(compactingPath)) {
+            // A compaction did not finish, so the properties file may be part written
+            try (InputStream in = Files.newInputStream(compactingPath)) {
+                newProperties.load(in);
+            }
+        } else {
+            InputStream in = Channels.newInputStream(fileChannel.position(0));
+            newProperties.load(in);
+        }
+
+        TreeMap<String, String> loadedProperties = new TreeMap<>();
+        for (String key : newProperties.stringPropertyNames()) {
+            loadedProperties.put(key, newProperties.getProperty(key));
+        }
+        if (journal != null) {
+            journal.replay(new PropertyChanges(loadedProperties));
+        }
+
+        this.currentProperties = loadedProperties;
+        publishSnapshot();
+    }
+
+    /**
+     * <p>
+     * Brings the properties up to date with the file and notifies the watchers.
+     * With a journal, only the batches added since the last refresh are read,
+     * unless the journal has been compacted.
+     * </p>
+     * 
+     * @param fileChannel - a readable channel holding a lock on the file
+     * @throws IOException
+     */
+    private void refresh(FileChannel fileChannel) throws IOException {
+        if (journal != null) {
+            PropertyChanges changes = new PropertyChanges(this.currentProperties);
+            if (journal.catchUp(changes)) {
+                if (!changes.isEmpty()) {
+                    publishSnapshot();
+                    fileModified(changes);
+                }
+                return;
+            }
+        }
+
+        // load replaces the current properties, so the old ones can be compared without a copy
+        NavigableMap<String, String> oldProperties = this.currentProperties;
+        load(fileChannel);
+        fileModified(this.currentProperties, oldProperties);
+    }
+
+    /**
+     * <p>
+     * Writes the properties, including everything in the journal, back into the
+     * properties file and empties the journal. Does nothing if there is no
+     * journal.
+     * </p>
+     * 
+     * <p>
+     * The properties are put in the .compacting file first, so a crash while the
+     * properties file is rewritten loses nothing. The journal is only emptied once
+     * the properties file is on disk, and the .compacting file only removed after
+     * that.
+     * </p>
+     * 
+     * @throws FrameworkPropertyFileException
+     */
+    public synchronized void compact() throws FrameworkPropertyFileException {
+        if (journal == null) {
+            return;
+        }
+
+        synchronized (fileLock) {
+            try (FileChannel fileChannel = getWriteChannel(false)) {
+                refresh(fileChannel);
+                writeCompacting(this.currentProperties);
+                write(fileChannel, this.currentProperties);
+                // The properties file must be safely on disk before the journal is emptied
+                fileChannel.force(true);
+                journal.reset();
+                Files.delete(compactingPath);
+            } catch (IOException e) {
+                throw new FrameworkPropertyFileException("Unable to compact the journal", e);
+            }
+        }
+        notifyWatchers();
+    }
+
+    private void compactIfNeeded() {
+        try {
+            // Also finish off a compaction which was interrupted
+            if (journal.size() >= compactionThresholdBytes || Files.exists(compactingPath)) {
+                compact();
+            }
+        } catch (Exception e) {
+            fpfLog.error("Unable to compact the journal for " + propertyFile.toString(), e);
+        }
     }
 
     /**
@@ -810,24 +1414,26 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * </p>
      */
     public synchronized void onFileChange(File file) {
-        synchronized (FrameworkPropertyFile.class) {
-            try {
-                Properties oldProperties = (Properties) this.currentProperties.clone();
-                load();
-                fileModified(this.currentProperties, oldProperties);
-            } catch (FrameworkPropertyFileException e) {
+        synchronized (fileLock) {
+            try (FileChannel fileChannel = getReadChannel(true)) {
+                refresh(fileChannel);
+            } catch (IOException e) {
                 fpfLog.error("Error encounted loading file changes", e);
             }
         }
+        notifyWatchers();
     }
 
     /**
      * <p>
-     * This method is not used
+     * Only used for the journal, which is created by the first write after the
+     * properties file was last compacted.
      * </p>
      */
     public void onFileCreate(File file) {
-        // Method not used for fpf
+        if (journal != null) {
+            onFileChange(file);
+        }
     }
 
     /**
@@ -866,56 +1472,9 @@ public class FrameworkPropertyFile implements FileAlterationListener {
         // Method not used for fpf
     }
 
-    /**
-     * <p>
-     * This class defines a watch, and the variables required to detect changes to
-     * the correct k-v pair.
-     * </p>
-     */
-    private class Watch {
-
-        private final IFrameworkPropertyFileWatcher watcher;
-        private final String                        key;
-        private final boolean                       prefix;
-
-        /**
-         * This constructor sets te key for the watcher and a boolean to define whether
-         * the key string is a prefix or the full key. It also holds the implemented
-         * watcher class
-         * </p>
-         * 
-         * @param watcher - implemented watcher
-         * @param key     - string key or prefix
-         * @param prefix  - boolean
-         */
-        private Watch(IFrameworkPropertyFileWatcher watcher, String key, boolean prefix) {
-            this.watcher = watcher;
-            this.key = key;
-            this.prefix = prefix;
-        }
-
-        /**
-         * <p>
-         * This method return a boolean whether a passed string matches the key for this
-         * watch.
-         * </p>
-         * 
-         * <p>
-         * If the watch is a prefix watch it checks to see if the passed string is the
-         * start of the key.
-         * 
-         * @param newKey - the string to compare to the key in the watch
-         * @return - boolean for if a match
-         */
-        public boolean matchKey(String newKey) {
-            if (prefix) {
-                return newKey.startsWith(key);
-            }
-            return newKey.equals(key);
-        }
-    }
-
     public synchronized void shutdown() throws FrameworkPropertyFileException {
+        stopCompactor();
+
         if (this.monitor != null) {
             try {
                 this.monitor.removeObserver(this.observer);
@@ -928,4 +1487,11 @@ public class FrameworkPropertyFile implements FileAlterationListener {
 
         this.watches.clear();
     }
+
+    private void stopCompactor() {
+        if (this.compactor != null) {
+            this.compactor.shutdownNow();
+            this.compactor = null;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * <p>
+ * An append-only journal of changes made to a {@link FrameworkPropertyFile}.
+ * Each update is appended as a batch of records, so a write costs the size of
+ * the change rather than the size of the whole properties file. The properties
+ * file then only holds the state as at the last compaction.
+ * </p>
+ *
+ * <p>
+ * The journal is a UTF-8 text file with one record per line, the key and value
+ * being URL encoded:
+ * </p>
+ * <pre>
+ * G &lt;generation&gt;       - first line, changes each time the journal is compacted
+ * S &lt;key&gt; &lt;value&gt;      - set a property
+ * D &lt;key&gt;              - delete a property
+ * C                    - end of a batch
+ * </pre>
+ *
+ * <p>
+ * Only batches ending with a C record are replayed, so a batch torn by a crash
+ * part way through an append is ignored, and removed by the next writer.
+ * </p>
+ *
+ * <p>
+ * The caller is expected to hold the lock on the properties file while using
+ * the journal.
+ * </p>
+ */
+class FrameworkPropertyFileJournal {
+
+    private final Path path;
+
+    private String     generation;
+    private long       committedOffset;
+
+    FrameworkPropertyFileJournal(Path path) {
+        this.path = path;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the size of the journal file in bytes, 0 if it does not exist
+     * @throws IOException
+     */
+    long size() throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        return Files.size(path);
+    }
+
+    /**
+     * <p>
+     * Replays the whole journal on to the properties, which have just been loaded
+     * from the properties file.
+     * </p>
+     *
+     * @param changes - tracks the properties loaded from the properties file
+     * @throws IOException
+     */
+    void replay(PropertyChanges changes) throws IOException {
+        this.generation = readGeneration();
+        this.committedOffset = headerLength(this.generation);
+        if (this.generation != null) {
+            readBatches(changes);
+        }
+    }
+
+    /**
+     * <p>
+     * Applies any batches appended since the last time the journal was read.
+     * </p>
+     *
+     * @param changes - tracks the current properties
+     * @return false if the journal has been compacted since it was last read, in
+     *         which case nothing is applied and the properties file and journal
+     *         need to be loaded again.
+     * @throws IOException
+     */
+    boolean catchUp(PropertyChanges changes) throws IOException {
+        String currentGeneration = readGeneration();
+        if (currentGeneration == null ? this.generation != null : !currentGeneration.equals(this.generation)) {
+            return false;
+        }
+        if (currentGeneration != null) {
+            readBatches(changes);
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Appends the changes as a single batch. The journal must be caught up first,
+     * so that anything after the last committed batch is a torn write, which is
+     * discarded.
+     * </p>
+     *
+     * @param changes - the changes to append
+     * @throws IOException
+     */
+    void append(PropertyChanges changes) throws IOException {
+        StringBuilder batch = new StringBuilder();
+        if (this.generation == null) {
+            this.generation = UUID.randomUUID().toString();
+            this.committedOffset = 0;
+            batch.append("G ").append(this.generation).append('\n');
+        }
+
+        for (String key : changes.getChangedKeys()) {
+            String value = changes.getNewValue(key);
+            if (value == null) {
+                batch.append("D ").append(encode(key)).append('\n');
+            } else {
+                batch.append("S ").append(encode(key)).append(' ').append(encode(value)).append('\n');
+            }
+        }
+        batch.append("C\n");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(this.committedOffset);
+            writeFully(channel, this.committedOffset, batch.toString());
+            this.committedOffset = channel.size();
+        }
+    }
+
+    /**
+     * <p>
+     * Empties the journal once its contents have been written to the properties
+     * file. A new generation tells other JVMs that they need to reload.
+     * </p>
+     *
+     * @throws IOException
+     */
+    void reset() throws IOException {
+        this.generation = UUID.randomUUID().toString();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+            writeFully(channel, 0, "G " + this.generation + "\n");
+            channel.force(true);
+            this.committedOffset = channel.size();
+        }
+    }
+
+    private String readGeneration() throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64);
+            channel.read(buffer, 0);
+            String start = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+            int endOfLine = start.indexOf('\n');
+            if (!start.startsWith("G ") || endOfLine < 0) {
+                return null;
+            }
+            return start.substring(2, endOfLine);
+        }
+    }
+
+    private static long headerLength(String generation) {
+        if (generation == null) {
+            return 0;
+        }
+        return ("G " + generation + "\n").getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private void readBatches(PropertyChanges changes) throws IOException {
+        byte[] bytes;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long available = channel.size() - this.committedOffset;
+            if (available <= 0) {
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) available);
+            while (buffer.hasRemaining() && channel.read(buffer, this.committedOffset + buffer.position()) >= 0) {
+                // keep reading until we have everything that was there when we started
+            }
+            bytes = buffer.array();
+        }
+
+        List<String> batch = new ArrayList<>();
+        int lineStart = 0;
+        int committedEnd = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            String record = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+            lineStart = i + 1;
+
+            if (record.equals("C")) {
+                applyBatch(batch, changes);
+                batch.clear();
+                committedEnd = lineStart;
+            } else {
+                batch.add(record);
+            }
+        }
+        this.committedOffset += committedEnd;
+    }
+
+    private void applyBatch(List<String> batch, PropertyChanges changes) {
+        for (String record : batch) {
+            String[] parts = record.split(" ", -1);
+            if (parts.length == 3 && parts[0].equals("S")) {
+                changes.put(decode(parts[1]), decode(parts[2]));
+            } else if (parts.length == 2 && parts[0].equals("D")) {
+                changes.remove(decode(parts[1]));
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, long position, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static String encode(String text) {
+        return URLEncoder.encode(text, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String text) {
+        return URLDecoder.decode(text, StandardCharsets.UTF_8);
+    }
+}
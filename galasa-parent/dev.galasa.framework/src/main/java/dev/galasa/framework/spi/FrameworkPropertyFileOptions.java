@@ -0,0 +1,113 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+/**
+ * <p>
+ * Optional behaviours of a {@link FrameworkPropertyFile}. The defaults give the
+ * original behaviour, where every read checks the file for changes.
+ * </p>
+ */
+public class FrameworkPropertyFileOptions {
+
+    public static final long DEFAULT_POLL_INTERVAL_MILLISECS = 50;
+    public static final long DEFAULT_COMPACTION_THRESHOLD_BYTES = 1024 * 1024;
+    public static final long DEFAULT_COMPACTION_INTERVAL_MILLISECS = 30000;
+
+    private boolean snapshotReads = false;
+    private long    pollIntervalMillisecs = DEFAULT_POLL_INTERVAL_MILLISECS;
+    private boolean journal = false;
+    private long    compactionThresholdBytes = DEFAULT_COMPACTION_THRESHOLD_BYTES;
+    private long    compactionIntervalMillisecs = DEFAULT_COMPACTION_INTERVAL_MILLISECS;
+    private long    groupCommitWindowMillisecs = 0;
+
+    /**
+     * @return true if reads are served from an immutable snapshot which is
+     *         refreshed by a background poller, rather than checking the file on
+     *         every read.
+     */
+    public boolean isSnapshotReads() {
+        return snapshotReads;
+    }
+
+    public FrameworkPropertyFileOptions setSnapshotReads(boolean snapshotReads) {
+        this.snapshotReads = snapshotReads;
+        return this;
+    }
+
+    /**
+     * @return how often the background poller checks the file for changes made by
+     *         other JVMs.
+     */
+    public long getPollIntervalMillisecs() {
+        return pollIntervalMillisecs;
+    }
+
+    public FrameworkPropertyFileOptions setPollIntervalMillisecs(long pollIntervalMillisecs) {
+        if (pollIntervalMillisecs > 0) {
+            this.pollIntervalMillisecs = pollIntervalMillisecs;
+        }
+        return this;
+    }
+
+    /**
+     * @return true if changes are appended to a journal file rather than
+     *         rewriting the whole properties file.
+     */
+    public boolean isJournal() {
+        return journal;
+    }
+
+    public FrameworkPropertyFileOptions setJournal(boolean journal) {
+        this.journal = journal;
+        return this;
+    }
+
+    /**
+     * @return the size the journal must reach before it is compacted into the
+     *         properties file.
+     */
+    public long getCompactionThresholdBytes() {
+        return compactionThresholdBytes;
+    }
+
+    public FrameworkPropertyFileOptions setCompactionThresholdBytes(long compactionThresholdBytes) {
+        if (compactionThresholdBytes > 0) {
+            this.compactionThresholdBytes = compactionThresholdBytes;
+        }
+        return this;
+    }
+
+    /**
+     * @return how often the size of the journal is checked.
+     */
+    public long getCompactionIntervalMillisecs() {
+        return compactionIntervalMillisecs;
+    }
+
+    public FrameworkPropertyFileOptions setCompactionIntervalMillisecs(long compactionIntervalMillisecs) {
+        if (compactionIntervalMillisecs > 0) {
+            this.compactionIntervalMillisecs = compactionIntervalMillisecs;
+        }
+        return this;
+    }
+
+    /**
+     * @return how long a write waits for other writes to join it before
+     *         committing them together. Writes made while another write is in
+     *         progress are always committed together, even if this is 0.
+     */
+    public long getGroupCommitWindowMillisecs() {
+        return groupCommitWindowMillisecs;
+    }
+
+    public FrameworkPropertyFileOptions setGroupCommitWindowMillisecs(long groupCommitWindowMillisecs) {
+        if (groupCommitWindowMillisecs >= 0) {
+            this.groupCommitWindowMillisecs = groupCommitWindowMillisecs;
+        }
+        return this;
+    }
+}
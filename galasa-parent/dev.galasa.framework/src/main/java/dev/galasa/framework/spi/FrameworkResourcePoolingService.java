@@ -7,6 +7,7 @@ package dev.galasa.framework.spi;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -15,7 +16,9 @@ import java.util.UUID;
 
 import javax.validation.constraints.NotNull;
 
+import dev.galasa.framework.internal.rps.ResourceBitmap;
 import dev.galasa.framework.internal.rps.ResourceString;
+import dev.galasa.framework.spi.utils.DssUtils;
 
 /**
  * This class provides the Resource pooling service to the framework. It can
@@ -27,10 +30,43 @@ import dev.galasa.framework.internal.rps.ResourceString;
 public class FrameworkResourcePoolingService implements IResourcePoolingService {
     private static final int           DEFAULTNUMBEROFRESOURCES    = 10;
     private static final int           DEFAULTCONSECUTIVERESOURCES = 1;
+    // *** Definitions with more resources than this are checked a name at a time
+    private static final int           MAXBITMAPRESOURCES          = 1 << 24;
     private IDynamicStatusStoreService defaultDss                  = new StubbedDss();
     private String                     defaultKeyPrefix            = "";
+    private static final int           MAXRESERVEATTEMPTS          = 10;
+    private static final String        LASTALLOCATEDKEY            = "rps.lastallocated";
+    // *** Each definition is split into this many regions, each with its own last
+    // *** allocated resource, so concurrent runs in different regions do not follow
+    // *** each other on to the same resources
+    private static final int           STARTREGIONBITS             = 4;
+    private static final int           STARTREGIONS                = 1 << STARTREGIONBITS;
     private Random                     random                      = new Random();
 
+    // *** Where this run starts looking in each definition, from the run name so
+    // *** concurrent runs start in different places
+    private final String               runName;
+    private final int                  stripe;
+    private final int                  region;
+
+    public FrameworkResourcePoolingService() {
+        this(null);
+    }
+
+    /**
+     * @param runName - the run the resources are for, which picks where in each
+     *                definition this run starts looking. If null a random place
+     *                is used.
+     */
+    public FrameworkResourcePoolingService(String runName) {
+        this.runName = runName;
+        int seed = (runName != null) ? runName.hashCode() : random.nextInt();
+        // *** Fibonacci hashing, so runs with similar names start far apart
+        this.stripe = seed * 0x9E3779B9;
+        // *** The top bits, which the Fibonacci hashing spreads best
+        this.region = this.stripe >>> (Integer.SIZE - STARTREGIONBITS);
+    }
+
     /**
      * This method obtaines resources from given definitions, but allowing rejected
      * resources to be disgarded from any returned list.
@@ -227,6 +263,93 @@ public class FrameworkResourcePoolingService implements IResourcePoolingService
         }
     }
 
+    /**
+     * This method reserves resources in the same way as the default method, but
+     * also records the last resource reserved in the pool, so the next run can
+     * start looking after it. Each time another run reserves one of the
+     * resources first, the metrics.rps.collisions counter in the DSS is
+     * incremented, and if the resources cannot be reserved at all the
+     * metrics.rps.exhausted counter is.
+     */
+    @Override
+    public List<String> reserveResources(@NotNull List<String> resourceStrings, List<String> rejectedResources,
+            int returnMinimum, int returnConsecutive, @NotNull IDynamicStatusStoreService dss,
+            @NotNull String keyPrefix, @NotNull String value) throws InsufficientResourcesAvailableException {
+        for (int attempt = 0; attempt < MAXRESERVEATTEMPTS; attempt++) {
+            List<String> resources = obtainResources(resourceStrings, rejectedResources, returnMinimum,
+                    returnConsecutive, dss, keyPrefix);
+            if (resources.isEmpty()) {
+                return resources; // *** Nothing asked for, so nothing to reserve
+            }
+
+            IDssAction[] actions = new IDssAction[resources.size() + 1];
+            for (int i = 0; i < resources.size(); i++) {
+                actions[i] = new DssAdd(keyPrefix + resources.get(i), value);
+            }
+            actions[resources.size()] = new DssUpdate(getLastAllocatedKey(keyPrefix),
+                    resources.get(resources.size() - 1));
+
+            try {
+                dss.performActions(actions);
+                return resources;
+            } catch (DynamicStatusStoreMatchException e) {
+                // *** Another run got one of them first, generate them again
+                incrementMetric(dss, "metrics.rps.collisions");
+            } catch (DynamicStatusStoreException e) {
+                throw new InsufficientResourcesAvailableException("Unable to reserve the resources", e);
+            }
+        }
+        incrementMetric(dss, "metrics.rps.exhausted");
+        throw new InsufficientResourcesAvailableException(
+                "Unable to reserve the resources after " + MAXRESERVEATTEMPTS + " attempts");
+    }
+
+    /**
+     * @param keyPrefix - the prefix of the resources of the pool
+     * @return - the DSS key holding the last resource reserved in the pool by the
+     *         runs starting in the same region as this one, which is outside the
+     *         prefix so it is never taken for a resource.
+     */
+    public String getLastAllocatedKey(String keyPrefix) {
+        String pool = keyPrefix.endsWith(".") ? keyPrefix.substring(0, keyPrefix.length() - 1) : keyPrefix;
+        if (pool.isEmpty()) {
+            return LASTALLOCATEDKEY + "." + region;
+        }
+        return LASTALLOCATEDKEY + "." + pool + "." + region;
+    }
+
+    private void incrementMetric(IDynamicStatusStoreService dss, String metric) {
+        if (runName != null) {
+            DssUtils.incrementMetric(dss, metric, runName);
+        } else {
+            DssUtils.incrementMetric(dss, metric);
+        }
+    }
+
+    /**
+     * This method returns the position in a definition this run starts looking
+     * from. The definition is split into regions and the run name picks one.
+     * The run starts just past the last resource reserved in that region, so the
+     * resources of the region are handed out in order, wrapping back to the start
+     * of the region at its end. If no resource has been reserved in the region
+     * yet, the run starts at a place in it picked by the run name.
+     */
+    private long getStartPosition(ResourceString definition, String lastAllocated) {
+        long size = definition.getNumberOfCombinations();
+        long regions = Math.min(STARTREGIONS, size);
+        long definitionRegion = region * regions / STARTREGIONS;
+        long regionStart = definitionRegion * size / regions;
+        long regionEnd = (definitionRegion + 1) * size / regions;
+
+        if (lastAllocated != null) {
+            int lastIndex = definition.getIndex(lastAllocated);
+            if (lastIndex >= regionStart && lastIndex < regionEnd) {
+                return (lastIndex + 1L < regionEnd) ? lastIndex + 1L : regionStart;
+            }
+        }
+        return regionStart + Math.floorMod(stripe, regionEnd - regionStart);
+    }
+
     /**
      * This method creates all the resource string defintions from the basic strings
      * passed which explain them.
@@ -248,9 +371,10 @@ public class FrameworkResourcePoolingService implements IResourcePoolingService
 
     /**
      * This method generates the resources from the given restrictions. On the first
-     * pass random generation is attempted to make sure load is equally spread
-     * across resources. If random generation fails, sequential generation of
-     * resources is then attempted. The InsufficentResourceException is thrown if
+     * pass resources are generated from just past the last resource reserved in
+     * the region of each definition picked by the run name, to make sure
+     * concurrent runs are spread across resources. If that fails, sequential
+     * generation of resources is then attempted. The InsufficentResourceException is thrown if
      * this too cannot generate the defined resources.
      * 
      * @param resourceDefinitions - the resource strings passed that define the
@@ -272,6 +396,12 @@ public class FrameworkResourcePoolingService implements IResourcePoolingService
     private List<String> generateResources(List<ResourceString> resourceDefinitions, List<String> rejectedResources,
             int numberOfResources, IDynamicStatusStoreService dss, String keyPrefix, int returnConsecutive)
             throws DynamicStatusStoreException, InsufficientResourcesAvailableException {
+        String lastAllocated = dss.get(getLastAllocatedKey(keyPrefix));
+        if (canUseBitmaps(resourceDefinitions)) {
+            return generateResourcesFromSnapshot(resourceDefinitions, rejectedResources, numberOfResources, dss,
+                    keyPrefix, returnConsecutive, lastAllocated);
+        }
+
         List<String> generatedResources = new ArrayList<>();
         List<String> bannedResources = new ArrayList<>();
 
@@ -282,11 +412,25 @@ public class FrameworkResourcePoolingService implements IResourcePoolingService
         bannedResources.addAll(rejectedResources);
 
         try {
+            int firstDefinition = Math.floorMod(stripe, resourceDefinitions.size());
+            Set<ResourceString> startedDefinitions = new HashSet<>();
             for (int i = 0; i < numberOfResources; i += returnConsecutive) {
-                ResourceString randomDefinition = resourceDefinitions.get(random.nextInt(resourceDefinitions.size()));
+                ResourceString definition = resourceDefinitions
+                        .get((firstDefinition + (i / returnConsecutive)) % resourceDefinitions.size());
+
+                String firstResource;
+                if (startedDefinitions.add(definition)) {
+                    firstResource = definition.seekResource(getStartPosition(definition, lastAllocated));
+                } else {
+                    try {
+                        firstResource = definition.getNextResource();
+                    } catch (InsufficientResourcesAvailableException e) {
+                        firstResource = definition.getFirstResource();
+                    }
+                }
 
-                List<String> newResources = generateRandomResources(randomDefinition, bannedResources, dss, keyPrefix,
-                        returnConsecutive);
+                List<String> newResources = generateStripedResources(definition, firstResource, bannedResources, dss,
+                        keyPrefix, returnConsecutive);
                 generatedResources.addAll(newResources);
                 bannedResources.addAll(newResources);
             }
@@ -322,11 +466,126 @@ public class FrameworkResourcePoolingService implements IResourcePoolingService
         }
     }
 
+    private boolean canUseBitmaps(List<ResourceString> resourceDefinitions) {
+        for (ResourceString definition : resourceDefinitions) {
+            if (definition.getNumberOfCombinations() > MAXBITMAPRESOURCES) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
-     * This method is used for the random generation of the resources.
+     * This method generates the resources in the same way as generateResources,
+     * but rather than checking the DSS for each candidate, it reads the resources
+     * in use with one getPrefix and marks them in a bitmap of each definition.
+     * Free resources, or runs of consecutive free resources, are then found from
+     * the bitmaps. On the first pass the runs are looked for from the start
+     * position of this run in each definition, if that fails the runs are packed
+     * in from the start of each definition.
+     * 
+     * @param resourceDefinitions - the resource strings passed that define the
+     *                            availabble resources to generate.
+     * @param rejectedResources   - the resource strings which are to be rejected if
+     *                            generated.
+     * @param numberOfResources   - the number of resources required to be
+     *                            generated.
+     * @param dss                 - the dynamic status store to check against.
+     * @param keyPrefix           - the prefix for the resource if it was to be
+     *                            found in the DSS.
+     * @param returnConsecutive   - the "chunk" size to generate consecutive
+     *                            resources too.
+     * @param lastAllocated       - the last resource reserved in the pool, or null
+     * @return - a list of generated resource within the constraits passed on this
+     *         method.
+     * @throws DynamicStatusStoreException
+     * @throws InsufficientResourcesAvailableException
+     */
+    private List<String> generateResourcesFromSnapshot(List<ResourceString> resourceDefinitions,
+            List<String> rejectedResources, int numberOfResources, IDynamicStatusStoreService dss, String keyPrefix,
+            int returnConsecutive, String lastAllocated) throws DynamicStatusStoreException, InsufficientResourcesAvailableException {
+        Set<String> bannedResources = new HashSet<>();
+        if (rejectedResources != null) {
+            bannedResources.addAll(rejectedResources);
+        }
+        for (String key : dss.getPrefix(keyPrefix).keySet()) {
+            if (key.startsWith(keyPrefix)) {
+                bannedResources.add(key.substring(keyPrefix.length()));
+            }
+        }
+
+        int[] startPositions = new int[resourceDefinitions.size()];
+        for (int i = 0; i < startPositions.length; i++) {
+            startPositions[i] = (int) getStartPosition(resourceDefinitions.get(i), lastAllocated);
+        }
+
+        List<String> generatedResources = generateFromBitmaps(createBitmaps(resourceDefinitions, bannedResources),
+                numberOfResources, returnConsecutive, startPositions);
+        if (generatedResources == null) {
+            generatedResources = generateFromBitmaps(createBitmaps(resourceDefinitions, bannedResources),
+                    numberOfResources, returnConsecutive, null);
+        }
+        if (generatedResources == null) {
+            throw new InsufficientResourcesAvailableException("There is not enough resource available");
+        }
+        return generatedResources;
+    }
+
+    private List<ResourceBitmap> createBitmaps(List<ResourceString> resourceDefinitions, Set<String> bannedResources) {
+        List<ResourceBitmap> bitmaps = new ArrayList<>();
+        for (ResourceString definition : resourceDefinitions) {
+            ResourceBitmap bitmap = new ResourceBitmap(definition);
+            for (String resource : bannedResources) {
+                bitmap.markUsed(resource);
+            }
+            bitmaps.add(bitmap);
+        }
+        return bitmaps;
+    }
+
+    /**
+     * @param startPositions - the position to start looking from in each bitmap,
+     *                       moved on as resources are taken, starting with the
+     *                       bitmap picked by the run name. If null the
+     *                       definitions are filled in order from the start.
+     * @return - the generated resources, or null if there were not enough free
+     */
+    private List<String> generateFromBitmaps(List<ResourceBitmap> bitmaps, int numberOfResources,
+            int returnConsecutive, int[] startPositions) {
+        int firstBitmap = (startPositions != null) ? Math.floorMod(stripe, bitmaps.size()) : 0;
+
+        List<String> generatedResources = new ArrayList<>();
+        for (int i = 0; i < numberOfResources; i += returnConsecutive) {
+            List<String> newResources = null;
+            for (int b = 0; b < bitmaps.size() && newResources == null; b++) {
+                int bitmapIndex = (firstBitmap + b) % bitmaps.size();
+                ResourceBitmap bitmap = bitmaps.get(bitmapIndex);
+                int from = (startPositions != null) ? startPositions[bitmapIndex] : 0;
+                int start = bitmap.findFree(from, returnConsecutive);
+                if (start >= 0) {
+                    newResources = bitmap.take(start, returnConsecutive);
+                    if (startPositions != null) {
+                        startPositions[bitmapIndex] = (start + returnConsecutive) % bitmap.size();
+                    }
+                }
+            }
+
+            if (newResources == null) {
+                return null;
+            }
+            generatedResources.addAll(newResources);
+        }
+        return generatedResources;
+    }
+
+    /**
+     * This method is used for the generation of the resources from the place in
+     * the definition this run starts at.
      * 
      * @param definition            -the resource string passed that define the
      *                              available resources to generate.
+     * @param firstResource         - the resource to start looking from, the
+     *                              current resource of the definition.
      * @param bannedReosurceStrings - the resources that are not allowed to be added
      *                              to the return list
      * @param dss                   - the dynamic status store to check against.
@@ -334,20 +593,21 @@ public class FrameworkResourcePoolingService implements IResourcePoolingService
      *                              found in the DSS.
      * @param returnConsecutive     - the "chunk" size to generate consecutive
      *                              resources too.
-     * @return - return list of generated resources that are randomly distributed.
+     * @return - return list of generated resources that are spread across the
+     *         pool by run.
      * @throws DynamicStatusStoreException
      * @throws InsufficientResourcesAvailableException
      */
-    private List<String> generateRandomResources(ResourceString definition, List<String> bannedReosurceStrings,
-            IDynamicStatusStoreService dss, String keyPrefix, int returnConsecutive)
-            throws DynamicStatusStoreException, InsufficientResourcesAvailableException {
-        String randomResource = definition.getRandomResource();
+    private List<String> generateStripedResources(ResourceString definition, String firstResource,
+            List<String> bannedReosurceStrings, IDynamicStatusStoreService dss, String keyPrefix,
+            int returnConsecutive) throws DynamicStatusStoreException, InsufficientResourcesAvailableException {
+        String resource = firstResource;
         List<String> resources = new ArrayList<>();
         int attempts = 0;
 
         while (resources.size() < returnConsecutive) {
-            if (!(bannedReosurceStrings.contains(randomResource)) && ((dss.get(keyPrefix + randomResource)) == null)) {
-                resources.add(randomResource);
+            if (!(bannedReosurceStrings.contains(resource)) && ((dss.get(keyPrefix + resource)) == null)) {
+                resources.add(resource);
             } else {
                 resources.clear();
                 attempts++;
@@ -358,10 +618,10 @@ public class FrameworkResourcePoolingService implements IResourcePoolingService
             }
             if (resources.size() < returnConsecutive) {
                 try {
-                    randomResource = definition.getNextResource();
+                    resource = definition.getNextResource();
                 } catch (InsufficientResourcesAvailableException e) {
                     resources.clear();
-                    randomResource = definition.getNextResource();
+                    resource = definition.getNextResource();
                 }
             }
 
@@ -370,8 +630,8 @@ public class FrameworkResourcePoolingService implements IResourcePoolingService
     }
 
     /**
-     * This method is used for sequential generation of resources if the random
-     * generation fails. This should only trigger is the attempted number of random
+     * This method is used for sequential generation of resources if the striped
+     * generation fails. This should only trigger is the attempted number of striped
      * generation number is 40% of the available reosurces.
      * 
      * @param definition            -the resource string passed that define the
@@ -5,12 +5,16 @@
  */
 package dev.galasa.framework.spi;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Null;
 
+import dev.galasa.framework.spi.utils.StoreFutures;
+
 /**
  * Used by the Galasa Framework to initialise the various Configuration Property
  * Stores that may exist within the OSGi instance. Only 1 CPS maybe enabled
@@ -20,6 +24,9 @@ import javax.validation.constraints.Null;
  * bootstrap. It should examine the returned URI to determine if it is this CPS
  * that is required to be initialised. If the CPS should be initialised, the CPS
  * should do so and then register itself in the Framework.
+ * 
+ * The asynchronous versions of the calls let a remote CPS pipeline requests.
+ * By default they are made synchronously and return a completed future.
  */
 public interface IConfigurationPropertyStore {
 
@@ -37,6 +44,32 @@ public interface IConfigurationPropertyStore {
     @Null
     String getProperty(@NotNull String key) throws ConfigurationPropertyStoreException;
     
+    /**
+     * Retrieve several properties from the underlying configuration property
+     * store in one request.
+     * 
+     * The framework uses this to look up all the variants of a property at once.
+     * Stores which can answer a batch in one call should override this, the
+     * default calls {@link #getProperty(String)} for each key.
+     * 
+     * @param keys - The keys of the properties to retrieve
+     * @return - A map of the keys which exist to their values, keys which do not
+     *         exist are left out
+     * @throws ConfigurationPropertyStoreException - If there is a problem accessing
+     *                                             the underlying store
+     */
+    @NotNull
+    default Map<String, String> getProperties(@NotNull List<String> keys) throws ConfigurationPropertyStoreException {
+        Map<String, String> values = new HashMap<>();
+        for (String key : keys) {
+            String value = getProperty(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
     /**
      * Retrieve prefixed properties from the underlying configuration property store.
      * 
@@ -100,4 +133,61 @@ public interface IConfigurationPropertyStore {
      */
     void shutdown() throws ConfigurationPropertyStoreException;
 
+    /**
+     * Asynchronous version of {@link #getProperty(String)}
+     * 
+     * @param key - The key of the property to retrieve
+     * @return - a future of the value of the property, null if it does not exist
+     */
+    default CompletableFuture<String> getPropertyAsync(@NotNull String key) {
+        return StoreFutures.completed(() -> getProperty(key));
+    }
+
+    /**
+     * Asynchronous version of {@link #getProperties(List)}
+     * 
+     * @param keys - The keys of the properties to retrieve
+     * @return - a future of the keys which exist and their values
+     */
+    default CompletableFuture<Map<String, String>> getPropertiesAsync(@NotNull List<String> keys) {
+        return StoreFutures.completed(() -> getProperties(keys));
+    }
+
+    /**
+     * Asynchronous version of {@link #getPrefixedProperties(String)}
+     * 
+     * @param prefix - The prefix to use
+     * @return a future of the found properties
+     */
+    default CompletableFuture<Map<String, String>> getPrefixedPropertiesAsync(@NotNull String prefix) {
+        return StoreFutures.completed(() -> getPrefixedProperties(prefix));
+    }
+
+    /**
+     * Asynchronous version of {@link #setProperty(String, String)}
+     * 
+     * @param key - The key of the property to set
+     * @param value - The value of the property
+     * @return a future completed when the property is set
+     */
+    default CompletableFuture<Void> setPropertyAsync(@NotNull String key, @NotNull String value) {
+        return StoreFutures.completed(() -> {
+            setProperty(key, value);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link #deleteProperty(String)}
+     * 
+     * @param key The key of the property being deleted.
+     * @return a future completed when the property is deleted
+     */
+    default CompletableFuture<Void> deletePropertyAsync(@NotNull String key) {
+        return StoreFutures.completed(() -> {
+            deleteProperty(key);
+            return null;
+        });
+    }
+
 }
@@ -76,7 +76,23 @@ public interface IConfigurationPropertyStoreService {
     @Null
     String getProperty(@NotNull String prefix, @NotNull String suffix, String... infixes)
             throws ConfigurationPropertyStoreException;
-    
+
+    /**
+     * <p>
+     * Retrieves a string property in the same way as
+     * {@link #getProperty(String, String, String...)}, using a key that has been
+     * built once and can be used over and over.
+     * </p>
+     *
+     * @param key The prefix, suffix and infixes of the property.
+     * @return The value, or null if the property is not found.
+     * @throws ConfigurationPropertyStoreException
+     */
+    @Null
+    default String getProperty(@NotNull PropertyKey key) throws ConfigurationPropertyStoreException {
+        return getProperty(key.getPrefix(), key.getSuffix(), key.getInfixes());
+    }
+
     /**
      * Retrieves the properties for the namespace using the supplied prefix.
      * 
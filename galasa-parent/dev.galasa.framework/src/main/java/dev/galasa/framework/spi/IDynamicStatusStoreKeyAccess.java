@@ -8,10 +8,13 @@ package dev.galasa.framework.spi;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Null;
 
+import dev.galasa.framework.spi.utils.StoreFutures;
+
 /**
  * <p>
  * Used to gain access to properties in the Dynamic Status Store
@@ -31,6 +34,17 @@ import javax.validation.constraints.Null;
  * {@link IFramework#getDynamicStatusStoreService(String)}.
  * </p>
  * 
+ * <p>
+ * Each call also has an asynchronous version, so independent updates can be
+ * overlapped and a remote DSS can pipeline them. The asynchronous calls made
+ * through one {@link IDynamicStatusStoreKeyAccess} are applied in the order
+ * they are made, so an update can be left to complete in the background
+ * without a later update to the same key overtaking it. They are not ordered
+ * with the synchronous calls, join the future first if that matters. By
+ * default the asynchronous calls are made synchronously and return a completed
+ * future.
+ * </p>
+ * 
  *  
  *
  */
@@ -80,6 +94,52 @@ public interface IDynamicStatusStoreKeyAccess {
     boolean putSwap(@NotNull String key, String oldValue, @NotNull String newValue, @NotNull Map<String, String> others)
             throws DynamicStatusStoreException;
 
+    /**
+     * <p>
+     * Store a key value pair under a lease. If the lease is not kept alive with
+     * {@link #keepAlive(UUID)} within the time to live, the DSS deletes the key
+     * and watchers see a DELETE event for it.
+     * </p>
+     * 
+     * <p>
+     * If the DSS does not support leases, the key value pair is stored without
+     * one, it stays until it is deleted, and null is returned.
+     * </p>
+     * 
+     * @param key        - the key to use
+     * @param value      - the value to use
+     * @param ttlSeconds - how long the key lives without a keep alive
+     * @return the lease id, or null if the DSS does not support leases
+     * @throws DynamicStatusStoreException
+     */
+    @Null
+    default UUID putWithTtl(@NotNull String key, @NotNull String value, long ttlSeconds)
+            throws DynamicStatusStoreException {
+        put(key, value);
+        return null;
+    }
+
+    /**
+     * Extend a lease by its time to live
+     * 
+     * @param leaseId - the lease returned by {@link #putWithTtl(String, String, long)}
+     * @return true if the lease was extended, false if it has expired or been
+     *         revoked
+     * @throws DynamicStatusStoreException
+     */
+    default boolean keepAlive(@NotNull UUID leaseId) throws DynamicStatusStoreException {
+        return false;
+    }
+
+    /**
+     * End a lease now, deleting its key
+     * 
+     * @param leaseId - the lease returned by {@link #putWithTtl(String, String, long)}
+     * @throws DynamicStatusStoreException
+     */
+    default void revokeLease(@NotNull UUID leaseId) throws DynamicStatusStoreException {
+    }
+
     /**
      * <p>
      * Retrieves a string property from the Dynamic Status Store
@@ -185,4 +245,131 @@ public interface IDynamicStatusStoreKeyAccess {
      */
     void unwatch(UUID watchId) throws DynamicStatusStoreException;
 
+    /**
+     * Asynchronous version of {@link #put(String, String)}
+     * 
+     * @param key   - the key to use
+     * @param value - the value to use
+     * @return a future completed when the put is done
+     */
+    default CompletableFuture<Void> putAsync(@NotNull String key, @NotNull String value) {
+        return StoreFutures.completed(() -> {
+            put(key, value);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link #put(Map)}
+     * 
+     * @param keyValues - map of key/value pairs
+     * @return a future completed when the put is done
+     */
+    default CompletableFuture<Void> putAsync(@NotNull Map<String, String> keyValues) {
+        return StoreFutures.completed(() -> {
+            put(keyValues);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link #putSwap(String, String, String)}
+     * 
+     * @param key      - the key to use
+     * @param oldValue - the value the key must have, null means does not exist
+     * @param newValue - The new value to set the key to
+     * @return a future of true if the put was actioned, false if not
+     */
+    default CompletableFuture<Boolean> putSwapAsync(@NotNull String key, String oldValue, @NotNull String newValue) {
+        return StoreFutures.completed(() -> putSwap(key, oldValue, newValue));
+    }
+
+    /**
+     * Asynchronous version of {@link #putSwap(String, String, String, Map)}
+     * 
+     * @param key      - the key to use
+     * @param oldValue - the value the key must have, null means does not exist
+     * @param newValue - The new value to set the key to
+     * @param others   - other key/value pairs to put if the primary key is valid.
+     * @return a future of true if the put was actioned, false if not
+     */
+    default CompletableFuture<Boolean> putSwapAsync(@NotNull String key, String oldValue, @NotNull String newValue,
+            @NotNull Map<String, String> others) {
+        return StoreFutures.completed(() -> putSwap(key, oldValue, newValue, others));
+    }
+
+    /**
+     * Asynchronous version of {@link #get(String)}
+     * 
+     * @param key The name of the property.
+     * @return a future of the value of the property, null if it does not exist
+     */
+    default CompletableFuture<String> getAsync(@NotNull String key) {
+        return StoreFutures.completed(() -> get(key));
+    }
+
+    /**
+     * Asynchronous version of {@link #getPrefix(String)}
+     * 
+     * @param keyPrefix - the prefix of all the keys to use.
+     * @return a future of the keys with the prefix and their values
+     */
+    default CompletableFuture<Map<String, String>> getPrefixAsync(@NotNull String keyPrefix) {
+        return StoreFutures.completed(() -> getPrefix(keyPrefix));
+    }
+
+    /**
+     * Asynchronous version of {@link #delete(String)}
+     * 
+     * @param key - the key to use
+     * @return a future completed when the delete is done
+     */
+    default CompletableFuture<Void> deleteAsync(@NotNull String key) {
+        return StoreFutures.completed(() -> {
+            delete(key);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link #delete(Set)}
+     * 
+     * @param keys - all the keys that need to be deleted
+     * @return a future completed when the delete is done
+     */
+    default CompletableFuture<Void> deleteAsync(@NotNull Set<String> keys) {
+        return StoreFutures.completed(() -> {
+            delete(keys);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link #deletePrefix(String)}
+     * 
+     * @param keyPrefix - the prefix of all the keys to use.
+     * @return a future completed when the delete is done
+     */
+    default CompletableFuture<Void> deletePrefixAsync(@NotNull String keyPrefix) {
+        return StoreFutures.completed(() -> {
+            deletePrefix(keyPrefix);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link #performActions(IDssAction...)}
+     * 
+     * @param actions a list of actions to perform on the DSS.
+     * @return a future completed when the actions are done, or completed
+     *         exceptionally with a {@link DynamicStatusStoreMatchException} if
+     *         the preconditions fail
+     */
+    default CompletableFuture<Void> performActionsAsync(IDssAction... actions) {
+        return StoreFutures.completed(() -> {
+            performActions(actions);
+            return null;
+        });
+    }
+
 }
@@ -5,6 +5,8 @@
  */
 package dev.galasa.framework.spi;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
@@ -31,6 +33,93 @@ public interface IFrameworkRuns {
     @NotNull
     List<IRun> getAllGroupedRuns(@NotNull String groupName) throws FrameworkException;
 
+    /**
+     * Returns the runs with a status. The framework implementation looks the
+     * runs up in the runindex.status keys of the DSS, so only the matching runs
+     * are read.
+     * 
+     * @param status - the status, eg queued
+     * @return the runs
+     * @throws FrameworkException
+     */
+    @NotNull
+    default List<IRun> getRunsWithStatus(@NotNull String status) throws FrameworkException {
+        List<IRun> runs = new ArrayList<>();
+        for (IRun run : getAllRuns()) {
+            if (status.equals(run.getStatus())) {
+                runs.add(run);
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Returns the runs in a group. The framework implementation looks the runs
+     * up in the runindex.group keys of the DSS, so only the matching runs are
+     * read.
+     * 
+     * @param groupName - the group
+     * @return the runs
+     * @throws FrameworkException
+     */
+    @NotNull
+    default List<IRun> getRunsInGroup(@NotNull String groupName) throws FrameworkException {
+        return getAllGroupedRuns(groupName);
+    }
+
+    /**
+     * <p>
+     * Returns a page of the runs which match the filter, in order of run name.
+     * Pass null as the cursor for the first page, and the cursor from the
+     * previous page after that. Runs submitted or deleted between pages do not
+     * upset the paging.
+     * </p>
+     * 
+     * <p>
+     * The framework implementation only builds the runs on the page, and reads
+     * only the runs it needs when the run index can be used for the filter.
+     * </p>
+     * 
+     * @param filter - which runs to return, null for all
+     * @param cursor - where to carry on from, null to start at the beginning
+     * @param limit  - the most runs to return
+     * @return the page of runs
+     * @throws FrameworkException
+     */
+    @NotNull
+    default RunPage listRuns(RunFilter filter, String cursor, int limit) throws FrameworkException {
+        if (limit < 1) {
+            throw new FrameworkException("The page limit must be at least 1");
+        }
+
+        List<IRun> matched = new ArrayList<>();
+        for (IRun run : getAllRuns()) {
+            if ((filter == null || filter.matches(run)) && (cursor == null || run.getName().compareTo(cursor) > 0)) {
+                matched.add(run);
+            }
+        }
+        matched.sort(Comparator.comparing(IRun::getName));
+
+        if (matched.size() <= limit) {
+            return new RunPage(matched, null);
+        }
+        List<IRun> runs = new ArrayList<>(matched.subList(0, limit));
+        return new RunPage(runs, runs.get(runs.size() - 1).getName());
+    }
+
+    /**
+     * Whether the runs matching a filter can be found without reading every run.
+     * If not, each page from listRuns reads every run again, so a caller wanting
+     * all the matching runs should ask for them in one page.
+     * 
+     * @param filter - which runs are wanted, null for all
+     * @return true if listRuns only reads the runs it needs for the filter
+     * @throws FrameworkException
+     */
+    default boolean isIndexed(RunFilter filter) throws FrameworkException {
+        return false;
+    }
+
     @NotNull
     Set<String> getActiveRunNames() throws FrameworkException;
 
@@ -39,6 +128,27 @@ public interface IFrameworkRuns {
             String mavenRepository, String obr, String stream, boolean local, boolean trace, Properties overrides,
             SharedEnvironmentPhase sharedEnvironmentPhase, String sharedEnvironmentRunName, String language) throws FrameworkException;
 
+    /**
+     * Submits several runs at once. The framework implementation works out the
+     * shared values once, claims the run numbers together and stores all the runs
+     * in one DSS transaction, so either all the runs are submitted or none are.
+     * 
+     * @param requests - the runs to submit
+     * @return the runs, in the same order as the requests
+     * @throws FrameworkException - if the runs could not be submitted
+     */
+    @NotNull
+    default List<IRun> submitRuns(@NotNull List<RunRequest> requests) throws FrameworkException {
+        List<IRun> runs = new ArrayList<>();
+        for (RunRequest request : requests) {
+            runs.add(submitRun(request.getType(), request.getRequestor(), request.getBundleName(),
+                    request.getTestName(), request.getGroupName(), request.getMavenRepository(), request.getObr(),
+                    request.getStream(), request.isLocal(), request.isTrace(), request.getOverrides(), null, null,
+                    request.getLanguage()));
+        }
+        return runs;
+    }
+
     boolean delete(String runname) throws DynamicStatusStoreException;
 
     IRun getRun(String runname) throws DynamicStatusStoreException;
@@ -164,4 +164,60 @@ public interface IResourcePoolingService {
     List<String> obtainResources(@NotNull List<String> resourceStrings, List<String> rejectedResources,
             int returnMinimum, int returnConsecutive, IDynamicStatusStoreService dss, String keyPrefix)
             throws InsufficientResourcesAvailableException;
+
+    /**
+     * <p>
+     * Generate resources in the same way as
+     * {@link #obtainResources(List, List, int, int, IDynamicStatusStoreService, String)}
+     * and reserve them, by adding the key prefix plus the resource name with the
+     * value given. All the resources are added in one DSS transaction, so either
+     * all of them are reserved or none are.
+     * </p>
+     * <p>
+     * If another run reserves one of the resources first, the resources are
+     * generated again from the latest state of the DSS and another attempt is
+     * made, so the caller does not have to retry.
+     * </p>
+     * @param resourceStrings   - A list of resource regex string used to generate
+     *                          the available resource pool to select from
+     * @param rejectedResources - A list of resources to be excluded from selection
+     * @param returnMinimum     - The number of resources to reserve
+     * @param returnConsecutive - The number of consecutive resource names to return
+     *                          (must be a modular of return minimum)
+     * @param dss               - The Dynamic Status Store to reserve the resources in
+     * @param keyPrefix         - The prefix key for the resource in the DSS
+     * @param value             - The value to reserve the resources with, normally
+     *                          the run name
+     * @return - The resources reserved, they belong to the caller until it deletes
+     *         the keys
+     * @throws InsufficientResourcesAvailableException - If there are not enough
+     *                                                 free resources, or they
+     *                                                 could not be reserved
+     */
+    @NotNull
+    default List<String> reserveResources(@NotNull List<String> resourceStrings, List<String> rejectedResources,
+            int returnMinimum, int returnConsecutive, @NotNull IDynamicStatusStoreService dss,
+            @NotNull String keyPrefix, @NotNull String value) throws InsufficientResourcesAvailableException {
+        int maxAttempts = 10;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            List<String> resources = obtainResources(resourceStrings, rejectedResources, returnMinimum,
+                    returnConsecutive, dss, keyPrefix);
+
+            IDssAction[] actions = new IDssAction[resources.size()];
+            for (int i = 0; i < actions.length; i++) {
+                actions[i] = new DssAdd(keyPrefix + resources.get(i), value);
+            }
+
+            try {
+                dss.performActions(actions);
+                return resources;
+            } catch (DynamicStatusStoreMatchException e) {
+                // *** Another run got one of them first, generate them again
+            } catch (DynamicStatusStoreException e) {
+                throw new InsufficientResourcesAvailableException("Unable to reserve the resources", e);
+            }
+        }
+        throw new InsufficientResourcesAvailableException(
+                "Unable to reserve the resources after " + maxAttempts + " attempts");
+    }
 }
@@ -15,6 +15,14 @@ public interface IRun {
 
     Instant getHeartbeat();
 
+    /**
+     * @return the id of the DSS lease keeping the heartbeat alive, or null if the
+     *         heartbeat is a timestamp which the engine keeps updating
+     */
+    default String getHeartbeatLease() {
+        return null;
+    }
+
     String getType();
 
     String getTest();
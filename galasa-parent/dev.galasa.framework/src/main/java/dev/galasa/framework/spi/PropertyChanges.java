@@ -0,0 +1,185 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+
+/**
+ * <p>
+ * Applies changes to a set of properties and remembers what was changed, so
+ * that a {@link FrameworkPropertyFile} only has to journal and notify the keys
+ * which were touched, and can undo the changes if an update fails part way
+ * through.
+ * </p>
+ */
+class PropertyChanges {
+
+    private final NavigableMap<String, String> properties;
+
+    // The value each key had before the first change, null if it did not exist
+    private final Map<String, String>           oldValues = new HashMap<>();
+
+    // The latest value of each changed key in the order first changed, null if deleted
+    private final LinkedHashMap<String, String> newValues = new LinkedHashMap<>();
+
+    PropertyChanges(NavigableMap<String, String> properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Works out the changes between two sets of properties in one pass over both.
+     * 
+     * @param oldProperties - the properties before
+     * @param newProperties - the properties after, which the result refers to
+     * @return the changes which turn the old properties into the new ones
+     */
+    static PropertyChanges diff(NavigableMap<String, String> oldProperties, NavigableMap<String, String> newProperties) {
+        PropertyChanges changes = new PropertyChanges(newProperties);
+        if (oldProperties == newProperties) {
+            return changes;
+        }
+
+        Iterator<Map.Entry<String, String>> oldEntries = oldProperties.entrySet().iterator();
+        Iterator<Map.Entry<String, String>> newEntries = newProperties.entrySet().iterator();
+        Map.Entry<String, String> oldEntry = oldEntries.hasNext() ? oldEntries.next() : null;
+        Map.Entry<String, String> newEntry = newEntries.hasNext() ? newEntries.next() : null;
+        while (oldEntry != null || newEntry != null) {
+            int compare;
+            if (oldEntry == null) {
+                compare = 1;
+            } else if (newEntry == null) {
+                compare = -1;
+            } else {
+                compare = oldEntry.getKey().compareTo(newEntry.getKey());
+            }
+
+            if (compare < 0) {
+                changes.record(oldEntry.getKey(), oldEntry.getValue(), null);
+                oldEntry = oldEntries.hasNext() ? oldEntries.next() : null;
+            } else if (compare > 0) {
+                changes.record(newEntry.getKey(), null, newEntry.getValue());
+                newEntry = newEntries.hasNext() ? newEntries.next() : null;
+            } else {
+                if (!oldEntry.getValue().equals(newEntry.getValue())) {
+                    changes.record(oldEntry.getKey(), oldEntry.getValue(), newEntry.getValue());
+                }
+                oldEntry = oldEntries.hasNext() ? oldEntries.next() : null;
+                newEntry = newEntries.hasNext() ? newEntries.next() : null;
+            }
+        }
+        return changes;
+    }
+
+    String get(String key) {
+        return properties.get(key);
+    }
+
+    void put(String key, String value) {
+        String oldValue = properties.put(key, value);
+        record(key, oldValue, value);
+    }
+
+    void putAll(Map<String, String> values) {
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    void remove(String key) {
+        String oldValue = properties.remove(key);
+        if (oldValue != null) {
+            record(key, oldValue, null);
+        }
+    }
+
+    void removeAll(Set<String> keys) {
+        for (String key : keys) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Removes the keys with the prefix, visiting only the matching range of keys.
+     */
+    void removePrefix(String keyPrefix) {
+        Iterator<Map.Entry<String, String>> entries = properties.tailMap(keyPrefix, true).entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, String> entry = entries.next();
+            if (!entry.getKey().startsWith(keyPrefix)) {
+                break;
+            }
+            record(entry.getKey(), entry.getValue(), null);
+            entries.remove();
+        }
+    }
+
+    /**
+     * Adds changes which have already been made to the same properties, so that
+     * they are persisted, notified and rolled back along with these changes.
+     */
+    void merge(PropertyChanges other) {
+        for (Map.Entry<String, String> entry : other.newValues.entrySet()) {
+            record(entry.getKey(), other.oldValues.get(entry.getKey()), entry.getValue());
+        }
+    }
+
+    private void record(String key, String oldValue, String newValue) {
+        if (!oldValues.containsKey(key)) {
+            oldValues.put(key, oldValue);
+        }
+        newValues.put(key, newValue);
+    }
+
+    /**
+     * Puts the properties back to how they were before any of the changes.
+     */
+    void rollback() {
+        for (Map.Entry<String, String> entry : oldValues.entrySet()) {
+            if (entry.getValue() == null) {
+                properties.remove(entry.getKey());
+            } else {
+                properties.put(entry.getKey(), entry.getValue());
+            }
+        }
+        oldValues.clear();
+        newValues.clear();
+    }
+
+    /**
+     * @return the keys whose value is now different to the value before the
+     *         changes, in the order they were first changed
+     */
+    List<String> getChangedKeys() {
+        List<String> changedKeys = new ArrayList<>();
+        for (Map.Entry<String, String> entry : newValues.entrySet()) {
+            String oldValue = oldValues.get(entry.getKey());
+            String newValue = entry.getValue();
+            if (oldValue == null ? newValue != null : !oldValue.equals(newValue)) {
+                changedKeys.add(entry.getKey());
+            }
+        }
+        return changedKeys;
+    }
+
+    boolean isEmpty() {
+        return getChangedKeys().isEmpty();
+    }
+
+    String getOldValue(String key) {
+        return oldValues.get(key);
+    }
+
+    String getNewValue(String key) {
+        return newValues.get(key);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * <p>
+ * The prefix, suffix and infixes of a property that is looked up with
+ * {@link IConfigurationPropertyStoreService#getProperty(PropertyKey)}.
+ * </p>
+ *
+ * <p>
+ * A manager which reads the same property over and over can build the key once
+ * and hold it in a static field, eg
+ * </p>
+ *
+ * <pre>
+ * private static final PropertyKey IMAGE_CREDENTIALS = new PropertyKey("image", "credentialid");
+ * </pre>
+ *
+ * <p>
+ * The key remembers the property names it was last resolved to, so looking it
+ * up again in the same namespace does not build them again.
+ * </p>
+ */
+public final class PropertyKey {
+
+    private static class Variants {
+        private final String   namespace;
+        private final String[] keys;
+
+        private Variants(String namespace, String[] keys) {
+            this.namespace = namespace;
+            this.keys = keys;
+        }
+    }
+
+    private final String   prefix;
+    private final String   suffix;
+    private final String[] infixes;
+
+    private volatile Variants variants;
+
+    /**
+     * @param prefix  - The prefix of the property name within the namespace.
+     * @param suffix  - The suffix of the property name.
+     * @param infixes - Any optional infixes of the property name.
+     */
+    public PropertyKey(@NotNull String prefix, @NotNull String suffix, String... infixes) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        if (infixes == null) {
+            this.infixes = new String[0];
+        } else {
+            this.infixes = infixes.clone();
+        }
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public String[] getInfixes() {
+        return infixes.clone();
+    }
+
+    /**
+     * <p>
+     * Returns the property names to search for in a namespace, in the order they
+     * are searched. For example, the key ("image", "credentialid", "PLEXMA",
+     * "MVMA") in the zos namespace gives:-<br>
+     * zos.image.PLEXMA.MVMA.credentialid<br>
+     * zos.image.PLEXMA.credentialid<br>
+     * zos.image.credentialid
+     * </p>
+     *
+     * <p>
+     * The array is shared with other callers, so must not be changed.
+     * </p>
+     *
+     * @param namespace - the namespace the property is in
+     * @return the property names, most specific first
+     */
+    public String[] getVariants(@NotNull String namespace) {
+        Variants lastVariants = this.variants;
+        if (lastVariants == null || !lastVariants.namespace.equals(namespace)) {
+            lastVariants = new Variants(namespace, createVariants(namespace));
+            this.variants = lastVariants;
+        }
+        return lastVariants.keys;
+    }
+
+    private String[] createVariants(String namespace) {
+        String[] keys = new String[infixes.length + 1];
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < infixes.length; i++) {
+            sb.setLength(0);
+            sb.append(namespace).append('.').append(prefix);
+            for (int j = 0; j < (infixes.length - i); j++) {
+                sb.append('.').append(infixes[j]);
+            }
+            sb.append('.').append(suffix);
+            keys[i] = sb.toString();
+        }
+
+        keys[infixes.length] = namespace + "." + prefix + "." + suffix;
+
+        return keys;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PropertyKey)) {
+            return false;
+        }
+        PropertyKey otherKey = (PropertyKey) other;
+        return Objects.equals(prefix, otherKey.prefix) && Objects.equals(suffix, otherKey.suffix)
+                && Arrays.equals(infixes, otherKey.infixes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(prefix, suffix) * 31 + Arrays.hashCode(infixes);
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyKey[prefix=" + prefix + ", suffix=" + suffix + ", infixes=" + Arrays.toString(infixes) + "]";
+    }
+}
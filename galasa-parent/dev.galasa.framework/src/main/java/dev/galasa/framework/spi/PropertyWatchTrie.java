@@ -0,0 +1,125 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * <p>
+ * Finds the watches interested in a changed key. Key watches are looked up by
+ * the key, and prefix watches are held in a trie, so finding the watches for a
+ * key only visits the nodes along that key rather than every watch.
+ * </p>
+ *
+ * @param <W> the type of watch
+ */
+class PropertyWatchTrie<W> {
+
+    private static class Node<W> {
+        private final Map<Character, Node<W>> children = new HashMap<>();
+        private final Map<UUID, W>            watches  = new HashMap<>();
+    }
+
+    private static class Registration {
+        private final String  key;
+        private final boolean prefix;
+
+        private Registration(String key, boolean prefix) {
+            this.key = key;
+            this.prefix = prefix;
+        }
+    }
+
+    private final Node<W>                    root          = new Node<>();
+    private final Map<String, Map<UUID, W>>  keyWatches    = new HashMap<>();
+    private final Map<UUID, Registration>    registrations = new HashMap<>();
+
+    void add(UUID id, String key, boolean prefix, W watch) {
+        registrations.put(id, new Registration(key, prefix));
+        if (prefix) {
+            Node<W> node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node<>());
+            }
+            node.watches.put(id, watch);
+        } else {
+            keyWatches.computeIfAbsent(key, k -> new HashMap<>()).put(id, watch);
+        }
+    }
+
+    void remove(UUID id) {
+        Registration registration = registrations.remove(id);
+        if (registration == null) {
+            return;
+        }
+
+        if (!registration.prefix) {
+            Map<UUID, W> watches = keyWatches.get(registration.key);
+            watches.remove(id);
+            if (watches.isEmpty()) {
+                keyWatches.remove(registration.key);
+            }
+            return;
+        }
+
+        // Remember the path so that branches left empty can be pruned
+        List<Node<W>> path = new ArrayList<>();
+        Node<W> node = root;
+        path.add(node);
+        for (int i = 0; i < registration.key.length(); i++) {
+            node = node.children.get(registration.key.charAt(i));
+            path.add(node);
+        }
+        node.watches.remove(id);
+
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node<W> child = path.get(i);
+            if (!child.watches.isEmpty() || !child.children.isEmpty()) {
+                break;
+            }
+            path.get(i - 1).children.remove(registration.key.charAt(i - 1));
+        }
+    }
+
+    /**
+     * @param key - the changed key
+     * @return the watches for the key, and for any prefix of the key
+     */
+    List<W> match(String key) {
+        List<W> matches = new ArrayList<>();
+
+        Map<UUID, W> watches = keyWatches.get(key);
+        if (watches != null) {
+            matches.addAll(watches.values());
+        }
+
+        Node<W> node = root;
+        matches.addAll(node.watches.values());
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.get(key.charAt(i));
+            if (node == null) {
+                break;
+            }
+            matches.addAll(node.watches.values());
+        }
+        return matches;
+    }
+
+    boolean isEmpty() {
+        return registrations.isEmpty();
+    }
+
+    void clear() {
+        root.children.clear();
+        root.watches.clear();
+        keyWatches.clear();
+        registrations.clear();
+    }
+}
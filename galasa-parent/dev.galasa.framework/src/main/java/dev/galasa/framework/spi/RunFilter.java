@@ -0,0 +1,55 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+/**
+ * Selects the runs returned by
+ * {@link IFrameworkRuns#listRuns(RunFilter, String, int)}. Values left as null
+ * match every run.
+ */
+public class RunFilter {
+
+    private String status;
+    private String groupName;
+    private String requestor;
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public void setGroupName(String groupName) {
+        this.groupName = groupName;
+    }
+
+    public String getRequestor() {
+        return requestor;
+    }
+
+    public void setRequestor(String requestor) {
+        this.requestor = requestor;
+    }
+
+    public boolean matches(IRun run) {
+        if (status != null && !status.equals(run.getStatus())) {
+            return false;
+        }
+        if (groupName != null && !groupName.equals(run.getGroup())) {
+            return false;
+        }
+        if (requestor != null && !requestor.equals(run.getRequestor())) {
+            return false;
+        }
+        return true;
+    }
+}
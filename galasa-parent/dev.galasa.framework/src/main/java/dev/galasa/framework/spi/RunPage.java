@@ -0,0 +1,37 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A page of runs returned by
+ * {@link IFrameworkRuns#listRuns(RunFilter, String, int)}
+ */
+public class RunPage {
+
+    private final List<IRun> runs;
+    private final String     nextCursor;
+
+    public RunPage(@NotNull List<IRun> runs, String nextCursor) {
+        this.runs = runs;
+        this.nextCursor = nextCursor;
+    }
+
+    public @NotNull List<IRun> getRuns() {
+        return runs;
+    }
+
+    /**
+     * @return the cursor to pass in for the next page, or null if there are no
+     *         more runs. A full page can be followed by an empty one.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
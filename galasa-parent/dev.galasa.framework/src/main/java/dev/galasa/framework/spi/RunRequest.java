@@ -0,0 +1,133 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+import java.util.Properties;
+
+/**
+ * The details of a run to be submitted with
+ * {@link IFrameworkRuns#submitRuns(java.util.List)}, matching the parameters of
+ * {@link IFrameworkRuns#submitRun}.
+ */
+public class RunRequest {
+
+    private String     type;
+    private String     requestor;
+    private String     bundleName;
+    private String     testName;
+    private String     groupName;
+    private String     mavenRepository;
+    private String     obr;
+    private String     stream;
+    private boolean    local;
+    private boolean    trace;
+    private Properties overrides;
+    private String     language;
+
+    public RunRequest() {
+    }
+
+    public RunRequest(String bundleName, String testName) {
+        this.bundleName = bundleName;
+        this.testName = testName;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getRequestor() {
+        return requestor;
+    }
+
+    public void setRequestor(String requestor) {
+        this.requestor = requestor;
+    }
+
+    public String getBundleName() {
+        return bundleName;
+    }
+
+    public void setBundleName(String bundleName) {
+        this.bundleName = bundleName;
+    }
+
+    public String getTestName() {
+        return testName;
+    }
+
+    public void setTestName(String testName) {
+        this.testName = testName;
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public void setGroupName(String groupName) {
+        this.groupName = groupName;
+    }
+
+    public String getMavenRepository() {
+        return mavenRepository;
+    }
+
+    public void setMavenRepository(String mavenRepository) {
+        this.mavenRepository = mavenRepository;
+    }
+
+    public String getObr() {
+        return obr;
+    }
+
+    public void setObr(String obr) {
+        this.obr = obr;
+    }
+
+    public String getStream() {
+        return stream;
+    }
+
+    public void setStream(String stream) {
+        this.stream = stream;
+    }
+
+    public boolean isLocal() {
+        return local;
+    }
+
+    public void setLocal(boolean local) {
+        this.local = local;
+    }
+
+    public boolean isTrace() {
+        return trace;
+    }
+
+    public void setTrace(boolean trace) {
+        this.trace = trace;
+    }
+
+    public Properties getOverrides() {
+        return overrides;
+    }
+
+    public void setOverrides(Properties overrides) {
+        this.overrides = overrides;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+}
@@ -5,49 +5,242 @@
  */
 package dev.galasa.framework.spi.utils;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import dev.galasa.framework.spi.AbstractManager;
+import dev.galasa.framework.spi.DssDelete;
+import dev.galasa.framework.spi.DssSwap;
+import dev.galasa.framework.spi.DssUpdate;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
+import dev.galasa.framework.spi.IDssAction;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 
 public class DssUtils {
 
     private final static Log logger = LogFactory.getLog(DssUtils.class);
 
+    /**
+     * The prefix of the run index keys in the framework namespace of the DSS.
+     * Each run has runindex.status.&lt;status&gt;.&lt;run&gt; and
+     * runindex.group.&lt;group&gt;.&lt;run&gt;, so the runs with a status or in
+     * a group can be found without reading all the runs. A run with a heartbeat
+     * or a shared environment also has runindex.active.&lt;run&gt;.
+     */
+    public static final String RUN_INDEX_PREFIX = "runindex.";
+
+    private static final int MAX_STATUS_ATTEMPTS = 20;
+
+    public static String getRunStatusIndexPrefix(String status) {
+        return RUN_INDEX_PREFIX + "status." + status + ".";
+    }
+
+    public static String getRunGroupIndexPrefix(String groupName) {
+        return RUN_INDEX_PREFIX + "group." + groupName + ".";
+    }
+
+    public static String getRunActiveIndexPrefix() {
+        return RUN_INDEX_PREFIX + "active.";
+    }
+
+    /**
+     * Changes the status of a run, moving its status index key in the same DSS
+     * transaction.
+     * 
+     * @param dss             - the framework namespace of the DSS
+     * @param runName         - the run
+     * @param oldStatus       - the status the run must have now
+     * @param newStatus       - the new status
+     * @param otherProperties - other properties to set in the same transaction,
+     *                        can be null
+     * @return true if the status was changed, false if the run did not have the
+     *         old status
+     * @throws DynamicStatusStoreException
+     */
+    public static boolean swapRunStatus(IDynamicStatusStoreService dss, String runName, String oldStatus,
+            String newStatus, Map<String, String> otherProperties) throws DynamicStatusStoreException {
+        List<IDssAction> actions = new ArrayList<>();
+        actions.add(new DssSwap("run." + runName + ".status", oldStatus, newStatus));
+        if (oldStatus != null) {
+            actions.add(new DssDelete(getRunStatusIndexPrefix(oldStatus) + runName, null));
+        }
+        actions.add(new DssUpdate(getRunStatusIndexPrefix(newStatus) + runName, runName));
+        if (otherProperties != null) {
+            for (Entry<String, String> property : otherProperties.entrySet()) {
+                actions.add(new DssUpdate(property.getKey(), property.getValue()));
+            }
+        }
+
+        try {
+            dss.performActions(actions.toArray(new IDssAction[actions.size()]));
+            return true;
+        } catch (DynamicStatusStoreMatchException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Sets the status of a run whatever it is now, moving its status index key
+     * in the same DSS transaction.
+     * 
+     * @param dss             - the framework namespace of the DSS
+     * @param runName         - the run
+     * @param newStatus       - the new status
+     * @param otherProperties - other properties to set in the same transaction,
+     *                        can be null
+     * @throws DynamicStatusStoreException if the status kept changing underneath
+     *                                     us
+     */
+    public static void putRunStatus(IDynamicStatusStoreService dss, String runName, String newStatus,
+            Map<String, String> otherProperties) throws DynamicStatusStoreException {
+        for (int attempt = 0; attempt < MAX_STATUS_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                sleepAfterCollision();
+            }
+
+            String oldStatus = dss.get("run." + runName + ".status");
+            if (swapRunStatus(dss, runName, oldStatus, newStatus, otherProperties)) {
+                return;
+            }
+        }
+        throw new DynamicStatusStoreException("Unable to set the status of run " + runName + " to " + newStatus
+                + ", it kept changing");
+    }
+
+    /**
+     * The number of keys a sharded counter is spread over
+     */
+    public static final int COUNTER_SHARDS = 16;
+
+    private static final String COUNTER_SHARD_INFIX = ".shard.";
+
+    // *** The shard used when no run is given, so each JVM mostly keeps to its own
+    private static final int JVM_COUNTER_SHARD = new Random().nextInt(COUNTER_SHARDS);
+
     public static void incrementMetric(IDynamicStatusStoreService dss, String metric) {
         try {
-            incrementProperty(dss, metric);
+            incrementShardedCounter(dss, metric, JVM_COUNTER_SHARD);
         } catch (Exception e) {
             logger.warn("Failed to update metric", e);
         }
     }
 
-    public static void incrementProperty(IDynamicStatusStoreService dss, String property)
-            throws DynamicStatusStoreException {
+    /**
+     * Increments a metric, using the counter shard picked by the run name
+     * 
+     * @param dss     - the framework namespace of the DSS
+     * @param metric  - the metric counter
+     * @param runName - the run the metric is for
+     */
+    public static void incrementMetric(IDynamicStatusStoreService dss, String metric, String runName) {
+        try {
+            incrementShardedCounter(dss, metric, Math.floorMod(runName.hashCode(), COUNTER_SHARDS));
+        } catch (Exception e) {
+            logger.warn("Failed to update metric", e);
+        }
+    }
 
+    /**
+     * <p>
+     * Increments a counter which is spread over {@link #COUNTER_SHARDS} keys,
+     * &lt;counter&gt;.shard.&lt;n&gt;, so that many runs starting at once do
+     * not all fight over one key. If the shard has been changed underneath us,
+     * the next shard is tried straight away, and there is only a wait if every
+     * shard has been tried.
+     * </p>
+     * 
+     * <p>
+     * The value is read with {@link #getShardedCounter(IDynamicStatusStoreService, String)}.
+     * </p>
+     * 
+     * @param dss     - the DSS
+     * @param counter - the counter
+     * @param shard   - the shard to try first
+     * @throws DynamicStatusStoreException
+     */
+    public static void incrementShardedCounter(IDynamicStatusStoreService dss, String counter, int shard)
+            throws DynamicStatusStoreException {
+        int attempt = 0;
         while (true) {
-            long oldValue = 0;
-            String sOldValue = AbstractManager.nulled(dss.get(property));
-            if (sOldValue != null) {
-                oldValue = Long.parseLong(sOldValue);
+            String key = counter + COUNTER_SHARD_INFIX + Math.floorMod(shard + attempt, COUNTER_SHARDS);
+            if (swapIncrement(dss, key)) {
+                return;
             }
 
-            oldValue++;
+            attempt++;
+            if (attempt % COUNTER_SHARDS == 0) {
+                sleepAfterCollision();
+            }
+        }
+    }
 
-            if (dss.putSwap(property, sOldValue, Long.toString(oldValue))) {
-                return;
+    /**
+     * Reads a sharded counter with one DSS call, adding the shards to the
+     * unsharded value written by older levels of the framework
+     * 
+     * @param dss     - the DSS
+     * @param counter - the counter
+     * @return the total of the counter
+     * @throws DynamicStatusStoreException
+     */
+    public static long getShardedCounter(IDynamicStatusStoreService dss, String counter)
+            throws DynamicStatusStoreException {
+        long total = 0;
+        String shardPrefix = counter + COUNTER_SHARD_INFIX;
+        for (Entry<String, String> entry : dss.getPrefix(counter).entrySet()) {
+            String key = entry.getKey();
+            if (!key.equals(counter) && !key.startsWith(shardPrefix)) {
+                continue; // *** Another counter which starts with the same name
+            }
+
+            String value = AbstractManager.nulled(entry.getValue());
+            if (value != null) {
+                total += Long.parseLong(value);
             }
+        }
+        return total;
+    }
+
+    public static void incrementProperty(IDynamicStatusStoreService dss, String property)
+            throws DynamicStatusStoreException {
 
-            try {
-                Thread.sleep(50);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new DynamicStatusStoreException("Swap wait interrupted", e);
+        while (true) {
+            if (swapIncrement(dss, property)) {
+                return;
             }
+
+            sleepAfterCollision();
         }
 
     }
 
+    private static boolean swapIncrement(IDynamicStatusStoreService dss, String property)
+            throws DynamicStatusStoreException {
+        long oldValue = 0;
+        String sOldValue = AbstractManager.nulled(dss.get(property));
+        if (sOldValue != null) {
+            oldValue = Long.parseLong(sOldValue);
+        }
+
+        oldValue++;
+
+        return dss.putSwap(property, sOldValue, Long.toString(oldValue));
+    }
+
+    private static void sleepAfterCollision() throws DynamicStatusStoreException {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DynamicStatusStoreException("Swap wait interrupted", e);
+        }
+    }
+
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi.utils;
+
+import java.util.concurrent.CompletableFuture;
+
+import dev.galasa.framework.spi.FrameworkException;
+
+/**
+ * <p>
+ * Helps the stores give asynchronous versions of their calls.
+ * </p>
+ *
+ * <p>
+ * The default asynchronous methods of the stores use {@link #completed(StoreCall)},
+ * which makes the call on the caller's thread and returns a future which is
+ * already complete. A store which can overlap calls overrides them.
+ * </p>
+ */
+public class StoreFutures {
+
+    /**
+     * A store call which may throw a framework exception
+     */
+    @FunctionalInterface
+    public interface StoreCall<T> {
+        T call() throws FrameworkException;
+    }
+
+    private StoreFutures() {
+    }
+
+    /**
+     * Makes the call now
+     *
+     * @param call - the store call
+     * @return a future holding the result of the call, or completed
+     *         exceptionally with what the call threw
+     */
+    public static <T> CompletableFuture<T> completed(StoreCall<T> call) {
+        try {
+            return CompletableFuture.completedFuture(call.call());
+        } catch (FrameworkException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dev.galasa.framework.internal.dss.FpfDynamicStatusStore;
+import dev.galasa.framework.mocks.MockFramework;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
+import dev.galasa.framework.spi.FrameworkException;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.RunFilter;
+import dev.galasa.framework.spi.RunPage;
+import dev.galasa.framework.spi.RunRequest;
+import dev.galasa.framework.spi.utils.DssUtils;
+
+public class TestFrameworkRuns {
+
+    private static class CountingDynamicStatusStore extends FpfDynamicStatusStore {
+        private final AtomicInteger prefixReads = new AtomicInteger();
+        private final AtomicInteger transactions = new AtomicInteger();
+        private Runnable            beforeNextTransaction;
+
+        public CountingDynamicStatusStore(Path file) throws DynamicStatusStoreException {
+            super(file.toUri());
+        }
+
+        @Override
+        public @NotNull Map<String, String> getPrefix(@NotNull String keyPrefix) throws DynamicStatusStoreException {
+            // *** Reads of the leases are made by the store itself when it is first watched
+            if (!keyPrefix.startsWith("lease.")) {
+                prefixReads.incrementAndGet();
+            }
+            return super.getPrefix(keyPrefix);
+        }
+
+        @Override
+        public void performActions(IDssAction... actions) throws DynamicStatusStoreException, DynamicStatusStoreMatchException {
+            transactions.incrementAndGet();
+            Runnable before = beforeNextTransaction;
+            beforeNextTransaction = null;
+            if (before != null) {
+                before.run();
+            }
+            super.performActions(actions);
+        }
+    }
+
+    private File                       cpsFile;
+    private Path                       dssFile;
+    private CountingDynamicStatusStore dssStore;
+    private FrameworkRuns              frameworkRuns;
+    private IDynamicStatusStoreService dss;
+
+    @Before
+    public void setup() throws Exception {
+        this.cpsFile = File.createTempFile("galasa_cps_junit", ".properties");
+        this.dssFile = Files.createTempFile("galasa_dss_junit", ".properties");
+        this.dssStore = new CountingDynamicStatusStore(this.dssFile);
+
+        MockFramework framework = new MockFramework(this.cpsFile);
+        framework.setDynamicStatusStore(this.dssStore);
+        this.frameworkRuns = new FrameworkRuns(framework);
+        this.dss = framework.getDynamicStatusStoreService("framework");
+    }
+
+    @After
+    public void teardown() throws Exception {
+        this.dssStore.shutdown();
+        Files.deleteIfExists(this.dssFile);
+        this.cpsFile.delete();
+    }
+
+    private void createRun(String runName, String status, String group) throws DynamicStatusStoreException {
+        this.dss.put("run." + runName + ".test", "bundle/test.Class");
+        this.dss.put("run." + runName + ".status", status);
+        this.dss.put("run." + runName + ".group", group);
+    }
+
+    private List<String> names(List<IRun> runs) {
+        return runs.stream().map(IRun::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testRunsAreListedFromOneRead() throws Exception {
+        createRun("U1", "queued", "group1");
+        createRun("U10", "allocated", "group1");
+        createRun("U2", "finished", "group2");
+        createRun("U3", "queued", "group2");
+
+        this.dssStore.prefixReads.set(0);
+
+        List<IRun> allRuns = this.frameworkRuns.getAllRuns();
+        assertThat(names(allRuns)).containsExactlyInAnyOrder("U1", "U10", "U2", "U3");
+        assertThat(this.dssStore.prefixReads.get()).isEqualTo(1);
+
+        IRun u1 = allRuns.stream().filter(run -> "U1".equals(run.getName())).findFirst().get();
+        assertThat(u1.getStatus()).isEqualTo("queued");
+        assertThat(u1.getTestBundleName()).isEqualTo("bundle");
+        assertThat(u1.getTestClassName()).isEqualTo("test.Class");
+
+        assertThat(names(this.frameworkRuns.getQueuedRuns())).containsExactlyInAnyOrder("U1", "U3");
+        assertThat(names(this.frameworkRuns.getActiveRuns())).containsExactly("U10");
+        assertThat(names(this.frameworkRuns.getAllGroupedRuns("group2"))).containsExactlyInAnyOrder("U2", "U3");
+        assertThat(this.dssStore.prefixReads.get()).isEqualTo(4);
+
+        assertThat(this.frameworkRuns.getRun("U10").getStatus()).isEqualTo("allocated");
+        assertThat(this.frameworkRuns.getRun("U4")).isNull();
+        assertThat(this.dssStore.prefixReads.get()).isEqualTo(6);
+    }
+
+    @Test
+    public void testRunStateViewIsKeptUpToDateByWatches() throws Exception {
+        Files.write(this.cpsFile.toPath(), "framework.run.state.view=true\n".getBytes());
+        MockFramework framework = new MockFramework(this.cpsFile);
+        framework.setDynamicStatusStore(this.dssStore);
+        FrameworkRuns viewRuns = new FrameworkRuns(framework);
+
+        createRun("U1", "queued", "group1");
+
+        this.dssStore.prefixReads.set(0);
+        assertThat(names(viewRuns.getQueuedRuns())).containsExactly("U1");
+        assertThat(this.dssStore.prefixReads.get()).as("The view should be seeded with one read").isEqualTo(1);
+
+        createRun("U2", "queued", "group1");
+        this.dss.put("run.U1.status", "allocated");
+        assertThat(names(viewRuns.getQueuedRuns())).containsExactly("U2");
+        assertThat(names(viewRuns.getActiveRuns())).containsExactly("U1");
+        assertThat(names(viewRuns.getAllGroupedRuns("group1"))).containsExactlyInAnyOrder("U1", "U2");
+
+        RunStateView.Snapshot snapshot = viewRuns.getRunStateView().getSnapshot();
+        this.dss.deletePrefix("run.U1.");
+        assertThat(names(viewRuns.getAllRuns())).containsExactly("U2");
+        assertThat(snapshot.getRun("U1")).as("Snapshots should not change").isNotNull();
+        assertThat(viewRuns.getRunStateView().getSnapshot().getRun("U1")).isNull();
+        assertThat(this.dssStore.prefixReads.get()).isEqualTo(1);
+
+        viewRuns.shutdown();
+    }
+
+    private IRun submit(FrameworkRuns runs) throws Exception {
+        return runs.submitRun("unittest", "tester", "bundle", "test.Class", "group1", null, null, null, false, false,
+                null, null, null, "java");
+    }
+
+    @Test
+    public void testRunNumbersAreClaimedInBlocks() throws Exception {
+        Files.write(this.cpsFile.toPath(), ("framework.request.type.UNITTEST.prefix=T\n"
+                + "framework.request.prefix.T.block.size=5\n").getBytes());
+        MockFramework framework = new MockFramework(this.cpsFile);
+        framework.setDynamicStatusStore(this.dssStore);
+        FrameworkRuns runs = new FrameworkRuns(framework);
+
+        assertThat(submit(runs).getName()).isEqualTo("T1");
+        assertThat(this.dss.get("request.prefix.T.lastused")).isEqualTo("5");
+        assertThat(submit(runs).getName()).isEqualTo("T2");
+        assertThat(submit(runs).getName()).isEqualTo("T3");
+        assertThat(this.dss.get("request.prefix.T.lastused")).isEqualTo("5");
+
+        // *** Another JVM claims the next block
+        FrameworkRuns otherRuns = new FrameworkRuns(framework);
+        assertThat(submit(otherRuns).getName()).isEqualTo("T6");
+        assertThat(this.dss.get("request.prefix.T.lastused")).isEqualTo("10");
+
+        assertThat(submit(runs).getName()).isEqualTo("T4");
+        assertThat(submit(runs).getName()).isEqualTo("T5");
+        assertThat(submit(runs).getName()).isEqualTo("T11");
+    }
+
+    @Test
+    public void testRunNumbersWrapAtTheMaximum() throws Exception {
+        Files.write(this.cpsFile.toPath(), ("framework.request.type.UNITTEST.prefix=T\n"
+                + "framework.request.prefix.T.block.size=5\n"
+                + "framework.request.prefix.T.maximum=3\n").getBytes());
+        MockFramework framework = new MockFramework(this.cpsFile);
+        framework.setDynamicStatusStore(this.dssStore);
+        FrameworkRuns runs = new FrameworkRuns(framework);
+
+        this.dss.put("request.prefix.T.lastused", "1");
+        createRun("T1", "queued", "group1");
+
+        assertThat(submit(runs).getName()).isEqualTo("T2");
+        assertThat(submit(runs).getName()).isEqualTo("T3");
+
+        // *** Back to 1 after the maximum, skipping the numbers still in use
+        runs.delete("T2");
+        assertThat(submit(runs).getName()).isEqualTo("T2");
+
+        try {
+            submit(runs);
+            fail("All the run numbers are in use");
+        } catch (FrameworkException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBackoffIsBoundedAndGrows() {
+        RunNumberAllocator allocator = new RunNumberAllocator(this.dss, new Random(1));
+        for (int attempt = 0; attempt < 100; attempt++) {
+            long wait = allocator.backoff(attempt);
+            assertThat(wait).isBetween(1L, 1001L);
+            if (attempt == 0) {
+                assertThat(wait).isLessThanOrEqualTo(11L);
+            }
+        }
+    }
+
+    @Test
+    public void testRunsAreSubmittedInOneTransaction() throws Exception {
+        Files.write(this.cpsFile.toPath(), "framework.request.type.UNITTEST.prefix=T\n".getBytes());
+        MockFramework framework = new MockFramework(this.cpsFile);
+        framework.setDynamicStatusStore(this.dssStore);
+        FrameworkRuns runs = new FrameworkRuns(framework);
+
+        // *** T2 is already in use, so the run given it is renamed
+        createRun("T2", "finished", "group0");
+
+        List<RunRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            RunRequest request = new RunRequest("bundle", "test.Class" + i);
+            request.setType("unittest");
+            request.setGroupName("group1");
+            requests.add(request);
+        }
+        Properties overrides = new Properties();
+        overrides.setProperty("zos.image", "IMG1");
+        requests.get(0).setOverrides(overrides);
+
+        this.dssStore.transactions.set(0);
+        this.dssStore.prefixReads.set(0);
+        List<IRun> submitted = runs.submitRuns(requests);
+
+        assertThat(names(submitted)).containsExactly("T1", "T4", "T3");
+        assertThat(this.dssStore.transactions.get()).as("One failed and one good transaction").isEqualTo(2);
+        assertThat(this.dssStore.prefixReads.get()).as("The runs should not be read back").isEqualTo(0);
+        assertThat(submitted.get(1).getTestClassName()).isEqualTo("test.Class1");
+        assertThat(submitted.get(2).getStatus()).isEqualTo("queued");
+        assertThat(submitted.get(2).getRequestor()).isEqualTo("unknown");
+        assertThat(this.dss.get("run.T1.override.zos.image")).isEqualTo("IMG1");
+        assertThat(names(runs.getAllGroupedRuns("group1"))).containsExactlyInAnyOrder("T1", "T3", "T4");
+        assertThat(this.dss.get("run.T2.group")).isEqualTo("group0");
+    }
+
+    @Test
+    public void testRunsAreFoundFromTheIndex() throws Exception {
+        Files.write(this.cpsFile.toPath(), ("framework.request.type.UNITTEST.prefix=T\n"
+                + "framework.run.index=true\n").getBytes());
+        MockFramework framework = new MockFramework(this.cpsFile);
+        framework.setDynamicStatusStore(this.dssStore);
+        FrameworkRuns runs = new FrameworkRuns(framework);
+
+        submit(runs);
+        submit(runs);
+        createRun("U1", "queued", "group1"); // *** Not in the index, so not found
+        this.dss.put(DssUtils.getRunGroupIndexPrefix("group1.other") + "U2", "U2");
+
+        this.dssStore.prefixReads.set(0);
+        assertThat(names(runs.getQueuedRuns())).containsExactlyInAnyOrder("T1", "T2");
+        assertThat(this.dssStore.prefixReads.get()).as("The index and then each run").isEqualTo(3);
+        assertThat(names(runs.getAllGroupedRuns("group1"))).containsExactlyInAnyOrder("T1", "T2");
+
+        assertThat(DssUtils.swapRunStatus(this.dss, "T1", "queued", "allocated", null)).isTrue();
+        assertThat(DssUtils.swapRunStatus(this.dss, "T1", "queued", "allocated", null)).isFalse();
+        assertThat(names(runs.getRunsWithStatus("allocated"))).containsExactly("T1");
+        assertThat(names(runs.getQueuedRuns())).containsExactly("T2");
+
+        // *** T2 is active from its heartbeat, U1 has a stale active key
+        this.dss.put("run.T2.heartbeat", "2024-01-01T00:00:00Z");
+        this.dss.put(DssUtils.getRunActiveIndexPrefix() + "T2", "T2");
+        this.dss.put(DssUtils.getRunActiveIndexPrefix() + "U1", "U1");
+        this.dssStore.prefixReads.set(0);
+        assertThat(names(runs.getActiveRuns())).containsExactlyInAnyOrder("T1", "T2");
+        assertThat(this.dssStore.prefixReads.get()).as("The two indexes and then each run").isEqualTo(5);
+        this.dss.delete("run.T2.heartbeat");
+
+        // *** Changes made without the index are not returned
+        this.dss.put("run.T2.status", "finished");
+        assertThat(runs.getQueuedRuns()).isEmpty();
+
+        assertThat(runs.reset("T1")).isTrue();
+        assertThat(names(runs.getQueuedRuns())).containsExactly("T1");
+
+        assertThat(runs.delete("T1")).isTrue();
+        assertThat(this.dss.getPrefix(DssUtils.RUN_INDEX_PREFIX)).containsOnlyKeys(
+                DssUtils.getRunStatusIndexPrefix("queued") + "T2",
+                DssUtils.getRunGroupIndexPrefix("group1") + "T2",
+                DssUtils.getRunGroupIndexPrefix("group1.other") + "U2",
+                DssUtils.getRunActiveIndexPrefix() + "T2",
+                DssUtils.getRunActiveIndexPrefix() + "U1");
+    }
+
+    @Test
+    public void testManyIndexedRunsAreReadTogether() throws Exception {
+        Files.write(this.cpsFile.toPath(), ("framework.request.type.UNITTEST.prefix=T\n"
+                + "framework.run.index=true\n").getBytes());
+        MockFramework framework = new MockFramework(this.cpsFile);
+        framework.setDynamicStatusStore(this.dssStore);
+        FrameworkRuns runs = new FrameworkRuns(framework);
+
+        for (int i = 0; i < 20; i++) {
+            submit(runs);
+        }
+        createRun("U1", "queued", "group2"); // *** Not in the index, so not found
+
+        this.dssStore.prefixReads.set(0);
+        assertThat(runs.getQueuedRuns()).hasSize(20);
+        assertThat(this.dssStore.prefixReads.get()).as("The index and then every run").isEqualTo(2);
+
+        RunFilter filter = new RunFilter();
+        filter.setStatus("queued");
+        this.dssStore.prefixReads.set(0);
+        RunPage page = runs.listRuns(filter, null, 15);
+        assertThat(page.getRuns()).hasSize(15);
+        assertThat(page.getNextCursor()).isNotNull();
+        assertThat(this.dssStore.prefixReads.get()).as("The index and then every run").isEqualTo(2);
+    }
+
+    @Test
+    public void testDeleteRetriesWhenTheStatusChanges() throws Exception {
+        Files.write(this.cpsFile.toPath(), "framework.request.type.UNITTEST.prefix=T\n".getBytes());
+        MockFramework framework = new MockFramework(this.cpsFile);
+        framework.setDynamicStatusStore(this.dssStore);
+        FrameworkRuns runs = new FrameworkRuns(framework);
+        submit(runs);
+
+        // *** The run is allocated between the delete reading it and deleting it
+        this.dssStore.beforeNextTransaction = () -> {
+            try {
+                DssUtils.swapRunStatus(this.dss, "T1", "queued", "allocated", null);
+            } catch (DynamicStatusStoreException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        assertThat(runs.delete("T1")).isTrue();
+        assertThat(this.dss.getPrefix("run.T1.")).isEmpty();
+        assertThat(this.dss.getPrefix(DssUtils.RUN_INDEX_PREFIX)).as("No index keys should be left behind").isEmpty();
+    }
+
+    @Test
+    public void testRunsAreListedInPages() throws Exception {
+        createRun("U1", "queued", "group1");
+        createRun("U10", "allocated", "group1");
+        createRun("U2", "finished", "group2");
+        createRun("U3", "queued", "group2");
+
+        RunPage page = this.frameworkRuns.listRuns(null, null, 2);
+        assertThat(names(page.getRuns())).containsExactly("U1", "U10");
+        assertThat(page.getNextCursor()).isEqualTo("U10");
+
+        // *** Runs deleted between pages do not upset the paging
+        this.frameworkRuns.delete("U2");
+        page = this.frameworkRuns.listRuns(null, page.getNextCursor(), 2);
+        assertThat(names(page.getRuns())).containsExactly("U3");
+        assertThat(page.getNextCursor()).isNull();
+
+        RunFilter filter = new RunFilter();
+        filter.setStatus("queued");
+        assertThat(this.frameworkRuns.isIndexed(filter)).as("Every run has to be read").isFalse();
+        this.dssStore.prefixReads.set(0);
+        page = this.frameworkRuns.listRuns(filter, null, 1);
+        assertThat(this.dssStore.prefixReads.get()).as("One read for the page").isEqualTo(1);
+        assertThat(names(page.getRuns())).containsExactly("U1");
+        page = this.frameworkRuns.listRuns(filter, page.getNextCursor(), 1);
+        assertThat(names(page.getRuns())).containsExactly("U3");
+        assertThat(page.getNextCursor()).isNull();
+
+        page = this.frameworkRuns.listRuns(null, null, Integer.MAX_VALUE);
+        assertThat(names(page.getRuns())).containsExactly("U1", "U10", "U3");
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void testRunsAreListedInPagesFromTheIndex() throws Exception {
+        Files.write(this.cpsFile.toPath(), ("framework.request.type.UNITTEST.prefix=T\n"
+                + "framework.run.index=true\n").getBytes());
+        MockFramework framework = new MockFramework(this.cpsFile);
+        framework.setDynamicStatusStore(this.dssStore);
+        FrameworkRuns runs = new FrameworkRuns(framework);
+
+        for (int i = 0; i < 5; i++) {
+            submit(runs);
+        }
+        createRun("U1", "queued", "group1");
+
+        RunFilter filter = new RunFilter();
+        filter.setGroupName("group1");
+        assertThat(runs.isIndexed(filter)).isTrue();
+        assertThat(runs.isIndexed(null)).isFalse();
+
+        this.dssStore.prefixReads.set(0);
+        RunPage page = runs.listRuns(filter, null, 2);
+        assertThat(names(page.getRuns())).containsExactly("T1", "T2");
+        assertThat(this.dssStore.prefixReads.get()).as("The index and then only the runs on the page").isEqualTo(3);
+
+        List<String> listed = new ArrayList<>(names(page.getRuns()));
+        while (page.getNextCursor() != null) {
+            page = runs.listRuns(filter, page.getNextCursor(), 2);
+            listed.addAll(names(page.getRuns()));
+        }
+        assertThat(listed).containsExactly("T1", "T2", "T3", "T4", "T5");
+    }
+}
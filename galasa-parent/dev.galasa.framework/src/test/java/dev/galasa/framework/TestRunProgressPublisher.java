@@ -0,0 +1,146 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dev.galasa.framework.internal.dss.FpfDynamicStatusStore;
+import dev.galasa.framework.internal.dss.FrameworkDynamicStatusStoreService;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+
+public class TestRunProgressPublisher {
+
+    private static class CountingDynamicStatusStore extends FpfDynamicStatusStore {
+        private final AtomicInteger writes = new AtomicInteger();
+        private final AtomicInteger asyncWrites = new AtomicInteger();
+
+        public CountingDynamicStatusStore(Path file) throws DynamicStatusStoreException {
+            super(file.toUri());
+        }
+
+        @Override
+        public void put(Map<String, String> keyValues) throws DynamicStatusStoreException {
+            writes.incrementAndGet();
+            super.put(keyValues);
+        }
+
+        @Override
+        public void put(String key, String value) throws DynamicStatusStoreException {
+            writes.incrementAndGet();
+            super.put(key, value);
+        }
+
+        @Override
+        public void performActions(IDssAction... actions) throws DynamicStatusStoreException, DynamicStatusStoreMatchException {
+            writes.incrementAndGet();
+            super.performActions(actions);
+        }
+
+        @Override
+        public CompletableFuture<Void> putAsync(Map<String, String> keyValues) {
+            asyncWrites.incrementAndGet();
+            return super.putAsync(keyValues);
+        }
+
+        @Override
+        public CompletableFuture<Void> performActionsAsync(IDssAction... actions) {
+            asyncWrites.incrementAndGet();
+            return super.performActionsAsync(actions);
+        }
+    }
+
+    private Path                       dssFile;
+    private CountingDynamicStatusStore dssStore;
+    private IDynamicStatusStoreService dss;
+
+    @Before
+    public void setup() throws Exception {
+        this.dssFile = Files.createTempFile("galasa_dss_junit", ".properties");
+        this.dssStore = new CountingDynamicStatusStore(this.dssFile);
+        this.dss = new FrameworkDynamicStatusStoreService(null, this.dssStore, "framework");
+    }
+
+    @After
+    public void teardown() throws Exception {
+        this.dssStore.shutdown();
+        Files.deleteIfExists(this.dssFile);
+    }
+
+    @Test
+    public void testProgressIsCoalesced() throws Exception {
+        RunProgressPublisher progress = new RunProgressPublisher(this.dss, 60000);
+        progress.start();
+
+        progress.put("run.U1.method.total", "100");
+        for (int i = 1; i <= 100; i++) {
+            progress.put("run.U1.method.current", Integer.toString(i));
+            progress.put("run.U1.method.name", "method" + i);
+        }
+        assertThat(this.dssStore.writes.get()).as("Nothing should be written before the flush").isEqualTo(0);
+
+        progress.flush();
+        assertThat(this.dssStore.writes.get()).isEqualTo(1);
+        assertThat(this.dss.get("run.U1.method.current")).isEqualTo("100");
+        assertThat(this.dss.get("run.U1.method.name")).isEqualTo("method100");
+
+        progress.put("run.U1.method.name", "again");
+        progress.delete("run.U1.method.name");
+        progress.delete("run.U1.method.current");
+        progress.delete("run.U1.method.total");
+        progress.shutdown();
+
+        assertThat(this.dssStore.writes.get()).as("Shutdown should flush once").isEqualTo(2);
+        assertThat(this.dssStore.asyncWrites.get()).as("The batches should be written asynchronously").isEqualTo(2);
+        assertThat(this.dss.getPrefix("run.U1.method.")).isEmpty();
+    }
+
+    @Test
+    public void testAsyncFlushesAreWrittenInOrder() throws Exception {
+        RunProgressPublisher progress = new RunProgressPublisher(this.dss, 60000);
+
+        List<CompletableFuture<Void>> flushes = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            progress.put("run.U1.method.current", Integer.toString(i));
+            flushes.add(progress.flushAsync());
+        }
+        flushes.get(flushes.size() - 1).get(10, TimeUnit.SECONDS);
+
+        for (CompletableFuture<Void> flush : flushes) {
+            assertThat(flush).as("Each batch waits for the one before").isDone();
+        }
+        assertThat(this.dss.get("run.U1.method.current")).isEqualTo("20");
+
+        progress.shutdown();
+    }
+
+    @Test
+    public void testNoIntervalWritesStraightAway() throws Exception {
+        RunProgressPublisher progress = new RunProgressPublisher(this.dss, 0);
+        progress.start();
+
+        progress.put("run.U1.method.current", "1");
+        assertThat(this.dss.get("run.U1.method.current")).isEqualTo("1");
+
+        progress.shutdown();
+        assertThat(this.dssStore.writes.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.cps;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Null;
+
+import org.junit.Test;
+
+import dev.galasa.framework.mocks.MockFramework;
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.IConfigurationPropertyStore;
+
+public class CachingConfigurationPropertyStoreTest {
+
+    private static class CountingStore implements IConfigurationPropertyStore {
+        private final Map<String, String> properties = new HashMap<>();
+        private int gets;
+
+        @Override
+        public @Null String getProperty(@NotNull String key) throws ConfigurationPropertyStoreException {
+            gets++;
+            return properties.get(key);
+        }
+
+        @Override
+        public @NotNull Map<String, String> getPrefixedProperties(@NotNull String prefix) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setProperty(@NotNull String key, @NotNull String value) {
+            properties.put(key, value);
+        }
+
+        @Override
+        public void deleteProperty(@NotNull String key) {
+            properties.remove(key);
+        }
+
+        @Override
+        public Map<String, String> getPropertiesFromNamespace(String namespace) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> getNamespaces() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    @Test
+    public void testFoundAndMissingKeysAreCached() throws Exception {
+        CountingStore store = new CountingStore();
+        store.setProperty("zos.image.IMG1.ipv4.hostname", "img1.example.com");
+        CachingConfigurationPropertyStore cache = new CachingConfigurationPropertyStore(store, Arrays.asList("zos"), 60000, 100);
+
+        assertThat(cache.getProperty("zos.image.IMG1.ipv4.hostname")).isEqualTo("img1.example.com");
+        assertThat(cache.getProperty("zos.image.IMG1.ipv4.hostname")).isEqualTo("img1.example.com");
+        assertThat(cache.getProperty("zos.image.missing")).isNull();
+        assertThat(cache.getProperty("zos.image.missing")).isNull();
+
+        assertThat(store.gets).isEqualTo(2);
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    public void testOtherNamespacesAreNotCached() throws Exception {
+        CountingStore store = new CountingStore();
+        CachingConfigurationPropertyStore cache = new CachingConfigurationPropertyStore(store, Arrays.asList("zos"), 60000, 100);
+
+        cache.getProperty("docker.engine.port");
+        cache.getProperty("docker.engine.port");
+
+        assertThat(store.gets).isEqualTo(2);
+        assertThat(cache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void testEntriesExpireAndAreInvalidatedByWrites() throws Exception {
+        CountingStore store = new CountingStore();
+        AtomicLong now = new AtomicLong();
+        CachingConfigurationPropertyStore cache = new CachingConfigurationPropertyStore(store, Arrays.asList("*"), 1000, 100, now::get);
+
+        assertThat(cache.getProperty("zos.image.name")).isNull();
+
+        // A write made elsewhere is seen once the entry expires
+        store.setProperty("zos.image.name", "IMG1");
+        assertThat(cache.getProperty("zos.image.name")).isNull();
+        now.addAndGet(1000 * 1000000L);
+        assertThat(cache.getProperty("zos.image.name")).isEqualTo("IMG1");
+
+        // A write through the cache is seen straight away
+        cache.setProperty("zos.image.name", "IMG2");
+        assertThat(cache.getProperty("zos.image.name")).isEqualTo("IMG2");
+        cache.deleteProperty("zos.image.name");
+        assertThat(cache.getProperty("zos.image.name")).isNull();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        CountingStore store = new CountingStore();
+        CachingConfigurationPropertyStore cache = new CachingConfigurationPropertyStore(store, Arrays.asList("*"), 60000, 2);
+
+        cache.getProperty("zos.a");
+        cache.getProperty("zos.b");
+        cache.getProperty("zos.a");
+        cache.getProperty("zos.c");
+
+        assertThat(cache.getSize()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+
+        int gets = store.gets;
+        cache.getProperty("zos.a");
+        assertThat(store.gets).as("zos.a was used recently so should still be cached").isEqualTo(gets);
+        cache.getProperty("zos.b");
+        assertThat(store.gets).as("zos.b should have been evicted").isEqualTo(gets + 1);
+    }
+
+    @Test
+    public void testBatchesOnlyFetchUncachedKeys() throws Exception {
+        CountingStore store = new CountingStore();
+        store.setProperty("zos.image.IMG1.name", "IMG1");
+        store.setProperty("zos.image.name", "DEFAULT");
+        CachingConfigurationPropertyStore cache = new CachingConfigurationPropertyStore(store, Arrays.asList("zos"), 60000, 100);
+
+        cache.getProperty("zos.image.IMG1.name");
+        Map<String, String> values = cache.getProperties(Arrays.asList("zos.image.IMG1.name", "zos.image.PLEX.name", "zos.image.name"));
+        assertThat(values).containsOnly(entry("zos.image.IMG1.name", "IMG1"), entry("zos.image.name", "DEFAULT"));
+        assertThat(store.gets).isEqualTo(3);
+
+        values = cache.getProperties(Arrays.asList("zos.image.IMG1.name", "zos.image.PLEX.name", "zos.image.name"));
+        assertThat(values).hasSize(2);
+        assertThat(store.gets).as("Everything should now be cached").isEqualTo(3);
+    }
+
+    @Test
+    public void testCachedReadsAreStillRecorded() throws Exception {
+        CountingStore store = new CountingStore();
+        store.setProperty("zos.image.IMG1.name", "IMG1");
+        CachingConfigurationPropertyStore cache = new CachingConfigurationPropertyStore(store, Arrays.asList("zos"), 60000, 100);
+
+        Properties record = new Properties();
+        FrameworkConfigurationPropertyService cps = new FrameworkConfigurationPropertyService(new MockFramework(),
+                cache, new Properties(), record, "zos");
+        cps.getProperty("image", "name", "IMG1");
+
+        record.clear();
+        assertThat(cps.getProperty("image", "name", "IMG1")).isEqualTo("IMG1");
+        assertThat(record.getProperty("zos.image.IMG1.name")).isEqualTo("IMG1");
+        assertThat(cps.getProperty("image", "missing", "IMG1")).isNull();
+        assertThat(record.getProperty("zos.image.IMG1.missing")).isEqualTo("*** MISSING ***");
+        assertThat(record.getProperty("zos.image.missing")).isEqualTo("*** MISSING ***");
+    }
+}
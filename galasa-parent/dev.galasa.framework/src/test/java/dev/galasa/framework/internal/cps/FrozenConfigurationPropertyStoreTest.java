@@ -0,0 +1,164 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.cps;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Null;
+
+import org.junit.Test;
+
+import dev.galasa.framework.mocks.MockFramework;
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.IConfigurationPropertyStore;
+
+public class FrozenConfigurationPropertyStoreTest {
+
+    private static class CountingStore implements IConfigurationPropertyStore {
+        private final Map<String, String> properties = new HashMap<>();
+        private int gets;
+        private boolean available = true;
+
+        @Override
+        public @Null String getProperty(@NotNull String key) throws ConfigurationPropertyStoreException {
+            checkAvailable();
+            gets++;
+            return properties.get(key);
+        }
+
+        @Override
+        public @NotNull Map<String, String> getPrefixedProperties(@NotNull String prefix) throws ConfigurationPropertyStoreException {
+            checkAvailable();
+            Map<String, String> values = new HashMap<>();
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                if (property.getKey().startsWith(prefix)) {
+                    values.put(property.getKey(), property.getValue());
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public void setProperty(@NotNull String key, @NotNull String value) {
+            properties.put(key, value);
+        }
+
+        @Override
+        public void deleteProperty(@NotNull String key) {
+            properties.remove(key);
+        }
+
+        @Override
+        public Map<String, String> getPropertiesFromNamespace(String namespace) throws ConfigurationPropertyStoreException {
+            return getPrefixedProperties(namespace);
+        }
+
+        @Override
+        public List<String> getNamespaces() {
+            List<String> namespaces = new ArrayList<>();
+            for (String key : properties.keySet()) {
+                String namespace = key.substring(0, key.indexOf('.'));
+                if (!namespaces.contains(namespace)) {
+                    namespaces.add(namespace);
+                }
+            }
+            return namespaces;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        private void checkAvailable() throws ConfigurationPropertyStoreException {
+            if (!available) {
+                throw new ConfigurationPropertyStoreException("The store is not available");
+            }
+        }
+    }
+
+    private CountingStore createStore() {
+        CountingStore store = new CountingStore();
+        store.setProperty("zos.image.IMG1.name", "IMG1");
+        store.setProperty("zos.image.name", "DEFAULT");
+        store.setProperty("zosmf.server.port", "443");
+        store.setProperty("docker.engine.port", "2375");
+        return store;
+    }
+
+    @Test
+    public void testReadsComeFromTheSnapshot() throws Exception {
+        CountingStore store = createStore();
+        Properties overrides = new Properties();
+        overrides.setProperty("zos.image.name", "OVERRIDDEN");
+        FrozenConfigurationPropertyStore frozen = new FrozenConfigurationPropertyStore(store, Arrays.asList("zos"), overrides);
+
+        store.available = false;
+        assertThat(frozen.getProperty("zos.image.IMG1.name")).isEqualTo("IMG1");
+        assertThat(frozen.getProperty("zos.image.name")).isEqualTo("OVERRIDDEN");
+        assertThat(frozen.getProperty("zos.image.missing")).isNull();
+        assertThat(frozen.getProperties(Arrays.asList("zos.image.IMG1.name", "zos.image.PLEX.name", "zos.image.name")))
+                .containsOnly(entry("zos.image.IMG1.name", "IMG1"), entry("zos.image.name", "OVERRIDDEN"));
+        assertThat(frozen.getPrefixedProperties("zos.image."))
+                .containsOnly(entry("zos.image.IMG1.name", "IMG1"), entry("zos.image.name", "OVERRIDDEN"));
+        assertThat(frozen.getPropertiesFromNamespace("zos")).hasSize(2);
+        assertThat(store.gets).isEqualTo(0);
+    }
+
+    @Test
+    public void testOtherNamespacesAreReadFromTheStore() throws Exception {
+        CountingStore store = createStore();
+        FrozenConfigurationPropertyStore frozen = new FrozenConfigurationPropertyStore(store, Arrays.asList("zos"), new Properties());
+
+        assertThat(frozen.getProperty("zosmf.server.port")).isEqualTo("443");
+        assertThat(frozen.getProperty("docker.engine.port")).isEqualTo("2375");
+        assertThat(store.gets).isEqualTo(2);
+    }
+
+    @Test
+    public void testAllNamespacesAreTakenAndWritesAreSeen() throws Exception {
+        CountingStore store = createStore();
+        FrozenConfigurationPropertyStore frozen = new FrozenConfigurationPropertyStore(store, Arrays.asList("*"), new Properties());
+        assertThat(frozen.getSize()).isEqualTo(4);
+
+        // Changes made elsewhere are not seen, changes made by the run are
+        store.setProperty("docker.engine.port", "2376");
+        assertThat(frozen.getProperty("docker.engine.port")).isEqualTo("2375");
+        frozen.setProperty("docker.engine.port", "2377");
+        assertThat(frozen.getProperty("docker.engine.port")).isEqualTo("2377");
+        assertThat(store.properties.get("docker.engine.port")).isEqualTo("2377");
+        frozen.deleteProperty("docker.engine.port");
+        assertThat(frozen.getProperty("docker.engine.port")).isNull();
+        assertThat(store.gets).isEqualTo(0);
+    }
+
+    @Test
+    public void testFrozenReadsAreRecorded() throws Exception {
+        CountingStore store = createStore();
+        Properties overrides = new Properties();
+        overrides.setProperty("zos.image.IMG1.name", "OVERRIDDEN");
+        FrozenConfigurationPropertyStore frozen = new FrozenConfigurationPropertyStore(store, Arrays.asList("zos"), overrides);
+
+        Map<String, String> record = new ConcurrentHashMap<>();
+        FrameworkConfigurationPropertyService cps = new FrameworkConfigurationPropertyService(new MockFramework(),
+                frozen, new Properties(), record, "zos");
+
+        assertThat(cps.getProperty("image", "name", "IMG1")).isEqualTo("OVERRIDDEN");
+        assertThat(cps.getProperty("image", "missing", "IMG1")).isNull();
+        assertThat(record).containsOnly(entry("zos.image.IMG1.name", "OVERRIDDEN"),
+                entry("zos.image.IMG1.missing", "*** MISSING ***"),
+                entry("zos.image.missing", "*** MISSING ***"));
+    }
+}
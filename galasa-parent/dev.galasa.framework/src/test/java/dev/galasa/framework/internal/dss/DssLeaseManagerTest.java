@@ -0,0 +1,153 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.dss;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.FrameworkPropertyFileOptions;
+import dev.galasa.framework.spi.IDynamicStatusStoreWatcher.Event;
+
+public class DssLeaseManagerTest {
+
+    private Path                  tempProperties;
+    private FpfDynamicStatusStore dss;
+    private final AtomicLong      clock = new AtomicLong(1_000_000);
+    private DssLeaseManager       leases;
+
+    @Before
+    public void setup() throws IOException, DynamicStatusStoreException {
+        this.tempProperties = Files.createTempFile("galasa_dss_junit", ".properties");
+        this.dss = new FpfDynamicStatusStore(tempProperties.toUri(), new FrameworkPropertyFileOptions(), false);
+        this.leases = new DssLeaseManager(this.dss, this.clock::get);
+        this.leases.start(false);
+    }
+
+    @After
+    public void teardown() throws IOException, DynamicStatusStoreException {
+        this.leases.shutdown();
+        this.dss.shutdown();
+        Files.deleteIfExists(this.tempProperties);
+    }
+
+    @Test
+    public void testExpiredLeaseDeletesTheKey() throws Exception {
+        List<String> deleted = new ArrayList<>();
+        this.dss.watch((key, event, oldValue, newValue) -> {
+            if (event == Event.DELETE) {
+                deleted.add(key);
+            }
+        }, "run.U1.heartbeat");
+
+        this.leases.grant("run.U1.heartbeat", "alive", 30);
+        Assert.assertEquals("alive", this.dss.get("run.U1.heartbeat"));
+
+        advance(29_000);
+        Assert.assertEquals("Expired too early", "alive", this.dss.get("run.U1.heartbeat"));
+
+        advance(2_000);
+        Assert.assertNull("Key not deleted", this.dss.get("run.U1.heartbeat"));
+        Assert.assertTrue("Lease records left", this.dss.getPrefix(DssLeaseManager.LEASE_PREFIX).isEmpty());
+        Assert.assertEquals("No delete event", 1, deleted.size());
+    }
+
+    @Test
+    public void testKeepAliveExtendsTheLease() throws Exception {
+        UUID leaseId = this.leases.grant("run.U1.heartbeat", "alive", 30);
+
+        advance(20_000);
+        Assert.assertTrue(this.leases.keepAlive(leaseId));
+        advance(20_000);
+        Assert.assertEquals("Expired after keep alive", "alive", this.dss.get("run.U1.heartbeat"));
+
+        advance(11_000);
+        Assert.assertNull(this.dss.get("run.U1.heartbeat"));
+        Assert.assertFalse("Expired lease kept alive", this.leases.keepAlive(leaseId));
+    }
+
+    @Test
+    public void testRevokedLeaseDeletesTheKey() throws Exception {
+        UUID leaseId = this.leases.grant("run.U1.heartbeat", "alive", 30);
+
+        this.leases.revoke(leaseId);
+        Assert.assertNull(this.dss.get("run.U1.heartbeat"));
+        Assert.assertTrue(this.dss.getPrefix(DssLeaseManager.LEASE_PREFIX).isEmpty());
+    }
+
+    @Test
+    public void testKeyPutAgainIsNotExpired() throws Exception {
+        this.leases.grant("run.U1.heartbeat", "alive", 30);
+        this.dss.put("run.U1.heartbeat", "replaced");
+
+        advance(31_000);
+        Assert.assertEquals("replaced", this.dss.get("run.U1.heartbeat"));
+        Assert.assertTrue(this.dss.getPrefix(DssLeaseManager.LEASE_PREFIX).isEmpty());
+    }
+
+    @Test
+    public void testLeaseIsExpiredByAnotherProcess() throws Exception {
+        this.leases.grant("run.U1.heartbeat", "alive", 30);
+
+        // *** A watcher of the same file which did not grant the lease
+        FpfDynamicStatusStore other = new FpfDynamicStatusStore(tempProperties.toUri(),
+                new FrameworkPropertyFileOptions(), false);
+        DssLeaseManager otherLeases = new DssLeaseManager(other, this.clock::get);
+        try {
+            otherLeases.start(false);
+
+            this.clock.addAndGet(31_000);
+            otherLeases.expireLeases();
+            Assert.assertNull(other.get("run.U1.heartbeat"));
+        } finally {
+            otherLeases.shutdown();
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void testBadLeaseDoesNotStopExpiry() throws Exception {
+        UUID badLease = this.leases.grant("run.U1.heartbeat", "alive", 30);
+        this.leases.grant("run.U2.heartbeat", "alive", 60);
+        this.dss.put(DssLeaseManager.LEASE_PREFIX + badLease + ".expires", "garbage");
+
+        advance(31_000);
+        Assert.assertNull("Bad lease not removed", this.dss.get(DssLeaseManager.LEASE_PREFIX + badLease + ".expires"));
+        Assert.assertNull(this.dss.get("run.U1.heartbeat"));
+
+        advance(30_000);
+        Assert.assertNull("Expiry stopped after a bad lease", this.dss.get("run.U2.heartbeat"));
+        Assert.assertTrue(this.dss.getPrefix(DssLeaseManager.LEASE_PREFIX).isEmpty());
+    }
+
+    @Test
+    public void testWheelOnlyReturnsDueItems() {
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(8, 1000, 0);
+        wheel.add("soon", 2_500);
+        wheel.add("later", 10_500); // *** more than one turn of the wheel away
+
+        Assert.assertTrue(wheel.expire(2_000).isEmpty());
+        Assert.assertEquals("soon", wheel.expire(3_000).get(0));
+        Assert.assertTrue(wheel.expire(9_000).isEmpty());
+        Assert.assertEquals("later", wheel.expire(11_000).get(0));
+        Assert.assertEquals(0, wheel.size());
+    }
+
+    private void advance(long millis) {
+        this.clock.addAndGet(millis);
+        this.leases.expireLeases();
+    }
+}
@@ -12,6 +12,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -154,6 +156,28 @@ public class FpfDynamicStatusStoreTest {
 
     }
 
+    @Test
+    public void testAsyncCallsAreAppliedInOrder() throws Exception {
+        final String key = "a_little_key";
+
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < 50; i++) {
+            last = this.dss.putAsync(key, Integer.toString(i));
+        }
+        CompletableFuture<String> read = this.dss.getAsync(key);
+        CompletableFuture<Boolean> swap = this.dss.putSwapAsync(key, "49", "done");
+
+        last.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals("Read overtook the puts", "49", read.get(10, TimeUnit.SECONDS));
+        Assert.assertTrue("Swap overtook the puts", swap.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals("done", getKey(key));
+
+        CompletableFuture<Void> delete = this.dss.deleteAsync(key);
+        this.dss.shutdown();
+        Assert.assertTrue("Shutdown should wait for the delete", delete.isDone());
+        Assert.assertTrue("Puts after shutdown should fail", this.dss.putAsync(key, "x").isCompletedExceptionally());
+    }
+
 //    @Test
 //    public void testFutureDynamicResource() throws DynamicStatusStoreException {
 //        Assert.assertNotNull("Should get a dynamic resource", this.dss.getDynamicResource("bob"));
@@ -0,0 +1,147 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.dss;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.DssSwap;
+import dev.galasa.framework.spi.DssUpdate;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
+import dev.galasa.framework.spi.FrameworkPropertyFileOptions;
+
+public class ShardedFpfDynamicStatusStoreTest {
+
+    private static final List<String> SHARDS = Arrays.asList("dss.framework.run.", "dss.framework.metrics.");
+
+    private Path                         tempProperties;
+    private ShardedFpfDynamicStatusStore dss;
+
+    @Before
+    public void setup() throws IOException, DynamicStatusStoreException {
+        this.tempProperties = Files.createTempFile("galasa_dss_junit", ".properties");
+        this.dss = new ShardedFpfDynamicStatusStore(tempProperties.toUri(), new FrameworkPropertyFileOptions(), SHARDS);
+    }
+
+    @After
+    public void teardown() throws IOException, DynamicStatusStoreException {
+        this.dss.shutdown();
+        Files.deleteIfExists(this.tempProperties);
+        for (String shard : SHARDS) {
+            Files.deleteIfExists(ShardedFpfDynamicStatusStore.getShardPath(this.tempProperties, shard));
+        }
+    }
+
+    @Test
+    public void testKeysAreRoutedToShards() throws Exception {
+        this.dss.put("dss.framework.run.U1.status", "running");
+        this.dss.put("dss.framework.metrics.runs.made", "1");
+        this.dss.put("dss.zos.image", "IMG1");
+
+        Assert.assertEquals("running", this.dss.get("dss.framework.run.U1.status"));
+        Assert.assertEquals("running", getKey(shardFile("dss.framework.run."), "dss.framework.run.U1.status"));
+        Assert.assertEquals("1", getKey(shardFile("dss.framework.metrics."), "dss.framework.metrics.runs.made"));
+        Assert.assertEquals("IMG1", getKey(this.tempProperties, "dss.zos.image"));
+        Assert.assertNull("Sharded key in the main file", getKey(this.tempProperties, "dss.framework.run.U1.status"));
+
+        Map<String, String> framework = this.dss.getPrefix("dss.framework.");
+        Assert.assertEquals("Prefix should span the shards", 2, framework.size());
+
+        this.dss.deletePrefix("dss.");
+        Assert.assertTrue("Prefix delete should span the shards", this.dss.getPrefix("dss.").isEmpty());
+    }
+
+    @Test
+    public void testActionsAcrossShardsAreAtomic() throws Exception {
+        this.dss.put("dss.framework.run.U1.status", "queued");
+
+        try {
+            this.dss.performActions(new DssUpdate("dss.framework.metrics.runs.made", "1"),
+                    new DssSwap("dss.framework.run.U1.status", "running", "finished"));
+            Assert.fail("The swap should have failed");
+        } catch (DynamicStatusStoreMatchException e) {
+            // expected
+        }
+        Assert.assertNull("Update was made when a swap in another shard failed",
+                this.dss.get("dss.framework.metrics.runs.made"));
+
+        this.dss.performActions(new DssUpdate("dss.framework.metrics.runs.made", "1"),
+                new DssSwap("dss.framework.run.U1.status", "queued", "running"),
+                new DssAdd("dss.zos.image", "IMG1"));
+        Assert.assertEquals("1", this.dss.get("dss.framework.metrics.runs.made"));
+        Assert.assertEquals("running", this.dss.get("dss.framework.run.U1.status"));
+        Assert.assertEquals("IMG1", this.dss.get("dss.zos.image"));
+
+        Map<String, String> others = new HashMap<>();
+        others.put("dss.zos.image", "IMG2");
+        Assert.assertFalse(this.dss.putSwap("dss.framework.run.U1.status", "queued", "finished", others));
+        Assert.assertTrue(this.dss.putSwap("dss.framework.run.U1.status", "running", "finished", others));
+        Assert.assertEquals("IMG2", this.dss.get("dss.zos.image"));
+    }
+
+    @Test
+    public void testExistingKeysAreMovedToNewShards() throws Exception {
+        this.dss.shutdown();
+        for (String shard : SHARDS) {
+            Files.delete(ShardedFpfDynamicStatusStore.getShardPath(this.tempProperties, shard));
+        }
+
+        FpfDynamicStatusStore unsharded = new FpfDynamicStatusStore(this.tempProperties.toUri());
+        unsharded.put("dss.framework.run.U1.status", "running");
+        unsharded.put("dss.zos.image", "IMG1");
+        unsharded.shutdown();
+
+        this.dss = new ShardedFpfDynamicStatusStore(tempProperties.toUri(), new FrameworkPropertyFileOptions(), SHARDS);
+        Assert.assertEquals("running", this.dss.get("dss.framework.run.U1.status"));
+        Assert.assertEquals("running", getKey(shardFile("dss.framework.run."), "dss.framework.run.U1.status"));
+        Assert.assertNull("Key was not moved", getKey(this.tempProperties, "dss.framework.run.U1.status"));
+        Assert.assertEquals("IMG1", this.dss.get("dss.zos.image"));
+    }
+
+    @Test
+    public void testInterruptedMoveIsFinished() throws Exception {
+        this.dss.shutdown();
+
+        // *** As left by a crash after the keys were copied, but before they were deleted
+        FpfDynamicStatusStore unsharded = new FpfDynamicStatusStore(this.tempProperties.toUri());
+        unsharded.put("dss.framework.run.U1.status", "running");
+        unsharded.shutdown();
+        FpfDynamicStatusStore shard = new FpfDynamicStatusStore(shardFile("dss.framework.run.").toUri());
+        shard.put("dss.framework.run.U1.status", "running");
+        shard.shutdown();
+
+        this.dss = new ShardedFpfDynamicStatusStore(tempProperties.toUri(), new FrameworkPropertyFileOptions(), SHARDS);
+        Assert.assertEquals("running", this.dss.get("dss.framework.run.U1.status"));
+        Assert.assertEquals("running", getKey(shardFile("dss.framework.run."), "dss.framework.run.U1.status"));
+        Assert.assertNull("Move was not finished", getKey(this.tempProperties, "dss.framework.run.U1.status"));
+    }
+
+    private Path shardFile(String shard) {
+        return ShardedFpfDynamicStatusStore.getShardPath(this.tempProperties, shard);
+    }
+
+    private String getKey(Path file, String key) throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream is = Files.newInputStream(file)) {
+            properties.load(is);
+        }
+        return properties.getProperty(key);
+    }
+}
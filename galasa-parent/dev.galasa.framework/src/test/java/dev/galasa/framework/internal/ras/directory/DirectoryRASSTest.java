@@ -16,6 +16,7 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.io.FileUtils;
@@ -30,7 +31,9 @@ import org.mockito.stubbing.Answer;
 import dev.galasa.framework.spi.IConfidentialTextService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IFrameworkInitialisation;
+import dev.galasa.framework.spi.IRunResult;
 import dev.galasa.framework.spi.ResultArchiveStoreException;
+import dev.galasa.framework.spi.ras.RasSearchCriteriaRequestor;
 import dev.galasa.framework.spi.teststructure.TestStructure;
 import dev.galasa.framework.spi.utils.GalasaGson;
 import dev.galasa.ResultArchiveStoreContentType;
@@ -140,6 +143,80 @@ public class DirectoryRASSTest {
         Assert.assertEquals("Test structure data different", writeStructure.getTestName(), readStructure.getTestName());
     }
 
+    @Test
+    public void testRunIndex() throws Exception {
+        DirectoryResultArchiveStoreService drass = new DirectoryResultArchiveStoreService(framework,
+                this.rasDirectory.toUri());
+
+        final TestStructure writeStructure = new TestStructure();
+        writeStructure.setTestName("hello everyone");
+        writeStructure.setRequestor("bob");
+        drass.updateTestStructure(writeStructure);
+
+        final Path indexFile = this.rasDirectory.resolve(DirectoryRASRunIndex.INDEX_FILE);
+        Assert.assertFalse("A run should not create the index", Files.exists(indexFile));
+
+        DirectoryRASDirectoryService directoryService = (DirectoryRASDirectoryService) drass.getDirectoryServices().get(0);
+        Assert.assertEquals("Unexpected requestors", Collections.singletonList("bob"), directoryService.getRequestors());
+        Assert.assertTrue("The first search should build the index", Files.exists(indexFile));
+
+        // *** The run carries on, and the index keeps up
+        writeStructure.setRequestor("fred");
+        writeStructure.setResult("Passed");
+        writeStructure.setMethods(new ArrayList<>());
+        drass.updateTestStructure(writeStructure);
+
+        List<IRunResult> runs = directoryService.getRuns(new RasSearchCriteriaRequestor("fred"));
+        Assert.assertEquals("Run should be found from the index", 1, runs.size());
+        Assert.assertNotNull("Full test structure should be read from the run",
+                runs.get(0).getTestStructure().getMethods());
+        Assert.assertEquals("Unexpected results", Collections.singletonList("Passed"), directoryService.getResultNames());
+        Assert.assertTrue("Index should be up to date", directoryService.verifyIndex().isEmpty());
+
+        // *** A run written without the index
+        Path otherRun = Files.createDirectories(this.rasDirectory.resolve("BOB2"));
+        Files.write(otherRun.resolve("structure.json"), new GalasaGson().toJson(writeStructure).getBytes("utf-8"));
+        Assert.assertEquals("Missing run not reported", 1, directoryService.verifyIndex().size());
+        Assert.assertEquals("Run should not be found until the index is rebuilt", 1,
+                directoryService.getRuns(new RasSearchCriteriaRequestor("fred")).size());
+
+        Assert.assertEquals("Unexpected runs indexed", 2, directoryService.rebuildIndex());
+        Assert.assertTrue("Index should be up to date", directoryService.verifyIndex().isEmpty());
+        Assert.assertEquals("Unexpected runs found", 2,
+                directoryService.getRuns(new RasSearchCriteriaRequestor("fred")).size());
+
+        // *** The run name is used again, so the first run moves aside
+        new DirectoryResultArchiveStoreService(framework, this.rasDirectory.toUri());
+        Assert.assertTrue("Index should follow the move", directoryService.verifyIndex().isEmpty());
+    }
+
+    @Test
+    public void testRunIndexIsCompacted() throws Exception {
+        DirectoryResultArchiveStoreService drass = new DirectoryResultArchiveStoreService(framework,
+                this.rasDirectory.toUri());
+
+        final TestStructure writeStructure = new TestStructure();
+        writeStructure.setTestName("hello everyone");
+        writeStructure.setRequestor("bob");
+        drass.updateTestStructure(writeStructure);
+
+        DirectoryRASDirectoryService directoryService = (DirectoryRASDirectoryService) drass.getDirectoryServices().get(0);
+        directoryService.getRequestors();
+
+        // *** A long running run, each update appends another line
+        for (int i = 0; i < DirectoryRASRunIndex.MIN_COMPACT_LINES * 2; i++) {
+            writeStructure.setResult("Result" + i);
+            drass.updateTestStructure(writeStructure);
+        }
+        final Path indexFile = this.rasDirectory.resolve(DirectoryRASRunIndex.INDEX_FILE);
+        Assert.assertTrue("Updates should be appended", Files.readAllLines(indexFile).size() > DirectoryRASRunIndex.MIN_COMPACT_LINES);
+
+        Assert.assertEquals("Unexpected results", Collections.singletonList("Result" + (DirectoryRASRunIndex.MIN_COMPACT_LINES * 2 - 1)),
+                directoryService.getResultNames());
+        Assert.assertEquals("Reading the index should compact it", 1, Files.readAllLines(indexFile).size());
+        Assert.assertTrue("Index should be up to date", directoryService.verifyIndex().isEmpty());
+    }
+
     @Test
     public void testRunLog() throws ResultArchiveStoreException, IOException {
         final String message1 = "1st message\n";
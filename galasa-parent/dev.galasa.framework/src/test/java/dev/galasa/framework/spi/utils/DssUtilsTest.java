@@ -0,0 +1,76 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dev.galasa.framework.internal.dss.FpfDynamicStatusStore;
+import dev.galasa.framework.internal.dss.FrameworkDynamicStatusStoreService;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+
+public class DssUtilsTest {
+
+    private Path                       dssFile;
+    private FpfDynamicStatusStore      dssStore;
+    private IDynamicStatusStoreService dss;
+
+    @Before
+    public void setup() throws Exception {
+        this.dssFile = Files.createTempFile("galasa_dss_junit", ".properties");
+        this.dssStore = new FpfDynamicStatusStore(this.dssFile.toUri());
+        this.dss = new FrameworkDynamicStatusStoreService(null, this.dssStore, "framework");
+    }
+
+    @After
+    public void teardown() throws Exception {
+        this.dssStore.shutdown();
+        Files.deleteIfExists(this.dssFile);
+    }
+
+    @Test
+    public void testShardedCounterIsSummed() throws Exception {
+        // *** Written by an older level of the framework
+        this.dss.put("metrics.runs.made", "5");
+        this.dss.put("metrics.runs.made.to.wait", "100");
+
+        for (int i = 0; i < 40; i++) {
+            DssUtils.incrementMetric(this.dss, "metrics.runs.made", "U" + i);
+        }
+        DssUtils.incrementMetric(this.dss, "metrics.runs.made");
+
+        assertThat(DssUtils.getShardedCounter(this.dss, "metrics.runs.made")).isEqualTo(46);
+        assertThat(DssUtils.getShardedCounter(this.dss, "metrics.runs.made.to.wait")).isEqualTo(100);
+        assertThat(this.dss.getPrefix("metrics.runs.made.shard.")).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    public void testConcurrentIncrementsAreNotLost() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 25; i++) {
+                    DssUtils.incrementMetric(this.dss, "metrics.runs.local", "U1");
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(DssUtils.getShardedCounter(this.dss, "metrics.runs.local")).isEqualTo(200);
+    }
+}
@@ -14,6 +14,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Properties;
 
 import org.junit.Test;
@@ -92,6 +94,36 @@ public class FpfConfigurationPropertyStoreTest {
         assertEquals("Did not return the expected value.", expected, fpfCps.getProperty("Test1"));
     }
 
+    /**
+     * <p>
+     * This method checks that several properties can be got at once, with the
+     * missing ones left out.
+     * </p>
+     * 
+     * @throws ConfigurationPropertyStoreException
+     * @throws IOException
+     */
+    @Test
+    public void testGetProperties() throws ConfigurationPropertyStoreException, IOException {
+        File testProp = File.createTempFile("galasafpf_", ".properties");
+
+        Properties testProps = new Properties();
+        testProps.setProperty("zos.image.PLEXMA.MVMA.credentialid", "MVMA");
+        testProps.setProperty("zos.image.credentialid", "DEFAULT");
+
+        FileOutputStream out = new FileOutputStream(testProp);
+        testProps.store(out, null);
+        out.close();
+
+        FpfConfigurationPropertyStore fpfCps = new FpfConfigurationPropertyStore(testProp.toURI());
+
+        Map<String, String> values = fpfCps.getProperties(Arrays.asList("zos.image.PLEXMA.MVMA.credentialid",
+                "zos.image.PLEXMA.credentialid", "zos.image.credentialid"));
+        assertEquals("Missing keys should be left out", 2, values.size());
+        assertEquals("MVMA", values.get("zos.image.PLEXMA.MVMA.credentialid"));
+        assertEquals("DEFAULT", values.get("zos.image.credentialid"));
+    }
+
     /**
      * <p>
      * This method tests that the exception is caught is the local file is not
@@ -5,8 +5,10 @@
  */
 package test.cps;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -21,6 +23,7 @@ import dev.galasa.framework.internal.cps.FpfConfigurationPropertyStore;
 import dev.galasa.framework.internal.cps.FrameworkConfigurationPropertyService;
 import dev.galasa.framework.mocks.MockFramework;
 import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.PropertyKey;
 
 /**
  * <p>
@@ -217,4 +220,52 @@ public class FrameworkConfigurationPropertyStoreTest {
         assertEquals("Unexpected Key retrieved from CPS", "zos.image.credentialid",
                 test.reportPropertyVariants("image", "credentialid", "PLEXMA", "MVMA")[2]);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetPropertyWithPropertyKey() throws ConfigurationPropertyStoreException, IOException {
+        Properties overrides = new Properties();
+        Properties record = new Properties();
+
+        Properties testProps = new Properties();
+
+        testProps.setProperty("zos.image.PLEXMA.credentialid", "Waddup");
+        testProps.setProperty("docker.image.credentialid", "Spoon");
+
+        FileOutputStream out = new FileOutputStream(testProp);
+        testProps.store(out, null);
+        out.close();
+
+        FpfConfigurationPropertyStore fpfcps = new FpfConfigurationPropertyStore(testProp.toURI());
+
+        FrameworkConfigurationPropertyService zos = new FrameworkConfigurationPropertyService(new MockFramework(), fpfcps,
+                overrides, record, "zos");
+        FrameworkConfigurationPropertyService docker = new FrameworkConfigurationPropertyService(new MockFramework(), fpfcps,
+                overrides, record, "docker");
+
+        PropertyKey key = new PropertyKey("image", "credentialid", "PLEXMA", "MVMA");
+        assertEquals("Unexpected Value retrieved from CPS", "Waddup", zos.getProperty(key));
+        assertSame("Variants were not reused", key.getVariants("zos"), key.getVariants("zos"));
+        assertEquals("Unexpected Value retrieved from CPS", "Spoon", docker.getProperty(key));
+        assertArrayEquals("Unexpected Keys retrieved from CPS",
+                docker.reportPropertyVariants("image", "credentialid", "PLEXMA", "MVMA"), key.getVariants("docker"));
+        assertEquals("Access not recorded", "*** MISSING ***", record.getProperty("zos.image.PLEXMA.MVMA.credentialid"));
+    }
+
+    @Test
+    public void testInternedVariantsAreNotChangedByCallers() throws ConfigurationPropertyStoreException, IOException {
+        FpfConfigurationPropertyStore fpfcps = new FpfConfigurationPropertyStore(testProp.toURI());
+
+        FrameworkConfigurationPropertyService test = new FrameworkConfigurationPropertyService(new MockFramework(), fpfcps,
+                new Properties(), new Properties(), "zos");
+
+        String[] infixes = new String[] { "PLEXMA", "MVMA" };
+        test.getProperty("image", "credentialid", infixes);
+        infixes[1] = "MVMB";
+        assertEquals("Unexpected Key retrieved from CPS", "zos.image.PLEXMA.MVMB.credentialid",
+                test.reportPropertyVariants("image", "credentialid", infixes)[0]);
+
+        test.reportPropertyVariants("image", "credentialid", infixes)[0] = "changed";
+        assertEquals("Unexpected Key retrieved from CPS", "zos.image.PLEXMA.MVMB.credentialid",
+                test.reportPropertyVariants("image", "credentialid", infixes)[0]);
+    }
+}
@@ -13,26 +13,33 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.junit.Test;
 
 import dev.galasa.framework.spi.FrameworkPropertyFile;
 import dev.galasa.framework.spi.FrameworkPropertyFileException;
+import dev.galasa.framework.spi.FrameworkPropertyFileOptions;
 import dev.galasa.framework.spi.IFrameworkPropertyFileWatcher;
 import dev.galasa.framework.spi.IFrameworkPropertyFileWatcher.Event;
 
@@ -92,6 +99,10 @@ public class FrameworkPropertyFileTest {
         if (testProp != null && testProp.exists()) {
             testProp.delete();
         }
+        if (testProp != null) {
+            new File(testProp.getPath() + ".journal").delete();
+            new File(testProp.getPath() + ".compacting").delete();
+        }
     }
 
     /**
@@ -608,6 +619,437 @@ public class FrameworkPropertyFileTest {
         fpf2.destroy();
     }
 
+    /**
+     * <p>
+     * This tests that prefix reads and deletes only touch keys with the prefix,
+     * including keys which sort either side of the prefixed range.
+     * </p>
+     */
+    @Test
+    public void testPrefixRangeBoundaries() throws FrameworkPropertyFileException, IOException {
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testPropUri);
+        Map<String, String> values = new HashMap<>();
+        values.put("prefix.infiw", "before");
+        values.put("prefix.infix", "exact");
+        values.put("prefix.infiy", "after");
+        fpf.set(values);
+
+        Map<String, String> prefixed = fpf.getPrefix("prefix.infix");
+        assertEquals("Wrong number of prefixed values", 3, prefixed.size());
+        assertEquals("exact", prefixed.get("prefix.infix"));
+        assertEquals("SomeString1", prefixed.get("prefix.infix.suffix1"));
+        assertEquals("SomeString2", prefixed.get("prefix.infix.suffix2"));
+
+        fpf.deletePrefix("prefix.infix");
+
+        assertNull("Prefixed key was not deleted", fpf.get("prefix.infix.suffix1"));
+        assertEquals("Key before the prefix was deleted", "before", fpf.get("prefix.infiw"));
+        assertEquals("Key after the prefix was deleted", "after", fpf.get("prefix.infiy"));
+        fpf.destroy();
+    }
+
+    /**
+     * <p>
+     * This tests that each namespace is returned once, whatever order the keys
+     * were set in.
+     * </p>
+     */
+    @Test
+    public void testGetNamespaces() throws FrameworkPropertyFileException, IOException {
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testPropUri);
+        fpf.set("zos.image.name", "IMG1");
+        fpf.set("framework.resultarchive.store", "file:///ras");
+        fpf.set("zos.cluster.name", "CLUS1");
+        fpf.set("zosmf.server.port", "443");
+
+        Set<String> namespaces = new HashSet<>(fpf.getNamespaces());
+        assertEquals("Namespaces returned more than once", fpf.getNamespaces().size(), namespaces.size());
+        assertTrue(namespaces.contains("prefix"));
+        assertTrue(namespaces.contains("zos"));
+        assertTrue(namespaces.contains("zosmf"));
+        assertTrue(namespaces.contains("framework"));
+        assertTrue(namespaces.contains("Test1"));
+        fpf.destroy();
+    }
+
+    /**
+     * <p>
+     * This tests that with snapshot reads the FPF sees its own writes straight
+     * away, including prefix reads.
+     * </p>
+     */
+    @Test
+    public void testSnapshotReadsSeeOwnWrites() throws FrameworkPropertyFileException, IOException {
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testPropUri,
+                new FrameworkPropertyFileOptions().setSnapshotReads(true));
+
+        assertEquals("Value from key was wrong", "admin", fpf.get("RootPasswordForEverySystemEver"));
+
+        fpf.set("prefix.infix.suffix3", "SomeString3");
+        fpf.delete("prefix.infix.suffix1");
+
+        assertEquals("Set value was not in the snapshot", "SomeString3", fpf.get("prefix.infix.suffix3"));
+        assertNull("Deleted value was still in the snapshot", fpf.get("prefix.infix.suffix1"));
+
+        Map<String, String> values = fpf.getPrefix("prefix.infix.");
+        assertEquals("Wrong number of prefixed values", 2, values.size());
+        assertEquals("SomeString2", values.get("prefix.infix.suffix2"));
+        assertEquals("SomeString3", values.get("prefix.infix.suffix3"));
+
+        // The snapshot is only copied when next read, but earlier reads must not change
+        fpf.set("prefix.infix.suffix4", "SomeString4");
+        fpf.set("prefix.infix.suffix5", "SomeString5");
+        assertEquals("Earlier read was changed by a write", 2, values.size());
+        assertEquals("SomeString5", fpf.get("prefix.infix.suffix5"));
+        assertEquals("Wrong number of prefixed values", 4, fpf.getPrefix("prefix.infix.").size());
+
+        fpf.shutdown();
+        fpf.destroy();
+    }
+
+    /**
+     * <p>
+     * This tests that with snapshot reads, changes made to the file by another
+     * FPF are picked up by the background poller.
+     * </p>
+     */
+    @Test
+    public void testSnapshotReadsSeeOtherWriters() throws FrameworkPropertyFileException, IOException {
+        FrameworkPropertyFile fpf1 = new FrameworkPropertyFile(testPropUri,
+                new FrameworkPropertyFileOptions().setSnapshotReads(true).setPollIntervalMillisecs(10));
+        FrameworkPropertyFile fpf2 = new FrameworkPropertyFile(testPropUri);
+
+        fpf2.set("snapshot.test", "fromAnotherWriter");
+        await().atMost(Duration.ONE_SECOND).until(() -> "fromAnotherWriter".equals(fpf1.get("snapshot.test")));
+
+        fpf2.delete("snapshot.test");
+        await().atMost(Duration.ONE_SECOND).until(() -> fpf1.get("snapshot.test") == null);
+
+        fpf1.shutdown();
+        fpf1.destroy();
+        fpf2.destroy();
+    }
+
+    /**
+     * <p>
+     * This tests that with a journal, changes are appended to the journal rather
+     * than the properties file, and are replayed by a new FPF.
+     * </p>
+     */
+    @Test
+    public void testJournalChangesAreReplayed() throws FrameworkPropertyFileException, IOException {
+        FrameworkPropertyFileOptions options = new FrameworkPropertyFileOptions().setJournal(true);
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testPropUri, options);
+        long propertiesLength = testProp.length();
+
+        fpf.set("journal.key", "value with spaces=and equals");
+        fpf.delete("Test1");
+        fpf.deletePrefix("prefix.infix.");
+        assertTrue("Atomic set failed", fpf.setAtomic("Test2", "SomeString", "NewString"));
+        assertFalse("Atomic set should have failed", fpf.setAtomic("Test2", "SomeString", "OtherString"));
+
+        assertEquals("Properties file should not be rewritten", propertiesLength, testProp.length());
+        assertTrue("Journal was not written", new File(testProp.getPath() + ".journal").length() > 0);
+        fpf.destroy();
+
+        FrameworkPropertyFile reloaded = new FrameworkPropertyFile(testPropUri, options);
+        assertEquals("value with spaces=and equals", reloaded.get("journal.key"));
+        assertNull(reloaded.get("Test1"));
+        assertTrue(reloaded.getPrefix("prefix.infix.").isEmpty());
+        assertEquals("NewString", reloaded.get("Test2"));
+        assertEquals("admin", reloaded.get("RootPasswordForEverySystemEver"));
+        reloaded.destroy();
+    }
+
+    /**
+     * <p>
+     * This tests that a batch torn part way through being written to the journal
+     * is ignored, and that the next write replaces it.
+     * </p>
+     */
+    @Test
+    public void testJournalIgnoresTornBatch() throws FrameworkPropertyFileException, IOException {
+        FrameworkPropertyFileOptions options = new FrameworkPropertyFileOptions().setJournal(true);
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testPropUri, options);
+        fpf.set("journal.key1", "value1");
+        fpf.destroy();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(testProp.getPath() + ".journal"),
+                StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap("S journal.key2 torn\n".getBytes()));
+        }
+
+        FrameworkPropertyFile reloaded = new FrameworkPropertyFile(testPropUri, options);
+        assertEquals("value1", reloaded.get("journal.key1"));
+        assertNull("Torn batch was replayed", reloaded.get("journal.key2"));
+
+        reloaded.set("journal.key3", "value3");
+        reloaded.destroy();
+
+        FrameworkPropertyFile again = new FrameworkPropertyFile(testPropUri, options);
+        assertNull("Torn batch was replayed", again.get("journal.key2"));
+        assertEquals("value3", again.get("journal.key3"));
+        again.destroy();
+    }
+
+    /**
+     * <p>
+     * This tests that compacting writes the journalled changes into the
+     * properties file, and that another FPF picks up the compaction.
+     * </p>
+     */
+    @Test
+    public void testJournalCompaction() throws FrameworkPropertyFileException, IOException {
+        FrameworkPropertyFileOptions options = new FrameworkPropertyFileOptions().setJournal(true);
+        FrameworkPropertyFile fpf1 = new FrameworkPropertyFile(testPropUri, options);
+        FrameworkPropertyFile fpf2 = new FrameworkPropertyFile(testPropUri, options);
+
+        fpf1.set("journal.key", "value1");
+        fpf1.delete("Test1");
+        fpf1.compact();
+
+        Properties properties = new Properties();
+        try (FileInputStream in = new FileInputStream(testProp)) {
+            properties.load(in);
+        }
+        assertEquals("Compacted value missing from properties file", "value1", properties.getProperty("journal.key"));
+        assertNull("Deleted value still in properties file", properties.getProperty("Test1"));
+
+        fpf2.set("journal.key", "value2");
+        assertEquals("value2", fpf2.get("journal.key"));
+        assertEquals("value2", fpf1.get("journal.key"));
+        assertNull(fpf2.get("Test1"));
+
+        fpf1.destroy();
+        fpf2.destroy();
+    }
+
+    /**
+     * <p>
+     * This tests that a compaction which crashed part way through rewriting the
+     * properties file loses nothing, and is finished by the next compaction.
+     * </p>
+     */
+    @Test
+    public void testInterruptedCompactionIsRecovered() throws FrameworkPropertyFileException, IOException {
+        FrameworkPropertyFileOptions options = new FrameworkPropertyFileOptions().setJournal(true);
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testPropUri, options);
+        fpf.set("journal.key", "value1");
+
+        // As left by a crash after the copy was written, with the properties file cut short
+        Properties copy = new Properties();
+        copy.putAll(fpf.getPrefix(""));
+        try (FileOutputStream out = new FileOutputStream(testProp.getPath() + ".compacting")) {
+            copy.store(out, null);
+        }
+        try (FileChannel channel = FileChannel.open(testProp.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(10);
+        }
+        fpf.destroy();
+
+        FrameworkPropertyFile reloaded = new FrameworkPropertyFile(testPropUri, options);
+        assertEquals("Key only in the properties file was lost", "SomeString", reloaded.get("Test1"));
+        assertEquals("value1", reloaded.get("journal.key"));
+
+        reloaded.compact();
+        assertFalse("Compaction was not finished", new File(testProp.getPath() + ".compacting").exists());
+        Properties properties = new Properties();
+        try (FileInputStream in = new FileInputStream(testProp)) {
+            properties.load(in);
+        }
+        assertEquals("SomeString", properties.getProperty("Test1"));
+        assertEquals("value1", properties.getProperty("journal.key"));
+
+        reloaded.destroy();
+    }
+
+    /**
+     * <p>
+     * This tests that watchers are told about changes another FPF appends to the
+     * journal.
+     * </p>
+     */
+    @Test
+    public void testJournalWatchSeesOtherWriters() throws FrameworkPropertyFileException, IOException {
+        FrameworkPropertyFileOptions options = new FrameworkPropertyFileOptions().setJournal(true);
+        FrameworkPropertyFile fpf1 = new FrameworkPropertyFile(testPropUri, options);
+        FrameworkPropertyFile fpf2 = new FrameworkPropertyFile(testPropUri, options);
+
+        Map<String, String> seen = new ConcurrentHashMap<>();
+        fpf1.watchPrefix((key, event, oldValue, newValue) -> seen.put(key, String.valueOf(newValue)), "journal.");
+        // make sure the monitor has seen the current journal before writing to it
+        fpf1.get("Test1");
+
+        fpf2.set("journal.key", "value1");
+        await().atMost(Duration.FIVE_SECONDS).until(() -> "value1".equals(seen.get("journal.key")));
+
+        fpf1.shutdown();
+        fpf1.destroy();
+        fpf2.destroy();
+    }
+
+    /**
+     * <p>
+     * This tests that writes from many threads are all persisted when they are
+     * group committed.
+     * </p>
+     */
+    @Test
+    public void testGroupCommitPersistsAllWrites() throws Exception {
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testPropUri,
+                new FrameworkPropertyFileOptions().setGroupCommitWindowMillisecs(2));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String prefix = "group.thread" + i + ".";
+            threads.add(new Thread(() -> {
+                try {
+                    for (int j = 0; j < 10; j++) {
+                        fpf.set(prefix + j, Integer.toString(j));
+                    }
+                } catch (FrameworkPropertyFileException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        fpf.destroy();
+
+        FrameworkPropertyFile reloaded = new FrameworkPropertyFile(testPropUri);
+        assertEquals("Writes were lost", 100, reloaded.getPrefix("group.").size());
+        assertEquals("9", reloaded.get("group.thread3.9"));
+        reloaded.destroy();
+    }
+
+    /**
+     * <p>
+     * This tests that atomic sets from many threads each see the changes made
+     * before them in the same group commit, so no increment is lost.
+     * </p>
+     */
+    @Test
+    public void testGroupCommitAtomicSetsAreOrdered() throws Exception {
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testPropUri,
+                new FrameworkPropertyFileOptions().setGroupCommitWindowMillisecs(2));
+        fpf.set("group.counter", "0");
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int j = 0; j < 10; j++) {
+                        while (true) {
+                            String current = fpf.get("group.counter");
+                            String next = Integer.toString(Integer.parseInt(current) + 1);
+                            if (fpf.setAtomic("group.counter", current, next)) {
+                                break;
+                            }
+                        }
+                    }
+                } catch (FrameworkPropertyFileException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals("Increments were lost", "80", fpf.get("group.counter"));
+        fpf.destroy();
+    }
+
+    /**
+     * <p>
+     * This tests that only the watches matching a changed key are notified, for a
+     * mix of key and overlapping prefix watches.
+     * </p>
+     */
+    @Test
+    public void testWatchesOnlySeeMatchingKeys() throws Exception {
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testPropUri);
+
+        List<String> zosSeen = new ArrayList<>();
+        List<String> imageSeen = new ArrayList<>();
+        List<String> zosmfSeen = new ArrayList<>();
+        UUID zosWatch = fpf.watchPrefix((key, event, oldValue, newValue) -> zosSeen.add(key + "=" + event), "zos.");
+        fpf.watch((key, event, oldValue, newValue) -> imageSeen.add(key + "=" + event), "zos.image");
+        fpf.watchPrefix((key, event, oldValue, newValue) -> zosmfSeen.add(key + "=" + event), "zosmf.");
+
+        fpf.set("zos.image", "IMG1");
+        fpf.set("zos.image.name", "IMG1");
+        fpf.set("zosmf.port", "443");
+        fpf.delete("zos.image");
+
+        assertEquals(Arrays.asList("zos.image=NEW", "zos.image.name=NEW", "zos.image=DELETE"), zosSeen);
+        assertEquals(Arrays.asList("zos.image=NEW", "zos.image=DELETE"), imageSeen);
+        assertEquals(Arrays.asList("zosmf.port=NEW"), zosmfSeen);
+
+        fpf.unwatch(zosWatch);
+        fpf.set("zos.image.name", "IMG2");
+        assertEquals("Watch was not removed", 3, zosSeen.size());
+
+        fpf.shutdown();
+        fpf.destroy();
+    }
+
+    /**
+     * <p>
+     * This tests that a watcher can write to the file while another thread is
+     * leading a group commit, without the two threads waiting on each other.
+     * </p>
+     */
+    @Test
+    public void testWatcherWritesWhileGroupCommitting() throws Exception {
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testPropUri,
+                new FrameworkPropertyFileOptions().setGroupCommitWindowMillisecs(500));
+        fpf.watch((key, event, oldValue, newValue) -> {
+            try {
+                fpf.set("group.echo", newValue);
+            } catch (FrameworkPropertyFileException e) {
+                throw new RuntimeException(e);
+            }
+        }, "group.trigger");
+
+        Thread leader = new Thread(() -> {
+            try {
+                fpf.set("group.leader", "led");
+            } catch (FrameworkPropertyFileException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        leader.start();
+        Thread.sleep(100);
+
+        // Changed by another FPF, so the watcher is driven by the file change
+        FrameworkPropertyFile other = new FrameworkPropertyFile(testPropUri);
+        other.set("group.trigger", "pulled");
+        Thread notifier = new Thread(() -> fpf.onFileChange(testProp));
+        notifier.start();
+
+        notifier.join(10000);
+        leader.join(10000);
+        assertFalse("The watcher did not finish writing", notifier.isAlive());
+        assertFalse("The group commit leader did not finish writing", leader.isAlive());
+
+        fpf.shutdown();
+        fpf.destroy();
+        other.destroy();
+
+        FrameworkPropertyFile reloaded = new FrameworkPropertyFile(testPropUri);
+        assertEquals("pulled", reloaded.get("group.echo"));
+        assertEquals("led", reloaded.get("group.leader"));
+        reloaded.destroy();
+    }
+
     /**
      * <p>
      * This callable mehtod is used to detect changes to the file so the await()
@@ -6,16 +6,29 @@
 package test.rps;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
+import dev.galasa.framework.internal.dss.FpfDynamicStatusStore;
+import dev.galasa.framework.internal.dss.FrameworkDynamicStatusStoreService;
 import dev.galasa.framework.internal.rps.ResourceString;
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
 import dev.galasa.framework.spi.FrameworkResourcePoolingService;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.utils.DssUtils;
 import dev.galasa.framework.spi.InsufficientResourcesAvailableException;
 import dev.galasa.framework.spi.ResourcePoolingServiceException;
 
@@ -86,6 +99,206 @@ public class ResourcesPoolingServiceTest {
         }
     }
 
+    /**
+     * This test method checks resource names can be turned into their position in
+     * the definition and back.
+     * 
+     * @throws ResourcePoolingServiceException
+     */
+    @Test
+    public void testResourceIndexes() throws Exception {
+        ResourceString rs = new ResourceString("Hello{z}{9}Test");
+
+        String resource = rs.getFirstResource();
+        for (int i = 0; i < rs.getNumberOfCombinations(); i++) {
+            assertEquals("Unexpected resource at " + i, resource, rs.getResource(i));
+            assertEquals("Unexpected index of " + resource, i, rs.getIndex(resource));
+            if (i < rs.getNumberOfCombinations() - 1) {
+                resource = rs.getNextResource();
+            }
+        }
+
+        assertEquals("Name outside the definition", -1, rs.getIndex("Hello!0Test"));
+        assertEquals("Name of the wrong length", -1, rs.getIndex("Helloa0"));
+    }
+
+    /**
+     * This test method checks every name of a large definition is at the position
+     * getNextResource reaches it, and that random names are in the definition.
+     * 
+     * @throws ResourcePoolingServiceException
+     */
+    @Test
+    public void testLargeResourceStringIndexes() throws Exception {
+        ResourceString rs = new ResourceString("{0-9}{0-9}{0-9}{0-9}{A-Z}");
+        assertEquals("Unexpected number of combinations", 260000, rs.getNumberOfCombinations());
+
+        String resource = rs.getFirstResource();
+        for (int i = 0; i < rs.getNumberOfCombinations(); i++) {
+            if (!resource.equals(rs.getResource(i)) || rs.getIndex(resource) != i) {
+                fail("Unexpected resource " + resource + " at " + i);
+            }
+            if (i < rs.getNumberOfCombinations() - 1) {
+                resource = rs.getNextResource();
+            }
+        }
+        assertEquals("Unexpected last resource", "9999Z", resource);
+
+        for (int i = 0; i < 1000; i++) {
+            resource = rs.getRandomResource();
+            assertTrue("Random resource outside the definition " + resource, rs.getIndex(resource) >= 0);
+        }
+    }
+
+    /**
+     * This test method checks the resources in use are read from the DSS with one
+     * call, rather than one for each candidate.
+     */
+    @Test
+    public void testResourcePoolingObtainFromSnapshot() throws Exception {
+        Path dssFile = Files.createTempFile("galasa_dss_junit", ".properties");
+        FpfDynamicStatusStore dssStore = new FpfDynamicStatusStore(dssFile.toUri());
+        AtomicInteger gets = new AtomicInteger();
+        FrameworkDynamicStatusStoreService dss = new FrameworkDynamicStatusStoreService(null, dssStore, "test") {
+            @Override
+            public String get(String key) throws DynamicStatusStoreException {
+                if (key.startsWith("port.")) {
+                    gets.incrementAndGet();
+                }
+                return super.get(key);
+            }
+        };
+
+        try {
+            // *** All but 5 of the ports are in use
+            for (int i = 0; i < 995; i++) {
+                dss.put("port." + (1000 + i), "U1");
+            }
+
+            FrameworkResourcePoolingService frps = new FrameworkResourcePoolingService();
+            List<String> resources = frps.obtainResources(Collections.singletonList("1{9}{9}{9}"), null, 5, 5,
+                    dss, "port.");
+            assertEquals("Unexpected resources retrieved", Arrays.asList("1995", "1996", "1997", "1998", "1999"),
+                    resources);
+            assertEquals("Resources should not be checked one at a time", 0, gets.get());
+        } finally {
+            dssStore.shutdown();
+            Files.deleteIfExists(dssFile);
+        }
+    }
+
+    /**
+     * This test method checks runs start looking in different regions of a pool,
+     * that a run carries on from the last resource reserved in its region, and
+     * that runs in other regions are not moved on to the same resources.
+     */
+    @Test
+    public void testStripedResources() throws Exception {
+        Path dssFile = Files.createTempFile("galasa_dss_junit", ".properties");
+        FpfDynamicStatusStore dssStore = new FpfDynamicStatusStore(dssFile.toUri());
+        FrameworkDynamicStatusStoreService dss = new FrameworkDynamicStatusStoreService(null, dssStore, "test");
+        List<String> definitions = Collections.singletonList("{9}{9}{9}");
+
+        try {
+            // *** A run which starts in another region to U1
+            String otherRun = null;
+            for (int i = 2; otherRun == null; i++) {
+                if (!new FrameworkResourcePoolingService("U" + i).getLastAllocatedKey("port.")
+                        .equals(new FrameworkResourcePoolingService("U1").getLastAllocatedKey("port."))) {
+                    otherRun = "U" + i;
+                }
+            }
+
+            List<String> u1 = new FrameworkResourcePoolingService("U1").obtainResources(definitions, null, 1, 1, dss,
+                    "port.");
+            List<String> other = new FrameworkResourcePoolingService(otherRun).obtainResources(definitions, null, 1,
+                    1, dss, "port.");
+            assertTrue("Runs should start in different regions", !u1.equals(other));
+            assertEquals("A run should always start in the same region", u1,
+                    new FrameworkResourcePoolingService("U1").obtainResources(definitions, null, 1, 1, dss, "port."));
+
+            List<String> first = new FrameworkResourcePoolingService("U1").reserveResources(definitions, null, 2, 2,
+                    dss, "port.", "U1");
+            assertEquals("Unexpected first reservation", u1.get(0), first.get(0));
+
+            List<String> second = new FrameworkResourcePoolingService("U1").reserveResources(definitions, null, 1, 1,
+                    dss, "port.", "U1");
+            ResourceString rs = new ResourceString("{9}{9}{9}");
+            assertEquals("Should carry on just past the last allocated", rs.getIndex(first.get(1)) + 1,
+                    rs.getIndex(second.get(0)));
+
+            assertEquals("A run in another region should not follow U1", other,
+                    new FrameworkResourcePoolingService(otherRun).obtainResources(definitions, null, 1, 1, dss,
+                            "port."));
+        } finally {
+            dssStore.shutdown();
+            Files.deleteIfExists(dssFile);
+        }
+    }
+
+    /**
+     * This test method checks asking to reserve no resources reserves nothing.
+     */
+    @Test
+    public void testReserveNoResources() throws Exception {
+        Path dssFile = Files.createTempFile("galasa_dss_junit", ".properties");
+        FpfDynamicStatusStore dssStore = new FpfDynamicStatusStore(dssFile.toUri());
+        FrameworkDynamicStatusStoreService dss = new FrameworkDynamicStatusStoreService(null, dssStore, "test");
+
+        try {
+            List<String> resources = new FrameworkResourcePoolingService("U1")
+                    .reserveResources(Collections.singletonList("1{9}"), null, 0, 1, dss, "port.", "U1");
+            assertTrue("No resources should be reserved", resources.isEmpty());
+            assertNull("Last allocated should not be recorded",
+                    dss.get(new FrameworkResourcePoolingService("U1").getLastAllocatedKey("port.")));
+        } finally {
+            dssStore.shutdown();
+            Files.deleteIfExists(dssFile);
+        }
+    }
+
+    /**
+     * This test method checks resources are reserved together, and generated
+     * again if another run reserves one of them first.
+     */
+    @Test
+    public void testReserveResources() throws Exception {
+        Path dssFile = Files.createTempFile("galasa_dss_junit", ".properties");
+        FpfDynamicStatusStore dssStore = new FpfDynamicStatusStore(dssFile.toUri());
+        AtomicInteger attempts = new AtomicInteger();
+        FrameworkDynamicStatusStoreService dss = new FrameworkDynamicStatusStoreService(null, dssStore, "test") {
+            @Override
+            public void performActions(IDssAction... actions)
+                    throws DynamicStatusStoreException, DynamicStatusStoreMatchException {
+                if (attempts.incrementAndGet() == 1) {
+                    // *** Another run gets in between the generate and the reserve
+                    DssAdd add = (DssAdd) actions[1];
+                    super.put(add.getKey(), "U2");
+                }
+                super.performActions(actions);
+            }
+        };
+
+        try {
+            FrameworkResourcePoolingService frps = new FrameworkResourcePoolingService();
+            List<String> resources = frps.reserveResources(Collections.singletonList("1{9}"), null, 4, 2, dss,
+                    "port.", "U1");
+
+            assertEquals("Should have been generated again", 2, attempts.get());
+            assertEquals("Unexpected number of resources reserved", 4, resources.size());
+            for (String resource : resources) {
+                assertEquals("Resource not reserved", "U1", dss.get("port." + resource));
+            }
+            assertEquals("Other run's reservation lost", 5, dss.getPrefix("port.").size());
+            assertEquals("Collision not counted", 1, DssUtils.getShardedCounter(dss, "metrics.rps.collisions"));
+            assertEquals("Last allocated not recorded", resources.get(3),
+                    dss.get(frps.getLastAllocatedKey("port.")));
+        } finally {
+            dssStore.shutdown();
+            Files.deleteIfExists(dssFile);
+        }
+    }
+
     /**
      * This test method checks the most simple obtain resources method.
      * 
@@ -71,6 +71,7 @@ public class Launcher {
     private static final String     DRY_RUN_OPTION            = "dryrun";
     private static final String     SETUPECO_OPTION           = "setupeco";
     private static final String     VALIDATEECO_OPTION        = "validateeco";
+    private static final String     RASINDEX_OPTION           = "rasindex";
 
     private static final String     USER_HOME                 = "user.home";
 
@@ -100,6 +101,7 @@ public class Launcher {
     private boolean                 dryRun;
     private boolean                 setupEco;
     private boolean                 validateEco;
+    private boolean                 rasIndex;
 
     private Integer                 metrics;
     private Integer                 health;
@@ -189,6 +191,8 @@ public class Launcher {
                 felixFramework.runSetupEcosystem(bootstrapProperties, overridesProperties);
             } else if (validateEco) {
                 felixFramework.runValidateEcosystem(bootstrapProperties, overridesProperties);
+            } else if (rasIndex) {
+                felixFramework.runRasIndex(bootstrapProperties, overridesProperties, dryRun);
             }
 
         } catch (LauncherException e) {
@@ -263,6 +267,7 @@ public class Launcher {
         options.addOption(null, DRY_RUN_OPTION, false, "Perform a dry-run of the specified actions. Can be combined with \"" + FILE_OPTION_LONG + "\"");
         options.addOption(null, SETUPECO_OPTION, false, "Setup the Galasa Ecosystem");
         options.addOption(null, VALIDATEECO_OPTION, false, "Validate the Galasa Ecosystem");
+        options.addOption(null, RASINDEX_OPTION, false, "Rebuild the run index of the local RAS, or verify it with --" + DRY_RUN_OPTION);
         
 
         CommandLineParser parser = new DefaultParser();
@@ -307,6 +312,7 @@ public class Launcher {
         dryRun = commandLine.hasOption(DRY_RUN_OPTION);
         setupEco = commandLine.hasOption(SETUPECO_OPTION);
         validateEco = commandLine.hasOption(VALIDATEECO_OPTION);
+        rasIndex = commandLine.hasOption(RASINDEX_OPTION);
 
         if (testRun) {
             runName = commandLine.getOptionValue(RUN_OPTION);
@@ -362,6 +368,10 @@ public class Launcher {
             return;
         }
 
+        if (rasIndex) {
+            return;
+        }
+
         commandLineError(
                 "Error: Must select either --" + TEST_OPTION
                 		+ ", --" + RUN_OPTION
@@ -372,6 +382,7 @@ public class Launcher {
                 		+ ", --" + BUNDLE_OPTION
                         + ", --" + SETUPECO_OPTION
                         + ", --" + VALIDATEECO_OPTION
+                        + ", --" + RASINDEX_OPTION
                         );
     }
     
@@ -571,6 +571,57 @@ public class FelixFramework {
 
     }
 
+    /**
+     * Rebuild or verify the run index of the local RAS
+     * 
+     * @param boostrapProperties  the bootstrap properties
+     * @param overridesProperties the override properties
+     * @param verifyOnly          only report where the index is out of date
+     * @throws LauncherException
+     */
+    public void runRasIndex(Properties boostrapProperties, Properties overridesProperties, boolean verifyOnly) throws LauncherException {
+
+        // Get the framework bundle
+        Bundle frameWorkBundle = getBundle("dev.galasa.framework");
+
+        // Get the dev.galasa.framework.RasIndex class service
+        String classString = "dev.galasa.framework.RasIndex";
+        String filterString = "(" + Constants.OBJECTCLASS + "=" + classString + ")";
+
+        ServiceReference<?>[] serviceReferences;
+        try {
+            serviceReferences = frameWorkBundle.getBundleContext().getServiceReferences(classString, filterString);
+        } catch (InvalidSyntaxException e) {
+            throw new LauncherException("Unable to get framework service reference", e);
+        }
+        if (serviceReferences == null || serviceReferences.length != 1) {
+            throw new LauncherException("Unable to get single reference to RasIndex service: "
+                    + ((serviceReferences == null) ? 0 : serviceReferences.length) + " service(s) returned");
+        }
+
+        Object service = frameWorkBundle.getBundleContext().getService(serviceReferences[0]);
+        if (service == null) {
+            throw new LauncherException("Unable to get RasIndex service");
+        }
+
+        // Get the dev.galasa.framework.RasIndex#setup() method
+        Method runSetupMethod;
+        try {
+            runSetupMethod = service.getClass().getMethod("setup", Properties.class, Properties.class, boolean.class);
+        } catch (NoSuchMethodException | SecurityException e) {
+            throw new LauncherException("Unable to get Framework RasIndex setup method", e);
+        }
+
+        // Invoke the setup method
+        logger.debug("Invoking RasIndex setup()");
+        try {
+            runSetupMethod.invoke(service, boostrapProperties, overridesProperties, verifyOnly);
+        } catch (InvocationTargetException | IllegalAccessException | IllegalArgumentException e) {
+            throw new LauncherException(e.getCause());
+        }
+
+    }
+
     public void runWebApiServer(Properties boostrapProperties, Properties overridesProperties, List<String> bundles,
             Integer metrics, Integer health) throws LauncherException {
 